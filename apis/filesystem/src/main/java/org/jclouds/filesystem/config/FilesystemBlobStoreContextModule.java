@@ -34,6 +34,7 @@ import org.jclouds.filesystem.strategy.internal.FilesystemStorageStrategyImpl;
 import org.jclouds.filesystem.util.internal.FileSystemBlobUtilsImpl;
 
 import com.google.inject.AbstractModule;
+import com.google.inject.Scopes;
 
 public class FilesystemBlobStoreContextModule extends AbstractModule {
 
@@ -46,7 +47,8 @@ public class FilesystemBlobStoreContextModule extends AbstractModule {
       } else {
          bind(ConsistencyModel.class).toInstance(ConsistencyModel.STRICT);
       }
-      bind(LocalStorageStrategy.class).to(FilesystemStorageStrategyImpl.class);
+      // singleton so that the blob store and blob utils share the metadata index
+      bind(LocalStorageStrategy.class).to(FilesystemStorageStrategyImpl.class).in(Scopes.SINGLETON);
       bind(BlobUtils.class).to(FileSystemBlobUtilsImpl.class);
       bind(FilesystemBlobKeyValidator.class).to(FilesystemBlobKeyValidatorImpl.class);
       bind(FilesystemContainerNameValidator.class).to(FilesystemContainerNameValidatorImpl.class);
@@ -27,6 +27,22 @@ public final class FilesystemConstants {
     /** Specify if the Content-Type of a file should be autodetected if it is not set */
     public static final String PROPERTY_AUTO_DETECT_CONTENT_TYPE = "jclouds.filesystem.auto-detect-content-type";
 
+    /**
+     * Specify if blob metadata should be kept in a sorted in-memory index per container. The index is built on the
+     * first listing and then maintained by put and remove, so it must not be enabled when other processes modify the
+     * base directory.
+     */
+    public static final String PROPERTY_METADATA_INDEX = "jclouds.filesystem.metadata-index";
+
+    /**
+     * Specify a directory, outside the base directory, where the metadata written by put is also recorded in a log per
+     * container, so that get reads it from memory instead of the extended attributes, or instead of hashing the file
+     * when extended attributes are unsupported. Recorded metadata is only used while the size and modification time of
+     * the file are unchanged. Contexts with different base directories may share it. Empty by default, which
+     * disables it.
+     */
+    public static final String PROPERTY_METADATA_STORE = "jclouds.filesystem.metadata-store";
+
     private FilesystemConstants() {
         throw new AssertionError("intentionally unimplemented");
     }
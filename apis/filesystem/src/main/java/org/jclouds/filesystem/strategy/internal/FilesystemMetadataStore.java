@@ -0,0 +1,367 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.filesystem.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.jclouds.blobstore.domain.Tier;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.io.CountingInputStream;
+
+/**
+ * Keeps the metadata of the blobs of each container in an append-only log
+ * under a directory of its own, with an in-memory index loaded on first use, so that
+ * reading the metadata of a blob costs one lookup and one {@code stat} instead
+ * of reading every extended attribute, or hashing the whole file when
+ * extended attributes are unsupported.
+ * <p>
+ * The store is a cache of what put wrote: an entry is only used while the
+ * size and modification time of the file match the ones recorded, and logs
+ * are compacted once most of their records are superseded. Logs are named
+ * after the container and a hash of the base directory, so that stores of
+ * different base directories can share the same directory.
+ */
+final class FilesystemMetadataStore {
+
+   private static final byte PUT = 1;
+   private static final byte REMOVE = 2;
+   private static final int MIN_RECORDS_TO_COMPACT = 1024;
+   private static final int MAX_STRING_LENGTH = 1 << 20;
+
+   /** The metadata recorded for a blob. */
+   static final class Entry {
+      final long size;
+      final long lastModified;
+      final HashCode md5;
+      final String cacheControl;
+      final String contentDisposition;
+      final String contentEncoding;
+      final String contentLanguage;
+      final String contentType;
+      final Date expires;
+      final Tier tier;
+      final Map<String, String> userMetadata;
+
+      Entry(long size, long lastModified, HashCode md5, String cacheControl, String contentDisposition,
+            String contentEncoding, String contentLanguage, String contentType, Date expires, Tier tier,
+            Map<String, String> userMetadata) {
+         this.size = size;
+         this.lastModified = lastModified;
+         this.md5 = checkNotNull(md5, "md5");
+         this.cacheControl = cacheControl;
+         this.contentDisposition = contentDisposition;
+         this.contentEncoding = contentEncoding;
+         this.contentLanguage = contentLanguage;
+         this.contentType = contentType;
+         this.expires = expires;
+         this.tier = checkNotNull(tier, "tier");
+         this.userMetadata = ImmutableMap.copyOf(userMetadata);
+      }
+
+      boolean describes(long fileLastModified, long fileSize) {
+         return fileLastModified != 0 && fileLastModified == lastModified && fileSize == size;
+      }
+   }
+
+   private final File directory;
+   private final String baseDirectoryHash;
+   private final ConcurrentMap<String, ContainerLog> logs = new ConcurrentHashMap<String, ContainerLog>();
+
+   FilesystemMetadataStore(File directory, String baseDirectory) {
+      this.directory = checkNotNull(directory, "directory");
+      this.baseDirectoryHash = Hashing.sha256()
+            .hashString(new File(checkNotNull(baseDirectory, "baseDirectory")).getAbsoluteFile().toPath().normalize()
+                  .toString(), StandardCharsets.UTF_8)
+            .toString().substring(0, 16);
+   }
+
+   /**
+    * Returns the recorded metadata of a blob, or null when none was recorded
+    * or its file no longer has the recorded modification time and size.
+    */
+   Entry get(String container, String key, long fileLastModified, long fileSize) {
+      Entry entry = log(container).entries.get(key);
+      return entry != null && entry.describes(fileLastModified, fileSize) ? entry : null;
+   }
+
+   /**
+    * Records the metadata of a blob. The entry is kept in memory even when
+    * the log cannot be written.
+    */
+   void put(String container, String key, Entry entry) throws IOException {
+      while (true) {
+         ContainerLog log = log(container);
+         synchronized (log) {
+            if (log.invalidated) {
+               continue;
+            }
+            log.entries.put(key, entry);
+            log.append(putRecord(key, entry));
+            return;
+         }
+      }
+   }
+
+   void remove(String container, String key) throws IOException {
+      while (true) {
+         ContainerLog log = log(container);
+         synchronized (log) {
+            if (log.invalidated) {
+               continue;
+            }
+            if (log.entries.remove(key) != null) {
+               log.append(removeRecord(key));
+            }
+            return;
+         }
+      }
+   }
+
+   /** Forgets the metadata of every blob of a container. */
+   void invalidate(String container) {
+      // under the lock of log() so that no new log loads the file before it is deleted
+      synchronized (logs) {
+         ContainerLog log = logs.remove(container);
+         if (log != null) {
+            synchronized (log) {
+               log.invalidated = true;
+               log.entries.clear();
+            }
+         }
+         logFile(container).delete();
+      }
+   }
+
+   private ContainerLog log(String container) {
+      ContainerLog log = logs.get(container);
+      if (log == null) {
+         synchronized (logs) {
+            log = logs.get(container);
+            if (log == null) {
+               log = new ContainerLog(logFile(container));
+               log.load();
+               logs.put(container, log);
+            }
+         }
+      }
+      return log;
+   }
+
+   private File logFile(String container) {
+      return new File(directory, container + "-" + baseDirectoryHash + ".log");
+   }
+
+   private final class ContainerLog {
+      private final File file;
+      private final Map<String, Entry> entries = Maps.newConcurrentMap();
+      private int records;
+      /** Set once removed by invalidate, after which it must no longer be written. */
+      private boolean invalidated;
+
+      ContainerLog(File file) {
+         this.file = file;
+      }
+
+      void load() {
+         if (!file.isFile()) {
+            return;
+         }
+         long valid = 0;
+         try {
+            CountingInputStream counting = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+            DataInputStream in = new DataInputStream(counting);
+            try {
+               while (true) {
+                  int op = in.read();
+                  if (op < 0) {
+                     break;
+                  }
+                  String key = readString(in);
+                  if (op == PUT) {
+                     entries.put(key, readEntry(in));
+                  } else if (op == REMOVE) {
+                     entries.remove(key);
+                  } else {
+                     throw new IOException("unknown record type " + op);
+                  }
+                  records++;
+                  valid = counting.getCount();
+               }
+            } finally {
+               in.close();
+            }
+         } catch (IOException e) {
+            // drops a torn last record from an interrupted append, and anything after a corrupt record
+            truncate(valid);
+         }
+      }
+
+      void append(byte[] record) throws IOException {
+         records++;
+         if (records > MIN_RECORDS_TO_COMPACT && records > 2 * entries.size()) {
+            compact();
+         } else {
+            directory.mkdirs();
+            java.nio.file.Files.write(file.toPath(), record, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+         }
+      }
+
+      private void compact() throws IOException {
+         File temp = new File(file.getPath() + ".tmp");
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+            out.write(putRecord(entry.getKey(), entry.getValue()));
+         }
+         java.nio.file.Files.write(temp.toPath(), out.toByteArray());
+         java.nio.file.Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+               StandardCopyOption.ATOMIC_MOVE);
+         records = entries.size();
+      }
+
+      private void truncate(long length) {
+         try {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+               raf.setLength(length);
+            } finally {
+               raf.close();
+            }
+         } catch (IOException e) {
+            // appending after the corrupt record loses the appended records on the next load
+            file.delete();
+         }
+      }
+   }
+
+   private static byte[] putRecord(String key, Entry entry) {
+      try {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         DataOutputStream out = new DataOutputStream(bytes);
+         out.writeByte(PUT);
+         writeString(out, key);
+         out.writeLong(entry.size);
+         out.writeLong(entry.lastModified);
+         byte[] md5 = entry.md5.asBytes();
+         out.writeInt(md5.length);
+         out.write(md5);
+         writeString(out, entry.cacheControl);
+         writeString(out, entry.contentDisposition);
+         writeString(out, entry.contentEncoding);
+         writeString(out, entry.contentLanguage);
+         writeString(out, entry.contentType);
+         out.writeLong(entry.expires != null ? entry.expires.getTime() : Long.MIN_VALUE);
+         writeString(out, entry.tier.name());
+         out.writeInt(entry.userMetadata.size());
+         for (Map.Entry<String, String> metadata : entry.userMetadata.entrySet()) {
+            writeString(out, metadata.getKey());
+            writeString(out, metadata.getValue());
+         }
+         out.flush();
+         return bytes.toByteArray();
+      } catch (IOException e) {
+         throw new AssertionError(e);
+      }
+   }
+
+   private static byte[] removeRecord(String key) {
+      try {
+         ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+         DataOutputStream out = new DataOutputStream(bytes);
+         out.writeByte(REMOVE);
+         writeString(out, key);
+         out.flush();
+         return bytes.toByteArray();
+      } catch (IOException e) {
+         throw new AssertionError(e);
+      }
+   }
+
+   private static Entry readEntry(DataInputStream in) throws IOException {
+      long size = in.readLong();
+      long lastModified = in.readLong();
+      int md5Length = in.readInt();
+      if (md5Length != 16) {
+         throw new IOException("corrupt record, md5 length " + md5Length);
+      }
+      byte[] md5 = new byte[md5Length];
+      in.readFully(md5);
+      String cacheControl = readString(in);
+      String contentDisposition = readString(in);
+      String contentEncoding = readString(in);
+      String contentLanguage = readString(in);
+      String contentType = readString(in);
+      long expires = in.readLong();
+      Tier tier;
+      try {
+         tier = Tier.valueOf(String.valueOf(readString(in)));
+      } catch (IllegalArgumentException e) {
+         throw new IOException("corrupt record, tier", e);
+      }
+      int userMetadataSize = in.readInt();
+      ImmutableMap.Builder<String, String> userMetadata = ImmutableMap.builder();
+      for (int i = 0; i < userMetadataSize; i++) {
+         userMetadata.put(readString(in), readString(in));
+      }
+      return new Entry(size, lastModified, HashCode.fromBytes(md5), cacheControl, contentDisposition,
+            contentEncoding, contentLanguage, contentType, expires != Long.MIN_VALUE ? new Date(expires) : null, tier,
+            userMetadata.build());
+   }
+
+   /** Writes a length-prefixed UTF-8 string, with a negative length for null. */
+   private static void writeString(DataOutputStream out, String value) throws IOException {
+      if (value == null) {
+         out.writeInt(-1);
+         return;
+      }
+      byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+      out.writeInt(bytes.length);
+      out.write(bytes);
+   }
+
+   private static String readString(DataInputStream in) throws IOException {
+      int length = in.readInt();
+      if (length < 0) {
+         return null;
+      }
+      if (length > MAX_STRING_LENGTH) {
+         throw new IOException("corrupt record, string length " + length);
+      }
+      byte[] bytes = new byte[length];
+      in.readFully(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+   }
+}
@@ -35,19 +35,27 @@ import static org.jclouds.util.Closeables2.closeQuietly;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.AccessDeniedException;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.attribute.PosixFilePermission;
 import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
@@ -60,7 +68,9 @@ import org.jclouds.blobstore.LocalStorageStrategy;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.BlobBuilder;
+import org.jclouds.blobstore.domain.BlobMetadata;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
@@ -69,13 +79,16 @@ import org.jclouds.blobstore.domain.internal.MutableStorageMetadataImpl;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.reference.BlobStoreConstants;
+import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.domain.Location;
 import org.jclouds.filesystem.predicates.validators.FilesystemBlobKeyValidator;
 import org.jclouds.filesystem.predicates.validators.FilesystemContainerNameValidator;
 import org.jclouds.filesystem.reference.FilesystemConstants;
+import org.jclouds.filesystem.util.FileChannelByteSource;
 import org.jclouds.filesystem.util.Utils;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
+import org.jclouds.io.payloads.HashingPayload;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.annotations.ParamValidators;
@@ -87,10 +100,10 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
-import com.google.common.hash.HashingInputStream;
 import com.google.common.io.ByteSource;
 import com.google.common.io.Files;
 import com.google.common.primitives.Longs;
@@ -100,7 +113,12 @@ import com.google.common.primitives.Longs;
  * on the file system. Content metadata and user attributes are stored in
  * extended attributes if the file system supports them. Directory blobs
  * (blobs that end with a /) cannot have content, but otherwise appear in
- * LIST like normal blobs.
+ * LIST like normal blobs. When {@link FilesystemConstants#PROPERTY_METADATA_INDEX}
+ * is set, blob metadata is additionally kept in a sorted in-memory index per
+ * container which put and remove keep up to date. When
+ * {@link FilesystemConstants#PROPERTY_METADATA_STORE} is set, the metadata
+ * written by put is also recorded in a log per container, which get reads
+ * instead of the extended attributes while the file is unchanged.
  */
 public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
@@ -125,14 +143,48 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
    protected final FilesystemContainerNameValidator filesystemContainerNameValidator;
    protected final FilesystemBlobKeyValidator filesystemBlobKeyValidator;
    private final Supplier<Location> defaultLocation;
+   private final boolean indexMetadata;
+   // indexes kept current by puts and removes, including those still being scanned
+   private final ConcurrentMap<String, ConcurrentNavigableMap<String, MutableBlobMetadata>> metadataIndexes =
+         new ConcurrentHashMap<String, ConcurrentNavigableMap<String, MutableBlobMetadata>>();
+   // indexes whose scan completed, the only ones handed out to listings
+   private final ConcurrentMap<String, ConcurrentNavigableMap<String, MutableBlobMetadata>> loadedMetadataIndexes =
+         new ConcurrentHashMap<String, ConcurrentNavigableMap<String, MutableBlobMetadata>>();
+   private final FilesystemMetadataStore metadataStore;
+
+   protected FilesystemStorageStrategyImpl(Provider<BlobBuilder> blobBuilders,
+         String baseDir,
+         boolean autoDetectContentType,
+         FilesystemContainerNameValidator filesystemContainerNameValidator,
+         FilesystemBlobKeyValidator filesystemBlobKeyValidator,
+         Supplier<Location> defaultLocation) {
+      this(blobBuilders, baseDir, autoDetectContentType, false, filesystemContainerNameValidator,
+            filesystemBlobKeyValidator, defaultLocation);
+   }
+
+   protected FilesystemStorageStrategyImpl(Provider<BlobBuilder> blobBuilders,
+         String baseDir,
+         boolean autoDetectContentType,
+         boolean indexMetadata,
+         FilesystemContainerNameValidator filesystemContainerNameValidator,
+         FilesystemBlobKeyValidator filesystemBlobKeyValidator,
+         Supplier<Location> defaultLocation) {
+      this(blobBuilders, baseDir, autoDetectContentType, indexMetadata, "", filesystemContainerNameValidator,
+            filesystemBlobKeyValidator, defaultLocation);
+   }
 
    @Inject
    protected FilesystemStorageStrategyImpl(Provider<BlobBuilder> blobBuilders,
          @Named(FilesystemConstants.PROPERTY_BASEDIR) String baseDir,
          @Named(FilesystemConstants.PROPERTY_AUTO_DETECT_CONTENT_TYPE) boolean autoDetectContentType,
+         @Named(FilesystemConstants.PROPERTY_METADATA_INDEX) boolean indexMetadata,
+         @Named(FilesystemConstants.PROPERTY_METADATA_STORE) String metadataStoreDir,
          FilesystemContainerNameValidator filesystemContainerNameValidator,
          FilesystemBlobKeyValidator filesystemBlobKeyValidator,
          Supplier<Location> defaultLocation) {
+      this.indexMetadata = indexMetadata;
+      this.metadataStore = isNullOrEmpty(metadataStoreDir) ? null
+            : new FilesystemMetadataStore(new File(metadataStoreDir), baseDir);
       this.blobBuilders = checkNotNull(blobBuilders, "filesystem storage strategy blobBuilders");
       this.baseDirectory = checkNotNull(baseDir, "filesystem storage strategy base directory");
       this.autoDetectContentType = autoDetectContentType;
@@ -263,6 +315,11 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       } catch (IOException e) {
          logger.error(e, "An error occurred while clearing container %s", container);
          Throwables.propagate(e);
+      } finally {
+         invalidateMetadataIndex(container);
+         if (metadataStore != null && options.getDir() == null && options.isRecursive()) {
+            metadataStore.invalidate(container);
+         }
       }
    }
 
@@ -326,12 +383,52 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       return blobNames;
    }
 
+   @Override
+   public NavigableMap<String, ? extends MutableBlobMetadata> getBlobMetadataInsideContainer(String container)
+         throws IOException {
+      filesystemContainerNameValidator.validate(container);
+      if (!indexMetadata) {
+         return Maps.unmodifiableNavigableMap(loadBlobMetadata(container,
+               new ConcurrentSkipListMap<String, MutableBlobMetadata>()));
+      }
+      ConcurrentNavigableMap<String, MutableBlobMetadata> index = loadedMetadataIndexes.get(container);
+      if (index == null) {
+         // concurrent listings wait here for the scan instead of reading a partial index
+         synchronized (metadataIndexes) {
+            index = loadedMetadataIndexes.get(container);
+            if (index == null) {
+               // register before scanning so that concurrent puts and removes are not lost
+               index = new ConcurrentSkipListMap<String, MutableBlobMetadata>();
+               metadataIndexes.put(container, index);
+               try {
+                  loadBlobMetadata(container, index);
+               } catch (IOException e) {
+                  metadataIndexes.remove(container, index);
+                  throw e;
+               } catch (RuntimeException e) {
+                  metadataIndexes.remove(container, index);
+                  throw e;
+               }
+               loadedMetadataIndexes.put(container, index);
+               if (metadataIndexes.get(container) != index) {
+                  // invalidated during the scan, so puts and removes no longer reach it
+                  loadedMetadataIndexes.remove(container, index);
+               }
+            }
+         }
+      }
+      return Maps.unmodifiableNavigableMap(index);
+   }
+
    @Override
    public Blob getBlob(final String container, final String key) {
       BlobBuilder builder = blobBuilders.get();
       builder.name(key);
       File file = getFileForBlobKey(container, key);
+      long lastModified = file.lastModified();
+      long size = file.length();
       ByteSource byteSource;
+      FilesystemMetadataStore.Entry recorded = null;
 
       if (getDirectoryBlobSuffix(key) != null) {
          if (!file.isDirectory()) {
@@ -344,7 +441,10 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          logger.debug("%s - %s is a directory", container, key);
          byteSource = ByteSource.empty();
       } else {
-         byteSource = Files.asByteSource(file);
+         byteSource = new FileChannelByteSource(file);
+         if (metadataStore != null) {
+            recorded = metadataStore.get(container, key, lastModified, size);
+         }
       }
       try {
          String cacheControl = null;
@@ -357,8 +457,24 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          Tier tier = Tier.STANDARD;
          ImmutableMap.Builder<String, String> userMetadata = ImmutableMap.builder();
 
-         UserDefinedFileAttributeView view = getUserDefinedFileAttributeView(file.toPath());
-         if (view != null) {
+         UserDefinedFileAttributeView view = recorded == null ? getUserDefinedFileAttributeView(file.toPath()) : null;
+         if (recorded != null) {
+            contentType = recorded.contentType;
+            if (contentType == null && autoDetectContentType) {
+               contentType = probeContentType(file.toPath());
+            }
+            builder.payload(byteSource)
+               .cacheControl(recorded.cacheControl)
+               .contentDisposition(recorded.contentDisposition)
+               .contentEncoding(recorded.contentEncoding)
+               .contentLanguage(recorded.contentLanguage)
+               .contentLength(recorded.size)
+               .contentMD5(recorded.md5)
+               .contentType(contentType)
+               .expires(recorded.expires)
+               .tier(recorded.tier)
+               .userMetadata(recorded.userMetadata);
+         } else if (view != null) {
             try {
                Set<String> attributes = ImmutableSet.copyOf(view.list());
 
@@ -419,10 +535,16 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       }
       Blob blob = builder.build();
       blob.getMetadata().setContainer(container);
-      blob.getMetadata().setLastModified(new Date(file.lastModified()));
-      blob.getMetadata().setSize(file.length());
-      if (blob.getPayload().getContentMetadata().getContentMD5() != null)
-         blob.getMetadata().setETag(base16().lowerCase().encode(blob.getPayload().getContentMetadata().getContentMD5()));
+      blob.getMetadata().setLastModified(new Date(lastModified));
+      blob.getMetadata().setSize(size);
+      HashCode md5 = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
+      if (md5 != null) {
+         blob.getMetadata().setETag(base16().lowerCase().encode(md5.asBytes()));
+         if (metadataStore != null && recorded == null && getDirectoryBlobSuffix(key) == null) {
+            // stats taken before reading the metadata make the entry stale if the file changed meanwhile
+            recordMetadata(container, key, blob.getMetadata(), md5, lastModified, size);
+         }
+      }
       return blob;
    }
 
@@ -471,6 +593,7 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
          logger.warn("xattr not supported on %s", blobKey);
       }
 
+      updateMetadataIndex(containerName, blobKey);
       return base16().lowerCase().encode(DIRECTORY_MD5);
    }
 
@@ -488,17 +611,34 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       String tmpBlobName = blobKey + "-" + UUID.randomUUID();
       File tmpFile = getFileForBlobKey(containerName, tmpBlobName);
       Path tmpPath = tmpFile.toPath();
-      HashingInputStream his = null;
+      InputStream input = null;
       try {
          Files.createParentDirs(tmpFile);
-         his = new HashingInputStream(Hashing.md5(), payload.openStream());
-         long actualSize = Files.asByteSink(tmpFile).writeFrom(his);
+         long actualSize;
+         HashCode actualHashCode;
+         FileChannelByteSource fileSource = asFileChannelByteSource(payload);
+         if (fileSource != null) {
+            // local files are copied by the operating system and hashed from the page cache
+            FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE,
+                  StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE, StandardOpenOption.READ);
+            try {
+               actualSize = fileSource.transferTo(channel);
+               actualHashCode = FileChannelByteSource.md5(channel, 0, actualSize);
+            } finally {
+               channel.close();
+            }
+         } else {
+            // hashes the bytes written, even when the payload was hashed by an earlier read
+            HashingPayload written = new HashingPayload(payload, Hashing.md5());
+            input = written.openStream();
+            actualSize = Files.asByteSink(tmpFile).writeFrom(input);
+            actualHashCode = written.getMD5();
+         }
          Long expectedSize = blob.getMetadata().getContentMetadata().getContentLength();
          if (expectedSize != null && actualSize != expectedSize) {
             throw new IOException("Content-Length mismatch, actual: " + actualSize +
                   " expected: " + expectedSize);
          }
-         HashCode actualHashCode = his.hash();
          HashCode expectedHashCode = payload.getContentMetadata().getContentMD5AsHashCode();
          if (expectedHashCode != null && !actualHashCode.equals(expectedHashCode)) {
             throw new IOException("MD5 hash code mismatch, actual: " + actualHashCode +
@@ -522,10 +662,15 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
          setBlobAccess(containerName, tmpBlobName, BlobAccess.PRIVATE);
 
+         long lastModified = tmpFile.lastModified();
          if (!tmpFile.renameTo(outputFile)) {
             throw new IOException("Could not rename file " + tmpFile + " to " + outputFile);
          }
          tmpFile = null;
+         if (metadataStore != null) {
+            recordMetadata(containerName, blobKey, blob.getMetadata(), actualHashCode, lastModified, actualSize);
+         }
+         updateMetadataIndex(containerName, blobKey);
 
          return base16().lowerCase().encode(actualHashCode.asBytes());
       } finally {
@@ -536,13 +681,27 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
                logger.debug("Could not delete %s: %s", tmpFile, e);
             }
          }
-         closeQuietly(his);
+         closeQuietly(input);
          if (payload != null) {
             payload.release();
          }
       }
    }
 
+   /**
+    * Returns the payload as a {@link FileChannelByteSource} when it is backed
+    * by a local file, or null.
+    */
+   private static FileChannelByteSource asFileChannelByteSource(Payload payload) {
+      Object content = payload.getRawContent();
+      if (content instanceof FileChannelByteSource) {
+         return (FileChannelByteSource) content;
+      } else if (content instanceof File && ((File) content).isFile()) {
+         return new FileChannelByteSource((File) content);
+      }
+      return null;
+   }
+
    @Override
    public void removeBlob(final String container, final String blobKey) {
       filesystemContainerNameValidator.validate(container);
@@ -573,6 +732,23 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       // now examine if the key of the blob is a complex key (with a directory structure)
       // and eventually remove empty directory
       removeDirectoriesTreeOfBlobKey(container, blobKey);
+
+      if (metadataStore != null && getDirectoryBlobSuffix(blobKey) == null) {
+         try {
+            metadataStore.remove(container, blobKey);
+         } catch (IOException e) {
+            logger.debug("Could not record removal of %s from %s: %s", blobKey, container, e);
+         }
+      }
+
+      Map<String, MutableBlobMetadata> index = metadataIndexes.get(container);
+      if (index != null) {
+         if (getDirectoryBlobSuffix(blobKey) != null && !blobKey.endsWith(BlobStoreConstants.DIRECTORY_BLOB_SUFFIX)) {
+            invalidateMetadataIndex(container);
+         } else {
+            index.remove(blobKey);
+         }
+      }
    }
 
    @Override
@@ -688,6 +864,11 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
       } catch (IOException ex) {
          logger.error("An error occurred removing directory %s.", fullDirPath);
          Throwables.propagate(ex);
+      } finally {
+         invalidateMetadataIndex(container);
+         if (metadataStore != null && directory == null) {
+            metadataStore.invalidate(container);
+         }
       }
    }
 
@@ -702,6 +883,73 @@ public class FilesystemStorageStrategyImpl implements LocalStorageStrategy {
 
    // ---------------------------------------------------------- Private methods
 
+   /**
+    * Loads the metadata of every blob inside a container into the given map. Existing entries win since they
+    * were written by a concurrent put after the scan started, and blobs removed since they were read are dropped.
+    */
+   private ConcurrentNavigableMap<String, MutableBlobMetadata> loadBlobMetadata(String container,
+         ConcurrentNavigableMap<String, MutableBlobMetadata> index) throws IOException {
+      for (String key : getBlobKeysInsideContainer(container)) {
+         // ignore folders
+         if (!blobExists(container, key)) {
+            continue;
+         }
+         logger.debug("Opening blob in container: %s - %s", container, key);
+         Blob blob = getBlob(container, key);
+         if (blob == null) {
+            continue;
+         }
+         MutableBlobMetadata metadata = BlobStoreUtils.copy(blob.getMetadata());
+         if (index.putIfAbsent(key, metadata) == null && !blobExists(container, key)) {
+            index.remove(key, metadata);
+         }
+      }
+      return index;
+   }
+
+   /** Refreshes the indexed metadata of a blob after it was written. */
+   private void updateMetadataIndex(String container, String key) {
+      Map<String, MutableBlobMetadata> index = metadataIndexes.get(container);
+      if (index == null) {
+         return;
+      }
+      if (getDirectoryBlobSuffix(key) != null && !key.endsWith(BlobStoreConstants.DIRECTORY_BLOB_SUFFIX)) {
+         // directory blobs are listed under their normalized name
+         invalidateMetadataIndex(container);
+         return;
+      }
+      Blob blob = getBlob(container, key);
+      if (blob == null) {
+         index.remove(key);
+      } else {
+         index.put(key, BlobStoreUtils.copy(blob.getMetadata()));
+      }
+   }
+
+   /** Records the metadata of a blob file with the given modification time and size. */
+   private void recordMetadata(String container, String key, BlobMetadata metadata, HashCode md5,
+         long lastModified, long size) {
+      ContentMetadata contentMetadata = metadata.getContentMetadata();
+      try {
+         metadataStore.put(container, key, new FilesystemMetadataStore.Entry(size, lastModified, md5,
+               contentMetadata.getCacheControl(), contentMetadata.getContentDisposition(),
+               contentMetadata.getContentEncoding(), contentMetadata.getContentLanguage(),
+               contentMetadata.getContentType(), contentMetadata.getExpires(), metadata.getTier(),
+               metadata.getUserMetadata()));
+      } catch (IOException e) {
+         logger.debug("Could not record metadata of %s in %s: %s", key, container, e);
+      }
+   }
+
+   /** Drops the index of a container so that it is rebuilt lazily, accepting container/directory paths. */
+   private void invalidateMetadataIndex(String container) {
+      int separator = container.indexOf('/');
+      String name = separator < 0 ? container : container.substring(0, separator);
+      // in this order, so that a scan completing meanwhile does not publish an index nobody updates
+      metadataIndexes.remove(name);
+      loadedMetadataIndexes.remove(name);
+   }
+
    private boolean buildPathAndChecksIfBlobExists(String... tokens) throws IOException {
       String path = buildPathStartingFromBaseDir(tokens);
       File file = new File(path);
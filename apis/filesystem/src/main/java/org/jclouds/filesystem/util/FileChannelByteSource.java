@@ -0,0 +1,196 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.filesystem.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import com.google.common.annotations.Beta;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.ByteSource;
+
+/**
+ * A {@link ByteSource} over a region of a file, read through a
+ * {@link FileChannel}. Slices position the channel instead of skipping the
+ * prefix, copies to files and channels use
+ * {@link FileChannel#transferTo}, and hashing reads the channel directly.
+ */
+@Beta
+public final class FileChannelByteSource extends ByteSource {
+
+   private static final int BUFFER_SIZE = 64 * 1024;
+
+   private final File file;
+   private final long offset;
+   private final long length;
+
+   /** A source over the whole file, whose size is read when it is used. */
+   public FileChannelByteSource(File file) {
+      this(file, 0, Long.MAX_VALUE);
+   }
+
+   private FileChannelByteSource(File file, long offset, long length) {
+      this.file = checkNotNull(file, "file");
+      this.offset = offset;
+      this.length = length;
+   }
+
+   public File getFile() {
+      return file;
+   }
+
+   /** Returns the position of the first byte of this source in the file. */
+   public long getOffset() {
+      return offset;
+   }
+
+   @Override
+   public ByteSource slice(long offset, long length) {
+      checkArgument(offset >= 0, "offset (%s) may not be negative", offset);
+      checkArgument(length >= 0, "length (%s) may not be negative", length);
+      long maxLength = this.length - offset;
+      return new FileChannelByteSource(file, this.offset + offset, Math.min(length, Math.max(0, maxLength)));
+   }
+
+   @Override
+   public long size() throws IOException {
+      if (!file.isFile()) {
+         throw new FileNotFoundException(file.toString());
+      }
+      return Math.min(length, Math.max(0, file.length() - offset));
+   }
+
+   @Override
+   public InputStream openStream() throws IOException {
+      FileChannel channel = open();
+      try {
+         channel.position(offset);
+      } catch (IOException e) {
+         channel.close();
+         throw e;
+      }
+      return ByteStreams.limit(Channels.newInputStream(channel), length);
+   }
+
+   /**
+    * Copies this source to a channel with {@link FileChannel#transferTo},
+    * which the operating system can complete without copying into the heap.
+    *
+    * @return the number of bytes copied
+    */
+   public long transferTo(WritableByteChannel target) throws IOException {
+      FileChannel channel = open();
+      try {
+         long end = Math.min(channel.size(), offset + Math.min(length, Long.MAX_VALUE - offset));
+         long position = offset;
+         while (position < end) {
+            long transferred = channel.transferTo(position, end - position, target);
+            if (transferred <= 0) {
+               break;
+            }
+            position += transferred;
+         }
+         return position - offset;
+      } finally {
+         channel.close();
+      }
+   }
+
+   @Override
+   public long copyTo(OutputStream output) throws IOException {
+      if (output instanceof FileOutputStream) {
+         return transferTo(((FileOutputStream) output).getChannel());
+      }
+      return super.copyTo(output);
+   }
+
+   @Override
+   public HashCode hash(HashFunction hashFunction) throws IOException {
+      if (!hashFunction.equals(Hashing.md5())) {
+         return super.hash(hashFunction);
+      }
+      FileChannel channel = open();
+      try {
+         return md5(channel, offset, length);
+      } finally {
+         channel.close();
+      }
+   }
+
+   /**
+    * Computes the MD5 of {@code length} bytes of a channel from a position.
+    * The buffer is on the heap: a direct buffer per call would hold native
+    * memory until the next GC, and the digest reads from an array anyway.
+    */
+   public static HashCode md5(FileChannel channel, long position, long length) throws IOException {
+      MessageDigest digest;
+      try {
+         digest = MessageDigest.getInstance("MD5");
+      } catch (NoSuchAlgorithmException e) {
+         throw new AssertionError(e);
+      }
+      ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+      long remaining = length;
+      while (remaining > 0) {
+         buffer.clear();
+         if (remaining < buffer.capacity()) {
+            buffer.limit((int) remaining);
+         }
+         int read = channel.read(buffer, position);
+         if (read < 0) {
+            break;
+         }
+         buffer.flip();
+         digest.update(buffer);
+         position += read;
+         remaining -= read;
+      }
+      return HashCode.fromBytes(digest.digest());
+   }
+
+   private FileChannel open() throws IOException {
+      try {
+         return FileChannel.open(file.toPath(), StandardOpenOption.READ);
+      } catch (NoSuchFileException e) {
+         // as thrown by Files.asByteSource
+         throw new FileNotFoundException(e.getMessage());
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "FileChannelByteSource(" + file + ", " + offset + ", " + length + ")";
+   }
+}
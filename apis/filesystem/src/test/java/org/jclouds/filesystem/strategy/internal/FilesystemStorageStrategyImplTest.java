@@ -30,11 +30,20 @@ import static org.testng.Assert.fail;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.InvalidPathException;
+import java.nio.file.attribute.UserDefinedFileAttributeView;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javax.inject.Provider;
 
@@ -42,13 +51,18 @@ import org.assertj.core.api.Fail;
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobBuilder;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.domain.Location;
 import org.jclouds.filesystem.predicates.validators.internal.FilesystemBlobKeyValidatorImpl;
 import org.jclouds.filesystem.predicates.validators.internal.FilesystemContainerNameValidatorImpl;
+import org.jclouds.filesystem.util.FileChannelByteSource;
 import org.jclouds.filesystem.utils.TestUtils;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.ByteSourcePayload;
 import org.jclouds.io.payloads.FilePayload;
+import org.jclouds.io.payloads.HashingPayload;
 import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.util.Throwables2;
 import org.testng.annotations.AfterMethod;
@@ -60,7 +74,9 @@ import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hashing;
 import com.google.common.io.ByteSource;
+import com.google.common.io.FileWriteMode;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.Uninterruptibles;
 
@@ -465,7 +481,7 @@ public class FilesystemStorageStrategyImplTest {
       blob.setPayload(filePayload);
 
       // write files
-      storageStrategy.putBlob(CONTAINER_NAME, blob);
+      String eTag = storageStrategy.putBlob(CONTAINER_NAME, blob);
 
       // verify that the files is equal
       File blobFullPath = new File(TARGET_CONTAINER_NAME, blobKey);
@@ -473,6 +489,32 @@ public class FilesystemStorageStrategyImplTest {
       ByteSource actualInput = Files.asByteSource(blobFullPath);
       assertTrue(expectedInput.contentEquals(actualInput),
             "Files are not equal");
+      assertEquals(eTag, expectedInput.hash(Hashing.md5()).toString());
+   }
+
+   public void testCopyStoredBlobAndReadSlice() throws IOException {
+      ByteSource byteSource = randomByteSource().slice(0, 1024);
+      Blob blob = new BlobBuilderImpl()
+            .name("source")
+            .payload(byteSource)
+            .contentLength(byteSource.size())
+            .build();
+      storageStrategy.putBlob(CONTAINER_NAME, blob);
+
+      // the stored payload is file backed, so it is copied with FileChannel.transferTo
+      ByteSource stored = (ByteSource) storageStrategy.getBlob(CONTAINER_NAME, "source").getPayload().getRawContent();
+      assertThat(stored).isInstanceOf(FileChannelByteSource.class);
+      Blob copy = new BlobBuilderImpl()
+            .name("copy")
+            .payload(stored)
+            .contentLength(stored.size())
+            .build();
+      assertEquals(storageStrategy.putBlob(CONTAINER_NAME, copy), byteSource.hash(Hashing.md5()).toString());
+
+      ByteSource copied = (ByteSource) storageStrategy.getBlob(CONTAINER_NAME, "copy").getPayload().getRawContent();
+      assertTrue(copied.slice(100, 50).contentEquals(byteSource.slice(100, 50)));
+      assertEquals(copied.slice(1000, 50).size(), 24);
+      assertEquals(copied.slice(1000, 50).hash(Hashing.md5()), byteSource.slice(1000, 24).hash(Hashing.md5()));
    }
 
    public void testWritePayloadOnFileInputStream() throws IOException {
@@ -687,6 +729,55 @@ public class FilesystemStorageStrategyImplTest {
       }
    }
 
+   @Test
+   public void testPutReadsThePayloadOnce() throws Exception {
+      final ByteSource content = randomByteSource().slice(0, 1024);
+      final AtomicInteger opened = new AtomicInteger();
+      Blob blob = new BlobBuilderImpl()
+            .name("key")
+            .payload(new ByteSource() {
+               @Override
+               public InputStream openStream() throws IOException {
+                  opened.incrementAndGet();
+                  return content.openStream();
+               }
+            })
+            .contentLength(1024)
+            .contentMD5(content.hash(Hashing.md5()))
+            .build();
+
+      String eTag = storageStrategy.putBlob(CONTAINER_NAME, blob);
+      assertEquals(eTag, content.hash(Hashing.md5()).toString());
+      assertEquals(opened.get(), 1);
+   }
+
+   @Test
+   public void testPutChecksTheWrittenBytesOfAHashedPayload() throws Exception {
+      final ByteSource before = randomByteSource().slice(0, 1024);
+      final ByteSource after = randomByteSource().slice(1024, 1024);
+      final AtomicInteger opened = new AtomicInteger();
+      HashingPayload payload = Payloads.newHashingPayload(new ByteSourcePayload(new ByteSource() {
+         @Override
+         public InputStream openStream() throws IOException {
+            return (opened.getAndIncrement() == 0 ? before : after).openStream();
+         }
+      }));
+      // hashed by an earlier read, such as when a request was signed
+      payload.getMD5();
+      Blob blob = new BlobBuilderImpl()
+            .name("key")
+            .payload(payload)
+            .contentLength(1024)
+            .contentMD5(before.hash(Hashing.md5()))
+            .build();
+      try {
+         storageStrategy.putBlob(CONTAINER_NAME, blob);
+         Fail.failBecauseExceptionWasNotThrown(IOException.class);
+      } catch (IOException ioe) {
+         // expected
+      }
+   }
+
    @Test
    public void testDeletingInvalidPathFileEndsNormally() {
       String invalidPathBlobKey = "A<!:!@#$%^&*?]8 /\0";
@@ -733,8 +824,162 @@ public class FilesystemStorageStrategyImplTest {
       assertThat(blob).isNotNull();
    }
 
+   @Test
+   public void testMetadataIndexFollowsPutAndRemove() throws Exception {
+      FilesystemStorageStrategyImpl indexedStorageStrategy = new FilesystemStorageStrategyImpl(
+            new Provider<BlobBuilder>() {
+               @Override
+               public BlobBuilder get() {
+                  return new BlobBuilderImpl();
+               }
+            }, TestUtils.TARGET_BASE_DIR, false, true, new FilesystemContainerNameValidatorImpl(),
+            new FilesystemBlobKeyValidatorImpl(), defaultLocation);
+      indexedStorageStrategy.createContainer(CONTAINER_NAME);
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, "b", "d/e");
+
+      NavigableMap<String, ? extends MutableBlobMetadata> index =
+            indexedStorageStrategy.getBlobMetadataInsideContainer(CONTAINER_NAME);
+      assertThat(index.keySet()).containsExactly("b", "d/e");
+
+      ByteSource byteSource = randomByteSource().slice(0, 1024);
+      indexedStorageStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl()
+            .name("a")
+            .payload(byteSource)
+            .contentLength(byteSource.size())
+            .build());
+      indexedStorageStrategy.removeBlob(CONTAINER_NAME, "d/e");
+
+      index = indexedStorageStrategy.getBlobMetadataInsideContainer(CONTAINER_NAME);
+      assertThat(index.keySet()).containsExactly("a", "b");
+      assertEquals(index.get("a").getSize(), Long.valueOf(1024));
+      assertEquals(index.get("a").getETag(), byteSource.hash(Hashing.md5()).toString());
+
+      indexedStorageStrategy.clearContainer(CONTAINER_NAME);
+      assertThat(indexedStorageStrategy.getBlobMetadataInsideContainer(CONTAINER_NAME)).isEmpty();
+   }
+
+   @Test
+   public void testConcurrentListingsWaitForTheMetadataIndexScan() throws Exception {
+      final FilesystemStorageStrategyImpl indexedStorageStrategy = new FilesystemStorageStrategyImpl(
+            new Provider<BlobBuilder>() {
+               @Override
+               public BlobBuilder get() {
+                  return new BlobBuilderImpl();
+               }
+            }, TestUtils.TARGET_BASE_DIR, false, true, new FilesystemContainerNameValidatorImpl(),
+            new FilesystemBlobKeyValidatorImpl(), defaultLocation);
+      indexedStorageStrategy.createContainer(CONTAINER_NAME);
+      String[] keys = new String[100];
+      for (int i = 0; i < keys.length; i++) {
+         keys[i] = "blob" + i;
+      }
+      TestUtils.createBlobsInContainer(CONTAINER_NAME, keys);
+
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Future<Integer>> sizes = Lists.newArrayList();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         for (int i = 0; i < 4; i++) {
+            sizes.add(executor.submit(new Callable<Integer>() {
+               @Override
+               public Integer call() throws Exception {
+                  start.await();
+                  return indexedStorageStrategy.getBlobMetadataInsideContainer(CONTAINER_NAME).size();
+               }
+            }));
+         }
+         start.countDown();
+         for (Future<Integer> size : sizes) {
+            assertEquals(size.get().intValue(), keys.length);
+         }
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testMetadataStoreOutlivesTheStrategy() throws Exception {
+      File storeDirectory = new File("target" + FS + "metadata-store");
+      TestUtils.cleanDirectoryContent(storeDirectory.getPath());
+      FilesystemStorageStrategyImpl storingStrategy = metadataStoreStrategy(storeDirectory);
+      storingStrategy.createContainer(CONTAINER_NAME);
+      ByteSource byteSource = randomByteSource().slice(0, 1024);
+      storingStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl()
+            .name("a")
+            .payload(byteSource)
+            .contentLength(byteSource.size())
+            .contentType("text/plain")
+            .userMetadata(ImmutableMap.of("key", "value"))
+            .build());
+
+      // without extended attributes, get answers from the log
+      File file = new File(TARGET_CONTAINER_NAME, "a");
+      UserDefinedFileAttributeView view = java.nio.file.Files.getFileAttributeView(file.toPath(),
+            UserDefinedFileAttributeView.class);
+      if (view != null) {
+         try {
+            for (String attribute : view.list()) {
+               view.delete(attribute);
+            }
+         } catch (IOException e) {
+            // xattrs not supported
+         }
+      }
+      Blob blob = metadataStoreStrategy(storeDirectory).getBlob(CONTAINER_NAME, "a");
+      assertEquals(blob.getMetadata().getContentMetadata().getContentType(), "text/plain");
+      assertEquals(blob.getMetadata().getUserMetadata(), ImmutableMap.of("key", "value"));
+      assertEquals(blob.getMetadata().getETag(), byteSource.hash(Hashing.md5()).toString());
+
+      // and ignores it once the file changed
+      Files.asByteSink(file, FileWriteMode.APPEND).write(new byte[1]);
+      blob = metadataStoreStrategy(storeDirectory).getBlob(CONTAINER_NAME, "a");
+      assertEquals(blob.getMetadata().getSize(), Long.valueOf(1025));
+      assertEquals(blob.getMetadata().getUserMetadata(), ImmutableMap.of());
+   }
+
+   public void testMetadataStoreKeepsTheLogsOfEachBaseDirectoryApart() throws Exception {
+      File storeDirectory = new File("target" + FS + "metadata-store");
+      TestUtils.cleanDirectoryContent(storeDirectory.getPath());
+      String otherBaseDir = "." + FS + "target" + FS + "other-basedir" + FS;
+      TestUtils.cleanDirectoryContent(otherBaseDir);
+      FilesystemStorageStrategyImpl storingStrategy = metadataStoreStrategy(storeDirectory);
+      FilesystemStorageStrategyImpl otherStrategy = metadataStoreStrategy(otherBaseDir, storeDirectory);
+      storingStrategy.createContainer(CONTAINER_NAME);
+      otherStrategy.createContainer(CONTAINER_NAME);
+      ByteSource byteSource = randomByteSource().slice(0, 1024);
+      storingStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl()
+            .name("a")
+            .payload(byteSource)
+            .contentLength(byteSource.size())
+            .build());
+      otherStrategy.putBlob(CONTAINER_NAME, new BlobBuilderImpl()
+            .name("a")
+            .payload(byteSource)
+            .contentLength(byteSource.size())
+            .build());
+      assertEquals(storeDirectory.list().length, 2);
+
+      // clearing the container of one base directory leaves the log of the other
+      otherStrategy.clearContainer(CONTAINER_NAME);
+      assertEquals(storeDirectory.list().length, 1);
+      assertTrue(storingStrategy.blobExists(CONTAINER_NAME, "a"));
+   }
+
    // ---------------------------------------------------------- Private methods
 
+   private FilesystemStorageStrategyImpl metadataStoreStrategy(File storeDirectory) {
+      return metadataStoreStrategy(TestUtils.TARGET_BASE_DIR, storeDirectory);
+   }
+
+   private FilesystemStorageStrategyImpl metadataStoreStrategy(String baseDir, File storeDirectory) {
+      return new FilesystemStorageStrategyImpl(new Provider<BlobBuilder>() {
+         @Override
+         public BlobBuilder get() {
+            return new BlobBuilderImpl();
+         }
+      }, baseDir, false, false, storeDirectory.getPath(), new FilesystemContainerNameValidatorImpl(),
+            new FilesystemBlobKeyValidatorImpl(), defaultLocation);
+   }
+
    /**
     * Calculates an absolute directory path that depends on operative system
     *
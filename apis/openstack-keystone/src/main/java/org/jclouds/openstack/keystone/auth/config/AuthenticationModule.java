@@ -17,6 +17,7 @@
 package org.jclouds.openstack.keystone.auth.config;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.rest.config.BinderUtils.bindHttpApi;
 
 import java.util.Map;
@@ -30,7 +31,6 @@ import javax.inject.Singleton;
 import org.jclouds.domain.Credentials;
 import org.jclouds.http.HttpRetryHandler;
 import org.jclouds.http.annotation.ClientError;
-import org.jclouds.location.Provider;
 import org.jclouds.openstack.keystone.auth.AuthenticationApi;
 import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
 import org.jclouds.openstack.keystone.auth.functions.AuthenticateApiAccessKeyCredentials;
@@ -49,6 +49,7 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
 import com.google.inject.Provides;
@@ -116,27 +117,19 @@ public class AuthenticationModule extends AbstractModule {
       return authenticationMethods.get(credentialType);
    }
 
-   // TODO: what is the timeout of the session token? modify default accordingly
-   // PROPERTY_SESSION_INTERVAL is default to 60 seconds, but we have this here
-   // at 11 hours for now.
+   // Tokens are renewed ahead of their own expiry by RefreshAheadAuthInfoSupplier; the 11 hours only bound tokens
+   // which do not say when they expire.
    @Provides
    @Singleton
-   public final LoadingCache<Credentials, AuthInfo> provideAuthInfoCache(Function<Credentials, AuthInfo> getAccess) {
-      return CacheBuilder.newBuilder().expireAfterWrite(11, TimeUnit.HOURS).build(CacheLoader.from(getAccess));
+   public final LoadingCache<Credentials, AuthInfo> provideAuthInfoCache(Function<Credentials, AuthInfo> getAccess,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      return CacheBuilder.newBuilder().expireAfterWrite(11, TimeUnit.HOURS)
+            .build(CacheLoader.asyncReloading(CacheLoader.from(getAccess), userExecutor));
    }
 
-   // Temporary conversion of a cache to a supplier until there is a
-   // single-element cache
-   // http://code.google.com/p/guava-libraries/issues/detail?id=872
    @Provides
    @Singleton
-   protected final Supplier<AuthInfo> provideAuthInfoSupplier(final LoadingCache<Credentials, AuthInfo> cache,
-         @Provider final Supplier<Credentials> creds) {
-      return new Supplier<AuthInfo>() {
-         @Override
-         public AuthInfo get() {
-            return cache.getUnchecked(creds.get());
-         }
-      };
+   protected final Supplier<AuthInfo> provideAuthInfoSupplier(RefreshAheadAuthInfoSupplier supplier) {
+      return supplier;
    }
 }
@@ -0,0 +1,98 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.keystone.auth.config;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.location.Provider;
+import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.jclouds.openstack.keystone.auth.domain.ExpiringAuthInfo;
+import org.jclouds.openstack.keystone.config.KeystoneProperties;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Supplier;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+
+/**
+ * Supplies the cached {@link AuthInfo} of the current credentials, and renews it ahead of the token expiry.
+ * <p>
+ * Once the token is within {@link KeystoneProperties#TOKEN_REFRESH_AHEAD} of expiring, the cache entry is refreshed,
+ * which reloads it in the background at most once at a time, and callers keep getting the current token until the
+ * new one replaces it. A refresh is started at most once every {@value #MIN_REFRESH_INTERVAL_SECONDS} seconds, so
+ * that a server which renews the token with the same expiry is not asked again on every call. Only callers holding a
+ * token which has already expired wait for a new one. Tokens which are not an {@link ExpiringAuthInfo}, or do not say
+ * when they expire, are kept until the cache itself expires them.
+ */
+@Singleton
+final class RefreshAheadAuthInfoSupplier implements Supplier<AuthInfo> {
+
+   @Inject(optional = true)
+   @Named(KeystoneProperties.TOKEN_REFRESH_AHEAD)
+   private long refreshAheadSeconds = 300;
+
+   @VisibleForTesting
+   static final long MIN_REFRESH_INTERVAL_SECONDS = 30;
+
+   // System.nanoTime() before which no refresh is started
+   private final AtomicLong nextRefresh = new AtomicLong(System.nanoTime());
+
+   private final LoadingCache<Credentials, AuthInfo> cache;
+   private final Supplier<Credentials> creds;
+
+   @Inject
+   RefreshAheadAuthInfoSupplier(LoadingCache<Credentials, AuthInfo> cache, @Provider Supplier<Credentials> creds) {
+      this.cache = cache;
+      this.creds = creds;
+   }
+
+   @Override
+   public AuthInfo get() {
+      Credentials credentials = creds.get();
+      AuthInfo authInfo = cache.getUnchecked(credentials);
+      Date expires = authInfo instanceof ExpiringAuthInfo ? ((ExpiringAuthInfo) authInfo).getExpires() : null;
+      if (expires == null) {
+         return authInfo;
+      }
+      long millisToExpiry = expires.getTime() - System.currentTimeMillis();
+      if (millisToExpiry <= 0) {
+         // remove only the expired entry, so that concurrent callers share one load instead of evicting its result
+         cache.asMap().remove(credentials, authInfo);
+         return cache.getUnchecked(credentials);
+      }
+      if (millisToExpiry <= SECONDS.toMillis(refreshAheadSeconds) && claimRefresh()) {
+         cache.refresh(credentials);
+      }
+      return authInfo;
+   }
+
+   /**
+    * @return true for only one of the callers once the minimum refresh interval has passed
+    */
+   private boolean claimRefresh() {
+      long now = System.nanoTime();
+      long next = nextRefresh.get();
+      return now - next >= 0 && nextRefresh.compareAndSet(next, now + SECONDS.toNanos(MIN_REFRESH_INTERVAL_SECONDS));
+   }
+}
@@ -120,6 +120,12 @@ public final class KeystoneProperties {
     */
    public static final String KEYSTONE_VERSION = "jclouds.keystone.version";
 
+   /**
+    * Seconds before the auth token expires at which it is renewed in the background, while requests keep using the
+    * current token. Default: 300.
+    */
+   public static final String TOKEN_REFRESH_AHEAD = "jclouds.keystone.token-refresh-ahead";
+
    private KeystoneProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
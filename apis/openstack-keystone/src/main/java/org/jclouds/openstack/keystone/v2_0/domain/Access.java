@@ -19,10 +19,11 @@ package org.jclouds.openstack.keystone.v2_0.domain;
 import static com.google.common.base.Preconditions.checkNotNull;
 
 import java.beans.ConstructorProperties;
+import java.util.Date;
 import java.util.Set;
 
 import org.jclouds.javax.annotation.Nullable;
-import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.jclouds.openstack.keystone.auth.domain.ExpiringAuthInfo;
 
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
@@ -37,7 +38,7 @@ import com.google.common.collect.ImmutableSet;
  *      "http://docs.openstack.org/api/openstack-identity-service/2.0/content/Identity-Service-Concepts-e1362.html"
  *      />
  */
-public class Access extends ForwardingSet<Service> implements Comparable<Access>, AuthInfo {
+public class Access extends ForwardingSet<Service> implements Comparable<Access>, ExpiringAuthInfo {
 
    public static Builder<?> builder() {
       return new ConcreteBuilder();
@@ -172,4 +173,9 @@ public class Access extends ForwardingSet<Service> implements Comparable<Access>
       return token.getId();
    }
 
+   @Override
+   public Date getExpires() {
+      return token.getExpires();
+   }
+
 }
@@ -21,13 +21,13 @@ import java.util.List;
 
 import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.json.SerializedNames;
-import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.jclouds.openstack.keystone.auth.domain.ExpiringAuthInfo;
 
 import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 
 @AutoValue
-public abstract class Token implements AuthInfo {
+public abstract class Token implements ExpiringAuthInfo {
 
    @Nullable public abstract String id();
    public abstract List<String> methods();
@@ -42,6 +42,11 @@ public abstract class Token implements AuthInfo {
    public String getAuthToken() {
       return id();
    }
+
+   @Override
+   public Date getExpires() {
+      return expiresAt();
+   }
    
    @SerializedNames({ "id", "methods", "expires_at", "extras", "catalog", "audit_ids", "user", "issued_at" })
    private static Token create(String id, List<String> methods, Date expiresAt, Object extras, List<Catalog> catalog,
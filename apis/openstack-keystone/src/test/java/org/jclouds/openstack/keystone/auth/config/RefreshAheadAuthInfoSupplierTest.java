@@ -0,0 +1,144 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.openstack.keystone.auth.config;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static org.testng.Assert.assertEquals;
+
+import java.util.ArrayDeque;
+import java.util.Date;
+import java.util.Deque;
+
+import org.jclouds.domain.Credentials;
+import org.jclouds.openstack.keystone.auth.domain.AuthInfo;
+import org.jclouds.openstack.keystone.auth.domain.ExpiringAuthInfo;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Suppliers;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.MoreExecutors;
+
+@Test(groups = "unit", testName = "RefreshAheadAuthInfoSupplierTest")
+public class RefreshAheadAuthInfoSupplierTest {
+
+   private final Credentials credentials = new Credentials("identity", "credential");
+
+   public void testFreshTokenIsNotReloaded() {
+      TokenLoader loader = new TokenLoader(token("a", HOURS.toMillis(1)), token("b", HOURS.toMillis(1)));
+      RefreshAheadAuthInfoSupplier supplier = supplier(loader);
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(loader.loads, 1);
+   }
+
+   public void testTokenWithoutExpiryIsNotReloaded() {
+      TokenLoader loader = new TokenLoader(token("a", null), token("b", null));
+      RefreshAheadAuthInfoSupplier supplier = supplier(loader);
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(loader.loads, 1);
+   }
+
+   public void testAuthInfoWithoutExpiryIsNotReloaded() {
+      TokenLoader loader = new TokenLoader(authInfo("a"), authInfo("b"));
+      RefreshAheadAuthInfoSupplier supplier = supplier(loader);
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(loader.loads, 1);
+   }
+
+   public void testTokenAboutToExpireIsServedWhileRefreshing() {
+      TokenLoader loader = new TokenLoader(token("a", MINUTES.toMillis(1)), token("b", HOURS.toMillis(1)));
+      RefreshAheadAuthInfoSupplier supplier = supplier(loader);
+      // the reload runs on the same thread here, but callers still get the token they found in the cache
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(loader.loads, 2);
+      assertEquals(supplier.get().getAuthToken(), "b");
+      assertEquals(loader.loads, 2);
+   }
+
+   public void testTokenRenewedWithSameExpiryIsNotRefreshedOnEveryCall() {
+      TokenLoader loader = new TokenLoader(token("a", MINUTES.toMillis(1)), token("b", MINUTES.toMillis(1)),
+            token("c", HOURS.toMillis(1)));
+      RefreshAheadAuthInfoSupplier supplier = supplier(loader);
+      assertEquals(supplier.get().getAuthToken(), "a");
+      assertEquals(loader.loads, 2);
+      // still within the refresh-ahead window, but a refresh was just started
+      for (int i = 0; i < 10; i++) {
+         assertEquals(supplier.get().getAuthToken(), "b");
+      }
+      assertEquals(loader.loads, 2);
+   }
+
+   public void testExpiredTokenIsReplacedBeforeReturning() {
+      TokenLoader loader = new TokenLoader(token("a", -MINUTES.toMillis(1)), token("b", HOURS.toMillis(1)));
+      RefreshAheadAuthInfoSupplier supplier = supplier(loader);
+      assertEquals(supplier.get().getAuthToken(), "b");
+      assertEquals(supplier.get().getAuthToken(), "b");
+      assertEquals(loader.loads, 2);
+   }
+
+   private RefreshAheadAuthInfoSupplier supplier(TokenLoader loader) {
+      LoadingCache<Credentials, AuthInfo> cache = CacheBuilder.newBuilder().build(
+            CacheLoader.asyncReloading(loader, MoreExecutors.directExecutor()));
+      return new RefreshAheadAuthInfoSupplier(cache, Suppliers.ofInstance(credentials));
+   }
+
+   private static AuthInfo authInfo(final String id) {
+      return new AuthInfo() {
+         @Override
+         public String getAuthToken() {
+            return id;
+         }
+      };
+   }
+
+   private static AuthInfo token(final String id, final Long millisToExpiry) {
+      final Date expires = millisToExpiry == null ? null : new Date(System.currentTimeMillis() + millisToExpiry);
+      return new ExpiringAuthInfo() {
+         @Override
+         public String getAuthToken() {
+            return id;
+         }
+
+         @Override
+         public Date getExpires() {
+            return expires;
+         }
+      };
+   }
+
+   private static final class TokenLoader extends CacheLoader<Credentials, AuthInfo> {
+      private final Deque<AuthInfo> tokens = new ArrayDeque<AuthInfo>();
+      private int loads;
+
+      TokenLoader(AuthInfo... tokens) {
+         for (AuthInfo token : tokens) {
+            this.tokens.add(token);
+         }
+      }
+
+      @Override
+      public AuthInfo load(Credentials key) {
+         loads++;
+         return tokens.remove();
+      }
+   }
+}
@@ -19,9 +19,8 @@ package org.jclouds.rackspace.cloudloadbalancers.v1.functions;
 import static org.jclouds.http.HttpUtils.releasePayload;
 
 import java.io.IOException;
-import java.lang.reflect.Type;
+import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
 
 import javax.inject.Inject;
 
@@ -29,24 +28,30 @@ import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpResponseException;
 import org.jclouds.http.functions.ParseJson;
 import org.jclouds.json.Json;
+import org.jclouds.json.StreamingJson;
 import org.jclouds.rackspace.cloudloadbalancers.v1.domain.Metadata;
 
 import com.google.inject.TypeLiteral;
 
 public class ParseMetadata extends ParseJson<Metadata> {
 
+   private final StreamingJson streamingJson;
+
    @Inject
-   public ParseMetadata(Json json, TypeLiteral<Metadata> type) {
+   public ParseMetadata(Json json, StreamingJson streamingJson, TypeLiteral<Metadata> type) {
       super(json, type);
+      this.streamingJson = streamingJson;
    }
 
+   /**
+    * Reads the entries of the "metadata" array one at a time, instead of the whole array before transforming it.
+    */
    @Override
    public Metadata apply(HttpResponse response) {
-      Map<String, List<CLBMetadata>> clbMetadata;
-      
       try {
-         Type clbMetadataType = new TypeLiteral<Map<String, List<CLBMetadata>>>() {}.getType();
-         clbMetadata = apply(response.getPayload().getInput(), clbMetadataType);
+         Iterator<CLBMetadata> clbMetadata = streamingJson.fromJsonArray(response.getPayload().openStream(),
+               CLBMetadata.class, "metadata");
+         return transformCLBMetadataToMetadata(clbMetadata);
       }
       catch (IOException e) {
          StringBuilder message = new StringBuilder();
@@ -57,14 +62,17 @@ public class ParseMetadata extends ParseJson<Metadata> {
       finally {
          releasePayload(response);
       }
-      
-      return transformCLBMetadataToMetadata(clbMetadata.get("metadata"));
    }
    
    public static Metadata transformCLBMetadataToMetadata(List<CLBMetadata> clbMetadatum) {
+      return transformCLBMetadataToMetadata(clbMetadatum.iterator());
+   }
+
+   private static Metadata transformCLBMetadataToMetadata(Iterator<CLBMetadata> clbMetadatum) {
       Metadata metadata = new Metadata();      
       
-      for (CLBMetadata clbMetadata : clbMetadatum) {
+      while (clbMetadatum.hasNext()) {
+         CLBMetadata clbMetadata = clbMetadatum.next();
          metadata.put(clbMetadata.key, clbMetadata.value);
          metadata.putId(clbMetadata.key, clbMetadata.id);
       }
@@ -16,6 +16,7 @@
  */
 package org.jclouds.s3;
 
+import static org.jclouds.Constants.PROPERTY_DELETE_BATCH_SIZE;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
 import static org.jclouds.Constants.PROPERTY_RELAX_HOSTNAME;
 import static org.jclouds.aws.reference.AWSConstants.PROPERTY_AUTH_TAG;
@@ -24,6 +25,7 @@ import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_BLOBST
 import static org.jclouds.blobstore.reference.BlobStoreConstants.PROPERTY_USER_METADATA_PREFIX;
 import static org.jclouds.reflect.Reflection2.typeToken;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_JCLOUDS_S3_CHUNKED_SIZE;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_PAYLOAD_SIGNING;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_SERVICE_PATH;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
 
@@ -81,9 +83,12 @@ public class S3ApiMetadata extends BaseHttpApiMetadata {
       properties.setProperty(PROPERTY_BLOBSTORE_DIRECTORY_SUFFIX, "/");
       properties.setProperty(PROPERTY_USER_METADATA_PREFIX, String.format("x-${%s}-meta-", PROPERTY_HEADER_TAG));
       properties.setProperty(PROPERTY_IDEMPOTENT_METHODS, "DELETE,GET,HEAD,OPTIONS,POST,PUT");
+      // multi-object delete removes up to 1000 keys per request
+      properties.setProperty(PROPERTY_DELETE_BATCH_SIZE, "1000");
 
       // Chunk size must be at least 8 KB. We recommend a chunk size of a least 64 KB for better performance.
       properties.setProperty(PROPERTY_JCLOUDS_S3_CHUNKED_SIZE, String.valueOf(64 * 1024));
+      properties.setProperty(PROPERTY_S3_PAYLOAD_SIGNING, "SIGNED");
       return properties;
    }
    
@@ -65,6 +65,7 @@ import org.jclouds.s3.domain.AccessControlList.GroupGranteeURI;
 import org.jclouds.s3.domain.AccessControlList.Permission;
 import org.jclouds.s3.domain.BucketMetadata;
 import org.jclouds.s3.domain.CannedAccessPolicy;
+import org.jclouds.s3.domain.DeleteResult;
 import org.jclouds.s3.domain.ListMultipartUploadResponse;
 import org.jclouds.s3.domain.ListMultipartUploadsResponse;
 import org.jclouds.s3.options.CopyObjectOptions;
@@ -340,7 +341,11 @@ public class S3BlobStore extends BaseBlobStore {
    @Override
    public void removeBlobs(String container, Iterable<String> keys) {
       for (List<String> partition : Iterables.partition(keys, 1000)) {
-         sync.deleteObjects(container, partition);
+         DeleteResult result = sync.deleteObjects(container, partition);
+         // keys the multi-object delete reports as failed are retried one at a time, failing if still not deleted
+         for (String key : result.getErrors().keySet()) {
+            sync.deleteObject(container, key);
+         }
       }
    }
 
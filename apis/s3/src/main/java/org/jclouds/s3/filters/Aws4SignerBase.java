@@ -19,10 +19,8 @@ package org.jclouds.s3.filters;
 import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.io.BaseEncoding.base16;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.crypto.Macs.asByteProcessor;
 import static org.jclouds.http.utils.Queries.queryParser;
-import static org.jclouds.util.Strings2.toInputStream;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -37,11 +35,19 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.SortedMap;
 import java.util.TimeZone;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
 import javax.inject.Inject;
 
 import com.google.common.base.Joiner;
 import com.google.common.base.Supplier;
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Maps;
@@ -54,6 +60,7 @@ import com.google.common.io.ByteSource;
 import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 import com.google.common.net.PercentEscaper;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.inject.ImplementedBy;
 import org.jclouds.crypto.Crypto;
 import org.jclouds.domain.Credentials;
@@ -116,6 +123,9 @@ public abstract class Aws4SignerBase {
    protected final Supplier<Date> timestampProvider;
    protected final Crypto crypto;
 
+   // signing keys only change daily per region and service, so a handful covers every request
+   private final Cache<ImmutableList<String>, byte[]> signingKeys = CacheBuilder.newBuilder().maximumSize(16).build();
+   private final ThreadLocal<Mac> threadMac = new ThreadLocal<Mac>();
 
    protected Aws4SignerBase(SignatureWire signatureWire, String headerTag,
          Supplier<Credentials> creds, Supplier<Date> timestampProvider,
@@ -202,6 +212,7 @@ public abstract class Aws4SignerBase {
     * <p/>
     * </code>
     * </p>
+    * The key only changes daily, so it is cached per secret key, date, region and service.
     *
     * @param secretKey AWS access secret key
     * @param datestamp date yyyyMMdd
@@ -209,26 +220,42 @@ public abstract class Aws4SignerBase {
     * @param service   AWS service
     * @return SigningKey
     */
-   protected byte[] signatureKey(String secretKey, String datestamp, String region, String service) {
-      byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
-      byte[] kDate = hmacSHA256(datestamp, kSecret);
-      byte[] kRegion = hmacSHA256(region, kDate);
-      byte[] kService = hmacSHA256(service, kRegion);
-      byte[] kSigning = hmacSHA256("aws4_request", kService);
-      return kSigning;
+   protected byte[] signatureKey(final String secretKey, final String datestamp, final String region,
+         final String service) {
+      try {
+         return signingKeys.get(ImmutableList.of(secretKey, datestamp, region, service), new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+               byte[] kSecret = ("AWS4" + secretKey).getBytes(UTF_8);
+               byte[] kDate = hmacSHA256(datestamp, kSecret);
+               byte[] kRegion = hmacSHA256(region, kDate);
+               byte[] kService = hmacSHA256(service, kRegion);
+               return hmacSHA256("aws4_request", kService);
+            }
+         });
+      } catch (ExecutionException | UncheckedExecutionException e) {
+         throw Throwables.propagate(e.getCause());
+      }
    }
 
    /**
     * hmac sha256
+    * <p>
+    * Reuses one {@link Mac} per thread, as looking up the algorithm costs more than the hash of a short string.
     *
     * @param toSign string to sign
     * @param key   hash key
     */
    protected byte[] hmacSHA256(String toSign, byte[] key) {
       try {
-         return readBytes(toInputStream(toSign), hmacSHA256(crypto, key));
-      } catch (IOException e) {
-         throw new HttpException("read sign error", e);
+         Mac mac = threadMac.get();
+         if (mac == null) {
+            mac = crypto.hmacSHA256(key);
+            threadMac.set(mac);
+         } else {
+            mac.init(new SecretKeySpec(key, mac.getAlgorithm()));
+         }
+         return mac.doFinal(toSign.getBytes(UTF_8));
       } catch (InvalidKeyException e) {
          throw new HttpException("invalid key", e);
       }
@@ -33,11 +33,12 @@ import org.jclouds.http.HttpException;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.internal.SignatureWire;
 import org.jclouds.io.Payload;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.HashingPayload;
 import org.jclouds.location.Provider;
 import org.jclouds.util.Closeables2;
 
 import javax.inject.Named;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Date;
@@ -52,12 +53,15 @@ import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_ALGORITHM_HMAC_
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_CONTENT_SHA256_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_DATE_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_SECURITY_TOKEN_HEADER;
+import static org.jclouds.s3.filters.AwsSignatureV4Constants.UNSIGNED_PAYLOAD;
 import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_VIRTUAL_HOST_BUCKETS;
 
 /**
  * AWS4 signer sign requests to Amazon S3 using an 'Authorization' header.
  */
 public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
+   private static final String EMPTY_PAYLOAD_CONTENT_HASH = hex(hash(new byte[0]));
+
    @Inject
    public Aws4SignerForAuthorizationHeader(SignatureWire signatureWire,
          @Named(PROPERTY_S3_VIRTUAL_HOST_BUCKETS) boolean isVhostStyle,
@@ -68,10 +72,24 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
    }
 
    protected HttpRequest sign(HttpRequest request) throws HttpException {
+      return sign(request, false);
+   }
+
+   /**
+    * Signs the request, with {@code UNSIGNED-PAYLOAD} in place of the hash of
+    * the payload when {@code unsignedPayload} is set, so that the payload is
+    * not read before it is sent.
+    */
+   protected HttpRequest sign(HttpRequest request, boolean unsignedPayload) throws HttpException {
       checkNotNull(request, "request is not ready to sign");
       checkNotNull(request.getEndpoint(), "request is not ready to sign, request.endpoint not present.");
 
       Payload payload = request.getPayload();
+      if (!unsignedPayload && payload != null && payload.isRepeatable() && !(payload instanceof HashingPayload)) {
+         // the pass hashing the payload for the signature computes its Content-MD5 as well
+         payload = Payloads.newHashingPayload(payload);
+         request = request.toBuilder().payload(payload).build();
+      }
 
       // get host & port from request endpoint.
       String host = request.getEndpoint().getHost();
@@ -105,10 +123,20 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
          signedHeadersBuilder.put(HttpHeaders.CONTENT_LENGTH.toLowerCase(), contentLength);
       }
 
+      // hashed before reading the MD5, which a HashingPayload computes in the same pass
+      String contentSha256 = unsignedPayload ? UNSIGNED_PAYLOAD : getPayloadHash(request);
+
       // Content MD5
       String contentMD5 = request.getFirstHeaderOrNull(CONTENT_MD5);
       if (payload != null) {
          HashCode md5 = payload.getContentMetadata().getContentMD5AsHashCode();
+         if (md5 == null && payload instanceof HashingPayload && ((HashingPayload) payload).isHashed()) {
+            try {
+               md5 = ((HashingPayload) payload).getMD5();
+            } catch (IOException e) {
+               throw new HttpException("unable to read payload to calculate Content-MD5.", e);
+            }
+         }
          if (md5 != null) {
             contentMD5 = BaseEncoding.base64().encode(md5.asBytes());
          }
@@ -141,7 +169,6 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
       }
 
       // x-amz-content-sha256
-      String contentSha256 = getPayloadHash(request);
       requestBuilder.replaceHeader(AMZ_CONTENT_SHA256_HEADER, contentSha256);
       signedHeadersBuilder.put(AMZ_CONTENT_SHA256_HEADER.toLowerCase(), contentSha256);
 
@@ -179,13 +206,23 @@ public class Aws4SignerForAuthorizationHeader extends Aws4SignerBase {
     * The hash returns the following value: e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855
     */
    protected String getEmptyPayloadContentHash() {
-      return base16().lowerCase().encode(hash(new ByteArrayInputStream(new byte[0])));
+      return EMPTY_PAYLOAD_CONTENT_HASH;
    }
 
    /**
     * in this time, payload ContentMetadata provided content hash md5, but aws required sha256.
     */
    protected String calculatePayloadContentHash(Payload payload) {
+      if (payload instanceof HashingPayload) {
+         HashingPayload hashingPayload = (HashingPayload) payload;
+         if (hashingPayload.isHashed() || hashingPayload.isRepeatable()) {
+            try {
+               return base16().lowerCase().encode(hashingPayload.getSHA256().asBytes());
+            } catch (IOException e) {
+               throw new HttpException("unable to read payload to calculate AWS4 signature.", e);
+            }
+         }
+      }
       // use payload stream calculate content sha256
       InputStream payloadStream;
       try {
@@ -18,38 +18,41 @@ package org.jclouds.s3.filters;
 
 import com.google.common.io.ByteProcessor;
 import com.google.common.io.ByteStreams;
-import org.jclouds.http.HttpException;
 import org.jclouds.io.MutableContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.payloads.BaseMutableContentMetadata;
 import org.jclouds.io.payloads.BasePayload;
 
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.SequenceInputStream;
-import java.util.Enumeration;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 
 import static com.google.common.base.Charsets.UTF_8;
-import static com.google.common.io.ByteStreams.readBytes;
 import static org.jclouds.s3.filters.Aws4SignerBase.hash;
 import static org.jclouds.s3.filters.Aws4SignerBase.hex;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CHUNK_SIGNATURE_HEADER;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CHUNK_STRING_TO_SIGN_PREFIX;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.CLRF;
-import static org.jclouds.s3.filters.AwsSignatureV4Constants.FINAL_CHUNK;
-import static org.jclouds.util.Strings2.toInputStream;
+import static org.jclouds.s3.filters.AwsSignatureV4Constants.SIGNATURE_LENGTH;
 
+/**
+ * Streams a payload in signed 'aws-chunked' chunks, reading it once. Each
+ * chunk is read into a buffer reused for the whole stream, after room for its
+ * header, so that a chunk costs no copy of its data and no new buffer.
+ */
 public class ChunkedUploadPayload extends BasePayload<Payload> {
    private static final byte[] TRAILER = CLRF.getBytes(UTF_8);
+   private static final byte[] SIGNATURE_HEADER = CHUNK_SIGNATURE_HEADER.getBytes(UTF_8);
+   // hash of the nonsig-extension, we have none
+   private static final String EMPTY_EXTENSION_HASH = hex(hash(""));
 
    private final Payload payload;
    private final int chunkedBlockSize;
    private final String timestamp;
    private final String scope;
    private final ByteProcessor<byte[]> hmacSHA256;
-   private String lastComputedSignature;
+   private final String seedSignature;
 
    public ChunkedUploadPayload(Payload payload, int blockSize, String timestamp, String scope,
          ByteProcessor<byte[]> hmacSHA256, String seedSignature) {
@@ -59,7 +62,7 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
       this.timestamp = timestamp;
       this.scope = scope;
       this.hmacSHA256 = hmacSHA256;
-      this.lastComputedSignature = seedSignature;
+      this.seedSignature = seedSignature;
 
       // init content metadata
       MutableContentMetadata contentMetadata = BaseMutableContentMetadata.fromContentMetadata(
@@ -71,91 +74,6 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
       this.setContentMetadata(contentMetadata);
    }
 
-   /**
-    * Returns a chunk for upload consisting of the signed 'header' or chunk
-    * prefix plus the user data. The signature of the chunk incorporates the
-    * signature of the previous chunk (or, if the first chunk, the signature of
-    * the headers portion of the request).
-    *
-    * @param userDataLen The length of the user data contained in userData
-    * @param userData   Contains the user data to be sent in the upload chunk
-    * @return A new buffer of data for upload containing the chunk header plus
-    * user data
-    */
-   protected byte[] constructSignedChunk(int userDataLen, byte[] userData) {
-      // to keep our computation routine signatures simple, if the userData
-      // buffer contains less data than it could, shrink it. Note the special case
-      // to handle the requirement that we send an empty chunk to complete
-      // our chunked upload.
-      byte[] dataToChunk;
-      if (userDataLen == 0) {
-         dataToChunk = FINAL_CHUNK;
-      } else {
-         if (userDataLen < userData.length) {
-            // shrink the chunkdata to fit
-            dataToChunk = new byte[userDataLen];
-            System.arraycopy(userData, 0, dataToChunk, 0, userDataLen);
-         } else {
-            dataToChunk = userData;
-         }
-      }
-
-      // string(IntHexBase(chunk-size)) + ";chunk-signature=" + signature + \r\n + chunk-data + \r\n
-      StringBuilder chunkHeader = new StringBuilder();
-
-      // start with size of user data
-      // IntHexBase(chunk-size)
-      chunkHeader.append(Integer.toHexString(dataToChunk.length));
-
-      // chunk-signature
-
-      // nonsig-extension; we have none in these samples
-      String nonsigExtension = "";
-
-      // if this is the first chunk, we package it with the signing result
-      // of the request headers, otherwise we use the cached signature
-      // of the previous chunk
-
-      // sig-extension
-      StringBuilder buffer = new StringBuilder();
-      buffer.append(CHUNK_STRING_TO_SIGN_PREFIX);
-      buffer.append("\n");
-      buffer.append(timestamp).append("\n");
-      buffer.append(scope).append("\n");
-      buffer.append(lastComputedSignature).append("\n");
-      buffer.append(hex(hash(nonsigExtension))).append("\n");
-      buffer.append(hex(hash(dataToChunk)));
-
-      String chunkStringToSign = buffer.toString();
-
-      // compute the V4 signature for the chunk
-      String chunkSignature;
-      try {
-         chunkSignature = hex(readBytes(toInputStream(chunkStringToSign), hmacSHA256));
-      } catch (IOException e) {
-         throw new HttpException("hmac sha256 chunked signature error");
-      }
-
-      // cache the signature to include with the next chunk's signature computation
-      lastComputedSignature = chunkSignature;
-
-      // construct the actual chunk, comprised of the non-signed extensions, the
-      // 'headers' we just signed and their signature, plus a newline then copy
-      // that plus the user's data to a payload to be written to the request stream
-      chunkHeader.append(nonsigExtension + CHUNK_SIGNATURE_HEADER + chunkSignature);
-      chunkHeader.append(CLRF);
-
-      byte[] header = chunkHeader.toString().getBytes(UTF_8);
-      byte[] signedChunk = new byte[header.length + dataToChunk.length + TRAILER.length];
-      System.arraycopy(header, 0, signedChunk, 0, header.length);
-      // chunk-data
-      System.arraycopy(dataToChunk, 0, signedChunk, header.length, dataToChunk.length);
-      System.arraycopy(TRAILER, 0, signedChunk, header.length + dataToChunk.length, TRAILER.length);
-
-      // this is the total data for the chunk that will be sent to the request stream
-      return signedChunk;
-   }
-
    @Override
    public void release() {
       this.payload.release();
@@ -168,50 +86,132 @@ public class ChunkedUploadPayload extends BasePayload<Payload> {
 
    @Override
    public InputStream openStream() throws IOException {
-      return new SequenceInputStream(new ChunkedInputStreamEnumeration(this.payload.openStream(), chunkedBlockSize));
+      return new ChunkedInputStream(this.payload.openStream());
    }
 
-   private class ChunkedInputStreamEnumeration implements Enumeration<InputStream> {
-      private final InputStream inputStream;
-      private boolean lastChunked;
-      private byte[] buffer;
+   /**
+    * Reads the chunks of the payload, each of them
+    * string(IntHexBase(chunk-size)) + ";chunk-signature=" + signature + \r\n + chunk-data + \r\n,
+    * ending with an empty chunk. The signature of each chunk incorporates the
+    * signature of the previous chunk, or for the first chunk the seed
+    * signature of the request headers.
+    */
+   private final class ChunkedInputStream extends InputStream {
+      private final InputStream input;
+      private final MessageDigest sha256;
+      private final StringBuilder stringToSign = new StringBuilder();
+      private byte[] stringToSignBytes = new byte[256];
+      // the longest chunk header, chunk data and trailer
+      private final int dataOffset;
+      private final byte[] chunk;
+      private String previousSignature = seedSignature;
+      private int position;
+      private int limit;
+      private boolean lastChunk;
+
+      ChunkedInputStream(InputStream input) {
+         this.input = input;
+         try {
+            this.sha256 = MessageDigest.getInstance("SHA-256");
+         } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+         }
+         this.dataOffset = headerLength(chunkedBlockSize);
+         this.chunk = new byte[dataOffset + chunkedBlockSize + TRAILER.length];
+      }
+
+      @Override
+      public int read() throws IOException {
+         if (!fill()) {
+            return -1;
+         }
+         return chunk[position++] & 0xff;
+      }
 
-      ChunkedInputStreamEnumeration(InputStream inputStream, int chunkedBlockSize) {
-         this.inputStream = new BufferedInputStream(inputStream, chunkedBlockSize);
-         buffer = new byte[chunkedBlockSize];
-         lastChunked = false;
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         if (len == 0) {
+            return 0;
+         }
+         if (!fill()) {
+            return -1;
+         }
+         int read = Math.min(len, limit - position);
+         System.arraycopy(chunk, position, b, off, read);
+         position += read;
+         return read;
       }
 
       @Override
-      public boolean hasMoreElements() {
-         return !lastChunked;
+      public int available() {
+         return limit - position;
       }
 
       @Override
-      public InputStream nextElement() {
-         int bytesRead;
-         try {
-            bytesRead = ByteStreams.read(inputStream, buffer, 0, buffer.length);
-         } catch (IOException e) {
-            // IO EXCEPTION
-            throw new ChunkedUploadException("read from input stream error", e);
+      public void close() throws IOException {
+         input.close();
+      }
+
+      /**
+       * Reads and signs the next chunk once the current one is consumed.
+       *
+       * @return false once the last chunk is consumed
+       */
+      private boolean fill() throws IOException {
+         if (position < limit) {
+            return true;
+         }
+         if (lastChunk) {
+            return false;
+         }
+         int length = ByteStreams.read(input, chunk, dataOffset, chunkedBlockSize);
+         lastChunk = length == 0;
+
+         sha256.update(chunk, dataOffset, length);
+         stringToSign.setLength(0);
+         stringToSign.append(CHUNK_STRING_TO_SIGN_PREFIX).append('\n')
+               .append(timestamp).append('\n')
+               .append(scope).append('\n')
+               .append(previousSignature).append('\n')
+               .append(EMPTY_EXTENSION_HASH).append('\n')
+               .append(hex(sha256.digest()));
+         String signature = hex(sign(stringToSign));
+         // cache the signature to include with the next chunk's signature computation
+         previousSignature = signature;
+
+         // the header ends where the data starts
+         position = dataOffset - headerLength(length);
+         int offset = writeAscii(Integer.toHexString(length), position);
+         System.arraycopy(SIGNATURE_HEADER, 0, chunk, offset, SIGNATURE_HEADER.length);
+         offset = writeAscii(signature, offset + SIGNATURE_HEADER.length);
+         System.arraycopy(TRAILER, 0, chunk, offset, TRAILER.length);
+         System.arraycopy(TRAILER, 0, chunk, dataOffset + length, TRAILER.length);
+         limit = dataOffset + length + TRAILER.length;
+         return true;
+      }
+
+      private byte[] sign(CharSequence ascii) throws IOException {
+         int length = ascii.length();
+         if (stringToSignBytes.length < length) {
+            stringToSignBytes = new byte[length];
+         }
+         for (int i = 0; i < length; i++) {
+            stringToSignBytes[i] = (byte) ascii.charAt(i);
          }
+         hmacSHA256.processBytes(stringToSignBytes, 0, length);
+         return hmacSHA256.getResult();
+      }
 
-         // buffer
-         byte[] chunk;
-
-         // ByteStreams.read(InputStream, byte[], int, int) returns the number of bytes read
-         // InputStream.read(byte[], int, int) returns -1 if the end of the stream has been reached.
-         if (bytesRead > 0) {
-            // process into a chunk
-            chunk = constructSignedChunk(bytesRead, buffer);
-         } else {
-            // construct last chunked block
-            chunk = constructSignedChunk(0, buffer);
-            lastChunked = true;
+      private int writeAscii(String ascii, int offset) {
+         for (int i = 0; i < ascii.length(); i++) {
+            chunk[offset++] = (byte) ascii.charAt(i);
          }
-         return new ByteArrayInputStream(chunk);
+         return offset;
       }
    }
 
+   private static int headerLength(int chunkDataSize) {
+      return Integer.toHexString(chunkDataSize).length() + SIGNATURE_HEADER.length + SIGNATURE_LENGTH
+            + TRAILER.length;
+   }
 }
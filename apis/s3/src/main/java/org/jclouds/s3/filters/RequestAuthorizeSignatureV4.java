@@ -24,7 +24,12 @@ import org.jclouds.io.Payload;
 import org.jclouds.rest.internal.GeneratedHttpRequest;
 import org.jclouds.s3.S3Client;
 
+import java.util.Locale;
+
 import javax.inject.Inject;
+import javax.inject.Named;
+
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_PAYLOAD_SIGNING;
 
 @Singleton
 public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
@@ -36,14 +41,33 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
    private final Aws4SignerForAuthorizationHeader signerForAuthorizationHeader;
    private final Aws4SignerForChunkedUpload signerForChunkedUpload;
    private final Aws4SignerForQueryString signerForQueryString;
+   private final PayloadSigning payloadSigning;
+
+   /**
+    * How payloads are covered by the signature.
+    *
+    * @see org.jclouds.s3.reference.S3Constants#PROPERTY_S3_PAYLOAD_SIGNING
+    */
+   public enum PayloadSigning {
+      SIGNED, UNSIGNED, STREAMING
+   }
 
-   @Inject
    public RequestAuthorizeSignatureV4(Aws4SignerForAuthorizationHeader signerForAuthorizationHeader,
          Aws4SignerForChunkedUpload signerForChunkedUpload,
          Aws4SignerForQueryString signerForQueryString) {
+      this(signerForAuthorizationHeader, signerForChunkedUpload, signerForQueryString,
+            PayloadSigning.SIGNED.name());
+   }
+
+   @Inject
+   public RequestAuthorizeSignatureV4(Aws4SignerForAuthorizationHeader signerForAuthorizationHeader,
+         Aws4SignerForChunkedUpload signerForChunkedUpload,
+         Aws4SignerForQueryString signerForQueryString,
+         @Named(PROPERTY_S3_PAYLOAD_SIGNING) String payloadSigning) {
       this.signerForAuthorizationHeader = signerForAuthorizationHeader;
       this.signerForChunkedUpload = signerForChunkedUpload;
       this.signerForQueryString = signerForQueryString;
+      this.payloadSigning = PayloadSigning.valueOf(payloadSigning.toUpperCase(Locale.ENGLISH));
    }
 
    @Override
@@ -55,12 +79,21 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
       return signForAuthorizationHeader(request);
    }
 
+   /**
+    * returns true, if the payload is sent as UNSIGNED-PAYLOAD, which is only done over https.
+    */
+   protected boolean useUnsignedPayload(HttpRequest request) {
+      return payloadSigning == PayloadSigning.UNSIGNED && request.getPayload() != null
+            && "https".equalsIgnoreCase(request.getEndpoint().getScheme());
+   }
+
    /**
     * returns true, if use AWS S3 chunked upload.
     */
    protected boolean useChunkedUpload(HttpRequest request) {
-      // only S3Client putObject method, payload not null, content-length > 0 and cannot repeatable
-      if (!GeneratedHttpRequest.class.isAssignableFrom(request.getClass())) {
+      // only S3Client putObject method, payload not null, content-length > 0 and cannot repeatable, unless
+      // streaming every put
+      if (!GeneratedHttpRequest.class.isAssignableFrom(request.getClass()) || useUnsignedPayload(request)) {
          return false;
       }
       GeneratedHttpRequest req = GeneratedHttpRequest.class.cast(request);
@@ -84,11 +117,11 @@ public class RequestAuthorizeSignatureV4 implements RequestAuthorizeSignature {
          return false;
       }
 
-      return contentLength > 0L && !payload.isRepeatable();
+      return contentLength > 0L && (payloadSigning == PayloadSigning.STREAMING || !payload.isRepeatable());
    }
 
    protected HttpRequest signForAuthorizationHeader(HttpRequest request) {
-      return signerForAuthorizationHeader.sign(request);
+      return signerForAuthorizationHeader.sign(request, useUnsignedPayload(request));
    }
 
    protected HttpRequest signForChunkedUpload(HttpRequest request) {
@@ -32,6 +32,13 @@ public final class S3Constants {
    public static final String PROPERTY_S3_SERVICE_PATH = "jclouds.s3.service-path";
    public static final String PROPERTY_S3_VIRTUAL_HOST_BUCKETS = "jclouds.s3.virtual-host-buckets";
    public static final String PROPERTY_JCLOUDS_S3_CHUNKED_SIZE = "jclouds.s3.chunked.size";
+   /**
+    * How signature version 4 covers payloads: {@code SIGNED} hashes the payload, or signs it in 'aws-chunked'
+    * chunks when it is a put of a stream which cannot be read twice; {@code UNSIGNED} sends
+    * {@code UNSIGNED-PAYLOAD} over https, leaving integrity to TLS and Content-MD5; {@code STREAMING} signs every put
+    * in 'aws-chunked' chunks, so that no payload is read before it is sent.
+    */
+   public static final String PROPERTY_S3_PAYLOAD_SIGNING = "jclouds.s3.payload-signing";
 
    public static final String TEMPORARY_SIGNATURE_PARAM = "Signature";
 
@@ -18,10 +18,12 @@ package org.jclouds.blobstore;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.NavigableMap;
 
 import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
@@ -100,6 +102,19 @@ public interface LocalStorageStrategy {
      */
     Iterable<String> getBlobKeysInsideContainer(String container) throws IOException;
 
+    /**
+     * Returns a sorted, read-only view of the metadata of all blobs inside a
+     * container, keyed by blob name. Implementations maintain this view as
+     * blobs are put and removed so that callers can seek to a marker or prefix
+     * without loading every blob. Callers must copy values before mutating them.
+     *
+     * @param container
+     * @return blob metadata sorted by name
+     * @throws IOException
+     */
+    NavigableMap<String, ? extends MutableBlobMetadata> getBlobMetadataInsideContainer(String container)
+          throws IOException;
+
     /**
      * Load the blob with the given key belonging to the container with the given
      * name. There must exist a resource on the file system whose complete name
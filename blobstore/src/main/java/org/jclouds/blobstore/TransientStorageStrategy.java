@@ -23,8 +23,11 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Date;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 import javax.inject.Inject;
 
@@ -32,6 +35,7 @@ import org.jclouds.blobstore.domain.Blob;
 import org.jclouds.blobstore.domain.BlobAccess;
 import org.jclouds.blobstore.domain.Blob.Factory;
 import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MutableBlobMetadata;
 import org.jclouds.blobstore.domain.MutableStorageMetadata;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.domain.StorageType;
@@ -48,8 +52,10 @@ import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
 import org.jclouds.util.Closeables2;
 
+import com.google.common.base.Function;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Multimaps;
 import com.google.common.hash.HashCode;
 import com.google.common.hash.Hashing;
@@ -59,7 +65,15 @@ import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
 
 public class TransientStorageStrategy implements LocalStorageStrategy {
-   private final ConcurrentMap<String, ConcurrentMap<String, Blob>> containerToBlobs = new ConcurrentHashMap<String, ConcurrentMap<String, Blob>>();
+   private static final Function<Blob, MutableBlobMetadata> BLOB_TO_METADATA = new Function<Blob, MutableBlobMetadata>() {
+      @Override
+      public MutableBlobMetadata apply(Blob blob) {
+         return blob.getMetadata();
+      }
+   };
+
+   /** Blobs are kept sorted by name so that list can seek directly to a marker or prefix. */
+   private final ConcurrentMap<String, ConcurrentNavigableMap<String, Blob>> containerToBlobs = new ConcurrentHashMap<String, ConcurrentNavigableMap<String, Blob>>();
    private final ConcurrentMap<String, ConcurrentMap<String, BlobAccess>> containerToBlobAccess = new ConcurrentHashMap<String, ConcurrentMap<String, BlobAccess>>();
    private final ConcurrentMap<String, StorageMetadata> containerMetadata = new ConcurrentHashMap<String, StorageMetadata>();
    private final ConcurrentMap<String, ContainerAccess> containerAccessMap = new ConcurrentHashMap<String, ContainerAccess>();
@@ -89,8 +103,8 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
 
    @Override
    public boolean createContainerInLocation(String containerName, Location location, CreateContainerOptions options) {
-      ConcurrentMap<String, Blob> origValue = containerToBlobs.putIfAbsent(
-            containerName, new ConcurrentHashMap<String, Blob>());
+      ConcurrentNavigableMap<String, Blob> origValue = containerToBlobs.putIfAbsent(
+            containerName, new ConcurrentSkipListMap<String, Blob>());
       if (origValue != null) {
          return false;
       }
@@ -152,6 +166,13 @@ public class TransientStorageStrategy implements LocalStorageStrategy {
       return containerToBlobs.get(containerName).keySet();
    }
 
+   @Override
+   public NavigableMap<String, ? extends MutableBlobMetadata> getBlobMetadataInsideContainer(
+         final String containerName) {
+      return Maps.unmodifiableNavigableMap(Maps.transformValues(containerToBlobs.get(containerName),
+            BLOB_TO_METADATA));
+   }
+
    @Override
    public Blob getBlob(final String containerName, final String blobName) {
       Map<String, Blob> map = containerToBlobs.get(containerName);
@@ -21,10 +21,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.getCausalChain;
 import static com.google.common.base.Throwables.propagate;
 import static com.google.common.collect.Iterables.size;
-import static com.google.common.collect.Iterables.transform;
-import static com.google.common.collect.Iterables.tryFind;
-import static com.google.common.collect.Sets.filter;
-import static com.google.common.collect.Sets.newTreeSet;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 
 import java.io.File;
@@ -34,15 +31,17 @@ import java.io.SequenceInputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
-import java.util.SortedSet;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.jclouds.blobstore.BlobStore;
@@ -71,6 +70,7 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.internal.ParallelRangeDownloader;
 import org.jclouds.blobstore.util.BlobStoreUtils;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
@@ -89,8 +89,6 @@ import org.jclouds.logging.Logger;
 import org.jclouds.util.Closeables2;
 
 import com.google.common.base.Function;
-import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
 import com.google.common.base.Predicates;
 import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
@@ -101,6 +99,7 @@ import com.google.common.collect.Iterables;
 import com.google.common.collect.Iterators;
 import com.google.common.io.ByteSource;
 import com.google.common.net.HttpHeaders;
+import com.google.common.util.concurrent.ListeningExecutorService;
 
 @Singleton
 public final class LocalBlobStore implements BlobStore {
@@ -116,6 +115,10 @@ public final class LocalBlobStore implements BlobStore {
    private final Blob.Factory blobFactory;
    private final LocalStorageStrategy storageStrategy;
 
+   @com.google.inject.Inject
+   @Named(PROPERTY_USER_THREADS)
+   ListeningExecutorService userExecutor;
+
    @Inject
    LocalBlobStore(BlobStoreContext context,
          BlobUtils blobUtils,
@@ -220,6 +223,9 @@ public final class LocalBlobStore implements BlobStore {
     */
    @Override
    public PageSet<? extends StorageMetadata> list(final String containerName, ListContainerOptions options) {
+      if (options == null) {
+         options = ListContainerOptions.NONE;
+      }
       if (options.getDir() != null && options.getPrefix() != null) {
          throw new IllegalArgumentException("Cannot set both prefix and directory");
       }
@@ -232,147 +238,110 @@ public final class LocalBlobStore implements BlobStore {
       if (!storageStrategy.containerExists(containerName))
          throw cnfe(containerName);
 
-      // Loading blobs from container
-      Iterable<String> blobBelongingToContainer = null;
+      // Sorted metadata index of the blobs in the container
+      NavigableMap<String, ? extends MutableBlobMetadata> blobBelongingToContainer = null;
       try {
-         blobBelongingToContainer = storageStrategy.getBlobKeysInsideContainer(containerName);
+         blobBelongingToContainer = storageStrategy.getBlobMetadataInsideContainer(containerName);
       } catch (IOException e) {
          logger.error(e, "An error occurred loading blobs contained into container %s", containerName);
-         propagate(e);
+         throw propagate(e);
       }
 
-      blobBelongingToContainer = Iterables.filter(blobBelongingToContainer,
-            new Predicate<String>() {
-               @Override
-               public boolean apply(String key) {
-                  // ignore folders
-                  return storageStrategy.blobExists(containerName, key);
-               }
-            });
-      SortedSet<StorageMetadata> contents = newTreeSet(FluentIterable.from(blobBelongingToContainer)
-            .transform(new Function<String, StorageMetadata>() {
-               @Override
-               public StorageMetadata apply(String key) {
-                  Blob oldBlob = loadBlob(containerName, key);
-                  if (oldBlob == null) {
-                     return null;
-                  }
-                  checkState(oldBlob.getMetadata() != null, "blob " + containerName + "/" + key + " has no metadata");
-                  MutableBlobMetadata md = BlobStoreUtils.copy(oldBlob.getMetadata());
-                  md.setSize(oldBlob.getMetadata().getSize());
-                  return md;
-               }
-            })
-            .filter(Predicates.<StorageMetadata>notNull()));
-
-      String marker = null;
-      if (options != null) {
-         if (options.getDir() != null && !options.getDir().isEmpty()) {
-            contents = filterDirectory(contents, options);
-         } else if (!Strings.isNullOrEmpty(options.getPrefix())) {
-            contents = filterPrefix(contents, options);
-         } else if (!options.isRecursive() || (options.getDelimiter() != null)) {
-            String delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
-            contents = extractCommonPrefixes(contents, delimiter, null);
+      String prefix = null;
+      String excludedName = null;
+      String delimiter = null;
+      if (options.getDir() != null && !options.getDir().isEmpty()) {
+         prefix = options.getDir().endsWith("/") ? options.getDir() : options.getDir() + "/";
+         // the directory itself is not part of its listing
+         excludedName = prefix;
+         if (!options.isRecursive()) {
+            delimiter = storageStrategy.getSeparator();
          }
-
-         if (options.getMarker() != null) {
-            final String finalMarker = options.getMarker();
-            String delimiter = storageStrategy.getSeparator();
-            Optional<StorageMetadata> lastMarkerMetadata = tryFind(contents, new Predicate<StorageMetadata>() {
-               public boolean apply(StorageMetadata metadata) {
-                  return metadata.getName().compareTo(finalMarker) > 0;
-               }
-            });
-            if (lastMarkerMetadata.isPresent()) {
-               contents = contents.tailSet(lastMarkerMetadata.get());
-            } else {
-               // marker is after last key or container is empty
-               contents.clear();
-            }
+      } else if (!Strings.isNullOrEmpty(options.getPrefix())) {
+         prefix = options.getPrefix();
+         if (options.getDelimiter() != null || !options.isRecursive()) {
+            delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
          }
-
-         int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
-         if (!contents.isEmpty()) {
-            StorageMetadata lastElement = contents.last();
-            contents = newTreeSet(Iterables.limit(contents, maxResults));
-            if (maxResults != 0 && !contents.contains(lastElement)) {
-               // Partial listing
-               lastElement = contents.last();
-               marker = lastElement.getName();
-            }
-         }
-
-         // trim metadata, if the response isn't supposed to be detailed.
-         if (!options.isDetailed()) {
-            for (StorageMetadata md : contents) {
-               md.getUserMetadata().clear();
+      } else if (!options.isRecursive() || (options.getDelimiter() != null)) {
+         delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
+      }
+      if (Strings.isNullOrEmpty(delimiter)) {
+         delimiter = null;
+      }
+
+      // seek to the first candidate instead of scanning the whole container
+      String marker = options.getMarker();
+      NavigableMap<String, ? extends MutableBlobMetadata> candidates;
+      if (marker != null && (prefix == null || marker.compareTo(prefix) >= 0)) {
+         candidates = blobBelongingToContainer.tailMap(marker, false);
+      } else if (prefix != null) {
+         candidates = blobBelongingToContainer.tailMap(prefix, true);
+      } else {
+         candidates = blobBelongingToContainer;
+      }
+
+      int maxResults = options.getMaxResults() != null ? options.getMaxResults() : 1000;
+      List<StorageMetadata> contents = new ArrayList<StorageMetadata>();
+      String nextMarker = null;
+      String lastCommonPrefix = null;
+      Iterator<? extends Map.Entry<String, ? extends MutableBlobMetadata>> it = candidates.entrySet().iterator();
+      while (it.hasNext()) {
+         Map.Entry<String, ? extends MutableBlobMetadata> entry = it.next();
+         String name = entry.getKey();
+         // prefixes and directories use '/' whatever the platform separator in the name
+         String normalizedName = name.replace(File.separatorChar, '/');
+         if (prefix != null && !normalizedName.startsWith(prefix)) {
+            if (File.separatorChar == '/') {
+               // the names that follow sort after the prefix as well
+               break;
             }
+            continue;
          }
-      }
-
-      return new PageSetImpl<StorageMetadata>(contents, marker);
-   }
-
-   private SortedSet<StorageMetadata> filterDirectory(SortedSet<StorageMetadata> contents, ListContainerOptions
-           options) {
-      String prefix = options.getDir();
-      final String dirPrefix = prefix.endsWith("/") ?
-              prefix :
-              prefix + "/";
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null
-                    && o.getName().replace(File.separatorChar, '/').startsWith(dirPrefix)
-                    && !o.getName().replace(File.separatorChar, '/').equals(dirPrefix);
+         if (normalizedName.equals(excludedName)) {
+            continue;
          }
-      }));
 
-      if (!options.isRecursive()) {
-         return extractCommonPrefixes(contents, storageStrategy.getSeparator(), dirPrefix);
-      }
-
-      return contents;
-   }
-
-   private SortedSet<StorageMetadata> filterPrefix(SortedSet<StorageMetadata> contents, final ListContainerOptions
-                                                   options) {
-      contents = newTreeSet(filter(contents, new Predicate<StorageMetadata>() {
-         public boolean apply(StorageMetadata o) {
-            return o != null && o.getName().replace(File.separatorChar, '/').startsWith(options.getPrefix());
+         StorageMetadata md;
+         int delimiterIndex = delimiter == null ? -1 :
+               name.indexOf(delimiter, prefix == null ? 0 : prefix.length());
+         if (delimiterIndex >= 0) {
+            String commonPrefix = name.substring(0, delimiterIndex + delimiter.length());
+            if (commonPrefix.equals(lastCommonPrefix)) {
+               continue;
+            }
+            lastCommonPrefix = commonPrefix;
+            // skip the remaining blobs under this common prefix
+            it = blobBelongingToContainer.tailMap(commonPrefix + Character.MAX_VALUE, true).entrySet().iterator();
+            if (marker != null && commonPrefix.compareTo(marker) <= 0) {
+               continue;
+            }
+            MutableStorageMetadata relativePath = new MutableStorageMetadataImpl();
+            relativePath.setType(StorageType.RELATIVE_PATH);
+            relativePath.setName(commonPrefix);
+            md = relativePath;
+         } else {
+            MutableBlobMetadata blobMd = entry.getValue();
+            checkState(blobMd != null, "blob " + containerName + "/" + name + " has no metadata");
+            MutableBlobMetadata copy = BlobStoreUtils.copy(blobMd);
+            copy.setSize(blobMd.getSize());
+            // trim metadata, if the response isn't supposed to be detailed.
+            if (!options.isDetailed()) {
+               copy.getUserMetadata().clear();
+            }
+            md = copy;
          }
-      }));
-
-      if (options.getDelimiter() != null || !options.isRecursive()) {
-          String delimiter = options.getDelimiter() == null ? storageStrategy.getSeparator() : options.getDelimiter();
-          return extractCommonPrefixes(contents, delimiter, options.getPrefix());
-      }
-
-      return contents;
-   }
-
-   private SortedSet<StorageMetadata> extractCommonPrefixes(SortedSet<StorageMetadata> contents, String delimiter,
-                                                            String prefix) {
-      if (Strings.isNullOrEmpty(delimiter)) {
-         return contents;
-      }
-      SortedSet<String> commonPrefixes = newTreeSet(
-              transform(contents, new CommonPrefixes(prefix, delimiter)));
-      commonPrefixes.remove(CommonPrefixes.NO_PREFIX);
-
-      contents = newTreeSet(filter(contents, new DelimiterFilter(prefix, delimiter)));
 
-      for (String o : commonPrefixes) {
-         MutableStorageMetadata md = new MutableStorageMetadataImpl();
-         md.setType(StorageType.RELATIVE_PATH);
-
-         if (prefix != null) {
-            o = prefix + o;
+         if (contents.size() >= maxResults) {
+            // Partial listing
+            if (maxResults != 0) {
+               nextMarker = contents.get(contents.size() - 1).getName();
+            }
+            break;
          }
-         md.setName(o + delimiter);
          contents.add(md);
       }
-      return contents;
+
+      return new PageSetImpl<StorageMetadata>(contents, nextMarker);
    }
 
    private ContainerNotFoundException cnfe(final String name) {
@@ -465,60 +434,6 @@ public final class LocalBlobStore implements BlobStore {
       return storageStrategy.getBlob(container, key);
    }
 
-   private static class DelimiterFilter implements Predicate<StorageMetadata> {
-      private final String prefix;
-      private final String delimiter;
-
-      public DelimiterFilter(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public boolean apply(StorageMetadata metadata) {
-         String name = metadata.getName();
-         if (prefix == null || prefix.isEmpty()) {
-            return name.indexOf(delimiter) == -1;
-         }
-         if (name.startsWith(prefix)) {
-            String unprefixedName = name.substring(prefix.length());
-            if (unprefixedName.equals("")) {
-               // a blob that matches the prefix should also be returned
-               return true;
-            }
-            return unprefixedName.indexOf(delimiter) == -1;
-         }
-         return false;
-      }
-   }
-
-   private static class CommonPrefixes implements Function<StorageMetadata, String> {
-      private final String prefix;
-      private final String delimiter;
-      public static final String NO_PREFIX = "NO_PREFIX";
-
-      public CommonPrefixes(String prefix, String delimiter) {
-         this.prefix = prefix;
-         this.delimiter = delimiter;
-      }
-
-      public String apply(StorageMetadata metadata) {
-         String working = metadata.getName();
-         if (prefix != null) {
-            if (working.startsWith(prefix)) {
-               working = working.substring(prefix.length());
-            } else {
-               return NO_PREFIX;
-            }
-         }
-         if (working.indexOf(delimiter) >= 0) {
-            // include the delimiter in the result
-            return working.substring(0, working.indexOf(delimiter));
-         } else {
-            return NO_PREFIX;
-         }
-      }
-   }
-
    private static HttpResponseException returnResponseException(int code) {
       HttpResponse response = HttpResponse.builder().statusCode(code).build();
       return new HttpResponseException(new HttpCommand(HttpRequest.builder().method("GET").endpoint("http://stub")
@@ -671,17 +586,19 @@ public final class LocalBlobStore implements BlobStore {
                      .getMetadata().getLastModified(), unmodifiedSince), null, response);
             }
          }
+         Object rawContent = blob.getPayload().getRawContent();
          blob = copyBlob(blob);
 
          if (options.getRanges() != null && !options.getRanges().isEmpty()) {
             long size = 0;
             ImmutableList.Builder<ByteSource> streams = ImmutableList.builder();
 
-            // Try to convert payload to ByteSource, otherwise wrap it.
+            // Slice the stored ByteSource, which can seek to each range, otherwise buffer the payload.
             ByteSource byteSource;
-            try {
-               byteSource = (ByteSource) blob.getPayload().getRawContent();
-            } catch (ClassCastException cce) {
+            if (rawContent instanceof ByteSource) {
+               byteSource = (ByteSource) rawContent;
+               blob.getPayload().release();
+            } else {
                try {
                   byteSource = ByteSource.wrap(ByteStreams2.toByteArrayAndClose(blob.getPayload().openStream()));
                } catch (IOException e) {
@@ -960,22 +877,22 @@ public final class LocalBlobStore implements BlobStore {
 
    @Override
    public void downloadBlob(String container, String name, File destination) {
-      throw new UnsupportedOperationException();
+      downloadBlob(container, name, destination, userExecutor);
    }
 
    @Override
    public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
-      throw new UnsupportedOperationException();
+      new ParallelRangeDownloader(this).downloadBlob(container, name, destination, executor);
    }
 
    @Override
    public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException();
+      return streamBlob(container, name, userExecutor);
    }
 
    @Override
    public InputStream streamBlob(String container, String name, ExecutorService executor) {
-      throw new UnsupportedOperationException();
+      return new ParallelRangeDownloader(this).streamBlob(container, name, executor);
    }
 
    private static String maybeQuoteETag(String eTag) {
@@ -16,6 +16,7 @@
  */
 package org.jclouds.blobstore.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
@@ -27,10 +28,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
 
 import javax.inject.Named;
 
@@ -45,9 +51,12 @@ import org.jclouds.blobstore.domain.MultipartUpload;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.options.CopyOptions;
+import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
-import org.jclouds.blobstore.strategy.internal.MultipartUploadSlicingAlgorithm;
+import org.jclouds.blobstore.strategy.MultipartUploadSizingStrategy;
+import org.jclouds.blobstore.strategy.internal.AdaptiveMultipartUploadSizing;
+import org.jclouds.blobstore.strategy.internal.ParallelRangeDownloader;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
@@ -58,13 +67,22 @@ import org.jclouds.http.HttpResponseException;
 import org.jclouds.io.ContentMetadata;
 import org.jclouds.io.Payload;
 import org.jclouds.io.PayloadSlicer;
+import org.jclouds.io.Payloads;
+import org.jclouds.io.payloads.BaseMutableContentMetadata;
+import org.jclouds.rest.ResourceNotFoundException;
 import org.jclouds.util.Closeables2;
 
 import com.google.common.annotations.Beta;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Predicate;
+import com.google.common.base.Strings;
 import com.google.common.base.Supplier;
 import com.google.common.base.Throwables;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
@@ -331,6 +349,10 @@ public abstract class BaseBlobStore implements BlobStore {
    @VisibleForTesting
    ListeningExecutorService userExecutor;
 
+   @com.google.inject.Inject
+   @VisibleForTesting
+   MultipartUploadSizingStrategy multipartUploadSizing = new AdaptiveMultipartUploadSizing();
+
    /**
     * Upload using a user-provided executor, or the jclouds userExecutor
     *
@@ -350,50 +372,285 @@ public abstract class BaseBlobStore implements BlobStore {
 
    @Beta
    protected String putMultipartBlob(String container, Blob blob, PutOptions overrides, ListeningExecutorService executor) {
+      long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
+      MultipartUploadJournal journal = null;
+      MultipartUpload mpu = null;
+      Map<Integer, MultipartPart> completedParts = ImmutableMap.of();
+      long partSize = overrides.getPartSize();
+      String fingerprint = null;
+      if (overrides.getResumeJournal() != null) {
+         journal = new MultipartUploadJournal(overrides.getResumeJournal());
+         fingerprint = contentFingerprint(blob);
+         // content which cannot be identified could differ from the recorded parts, so it starts a new upload
+         mpu = fingerprint.isEmpty() ? null
+               : resumeMultipartUpload(container, blob, overrides, contentLength, fingerprint, journal);
+         if (mpu != null) {
+            partSize = journal.getPartSize();
+            completedParts = journal.getParts();
+         }
+      }
+      boolean repeatable = blob.getPayload().isRepeatable();
+      if (partSize == 0) {
+         partSize = multipartUploadSizing.partSize(contentLength, getMinimumMultipartPartSize(),
+               getMaximumMultipartPartSize(), getMaximumNumberOfParts(), repeatable);
+      }
+      checkArgument(partSize >= getMinimumMultipartPartSize() && partSize <= getMaximumMultipartPartSize(),
+            "part size %s outside of provider limits [%s, %s]", partSize, getMinimumMultipartPartSize(),
+            getMaximumMultipartPartSize());
+      int partsInFlight = overrides.getMaxInFlightParts();
+      if (partsInFlight == 0) {
+         partsInFlight = multipartUploadSizing.partsInFlight(partSize, repeatable);
+      }
+
       ArrayList<ListenableFuture<MultipartPart>> parts = new ArrayList<ListenableFuture<MultipartPart>>();
-      MultipartUpload mpu = initiateMultipartUpload(container, blob.getMetadata(), overrides);
+      if (mpu == null) {
+         mpu = initiateMultipartUpload(container, blob.getMetadata(), overrides);
+         if (journal != null) {
+            try {
+               journal.begin(mpu, contentLength, partSize, fingerprint);
+            } catch (IOException ioe) {
+               abortMultipartUpload(mpu);
+               throw Throwables.propagate(ioe);
+            }
+         }
+      }
       try {
-         long contentLength = blob.getMetadata().getContentMetadata().getContentLength();
-         // TODO: inject MultipartUploadSlicingAlgorithm to override default part size
-         MultipartUploadSlicingAlgorithm algorithm = new MultipartUploadSlicingAlgorithm(
-               getMinimumMultipartPartSize(), getMaximumMultipartPartSize(), getMaximumNumberOfParts());
-         long partSize = algorithm.calculateChunkSize(contentLength);
-         int partNumber = 1;
-         // TODO: for InputStream payloads, this buffers all parts in-memory!
-         while (partNumber <= algorithm.getParts()) {
-            Payload payload = slicer.slice(blob.getPayload(), algorithm.getCopied(), partSize);
-            BlobUploader b =
-                  new BlobUploader(mpu, partNumber++, payload);
-            parts.add(executor.submit(b));
-            algorithm.addCopied(partSize);
+         if (repeatable) {
+            PartWindow window = new PartWindow(partsInFlight, 0);
+            int partNumber = 1;
+            for (long copied = 0; copied < contentLength; copied += partSize, partNumber++) {
+               long length = Math.min(partSize, contentLength - copied);
+               MultipartPart completed = completedParts.get(partNumber);
+               if (completed != null) {
+                  parts.add(Futures.immediateFuture(completed));
+                  continue;
+               }
+               Payload payload = slicer.slice(blob.getPayload(), copied, length);
+               window.acquire();
+               parts.add(window.release(executor.submit(new BlobUploader(mpu, partNumber, payload, length,
+                     journal)), null));
+            }
+         } else {
+            putStreamingParts(mpu, blob.getPayload(), contentLength, partSize, partsInFlight, executor, parts,
+                  completedParts, journal);
          }
-         if (algorithm.getRemaining() != 0) {
-            Payload payload = slicer.slice(blob.getPayload(), algorithm.getCopied(), algorithm.getRemaining());
-            BlobUploader b =
-                  new BlobUploader(mpu, partNumber, payload);
-            parts.add(executor.submit(b));
+         String eTag = completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+         if (journal != null) {
+            journal.delete();
          }
-         return completeMultipartUpload(mpu, Futures.getUnchecked(Futures.allAsList(parts)));
+         return eTag;
       } catch (RuntimeException re) {
-         abortMultipartUpload(mpu);
+         for (ListenableFuture<MultipartPart> part : parts) {
+            part.cancel(true);
+         }
+         if (journal == null) {
+            abortMultipartUpload(mpu);
+         }
          throw re;
       }
    }
 
+   /**
+    * Returns the upload recorded in the journal if it still exists, after dropping journal parts which the provider
+    * does not list with the same size and ETag. Returns null if there is nothing to resume.
+    */
+   private MultipartUpload resumeMultipartUpload(String container, Blob blob, PutOptions overrides, long contentLength,
+         String fingerprint, MultipartUploadJournal journal) {
+      try {
+         if (!journal.load(container, blob.getMetadata().getName(), contentLength, fingerprint)) {
+            return null;
+         }
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      }
+      MultipartUpload mpu = MultipartUpload.create(container, blob.getMetadata().getName(), journal.getUploadId(),
+            blob.getMetadata(), overrides);
+      List<MultipartPart> uploaded;
+      try {
+         uploaded = listMultipartUpload(mpu);
+      } catch (ResourceNotFoundException rnfe) {
+         // the upload expired or was aborted
+         return null;
+      } catch (HttpResponseException hre) {
+         if (hre.getResponse() == null || hre.getResponse().getStatusCode() != 404) {
+            throw hre;
+         }
+         return null;
+      }
+      Map<Integer, MultipartPart> recorded = journal.getParts();
+      Map<Integer, MultipartPart> confirmed = new HashMap<Integer, MultipartPart>();
+      for (MultipartPart part : uploaded) {
+         MultipartPart journalPart = recorded.get(part.partNumber());
+         if (journalPart != null && journalPart.partSize() == part.partSize()
+               && eTagsMatch(journalPart.partETag(), part.partETag())) {
+            confirmed.put(part.partNumber(), journalPart);
+         }
+      }
+      journal.retain(confirmed);
+      return mpu;
+   }
+
+   /**
+    * Identifies the content of a journaled upload by its Content-MD5, or by the modification time of the file it is
+    * read from. Returns an empty string when neither is known, in which case the upload is not resumed.
+    */
+   private static String contentFingerprint(Blob blob) {
+      HashCode md5 = blob.getPayload().getContentMetadata().getContentMD5AsHashCode();
+      if (md5 != null) {
+         return "md5:" + md5;
+      }
+      Object rawContent = blob.getPayload().getRawContent();
+      if (rawContent instanceof File) {
+         return "mtime:" + ((File) rawContent).lastModified();
+      }
+      return "";
+   }
+
+   private static boolean eTagsMatch(String recorded, String listed) {
+      // a part without an ETag cannot be confirmed, so it is uploaded again
+      if (Strings.isNullOrEmpty(recorded) || Strings.isNullOrEmpty(listed)) {
+         return false;
+      }
+      return maybeQuoteETag(recorded).equals(maybeQuoteETag(listed));
+   }
+
+   /**
+    * Reads a non-repeatable payload sequentially, one part at a time, into buffers which are recycled once their part
+    * has uploaded. Reading the next part overlaps with the uploads in flight, and memory use is bounded by
+    * {@code partsInFlight} times the part size. Completed parts of a resumed upload are skipped over.
+    */
+   private void putStreamingParts(MultipartUpload mpu, Payload payload, long contentLength, long partSize,
+         int partsInFlight, ListeningExecutorService executor, List<ListenableFuture<MultipartPart>> parts,
+         Map<Integer, MultipartPart> completedParts, MultipartUploadJournal journal) {
+      checkState(partSize <= Integer.MAX_VALUE, "part size too large to buffer: %s", partSize);
+      PartWindow window = new PartWindow(partsInFlight, (int) partSize);
+      InputStream is = null;
+      try {
+         is = payload.openStream();
+         int partNumber = 1;
+         for (long copied = 0; copied < contentLength; copied += partSize, partNumber++) {
+            int length = (int) Math.min(partSize, contentLength - copied);
+            MultipartPart completed = completedParts.get(partNumber);
+            if (completed != null) {
+               ByteStreams.skipFully(is, length);
+               parts.add(Futures.immediateFuture(completed));
+               continue;
+            }
+            byte[] buffer = window.acquire();
+            ByteStreams.readFully(is, buffer, 0, length);
+            Payload part = Payloads.newByteSourcePayload(ByteSource.wrap(buffer).slice(0, length));
+            part.setContentMetadata(BaseMutableContentMetadata.fromContentMetadata(payload.getContentMetadata()
+                  .toBuilder().contentLength((long) length).contentMD5((HashCode) null).build()));
+            parts.add(window.release(executor.submit(new BlobUploader(mpu, partNumber, part, length, journal)),
+                  buffer));
+         }
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } finally {
+         Closeables2.closeQuietly(is);
+      }
+   }
+
+   /**
+    * Bounds the number of parts in flight and recycles their buffers. Once a part fails, no further parts are
+    * admitted.
+    */
+   @VisibleForTesting
+   static final class PartWindow {
+      private final Semaphore permits;
+      private final int bufferSize;
+      private final Queue<byte[]> buffers = new ConcurrentLinkedQueue<byte[]>();
+      private volatile Throwable failure;
+      // only the reading thread allocates
+      private int allocated;
+
+      PartWindow(int maxInFlightParts, int bufferSize) {
+         this.permits = new Semaphore(maxInFlightParts);
+         this.bufferSize = bufferSize;
+      }
+
+      /** Blocks until a part may be submitted and returns a buffer for it. */
+      byte[] acquire() {
+         try {
+            permits.acquire();
+         } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(ie);
+         }
+         if (failure != null) {
+            permits.release();
+            throw Throwables.propagate(failure);
+         }
+         if (bufferSize == 0) {
+            return null;
+         }
+         byte[] buffer = buffers.poll();
+         if (buffer == null) {
+            buffer = new byte[bufferSize];
+            allocated++;
+         }
+         return buffer;
+      }
+
+      /** Returns the permit and buffer once the part completes. */
+      <T> ListenableFuture<T> release(ListenableFuture<T> part, final byte[] buffer) {
+         Futures.addCallback(part, new FutureCallback<T>() {
+            @Override
+            public void onSuccess(T result) {
+               recycle();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+               failure = t;
+               recycle();
+            }
+
+            private void recycle() {
+               if (buffer != null) {
+                  buffers.add(buffer);
+               }
+               permits.release();
+            }
+         });
+         return part;
+      }
+
+      @VisibleForTesting
+      int allocatedBuffers() {
+         return allocated;
+      }
+
+      @VisibleForTesting
+      int recycledBuffers() {
+         return buffers.size();
+      }
+   }
+
    private final class BlobUploader implements Callable<MultipartPart> {
       private final MultipartUpload mpu;
       private final int partNumber;
       private final Payload payload;
+      private final long length;
+      private final MultipartUploadJournal journal;
 
-      BlobUploader(MultipartUpload mpu, int partNumber, Payload payload) {
+      BlobUploader(MultipartUpload mpu, int partNumber, Payload payload, long length, MultipartUploadJournal journal) {
          this.mpu = mpu;
          this.partNumber = partNumber;
          this.payload = payload;
+         this.length = length;
+         this.journal = journal;
       }
 
       @Override
-      public MultipartPart call() {
-         return uploadMultipartPart(mpu, partNumber, payload);
+      public MultipartPart call() throws IOException {
+         long start = System.nanoTime();
+         MultipartPart part = uploadMultipartPart(mpu, partNumber, payload);
+         multipartUploadSizing.partUploaded(length, System.nanoTime() - start);
+         if (journal != null) {
+            journal.record(part);
+         }
+         return part;
       }
    }
 
@@ -411,23 +668,51 @@ public abstract class BaseBlobStore implements BlobStore {
       return eTag;
    }
 
+   /**
+    * Returns the engine behind {@link #downloadBlob} and {@link #streamBlob}. Blobstores which cannot honor
+    * conditional ranged GETs or want different part sizes can override this.
+    */
+   @Beta
+   protected ParallelRangeDownloader rangeDownloader() {
+      return new ParallelRangeDownloader(this);
+   }
+
+   /**
+    * This implementation invokes {@link #downloadBlob(String, String, File, ExecutorService)} with the jclouds
+    * userExecutor
+    */
+   @Beta
    @Override
    public void downloadBlob(String container, String name, File destination) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      downloadBlob(container, name, destination, userExecutor);
    }
 
+   /**
+    * This implementation downloads ranges of the blob in parallel via {@link #getBlob(String, String, GetOptions)}
+    */
+   @Beta
    @Override
    public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      rangeDownloader().downloadBlob(container, name, destination, executor);
    }
 
+   /**
+    * This implementation invokes {@link #streamBlob(String, String, ExecutorService)} with the jclouds
+    * userExecutor
+    */
+   @Beta
    @Override
    public InputStream streamBlob(String container, String name) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      return streamBlob(container, name, userExecutor);
    }
 
+   /**
+    * This implementation prefetches a bounded number of ranges via {@link #getBlob(String, String, GetOptions)}
+    * ahead of the reader
+    */
+   @Beta
    @Override
    public InputStream streamBlob(String container, String name, ExecutorService executor) {
-      throw new UnsupportedOperationException("Operation not supported yet");
+      return rangeDownloader().streamBlob(container, name, executor);
    }
 }
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.jclouds.util.Strings2.urlDecode;
+import static org.jclouds.util.Strings2.urlEncode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Maps;
+import com.google.common.io.FileWriteMode;
+import com.google.common.io.Files;
+
+/**
+ * Records a multipart upload and its completed parts in a local file so that a later upload of the same content can
+ * resume it. The file holds one tab-separated record per line: an {@code upload} line naming the upload, its part size
+ * and a fingerprint of the content, followed by a {@code part} line per completed part. Parts are appended as they
+ * complete, so a line cut short by a crash is ignored.
+ */
+final class MultipartUploadJournal {
+   private static final String UPLOAD = "upload";
+   private static final String PART = "part";
+   private static final Splitter FIELDS = Splitter.on('\t');
+
+   private final File file;
+   private String uploadId;
+   private long partSize;
+   private final Map<Integer, MultipartPart> parts = Maps.newHashMap();
+
+   MultipartUploadJournal(File file) {
+      this.file = checkNotNull(file, "file");
+   }
+
+   /**
+    * Reads a previous upload of {@code contentLength} bytes to {@code container/name}.
+    *
+    * @param fingerprint
+    *           identifies the content, such as by its Content-MD5, so that changed content of the same length is not
+    *           resumed
+    * @return false if the journal does not exist or records a different upload
+    */
+   synchronized boolean load(String container, String name, long contentLength, String fingerprint)
+         throws IOException {
+      uploadId = null;
+      parts.clear();
+      if (!file.exists()) {
+         return false;
+      }
+      for (String line : Files.readLines(file, UTF_8)) {
+         List<String> fields = FIELDS.splitToList(line);
+         try {
+            if (fields.size() == 7 && fields.get(0).equals(UPLOAD)) {
+               if (!urlDecode(fields.get(1)).equals(container) || !urlDecode(fields.get(2)).equals(name)
+                     || Long.parseLong(fields.get(4)) != contentLength
+                     || !urlDecode(fields.get(6)).equals(fingerprint)) {
+                  return false;
+               }
+               uploadId = urlDecode(fields.get(3));
+               partSize = Long.parseLong(fields.get(5));
+            } else if (fields.size() == 4 && fields.get(0).equals(PART) && uploadId != null) {
+               int partNumber = Integer.parseInt(fields.get(1));
+               parts.put(partNumber, MultipartPart.create(partNumber, Long.parseLong(fields.get(2)),
+                     fields.get(3).isEmpty() ? null : urlDecode(fields.get(3)), null));
+            }
+         } catch (NumberFormatException nfe) {
+            // line cut short
+         }
+      }
+      return uploadId != null;
+   }
+
+   synchronized String getUploadId() {
+      return uploadId;
+   }
+
+   synchronized long getPartSize() {
+      return partSize;
+   }
+
+   synchronized Map<Integer, MultipartPart> getParts() {
+      return ImmutableMap.copyOf(parts);
+   }
+
+   /** Forgets recorded parts other than {@code confirmed}, for example those the provider no longer lists. */
+   synchronized void retain(Map<Integer, MultipartPart> confirmed) {
+      parts.keySet().retainAll(confirmed.keySet());
+   }
+
+   /** Starts the journal over for a new upload. */
+   synchronized void begin(MultipartUpload mpu, long contentLength, long partSize, String fingerprint)
+         throws IOException {
+      this.uploadId = mpu.id();
+      this.partSize = partSize;
+      parts.clear();
+      Files.asCharSink(file, UTF_8).write(UPLOAD + '\t' + urlEncode(mpu.containerName()) + '\t'
+            + urlEncode(mpu.blobName()) + '\t' + urlEncode(mpu.id()) + '\t' + contentLength + '\t' + partSize + '\t'
+            + urlEncode(fingerprint) + '\n');
+   }
+
+   synchronized void record(MultipartPart part) throws IOException {
+      parts.put(part.partNumber(), part);
+      Files.asCharSink(file, UTF_8, FileWriteMode.APPEND).write(PART + '\t' + part.partNumber() + '\t'
+            + part.partSize() + '\t' + (part.partETag() == null ? "" : urlEncode(part.partETag())) + '\n');
+   }
+
+   synchronized void delete() {
+      file.delete();
+   }
+}
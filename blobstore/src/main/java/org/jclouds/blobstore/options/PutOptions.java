@@ -18,6 +18,8 @@ package org.jclouds.blobstore.options;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.io.File;
+
 import org.jclouds.blobstore.domain.BlobAccess;
 
 import com.google.common.base.Preconditions;
@@ -41,6 +43,9 @@ public class PutOptions implements Cloneable {
    private BlobAccess blobAccess = BlobAccess.PRIVATE;
    private boolean multipart = false;
    private boolean useCustomExecutor = false;
+   private int maxInFlightParts = 0;
+   private long partSize = 0;
+   private File resumeJournal;
 
    // TODO: This exposes ListeningExecutorService to the user, instead of a regular ExecutorService
    private ListeningExecutorService customExecutor = MoreExecutors.newDirectExecutorService();
@@ -103,6 +108,36 @@ public class PutOptions implements Cloneable {
          return delegate.isMultipart();
       }
 
+      @Override
+      public int getMaxInFlightParts() {
+         return delegate.getMaxInFlightParts();
+      }
+
+      @Override
+      public PutOptions maxInFlightParts(int maxInFlightParts) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long getPartSize() {
+         return delegate.getPartSize();
+      }
+
+      @Override
+      public PutOptions partSize(long partSize) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public File getResumeJournal() {
+         return delegate.getResumeJournal();
+      }
+
+      @Override
+      public PutOptions resumeJournal(File resumeJournal) {
+         throw new UnsupportedOperationException();
+      }
+
       @Override
       public PutOptions multipart() {
          throw new UnsupportedOperationException();
@@ -179,6 +214,52 @@ public class PutOptions implements Cloneable {
       return this;
    }
 
+   public int getMaxInFlightParts() {
+      return maxInFlightParts;
+   }
+
+   /**
+    * Caps the number of multipart parts which are uploading concurrently. Non-repeatable payloads are read into one
+    * buffer per part in flight, so this also bounds memory use to {@code maxInFlightParts * partSize}. Zero uses the
+    * blobstore default.
+    */
+   public PutOptions maxInFlightParts(int maxInFlightParts) {
+      Preconditions.checkArgument(maxInFlightParts >= 0, "maxInFlightParts must be non-negative");
+      this.maxInFlightParts = maxInFlightParts;
+      return this;
+   }
+
+   public long getPartSize() {
+      return partSize;
+   }
+
+   /**
+    * Fixes the size of multipart parts instead of letting the blobstore choose it. The size must lie within the
+    * provider part size limits. Zero uses the blobstore default.
+    */
+   public PutOptions partSize(long partSize) {
+      Preconditions.checkArgument(partSize >= 0, "partSize must be non-negative");
+      this.partSize = partSize;
+      return this;
+   }
+
+   public File getResumeJournal() {
+      return resumeJournal;
+   }
+
+   /**
+    * Makes a multipart upload resumable. The upload and its completed parts are recorded in {@code resumeJournal}, and
+    * a failed upload is left in place instead of aborted. Putting the same content to the same blob with the same
+    * journal then uploads only the parts which are missing. Content is recognized by its Content-MD5, or by the
+    * modification time of the file it is read from; other content always starts a new upload. The journal is deleted
+    * once the upload completes.
+    */
+   public PutOptions resumeJournal(File resumeJournal) {
+      this.resumeJournal = checkNotNull(resumeJournal, "resumeJournal");
+      this.multipart = true;
+      return this;
+   }
+
    public static class Builder {
 
       public static PutOptions fromPutOptions(PutOptions putOptions) {
@@ -201,11 +282,39 @@ public class PutOptions implements Cloneable {
          PutOptions options = new PutOptions();
          return options.multipart(customExecutor);
       }
+
+      /**
+       * @see PutOptions#maxInFlightParts(int)
+       */
+      public static PutOptions maxInFlightParts(int maxInFlightParts) {
+         PutOptions options = new PutOptions();
+         return options.multipart().maxInFlightParts(maxInFlightParts);
+      }
+
+      /**
+       * @see PutOptions#partSize(long)
+       */
+      public static PutOptions partSize(long partSize) {
+         PutOptions options = new PutOptions();
+         return options.multipart().partSize(partSize);
+      }
+
+      /**
+       * @see PutOptions#resumeJournal(File)
+       */
+      public static PutOptions resumeJournal(File resumeJournal) {
+         PutOptions options = new PutOptions();
+         return options.resumeJournal(resumeJournal);
+      }
    }
 
    @Override
    public PutOptions clone() {
-      return new PutOptions(multipart, useCustomExecutor, customExecutor);
+      PutOptions options = new PutOptions(multipart, useCustomExecutor, customExecutor)
+            .maxInFlightParts(maxInFlightParts)
+            .partSize(partSize);
+      options.resumeJournal = resumeJournal;
+      return options;
    }
 
    @Override
@@ -213,6 +322,9 @@ public class PutOptions implements Cloneable {
       return "[multipart=" + multipart +
             ", blobAccess=" + blobAccess +
             ", useCustomExecutor=" + useCustomExecutor +
-            ", customExecutor=" + customExecutor + "]";
+            ", customExecutor=" + customExecutor +
+            ", maxInFlightParts=" + maxInFlightParts +
+            ", partSize=" + partSize +
+            ", resumeJournal=" + resumeJournal + "]";
    }
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy;
+
+import org.jclouds.blobstore.strategy.internal.AdaptiveMultipartUploadSizing;
+
+import com.google.common.annotations.Beta;
+import com.google.inject.ImplementedBy;
+
+/**
+ * Chooses the part size and the number of concurrently uploading parts of a multipart upload. Implementations are
+ * shared across uploads and may learn from the parts reported to {@link #partUploaded}.
+ */
+@Beta
+@ImplementedBy(AdaptiveMultipartUploadSizing.class)
+public interface MultipartUploadSizingStrategy {
+
+   /**
+    * @param repeatable
+    *           false when each part in flight must be buffered in memory
+    * @return a part size within the provider limits which splits {@code contentLength} bytes into at most
+    *         {@code maximumNumberOfParts} parts
+    */
+   long partSize(long contentLength, long minimumPartSize, long maximumPartSize, int maximumNumberOfParts,
+         boolean repeatable);
+
+   /**
+    * @param repeatable
+    *           false when each part in flight must be buffered in memory
+    * @return the maximum number of parts of {@code partSize} bytes to upload concurrently
+    */
+   int partsInFlight(long partSize, boolean repeatable);
+
+   /**
+    * Records that a part of {@code length} bytes uploaded successfully in {@code nanos}.
+    */
+   void partUploaded(long length, long nanos);
+}
@@ -0,0 +1,119 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.blobstore.strategy.MultipartUploadSizingStrategy;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+
+/**
+ * Starts with the part sizes of {@link MultipartUploadSlicingAlgorithm}. Once parts have uploaded, sizes parts so
+ * that each takes about {@code jclouds.mpu.parts.target-seconds} at the measured per-part throughput: fast links get
+ * fewer, larger parts and slow links get smaller parts which are cheaper to retry. Non-repeatable payloads are
+ * buffered, so their parts are no larger than {@code jclouds.mpu.buffer.memory} bytes and their parts in flight are
+ * limited to that many bytes.
+ */
+@Singleton
+public final class AdaptiveMultipartUploadSizing implements MultipartUploadSizingStrategy {
+   @VisibleForTesting
+   static final long DEFAULT_TARGET_PART_SECONDS = 10;
+
+   @VisibleForTesting
+   static final long DEFAULT_BUFFER_MEMORY = 4 * MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE;
+
+   private static final long PART_SIZE_ALIGNMENT = 1024 * 1024;
+
+   /** Weight of the newest sample in the moving average of throughput. */
+   private static final double SMOOTHING = 0.2;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.size")
+   @VisibleForTesting
+   long defaultPartSize = MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.magnitude")
+   @VisibleForTesting
+   int magnitudeBase = MultipartUploadSlicingAlgorithm.DEFAULT_MAGNITUDE_BASE;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.adaptive")
+   @VisibleForTesting
+   boolean adaptive = true;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.parts.target-seconds")
+   @VisibleForTesting
+   long targetPartSeconds = DEFAULT_TARGET_PART_SECONDS;
+
+   @Inject(optional = true)
+   @Named("jclouds.mpu.buffer.memory")
+   @VisibleForTesting
+   long bufferMemory = DEFAULT_BUFFER_MEMORY;
+
+   // bytes per second, zero until the first part has uploaded
+   private double throughput;
+
+   @Override
+   public long partSize(long contentLength, long minimumPartSize, long maximumPartSize, int maximumNumberOfParts,
+         boolean repeatable) {
+      long partSize;
+      double bytesPerSecond = getThroughput();
+      if (adaptive && bytesPerSecond > 0) {
+         partSize = (long) (bytesPerSecond * targetPartSeconds) / PART_SIZE_ALIGNMENT * PART_SIZE_ALIGNMENT;
+      } else {
+         partSize = new MultipartUploadSlicingAlgorithm(minimumPartSize, maximumPartSize, maximumNumberOfParts,
+               defaultPartSize, magnitudeBase).calculateChunkSize(contentLength);
+      }
+      // never more than maximumNumberOfParts parts, and no buffer larger than the content
+      long fewestParts = (contentLength + maximumNumberOfParts - 1) / maximumNumberOfParts;
+      partSize = Math.max(partSize, fewestParts);
+      partSize = Math.min(partSize, Math.max(contentLength, minimumPartSize));
+      if (!repeatable) {
+         // each buffered part must fit in the buffer memory and in an array
+         partSize = Math.min(partSize, Math.max(Math.min(bufferMemory, Integer.MAX_VALUE), fewestParts));
+      }
+      return Math.min(Math.max(partSize, minimumPartSize), maximumPartSize);
+   }
+
+   @Override
+   public int partsInFlight(long partSize, boolean repeatable) {
+      if (repeatable) {
+         // parts are read lazily, so only the executor limits concurrency
+         return Integer.MAX_VALUE;
+      }
+      return (int) Math.max(1, Math.min(Integer.MAX_VALUE, bufferMemory / partSize));
+   }
+
+   @Override
+   public synchronized void partUploaded(long length, long nanos) {
+      if (length <= 0 || nanos <= 0) {
+         return;
+      }
+      double sample = length * 1e9 / nanos;
+      throughput = throughput == 0 ? sample : SMOOTHING * sample + (1 - SMOOTHING) * throughput;
+   }
+
+   @VisibleForTesting
+   synchronized double getThroughput() {
+      return throughput;
+   }
+}
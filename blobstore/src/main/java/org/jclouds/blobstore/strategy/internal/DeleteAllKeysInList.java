@@ -16,10 +16,12 @@
  */
 package org.jclouds.blobstore.strategy.internal;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static org.jclouds.blobstore.options.ListContainerOptions.Builder.recursive;
 
 import java.util.HashSet;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Semaphore;
@@ -45,6 +47,7 @@ import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.logging.Logger;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -75,6 +78,9 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
    /** Maximum parallel deletes. */
    private int maxParallelDeletes;
 
+   /** Maximum blobs removed by one delete. */
+   private int deleteBatchSize = 1;
+
    @Inject
    DeleteAllKeysInList(@Named(Constants.PROPERTY_USER_THREADS) ListeningExecutorService executorService,
          BlobStore blobStore, BackoffLimitedRetryHandler retryHandler,
@@ -95,6 +101,12 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       this.maxErrors = maxErrors;
    }
 
+   @Inject(optional = true)
+   void setDeleteBatchSize(@Named(Constants.PROPERTY_DELETE_BATCH_SIZE) int deleteBatchSize) {
+      checkArgument(deleteBatchSize > 0, "deleteBatchSize must be positive");
+      this.deleteBatchSize = deleteBatchSize;
+   }
+
    public void execute(String containerName) {
       execute(containerName, recursive());
    }
@@ -174,31 +186,13 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
       return listing;
    }
 
-   private ListenableFuture<Void> deleteDirectory(final ListContainerOptions options,
-         final String containerName, final String dirName) {
-      ListenableFuture<Void> blobDelFuture;
-
-      if (options.isRecursive()) {
-         blobDelFuture = executorService.submit(new Callable<Void>() {
-            @Override
-            public Void call() {
-               blobStore.deleteDirectory(containerName, dirName);
-               return null;
-            }
-         });
-      } else {
-         blobDelFuture = null;
-      }
-
-      return blobDelFuture;
-   }
-
    /**
     * Delete the blobs from a given PageSet. The PageSet may contain blobs or
     * directories. If there are directories, they are expected to be empty.
     *
-    * The logic of acquiring a semaphore, submitting a callable to the
-    * executorService and releasing the semaphore resides here.
+    * Blobs are grouped into batches of up to {@link Constants#PROPERTY_DELETE_BATCH_SIZE} names,
+    * each removed by one task, so that listing the next page overlaps with
+    * the bulk deletes of this one.
     *
     * @param containerName
     *           The container from which the objects are listed.
@@ -223,80 +217,127 @@ public class DeleteAllKeysInList implements ClearListStrategy, ClearContainerStr
          final AtomicBoolean deleteFailure,
          final Set<ListenableFuture<Void>> outstandingFutures)
          throws TimeoutException {
+      List<String> batch = Lists.newArrayListWithCapacity(deleteBatchSize);
       for (final StorageMetadata md : listing) {
          final String fullPath = parentIsFolder(options, md) ? options.getDir()
                + "/" + md.getName() : md.getName();
 
-         // Attempt to acquire a semaphore within the time limit. At least
-         // one outstanding future should complete within this period for the
-         // semaphore to be acquired.
-         try {
-            if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
-               throw new TimeoutException("Timeout waiting for semaphore");
-            }
-         } catch (InterruptedException ie) {
-            logger.debug("Interrupted while deleting blobs");
-            Thread.currentThread().interrupt();
-         }
-
-         final ListenableFuture<Void> blobDelFuture;
          switch (md.getType()) {
          case FOLDER:
          case BLOB:
-            blobDelFuture = executorService.submit(new Callable<Void>() {
-               @Override
-               public Void call() {
-                  blobStore.removeBlob(containerName, fullPath);
-                  return null;
-               }
-            });
+            batch.add(fullPath);
+            if (batch.size() >= deleteBatchSize) {
+               submitDelete(removeBlobs(containerName, batch), semaphore,
+                     deleteFailure, outstandingFutures);
+               batch = Lists.newArrayListWithCapacity(deleteBatchSize);
+            }
             break;
          case RELATIVE_PATH:
-            blobDelFuture = deleteDirectory(options, containerName,
-                  md.getName());
+            if (options.isRecursive()) {
+               submitDelete(deleteDirectory(containerName, md.getName()),
+                     semaphore, deleteFailure, outstandingFutures);
+            }
             break;
          case CONTAINER:
             throw new IllegalArgumentException("Container type not supported");
          default:
-            blobDelFuture = null;
+            break;
          }
+      }
+      if (!batch.isEmpty()) {
+         submitDelete(removeBlobs(containerName, batch), semaphore,
+               deleteFailure, outstandingFutures);
+      }
+   }
 
-         // If a future to delete a blob/directory actually got created above,
-         // keep a reference of that in the outstandingFutures list. This is
-         // useful in case of a timeout exception. All outstanding futures can
-         // then be cancelled.
-         if (blobDelFuture != null) {
-            outstandingFutures.add(blobDelFuture);
-
-            // Add a callback to release the semaphore. This is required for
-            // other threads waiting to acquire a semaphore above to make
-            // progress.
-            Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
-               @Override
-               public void onSuccess(final Object o) {
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
+   /**
+    * Returns a task removing the given blobs. A batch which cannot be removed
+    * in bulk is retried one blob at a time, so that only the blobs which still
+    * fail are left for the next iteration.
+    */
+   private Callable<Void> removeBlobs(final String containerName,
+         final List<String> names) {
+      return new Callable<Void>() {
+         @Override
+         public Void call() {
+            if (names.size() == 1) {
+               blobStore.removeBlob(containerName, names.get(0));
+               return null;
+            }
+            try {
+               blobStore.removeBlobs(containerName, names);
+            } catch (RuntimeException e) {
+               logger.debug("bulk delete of %d blobs from %s failed, retrying individually: %s",
+                     names.size(), containerName, e.getMessage());
+               for (String name : names) {
+                  blobStore.removeBlob(containerName, name);
                }
+            }
+            return null;
+         }
+      };
+   }
 
-               @Override
-               public void onFailure(final Throwable t) {
-                  // Make a note the fact that some blob/directory could not be
-                  // deleted successfully. This is used for retrying later.
-                  deleteFailure.set(true);
-                  outstandingFutures.remove(blobDelFuture);
-                  semaphore.release();
-               }
-            });
-         } else {
-            // It is possible above to acquire a semaphore but not submit any
-            // task to the executorService. For e.g. if the listing contains
-            // an object of type 'FOLDER' and the ListContianerOptions are *not*
-            // recursive. In this case, there is no blobDelFuture and therefore
-            // no FutureCallback to release the semaphore. This semaphore is
-            // released here.
-            semaphore.release();
+   private Callable<Void> deleteDirectory(final String containerName,
+         final String dirName) {
+      return new Callable<Void>() {
+         @Override
+         public Void call() {
+            blobStore.deleteDirectory(containerName, dirName);
+            return null;
          }
+      };
+   }
+
+   /**
+    * Submits a delete to the executorService once a semaphore permit is
+    * available, and keeps a reference to it until it completes.
+    *
+    * @throws TimeoutException
+    *            If no permit was released within the time limit.
+    */
+   private void submitDelete(Callable<Void> delete, final Semaphore semaphore,
+         final AtomicBoolean deleteFailure,
+         final Set<ListenableFuture<Void>> outstandingFutures)
+         throws TimeoutException {
+      // Attempt to acquire a semaphore within the time limit. At least
+      // one outstanding future should complete within this period for the
+      // semaphore to be acquired.
+      try {
+         if (!semaphore.tryAcquire(maxTime, TimeUnit.MILLISECONDS)) {
+            throw new TimeoutException("Timeout waiting for semaphore");
+         }
+      } catch (InterruptedException ie) {
+         logger.debug("Interrupted while deleting blobs");
+         Thread.currentThread().interrupt();
       }
+
+      final ListenableFuture<Void> blobDelFuture = executorService.submit(delete);
+
+      // Keep a reference of the future in the outstandingFutures list. This is
+      // useful in case of a timeout exception. All outstanding futures can
+      // then be cancelled.
+      outstandingFutures.add(blobDelFuture);
+
+      // Add a callback to release the semaphore. This is required for
+      // other threads waiting to acquire a semaphore above to make
+      // progress.
+      Futures.addCallback(blobDelFuture, new FutureCallback<Object>() {
+         @Override
+         public void onSuccess(final Object o) {
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+
+         @Override
+         public void onFailure(final Throwable t) {
+            // Make a note the fact that some blob/directory could not be
+            // deleted successfully. This is used for retrying later.
+            deleteFailure.set(true);
+            outstandingFutures.remove(blobDelFuture);
+            semaphore.release();
+         }
+      });
    }
 
    /**
@@ -64,12 +64,27 @@ public final class MultipartUploadSlicingAlgorithm {
    private volatile long copied;
 
    public MultipartUploadSlicingAlgorithm(long minimumPartSize, long maximumPartSize, int maximumNumberOfParts) {
+      this(minimumPartSize, maximumPartSize, maximumNumberOfParts, DEFAULT_PART_SIZE, DEFAULT_MAGNITUDE_BASE);
+   }
+
+   /**
+    * @param defaultPartSize
+    *           the part size to start from, as {@code jclouds.mpu.parts.size}
+    * @param magnitudeBase
+    *           the number of parts past which the part size grows, as {@code jclouds.mpu.parts.magnitude}
+    */
+   public MultipartUploadSlicingAlgorithm(long minimumPartSize, long maximumPartSize, int maximumNumberOfParts,
+         long defaultPartSize, int magnitudeBase) {
       checkArgument(minimumPartSize > 0);
       this.minimumPartSize = minimumPartSize;
       checkArgument(maximumPartSize > 0);
       this.maximumPartSize = maximumPartSize;
       checkArgument(maximumNumberOfParts > 0);
       this.maximumNumberOfParts = maximumNumberOfParts;
+      checkArgument(defaultPartSize > 0);
+      this.defaultPartSize = defaultPartSize;
+      checkArgument(magnitudeBase > 0);
+      this.magnitudeBase = magnitudeBase;
    }
 
    public long calculateChunkSize(long length) {
@@ -0,0 +1,359 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.util.Closeables2;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+
+/**
+ * Downloads a blob as parallel ranged GETs through {@link BlobStore#getBlob(String, String, GetOptions)}, so that
+ * it works for every blobstore which honors {@link GetOptions#range}. Unless disabled for blobstores without
+ * conditional GET, ranges are pinned to the ETag of the blob so that a concurrent overwrite fails the download
+ * instead of mixing versions.
+ */
+@Beta
+public final class ParallelRangeDownloader {
+   @VisibleForTesting
+   public static final long DEFAULT_PART_SIZE = 8 * 1024 * 1024;
+   @VisibleForTesting
+   public static final int DEFAULT_PREFETCH_PARTS = 4;
+   @VisibleForTesting
+   public static final int DEFAULT_RETRY_COUNT_LIMIT = 3;
+   private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+   private final BlobStore blobStore;
+   private final long partSize;
+   private final int prefetchParts;
+   private final int retryCountLimit;
+   private final boolean conditionalGet;
+
+   public ParallelRangeDownloader(BlobStore blobStore) {
+      this(blobStore, DEFAULT_PART_SIZE, DEFAULT_PREFETCH_PARTS, DEFAULT_RETRY_COUNT_LIMIT, true);
+   }
+
+   public ParallelRangeDownloader(BlobStore blobStore, long partSize, int prefetchParts, int retryCountLimit,
+         boolean conditionalGet) {
+      checkArgument(partSize > 0, "partSize must be positive");
+      checkArgument(prefetchParts > 0, "prefetchParts must be positive");
+      checkArgument(retryCountLimit > 0, "retryCountLimit must be positive");
+      this.blobStore = checkNotNull(blobStore, "blobStore");
+      this.partSize = partSize;
+      this.prefetchParts = prefetchParts;
+      this.retryCountLimit = retryCountLimit;
+      this.conditionalGet = conditionalGet;
+   }
+
+   /**
+    * Downloads every range of the blob concurrently into a temporary file next to the destination, which is then
+    * renamed into place.
+    */
+   public void downloadBlob(String container, String name, File destination, ExecutorService executor) {
+      BlobMetadata metadata = getMetadata(container, name);
+      long contentLength = contentLength(metadata);
+      ListeningExecutorService listeningExecutor = MoreExecutors.listeningDecorator(executor);
+      File tempFile = new File(destination + "." + UUID.randomUUID());
+      RandomAccessFile raf = null;
+      List<ListenableFuture<Void>> results = new ArrayList<ListenableFuture<Void>>();
+      try {
+         raf = new RandomAccessFile(tempFile, "rw");
+         // Reserve space for performance reasons
+         raf.setLength(contentLength);
+         FileChannel channel = raf.getChannel();
+
+         for (long from = 0; from < contentLength; from += partSize) {
+            long to = Math.min(from + partSize, contentLength) - 1;
+            results.add(listeningExecutor.submit(new RangeToFile(container, name, metadata.getETag(), channel,
+                  from, to)));
+         }
+         Futures.getUnchecked(Futures.allAsList(results));
+
+         channel.force(true);
+         raf.close();
+         raf = null;
+
+         if (destination.exists() && !destination.delete()) {
+            throw new IOException("Could not delete existing destination " + destination);
+         }
+         if (!tempFile.renameTo(destination)) {
+            throw new IOException("Could not move temporary downloaded file to destination " + destination);
+         }
+         tempFile = null;
+      } catch (IOException ioe) {
+         throw Throwables.propagate(ioe);
+      } finally {
+         for (ListenableFuture<Void> result : results) {
+            result.cancel(true);
+         }
+         Closeables2.closeQuietly(raf);
+         if (tempFile != null) {
+            tempFile.delete();
+         }
+      }
+   }
+
+   /**
+    * Returns a stream over the blob which keeps up to {@code prefetchParts} ranges in flight ahead of the reader.
+    * Memory use is bounded by {@code prefetchParts * partSize}.
+    */
+   public InputStream streamBlob(String container, String name, ExecutorService executor) {
+      BlobMetadata metadata = getMetadata(container, name);
+      return new PrefetchingInputStream(container, name, metadata.getETag(), contentLength(metadata),
+            MoreExecutors.listeningDecorator(executor));
+   }
+
+   private BlobMetadata getMetadata(String container, String name) {
+      BlobMetadata metadata = blobStore.blobMetadata(container, name);
+      if (metadata == null) {
+         throw new KeyNotFoundException(container, name, "while downloading");
+      }
+      return metadata;
+   }
+
+   private static long contentLength(BlobMetadata metadata) {
+      Long contentLength = metadata.getContentMetadata().getContentLength();
+      if (contentLength == null) {
+         contentLength = metadata.getSize();
+      }
+      checkArgument(contentLength != null, "blob %s has no content length", metadata.getName());
+      return contentLength;
+   }
+
+   private InputStream openRange(String container, String name, String eTag, long from, long to) throws IOException {
+      GetOptions options = new GetOptions().range(from, to);
+      if (conditionalGet && eTag != null) {
+         options.ifETagMatches(eTag);
+      }
+      Blob blob = blobStore.getBlob(container, name, options);
+      if (blob == null) {
+         throw new KeyNotFoundException(container, name, "while downloading range " + from + "-" + to);
+      }
+      return blob.getPayload().openStream();
+   }
+
+   private final class RangeToFile implements Callable<Void> {
+      private final String container;
+      private final String name;
+      private final String eTag;
+      private final FileChannel channel;
+      private final long begin;
+      private final long end;
+
+      RangeToFile(String container, String name, String eTag, FileChannel channel, long begin, long end) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.channel = channel;
+         this.begin = begin;
+         this.end = end;
+      }
+
+      @Override
+      public Void call() throws IOException {
+         IOException lastException = null;
+         byte[] buffer = new byte[COPY_BUFFER_SIZE];
+         for (int retry = 0; retry < retryCountLimit; retry++) {
+            InputStream is = null;
+            try {
+               is = openRange(container, name, eTag, begin, end);
+               // positional writes are idempotent, so a retry simply overwrites a partial range
+               long position = begin;
+               int read;
+               while (position <= end && (read = is.read(buffer, 0, (int) Math.min(buffer.length,
+                     end - position + 1))) != -1) {
+                  ByteBuffer src = ByteBuffer.wrap(buffer, 0, read);
+                  while (src.hasRemaining()) {
+                     position += channel.write(src, position);
+                  }
+               }
+               if (position != end + 1) {
+                  throw new IOException("Range " + begin + "-" + end + " of " + container + "/" + name
+                        + " ended after " + (position - begin) + " bytes");
+               }
+               return null;
+            } catch (IOException ioe) {
+               lastException = ioe;
+            } finally {
+               Closeables2.closeQuietly(is);
+            }
+         }
+         throw new IOException("After " + retryCountLimit + " retries: " + lastException, lastException);
+      }
+   }
+
+   private final class RangeToBytes implements Callable<byte[]> {
+      private final String container;
+      private final String name;
+      private final String eTag;
+      private final long begin;
+      private final long end;
+
+      RangeToBytes(String container, String name, String eTag, long begin, long end) {
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.begin = begin;
+         this.end = end;
+      }
+
+      @Override
+      public byte[] call() throws IOException {
+         IOException lastException = null;
+         byte[] result = new byte[(int) (end - begin + 1)];
+         for (int retry = 0; retry < retryCountLimit; retry++) {
+            InputStream is = null;
+            try {
+               is = openRange(container, name, eTag, begin, end);
+               ByteStreams.readFully(is, result);
+               return result;
+            } catch (IOException ioe) {
+               lastException = ioe;
+            } finally {
+               Closeables2.closeQuietly(is);
+            }
+         }
+         throw new IOException("After " + retryCountLimit + " retries: " + lastException, lastException);
+      }
+   }
+
+   /** Reads ranges in order while the following ones download in the background. */
+   private final class PrefetchingInputStream extends InputStream {
+      private final String container;
+      private final String name;
+      private final String eTag;
+      private final long contentLength;
+      private final ListeningExecutorService executor;
+      private final Deque<ListenableFuture<byte[]>> inFlight = new ArrayDeque<ListenableFuture<byte[]>>();
+      private long nextPartOffset;
+      private byte[] current = new byte[0];
+      private int position;
+      private boolean closed;
+
+      PrefetchingInputStream(String container, String name, String eTag, long contentLength,
+            ListeningExecutorService executor) {
+         checkArgument(partSize <= Integer.MAX_VALUE, "partSize too large for streaming: %s", partSize);
+         this.container = container;
+         this.name = name;
+         this.eTag = eTag;
+         this.contentLength = contentLength;
+         this.executor = executor;
+         fillWindow();
+      }
+
+      private void fillWindow() {
+         while (inFlight.size() < prefetchParts && nextPartOffset < contentLength) {
+            long to = Math.min(nextPartOffset + partSize, contentLength) - 1;
+            inFlight.add(executor.submit(new RangeToBytes(container, name, eTag, nextPartOffset, to)));
+            nextPartOffset = to + 1;
+         }
+      }
+
+      /** @return false at the end of the blob */
+      private boolean advance() throws IOException {
+         if (closed) {
+            throw new IOException("Stream closed");
+         }
+         while (position == current.length) {
+            ListenableFuture<byte[]> next = inFlight.poll();
+            if (next == null) {
+               return false;
+            }
+            try {
+               current = next.get();
+            } catch (InterruptedException ie) {
+               Thread.currentThread().interrupt();
+               throw new IOException(ie);
+            } catch (ExecutionException ee) {
+               Throwables.propagateIfInstanceOf(ee.getCause(), IOException.class);
+               throw new IOException(ee.getCause());
+            }
+            position = 0;
+            fillWindow();
+         }
+         return true;
+      }
+
+      @Override
+      public int read() throws IOException {
+         if (!advance()) {
+            return -1;
+         }
+         return current[position++] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         checkNotNull(b, "b");
+         if (len == 0) {
+            return 0;
+         }
+         if (!advance()) {
+            return -1;
+         }
+         int count = Math.min(len, current.length - position);
+         System.arraycopy(current, position, b, off, count);
+         position += count;
+         return count;
+      }
+
+      @Override
+      public int available() {
+         return current.length - position;
+      }
+
+      @Override
+      public void close() {
+         closed = true;
+         for (ListenableFuture<byte[]> future : inFlight) {
+            future.cancel(true);
+         }
+         inFlight.clear();
+         current = new byte[0];
+         position = 0;
+      }
+   }
+}
@@ -685,6 +685,15 @@ public class BaseBlobIntegrationTest extends BaseBlobStoreIntegrationTest {
       testPut(payload, null, new ByteSourcePayload(byteSource), length, new PutOptions().multipart(true));
    }
 
+   @Test(groups = { "integration", "live" })
+   public void testPutMultipartInputStreamMaxInFlightParts() throws Exception {
+      long length = Math.max(getMinimumMultipartBlobSize(), MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE + 1);
+      ByteSource byteSource = TestUtils.randomByteSource().slice(0, length);
+      Payload payload = new InputStreamPayload(byteSource.openStream());
+      testPut(payload, null, new ByteSourcePayload(byteSource), length,
+            new PutOptions().multipart(true).maxInFlightParts(1));
+   }
+
    @Test(groups = { "integration", "live" })
    public void testSetBlobAccess() throws Exception {
       BlobStore blobStore = view.getBlobStore();
@@ -0,0 +1,494 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import static org.easymock.EasyMock.createMock;
+import static org.jclouds.blobstore.options.PutOptions.Builder.resumeJournal;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.blobstore.domain.Blob;
+import org.jclouds.blobstore.domain.BlobAccess;
+import org.jclouds.blobstore.domain.BlobMetadata;
+import org.jclouds.blobstore.domain.ContainerAccess;
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.jclouds.blobstore.domain.PageSet;
+import org.jclouds.blobstore.domain.StorageMetadata;
+import org.jclouds.blobstore.domain.internal.BlobBuilderImpl;
+import org.jclouds.blobstore.internal.BaseBlobStore.PartWindow;
+import org.jclouds.blobstore.options.CreateContainerOptions;
+import org.jclouds.blobstore.options.GetOptions;
+import org.jclouds.blobstore.options.ListContainerOptions;
+import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.util.BlobUtils;
+import org.jclouds.domain.Location;
+import org.jclouds.io.Payload;
+import org.jclouds.io.internal.BasePayloadSlicer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+
+/**
+ * Tests the resumable and the streaming multipart upload of {@link BaseBlobStore} against an in-memory multipart
+ * SPI.
+ */
+@Test(groups = "unit", testName = "BaseBlobStoreMultipartTest", singleThreaded = true)
+public class BaseBlobStoreMultipartTest {
+   private static final String CONTAINER = "container";
+   private static final String NAME = "blob";
+   private static final long PART_SIZE = 10;
+
+   private File journal;
+
+   @BeforeMethod
+   void createJournal() throws IOException {
+      journal = File.createTempFile("mpu", ".journal");
+      journal.delete();
+   }
+
+   @AfterMethod
+   void deleteJournal() {
+      journal.delete();
+   }
+
+   public void testResumeUploadsOnlyMissingParts() {
+      byte[] content = content(45, 0);
+      StubBlobStore blobStore = new StubBlobStore();
+      blobStore.failPart = 3;
+      putAndFail(blobStore, repeatableBlob(content));
+      assertEquals(blobStore.uploadedParts, ImmutableList.of(1, 2, 3));
+
+      blobStore.failPart = -1;
+      blobStore.uploadedParts.clear();
+      blobStore.putMultipartBlob(CONTAINER, repeatableBlob(content), options());
+      assertEquals(blobStore.initiated.get(), 1);
+      assertEquals(blobStore.uploadedParts, ImmutableList.of(3, 4, 5));
+      assertEquals(blobStore.completed, content);
+      assertFalse(journal.exists());
+   }
+
+   public void testChangedContentStartsNewUpload() {
+      StubBlobStore blobStore = new StubBlobStore();
+      blobStore.failPart = 3;
+      putAndFail(blobStore, repeatableBlob(content(45, 0)));
+
+      blobStore.failPart = -1;
+      blobStore.uploadedParts.clear();
+      // same length, different content
+      byte[] changed = content(45, 1);
+      blobStore.putMultipartBlob(CONTAINER, repeatableBlob(changed), options());
+      assertEquals(blobStore.initiated.get(), 2);
+      assertEquals(blobStore.uploadedParts, ImmutableList.of(1, 2, 3, 4, 5));
+      assertEquals(blobStore.completed, changed);
+   }
+
+   public void testUnidentifiedContentStartsNewUpload() {
+      byte[] content = content(45, 0);
+      StubBlobStore blobStore = new StubBlobStore();
+      blobStore.failPart = 3;
+      putAndFail(blobStore, streamingBlob(content));
+
+      blobStore.failPart = -1;
+      blobStore.uploadedParts.clear();
+      // without Content-MD5 the stream cannot be told apart from other content of the same length
+      byte[] changed = content(45, 1);
+      blobStore.putMultipartBlob(CONTAINER, streamingBlob(changed), options());
+      assertEquals(blobStore.initiated.get(), 2);
+      assertEquals(blobStore.uploadedParts, ImmutableList.of(1, 2, 3, 4, 5));
+      assertEquals(blobStore.completed, changed);
+   }
+
+   public void testPartsWithoutETagAreUploadedAgain() {
+      byte[] content = content(45, 0);
+      StubBlobStore blobStore = new StubBlobStore();
+      blobStore.eTags = false;
+      blobStore.failPart = 3;
+      putAndFail(blobStore, repeatableBlob(content));
+
+      blobStore.failPart = -1;
+      blobStore.uploadedParts.clear();
+      blobStore.putMultipartBlob(CONTAINER, repeatableBlob(content), options());
+      assertEquals(blobStore.initiated.get(), 1);
+      assertEquals(blobStore.uploadedParts, ImmutableList.of(1, 2, 3, 4, 5));
+      assertEquals(blobStore.completed, content);
+   }
+
+   public void testStreamingUploadBoundsPartsInFlight() {
+      byte[] content = content(95, 0);
+      StubBlobStore blobStore = new StubBlobStore();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         blobStore.userExecutor = MoreExecutors.listeningDecorator(executor);
+         blobStore.uploadMillis = 20;
+         blobStore.putMultipartBlob(CONTAINER, streamingBlob(content),
+               new PutOptions().partSize(PART_SIZE).maxInFlightParts(2));
+      } finally {
+         executor.shutdownNow();
+      }
+      assertEquals(blobStore.completed, content);
+      assertEquals(blobStore.uploadedParts.size(), 10);
+      assertTrue(blobStore.maxInFlight.get() <= 2, "parts in flight: " + blobStore.maxInFlight.get());
+   }
+
+   public void testStreamingUploadStopsAfterFailedPart() {
+      StubBlobStore blobStore = new StubBlobStore();
+      ExecutorService executor = Executors.newFixedThreadPool(4);
+      try {
+         blobStore.userExecutor = MoreExecutors.listeningDecorator(executor);
+         blobStore.uploadMillis = 20;
+         blobStore.failPart = 3;
+         blobStore.putMultipartBlob(CONTAINER, streamingBlob(content(95, 0)),
+               new PutOptions().partSize(PART_SIZE).maxInFlightParts(2));
+         fail("expected part 3 to fail");
+      } catch (RuntimeException expected) {
+      } finally {
+         executor.shutdownNow();
+      }
+      assertNull(blobStore.completed);
+      // no part is admitted once the failure is seen, and the upload is aborted
+      assertTrue(blobStore.uploadedParts.size() < 10, "uploaded parts: " + blobStore.uploadedParts);
+      assertTrue(blobStore.uploads.isEmpty());
+   }
+
+   public void testPartWindowRecyclesBuffers() {
+      PartWindow window = new PartWindow(2, 8);
+      byte[] first = window.acquire();
+      byte[] second = window.acquire();
+      SettableFuture<MultipartPart> firstPart = SettableFuture.create();
+      SettableFuture<MultipartPart> secondPart = SettableFuture.create();
+      window.release(firstPart, first);
+      window.release(secondPart, second);
+      assertEquals(window.recycledBuffers(), 0);
+
+      firstPart.set(MultipartPart.create(1, 8, null, null));
+      assertEquals(window.recycledBuffers(), 1);
+      assertSame(window.acquire(), first);
+      assertEquals(window.allocatedBuffers(), 2);
+   }
+
+   public void testPartWindowBlocksWhileFull() throws Exception {
+      final PartWindow window = new PartWindow(1, 8);
+      byte[] buffer = window.acquire();
+      SettableFuture<MultipartPart> part = SettableFuture.create();
+      window.release(part, buffer);
+      ExecutorService executor = Executors.newSingleThreadExecutor();
+      try {
+         Future<byte[]> next = executor.submit(new Callable<byte[]>() {
+            @Override
+            public byte[] call() {
+               return window.acquire();
+            }
+         });
+         try {
+            next.get(100, TimeUnit.MILLISECONDS);
+            fail("expected acquire to block while the part is in flight");
+         } catch (TimeoutException expected) {
+         }
+         part.set(MultipartPart.create(1, 8, null, null));
+         assertSame(next.get(1, TimeUnit.SECONDS), buffer);
+         assertEquals(window.allocatedBuffers(), 1);
+      } finally {
+         executor.shutdownNow();
+      }
+   }
+
+   public void testPartWindowRecyclesBuffersOfFailedParts() {
+      PartWindow window = new PartWindow(1, 8);
+      byte[] buffer = window.acquire();
+      SettableFuture<MultipartPart> part = SettableFuture.create();
+      window.release(part, buffer);
+      part.setException(new IOException("failed"));
+      assertEquals(window.recycledBuffers(), 1);
+      for (int i = 0; i < 2; i++) {
+         // each attempt returns its permit, so none blocks
+         try {
+            window.acquire();
+            fail("expected the failure of the part");
+         } catch (RuntimeException expected) {
+         }
+      }
+      assertEquals(window.recycledBuffers(), 1);
+      assertEquals(window.allocatedBuffers(), 1);
+   }
+
+   private PutOptions options() {
+      return resumeJournal(journal).partSize(PART_SIZE);
+   }
+
+   private void putAndFail(StubBlobStore blobStore, Blob blob) {
+      try {
+         blobStore.putMultipartBlob(CONTAINER, blob, options());
+         fail("expected part " + blobStore.failPart + " to fail");
+      } catch (RuntimeException expected) {
+      }
+      assertNull(blobStore.completed);
+   }
+
+   private static byte[] content(int length, int seed) {
+      byte[] content = new byte[length];
+      for (int i = 0; i < length; i++) {
+         content[i] = (byte) (i * 31 + seed);
+      }
+      return content;
+   }
+
+   private static Blob repeatableBlob(byte[] content) {
+      return new BlobBuilderImpl().name(NAME).payload(ByteSource.wrap(content)).contentLength(content.length)
+            .contentMD5(Hashing.md5().hashBytes(content)).build();
+   }
+
+   private static Blob streamingBlob(byte[] content) {
+      return new BlobBuilderImpl().name(NAME).payload(new ByteArrayInputStream(content))
+            .contentLength(content.length).build();
+   }
+
+   /**
+    * Keeps multipart uploads in memory and supports nothing else. Part ETags are the MD5 of the part.
+    */
+   static class StubBlobStore extends BaseBlobStore {
+      final AtomicInteger initiated = new AtomicInteger();
+      final List<Integer> uploadedParts = new CopyOnWriteArrayList<Integer>();
+      final Map<String, SortedMap<Integer, byte[]>> uploads =
+            new ConcurrentHashMap<String, SortedMap<Integer, byte[]>>();
+      final AtomicInteger inFlight = new AtomicInteger();
+      final AtomicInteger maxInFlight = new AtomicInteger();
+      volatile int failPart = -1;
+      volatile long uploadMillis;
+      volatile boolean eTags = true;
+      volatile byte[] completed;
+
+      StubBlobStore() {
+         super(createMock(BlobStoreContext.class), createMock(BlobUtils.class), Suppliers.<Location> ofInstance(null),
+               Suppliers.<Set<? extends Location>> ofInstance(ImmutableSet.<Location> of()), new BasePayloadSlicer());
+         userExecutor = MoreExecutors.newDirectExecutorService();
+      }
+
+      @Override
+      public MultipartUpload initiateMultipartUpload(String container, BlobMetadata blob, PutOptions options) {
+         String id = "upload-" + initiated.incrementAndGet();
+         uploads.put(id, new ConcurrentSkipListMap<Integer, byte[]>());
+         return MultipartUpload.create(container, blob.getName(), id, blob, options);
+      }
+
+      @Override
+      public void abortMultipartUpload(MultipartUpload mpu) {
+         uploads.remove(mpu.id());
+      }
+
+      @Override
+      public String completeMultipartUpload(MultipartUpload mpu, List<MultipartPart> parts) {
+         SortedMap<Integer, byte[]> upload = parts(mpu);
+         List<ByteSource> contents = new ArrayList<ByteSource>();
+         for (MultipartPart part : parts) {
+            contents.add(ByteSource.wrap(upload.get(part.partNumber())));
+         }
+         try {
+            completed = ByteSource.concat(contents).read();
+         } catch (IOException ioe) {
+            throw new AssertionError(ioe);
+         }
+         uploads.remove(mpu.id());
+         return "\"" + Hashing.md5().hashBytes(completed) + "\"";
+      }
+
+      @Override
+      public MultipartPart uploadMultipartPart(MultipartUpload mpu, int partNumber, Payload payload) {
+         uploadedParts.add(partNumber);
+         int current = inFlight.incrementAndGet();
+         try {
+            while (true) {
+               int max = maxInFlight.get();
+               if (current <= max || maxInFlight.compareAndSet(max, current)) {
+                  break;
+               }
+            }
+            if (uploadMillis > 0) {
+               Thread.sleep(uploadMillis);
+            }
+            if (partNumber == failPart) {
+               throw new IllegalStateException("failing part " + partNumber);
+            }
+            byte[] content = ByteStreams.toByteArray(payload.openStream());
+            parts(mpu).put(partNumber, content);
+            return MultipartPart.create(partNumber, content.length, eTag(content), null);
+         } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ie);
+         } catch (IOException ioe) {
+            throw new AssertionError(ioe);
+         } finally {
+            inFlight.decrementAndGet();
+         }
+      }
+
+      @Override
+      public List<MultipartPart> listMultipartUpload(MultipartUpload mpu) {
+         ImmutableList.Builder<MultipartPart> parts = ImmutableList.builder();
+         for (Map.Entry<Integer, byte[]> part : parts(mpu).entrySet()) {
+            parts.add(MultipartPart.create(part.getKey(), part.getValue().length, eTag(part.getValue()), null));
+         }
+         return parts.build();
+      }
+
+      private String eTag(byte[] content) {
+         return eTags ? "\"" + Hashing.md5().hashBytes(content) + "\"" : null;
+      }
+
+      private SortedMap<Integer, byte[]> parts(MultipartUpload mpu) {
+         SortedMap<Integer, byte[]> upload = uploads.get(mpu.id());
+         if (upload == null) {
+            throw new KeyNotFoundException(mpu.containerName(), mpu.blobName(), "no upload " + mpu.id());
+         }
+         return upload;
+      }
+
+      @Override
+      public List<MultipartUpload> listMultipartUploads(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public long getMinimumMultipartPartSize() {
+         return 1;
+      }
+
+      @Override
+      public long getMaximumMultipartPartSize() {
+         return 1024 * 1024;
+      }
+
+      @Override
+      public int getMaximumNumberOfParts() {
+         return 10 * 1000;
+      }
+
+      @Override
+      protected boolean deleteAndVerifyContainerGone(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public PageSet<? extends StorageMetadata> list() {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean containerExists(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean createContainerInLocation(Location location, String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean createContainerInLocation(Location location, String container, CreateContainerOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ContainerAccess getContainerAccess(String container) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void setContainerAccess(String container, ContainerAccess access) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public PageSet<? extends StorageMetadata> list(String container, ListContainerOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public boolean blobExists(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String putBlob(String container, Blob blob) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public String putBlob(String container, Blob blob, PutOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public BlobMetadata blobMetadata(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public Blob getBlob(String container, String name, GetOptions options) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void removeBlob(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public BlobAccess getBlobAccess(String container, String name) {
+         throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void setBlobAccess(String container, String name, BlobAccess access) {
+         throw new UnsupportedOperationException();
+      }
+   }
+}
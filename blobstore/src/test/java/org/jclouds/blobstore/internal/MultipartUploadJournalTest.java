@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.internal;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.jclouds.blobstore.domain.MultipartPart;
+import org.jclouds.blobstore.domain.MultipartUpload;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.FileWriteMode;
+import com.google.common.io.Files;
+
+@Test(groups = "unit", testName = "MultipartUploadJournalTest", singleThreaded = true)
+public class MultipartUploadJournalTest {
+   private static final String CONTAINER = "container";
+   private static final String NAME = "dir/blob name\twith tab";
+   private static final String FINGERPRINT = "md5:d41d8cd98f00b204e9800998ecf8427e";
+   private static final MultipartUpload MPU = MultipartUpload.create(CONTAINER, NAME, "upload-id", null, null);
+
+   private File file;
+
+   @BeforeMethod
+   void createFile() throws IOException {
+      file = File.createTempFile("journal", ".tmp");
+      file.delete();
+   }
+
+   @AfterMethod
+   void deleteFile() {
+      file.delete();
+   }
+
+   public void testMissingJournal() throws IOException {
+      assertFalse(new MultipartUploadJournal(file).load(CONTAINER, NAME, 100, FINGERPRINT));
+   }
+
+   public void testRoundTrip() throws IOException {
+      MultipartUploadJournal journal = new MultipartUploadJournal(file);
+      journal.begin(MPU, 100, 40, FINGERPRINT);
+      journal.record(MultipartPart.create(2, 40, "\"etag2\"", null));
+      journal.record(MultipartPart.create(1, 40, null, null));
+
+      MultipartUploadJournal loaded = new MultipartUploadJournal(file);
+      assertTrue(loaded.load(CONTAINER, NAME, 100, FINGERPRINT));
+      assertEquals(loaded.getUploadId(), "upload-id");
+      assertEquals(loaded.getPartSize(), 40);
+      assertEquals(loaded.getParts(), ImmutableMap.of(
+            1, MultipartPart.create(1, 40, null, null),
+            2, MultipartPart.create(2, 40, "\"etag2\"", null)));
+   }
+
+   public void testDifferentBlobIsNotResumed() throws IOException {
+      MultipartUploadJournal journal = new MultipartUploadJournal(file);
+      journal.begin(MPU, 100, 40, FINGERPRINT);
+      assertFalse(new MultipartUploadJournal(file).load(CONTAINER, "other", 100, FINGERPRINT));
+      assertFalse(new MultipartUploadJournal(file).load(CONTAINER, NAME, 101, FINGERPRINT));
+   }
+
+   public void testChangedContentIsNotResumed() throws IOException {
+      MultipartUploadJournal journal = new MultipartUploadJournal(file);
+      journal.begin(MPU, 100, 40, "mtime:1000");
+      assertFalse(new MultipartUploadJournal(file).load(CONTAINER, NAME, 100, "mtime:2000"));
+      assertFalse(new MultipartUploadJournal(file).load(CONTAINER, NAME, 100, ""));
+      assertTrue(new MultipartUploadJournal(file).load(CONTAINER, NAME, 100, "mtime:1000"));
+   }
+
+   public void testTruncatedLineIsIgnored() throws IOException {
+      MultipartUploadJournal journal = new MultipartUploadJournal(file);
+      journal.begin(MPU, 100, 40, FINGERPRINT);
+      journal.record(MultipartPart.create(1, 40, "etag1", null));
+      Files.asCharSink(file, UTF_8, FileWriteMode.APPEND).write("part\t2\t4");
+
+      MultipartUploadJournal loaded = new MultipartUploadJournal(file);
+      assertTrue(loaded.load(CONTAINER, NAME, 100, FINGERPRINT));
+      assertEquals(loaded.getParts().keySet(), ImmutableMap.of(1, "").keySet());
+   }
+
+   public void testBeginStartsOver() throws IOException {
+      MultipartUploadJournal journal = new MultipartUploadJournal(file);
+      journal.begin(MPU, 100, 40, FINGERPRINT);
+      journal.record(MultipartPart.create(1, 40, "etag1", null));
+      journal.begin(MultipartUpload.create(CONTAINER, NAME, "new-id", null, null), 100, 50, FINGERPRINT);
+
+      MultipartUploadJournal loaded = new MultipartUploadJournal(file);
+      assertTrue(loaded.load(CONTAINER, NAME, 100, FINGERPRINT));
+      assertEquals(loaded.getUploadId(), "new-id");
+      assertEquals(loaded.getPartSize(), 50);
+      assertTrue(loaded.getParts().isEmpty());
+   }
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.testng.Assert.assertEquals;
+
+import java.util.concurrent.TimeUnit;
+
+import org.testng.annotations.Test;
+
+@Test(groups = "unit", testName = "AdaptiveMultipartUploadSizingTest")
+public final class AdaptiveMultipartUploadSizingTest {
+   private static final long MB = 1024 * 1024;
+   private static final long MIN_PART_SIZE = 5 * MB;
+   private static final long MAX_PART_SIZE = 5L * 1024 * MB;
+   private static final int MAX_NUMBER_OF_PARTS = 10 * 1000;
+
+   public void testDefaultsToSlicingAlgorithm() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      long length = 10 * MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE;
+      assertEquals(sizing.partSize(length, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, true),
+            MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE);
+   }
+
+   public void testSmallContentIsOnePart() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      assertEquals(sizing.partSize(7 * MB, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, true), 7 * MB);
+      assertEquals(sizing.partSize(1, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, true), MIN_PART_SIZE);
+   }
+
+   public void testFastLinkGrowsParts() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      // 100 MB/s
+      sizing.partUploaded(100 * MB, TimeUnit.SECONDS.toNanos(1));
+      assertEquals(sizing.partSize(100 * 1024 * MB, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, true),
+            AdaptiveMultipartUploadSizing.DEFAULT_TARGET_PART_SECONDS * 100 * MB);
+   }
+
+   public void testFastLinkBufferedPartsFitInBufferMemory() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      // 1 GB/s
+      sizing.partUploaded(1024 * MB, TimeUnit.SECONDS.toNanos(1));
+      long partSize = sizing.partSize(100 * 1024 * MB, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, false);
+      assertEquals(partSize, AdaptiveMultipartUploadSizing.DEFAULT_BUFFER_MEMORY);
+      assertEquals(sizing.partsInFlight(partSize, false), 1);
+
+      sizing.bufferMemory = 4L * 1024 * MB;
+      assertEquals(sizing.partSize(100 * 1024 * MB, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, false),
+            (long) Integer.MAX_VALUE);
+
+      sizing.bufferMemory = MB;
+      assertEquals(sizing.partSize(100 * 1024 * MB, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, false),
+            MIN_PART_SIZE);
+   }
+
+   public void testSlowLinkShrinksParts() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      // 100 KB/s
+      sizing.partUploaded(MB, TimeUnit.SECONDS.toNanos(10));
+      assertEquals(sizing.partSize(1024 * MB, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, true), MIN_PART_SIZE);
+   }
+
+   public void testNeverExceedsMaximumNumberOfParts() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      sizing.partUploaded(MB, TimeUnit.SECONDS.toNanos(10));
+      long length = 100 * 1024 * MB + 1;
+      long partSize = sizing.partSize(length, MIN_PART_SIZE, MAX_PART_SIZE, 1000, true);
+      assertEquals((length + partSize - 1) / partSize <= 1000, true);
+   }
+
+   public void testThroughputIsSmoothed() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      sizing.partUploaded(100, TimeUnit.SECONDS.toNanos(1));
+      sizing.partUploaded(200, TimeUnit.SECONDS.toNanos(1));
+      assertEquals(sizing.getThroughput(), 120.0, 0.001);
+   }
+
+   public void testNotAdaptive() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      sizing.adaptive = false;
+      sizing.partUploaded(100 * MB, TimeUnit.SECONDS.toNanos(1));
+      long length = 10 * MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE;
+      assertEquals(sizing.partSize(length, MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, true),
+            MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE);
+   }
+
+   public void testPartsInFlight() {
+      AdaptiveMultipartUploadSizing sizing = new AdaptiveMultipartUploadSizing();
+      assertEquals(sizing.partsInFlight(MultipartUploadSlicingAlgorithm.DEFAULT_PART_SIZE, false), 4);
+      assertEquals(sizing.partsInFlight(MAX_PART_SIZE, false), 1);
+      assertEquals(sizing.partsInFlight(MAX_PART_SIZE, true), Integer.MAX_VALUE);
+   }
+}
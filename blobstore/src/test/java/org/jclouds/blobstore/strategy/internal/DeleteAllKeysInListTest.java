@@ -33,6 +33,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.easymock.EasyMock;
 import org.easymock.IMocksControl;
@@ -44,6 +45,7 @@ import org.jclouds.util.Closeables2;
 import org.jclouds.blobstore.domain.PageSet;
 import org.jclouds.blobstore.domain.StorageMetadata;
 import org.jclouds.blobstore.internal.BlobRuntimeException;
+import org.jclouds.blobstore.util.ForwardingBlobStore;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
@@ -52,6 +54,7 @@ import org.testng.annotations.Test;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
 import com.google.inject.Injector;
 
 @Test(testName = "DeleteAllKeysInListTest", singleThreaded = true)
@@ -214,6 +217,27 @@ public class DeleteAllKeysInListTest {
       assertTrue(deleteFailure.get());
    }
 
+   public void testBatchesDeletesAndRetriesFailedBatchesIndividually() {
+      final AtomicInteger bulkDeletes = new AtomicInteger();
+      BlobStore failingFirstBulkDelete = new ForwardingBlobStore(blobstore) {
+         @Override
+         public void removeBlobs(String container, Iterable<String> names) {
+            if (bulkDeletes.getAndIncrement() == 0) {
+               throw new RuntimeException("bulk delete failed");
+            }
+            super.removeBlobs(container, names);
+         }
+      };
+      DeleteAllKeysInList batchingDeleter = new DeleteAllKeysInList(
+            MoreExecutors.newDirectExecutorService(), failingFirstBulkDelete,
+            retryHandler, maxParallelDeletes);
+      batchingDeleter.setDeleteBatchSize(100);
+      batchingDeleter.execute(containerName);
+      assertEquals(blobstore.countBlobs(containerName), 0);
+      // the recursive listing pages of 1000, 1000, 1000 and 333 blobs are split into batches of 100
+      assertEquals(bulkDeletes.get(), 34);
+   }
+
    /**
     * Create a container "container" with 1111 blobs named "blob-%d".  Create a
     * subdirectory "directory" which contains 2222 more blobs named
@@ -65,6 +65,18 @@ public final class MpuPartitioningAlgorithmTest {
       assertEquals(chunkSize * strategy.getParts() + strategy.getRemaining(), length);
    }
 
+   @Test
+   public void testConfiguredPartSizeAndMagnitude() {
+      long partSize = 8 * 1024 * 1024;
+      MultipartUploadSlicingAlgorithm strategy = new MultipartUploadSlicingAlgorithm(
+            MIN_PART_SIZE, MAX_PART_SIZE, MAX_NUMBER_OF_PARTS, partSize, 10);
+
+      // fewer than 10 parts keep the configured part size
+      assertEquals(strategy.calculateChunkSize(9 * partSize), partSize);
+      // 10 parts or more grow it by the configured magnitude
+      assertEquals(strategy.calculateChunkSize(20 * partSize), 2 * partSize);
+   }
+
    /**
     * Phase 1 of the algorithm.
     * ChunkSize does not grow from a {@code MultipartUploadStrategy.DEFAULT_PART_SIZE}
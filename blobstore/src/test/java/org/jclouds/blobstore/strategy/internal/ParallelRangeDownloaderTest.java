@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.blobstore.strategy.internal;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.jclouds.ContextBuilder;
+import org.jclouds.blobstore.BlobStore;
+import org.jclouds.blobstore.BlobStoreContext;
+import org.jclouds.blobstore.KeyNotFoundException;
+import org.jclouds.util.Closeables2;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+
+@Test(testName = "ParallelRangeDownloaderTest", singleThreaded = true)
+public class ParallelRangeDownloaderTest {
+   private static final String containerName = "container";
+   private static final String blobName = "blob";
+
+   private BlobStoreContext context;
+   private BlobStore blobStore;
+   private ExecutorService executor;
+   private ByteSource content;
+   private ParallelRangeDownloader downloader;
+
+   @BeforeMethod
+   void setupBlobStore() throws IOException {
+      context = ContextBuilder.newBuilder("transient").build(BlobStoreContext.class);
+      blobStore = context.getBlobStore();
+      executor = Executors.newFixedThreadPool(4);
+      blobStore.createContainerInLocation(null, containerName);
+      // not a multiple of the part size, so the last range is short
+      content = randomByteSource().slice(0, 10 * 1024 + 17);
+      blobStore.putBlob(containerName, blobStore.blobBuilder(blobName).payload(content)
+            .contentLength(content.size()).build());
+      downloader = new ParallelRangeDownloader(blobStore, 1024, 3, 1, true);
+   }
+
+   @AfterMethod
+   void close() {
+      executor.shutdownNow();
+      Closeables2.closeQuietly(context);
+   }
+
+   public void testDownloadBlob() throws IOException {
+      File destination = File.createTempFile("download", ".tmp");
+      try {
+         downloader.downloadBlob(containerName, blobName, destination, executor);
+         assertEquals(Files.asByteSource(destination).read(), content.read());
+      } finally {
+         destination.delete();
+      }
+   }
+
+   public void testDownloadEmptyBlob() throws IOException {
+      blobStore.putBlob(containerName, blobStore.blobBuilder("empty").payload(ByteSource.empty())
+            .contentLength(0).build());
+      File destination = File.createTempFile("download", ".tmp");
+      try {
+         downloader.downloadBlob(containerName, "empty", destination, executor);
+         assertEquals(destination.length(), 0);
+      } finally {
+         destination.delete();
+      }
+   }
+
+   @Test(expectedExceptions = KeyNotFoundException.class)
+   public void testDownloadMissingBlob() throws IOException {
+      File destination = new File(System.getProperty("java.io.tmpdir"), "missing-blob");
+      try {
+         downloader.downloadBlob(containerName, "missing", destination, executor);
+      } finally {
+         assertFalse(destination.exists());
+      }
+   }
+
+   public void testStreamBlob() throws IOException {
+      InputStream is = downloader.streamBlob(containerName, blobName, executor);
+      try {
+         assertEquals(ByteStreams.toByteArray(is), content.read());
+         assertEquals(is.read(), -1);
+      } finally {
+         is.close();
+      }
+   }
+
+   public void testStreamBlobCloseEarly() throws IOException {
+      InputStream is = downloader.streamBlob(containerName, blobName, executor);
+      byte[] expected = content.slice(0, 10).read();
+      byte[] actual = new byte[10];
+      ByteStreams.readFully(is, actual);
+      assertEquals(actual, expected);
+      is.close();
+   }
+}
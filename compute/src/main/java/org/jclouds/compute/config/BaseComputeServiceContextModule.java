@@ -17,13 +17,20 @@
 package org.jclouds.compute.config;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.jclouds.Constants.PROPERTY_SESSION_INTERVAL;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.compute.config.ComputeServiceProperties.IMAGE_ID;
+import static org.jclouds.compute.config.ComputeServiceProperties.IMAGE_SNAPSHOT_FILE;
+import static org.jclouds.compute.config.ComputeServiceProperties.IMAGE_SNAPSHOT_MAX_AGE;
+import static org.jclouds.compute.config.ComputeServiceProperties.REFRESH_AHEAD;
 import static org.jclouds.compute.config.ComputeServiceProperties.TEMPLATE;
 import static org.jclouds.compute.domain.OsFamily.UBUNTU;
 
+import java.io.File;
+import java.net.URI;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
@@ -55,12 +62,15 @@ import org.jclouds.compute.strategy.CustomizeNodeAndAddToGoodMapOrPutExceptionIn
 import org.jclouds.compute.strategy.GetImageStrategy;
 import org.jclouds.compute.strategy.InitializeRunScriptOnNodeOrPlaceInBadMap;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.compute.suppliers.ImageSnapshotFile;
 import org.jclouds.config.ValueOfConfigurationKeyOrNull;
+import org.jclouds.domain.Credentials;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.json.Json;
 import org.jclouds.location.Provider;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier;
+import org.jclouds.rest.suppliers.ValueLoadedCallback;
 import org.jclouds.scriptbuilder.domain.Statement;
 import org.jclouds.scriptbuilder.statements.login.AdminAccess;
 import org.jclouds.ssh.SshClient;
@@ -71,6 +81,7 @@ import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
 import com.google.inject.Binding;
 import com.google.inject.Inject;
@@ -244,10 +255,31 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
    @Memoized
    protected final Supplier<Set<? extends Image>> supplyImageCache(
          AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
-         final Supplier<Set<? extends Image>> imageSupplier, com.google.inject.Provider<GetImageStrategy> imageLoader, Injector injector) {
+         final Supplier<Set<? extends Image>> imageSupplier, com.google.inject.Provider<GetImageStrategy> imageLoader, Injector injector,
+         ValueOfConfigurationKeyOrNull config, @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor,
+         Json json, @Provider String provider, @Provider Supplier<URI> endpoint,
+         @Provider Supplier<Credentials> creds) {
       Supplier<Set<? extends Image>> parsingImageSupplier = shouldEagerlyParseImages(injector) ? imageSupplier
             : supplyNonParsingImages(imageSupplier, injector);
-      return new ImageCacheSupplier(parsingImageSupplier, seconds, authException, imageLoader);
+      String snapshotPath = config.apply(IMAGE_SNAPSHOT_FILE);
+      ImageSnapshotFile snapshot = null;
+      if (snapshotPath != null) {
+         snapshot = new ImageSnapshotFile(new File(snapshotPath), json, provider, endpoint.get(),
+               creds.get().identity, imageSnapshotMaxAge(config));
+         injector.injectMembers(snapshot);
+      }
+      Executor refreshExecutor = snapshot != null || refreshAhead(config) ? userExecutor : null;
+      return new ImageCacheSupplier(parsingImageSupplier, seconds, authException, imageLoader, refreshExecutor,
+            snapshot);
+   }
+
+   private static boolean refreshAhead(ValueOfConfigurationKeyOrNull config) {
+      return Boolean.parseBoolean(config.apply(REFRESH_AHEAD));
+   }
+
+   private static long imageSnapshotMaxAge(ValueOfConfigurationKeyOrNull config) {
+      String maxAge = config.apply(IMAGE_SNAPSHOT_MAX_AGE);
+      return maxAge != null ? Long.parseLong(maxAge) : TimeUnit.HOURS.toSeconds(12);
    }
 
    protected boolean shouldEagerlyParseImages(Injector injector) {
@@ -285,7 +317,13 @@ public abstract class BaseComputeServiceContextModule extends AbstractModule {
    @Singleton
    @Memoized
    protected final Supplier<Set<? extends Hardware>> supplySizeCache(AtomicReference<AuthorizationException> authException, @Named(PROPERTY_SESSION_INTERVAL) long seconds,
-         final Supplier<Set<? extends Hardware>> hardwareSupplier) {
+         final Supplier<Set<? extends Hardware>> hardwareSupplier, ValueOfConfigurationKeyOrNull config,
+         @Named(PROPERTY_USER_THREADS) ListeningExecutorService userExecutor) {
+      if (refreshAhead(config)) {
+         return MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.createRefreshingAhead(authException,
+               hardwareSupplier, seconds, TimeUnit.SECONDS, new ValueLoadedCallback.NoOpCallback<Set<? extends Hardware>>(),
+               userExecutor);
+      }
       return MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException, hardwareSupplier,
                seconds, TimeUnit.SECONDS);
    }
@@ -44,6 +44,14 @@ public final class ComputeServiceProperties {
     */
    public static final String POLL_MAX_PERIOD = "jclouds.compute.poll-status.max-period";
 
+   /**
+    * true to wait for node status changes through a shared watcher, which lists every watched node in one call per
+    * maximum poll period, instead of polling each node separately. Default false.
+    *
+    * @see org.jclouds.compute.predicates.NodeStatusWatcher
+    */
+   public static final String POLL_BATCH = "jclouds.compute.poll-status.batch";
+
    /**
     * time in milliseconds to wait for an image to finish creating.
     * 
@@ -118,6 +126,26 @@ public final class ComputeServiceProperties {
     */
    public static final String SOCKET_FINDER_ALLOWED_INTERFACES = "jclouds.compute.socket-finder-allowed-interfaces";
 
+   /**
+    * true to refresh images and hardware profiles in the background once the session interval has passed, serving
+    * the last ones meanwhile, instead of blocking the next call on the provider. Default false.
+    */
+   public static final String REFRESH_AHEAD = "jclouds.compute.refresh-ahead";
+
+   /**
+    * path of a file where the images are saved each time they load, so that a new context starts from them and
+    * refreshes them in the background instead of blocking on listing every region. Images are refreshed ahead when
+    * this is set. Image passwords and private keys are not saved. A file saved for another provider, endpoint or
+    * identity, or longer ago than {@link #IMAGE_SNAPSHOT_MAX_AGE}, is ignored.
+    */
+   public static final String IMAGE_SNAPSHOT_FILE = "jclouds.compute.image-snapshot-file";
+
+   /**
+    * seconds since it was saved that a new context may start from the {@link #IMAGE_SNAPSHOT_FILE image snapshot}.
+    * Default 43200 (12 hours).
+    */
+   public static final String IMAGE_SNAPSHOT_MAX_AGE = "jclouds.compute.image-snapshot-max-age";
+
    private ComputeServiceProperties() {
       throw new AssertionError("intentionally unimplemented");
    }
@@ -43,6 +43,7 @@ import org.jclouds.compute.options.TemplateOptions;
 import org.jclouds.compute.predicates.ImagePredicates;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.suppliers.ImageCacheSupplier;
+import org.jclouds.compute.suppliers.ImageIndex;
 import org.jclouds.domain.Location;
 import org.jclouds.logging.Logger;
 
@@ -62,7 +63,6 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.find;
-import static com.google.common.collect.Iterables.size;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
 import static com.google.common.collect.Lists.newArrayList;
@@ -703,8 +703,12 @@ public class TemplateBuilderImpl implements TemplateBuilder {
 
    private Iterable<? extends Image> findSupportedImages(Set<? extends Image> images) {
       Predicate<Image> imagePredicate = buildImagePredicate();
-      Iterable<? extends Image> supportedImages = filter(images, imagePredicate);
-      if (size(supportedImages) == 0) {
+      // narrow down through the index first, and filter once, as hardware and image resolution iterate the result
+      // many times
+      Iterable<? extends Image> candidates = images instanceof ImageIndex ? ((ImageIndex) images).candidates(
+            osFamily, os64Bit, location) : images;
+      List<? extends Image> supportedImages = ImmutableList.copyOf(filter(candidates, imagePredicate));
+      if (supportedImages.isEmpty()) {
          throw throwNoSuchElementExceptionAfterLoggingImageIds(
                format("no image matched predicate: %s", imagePredicate), images);
       }
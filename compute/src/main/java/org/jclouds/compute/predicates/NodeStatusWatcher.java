@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.predicates;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Throwables.propagate;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static org.jclouds.compute.config.ComputeServiceProperties.POLL_BATCH;
+import static org.jclouds.compute.util.ComputeServiceUtils.formatStatus;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import javax.annotation.Resource;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.lifecycle.Closer;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Waits for nodes to reach a status by polling all of the watched nodes at
+ * once, with a single {@link ListNodesStrategy#listNodesByIds} call per poll
+ * period on one scheduler thread, instead of a
+ * {@link org.jclouds.util.Predicates2#retry retrying} predicate per node which
+ * sleeps between its own {@code getNode} calls.
+ * <p>
+ * The node status predicates of the compute service use the watcher
+ * when {@link org.jclouds.compute.config.ComputeServiceProperties#POLL_BATCH}
+ * is set. Polls start after the initial poll period and then repeat every
+ * maximum poll period while any node is watched.
+ */
+@Beta
+@Singleton
+public class NodeStatusWatcher implements Closeable {
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(POLL_BATCH)
+   private boolean enabled = false;
+
+   private final ListNodesStrategy listNodes;
+   private final PollPeriod period;
+   private final Set<Watch> watches = Sets.newConcurrentHashSet();
+   private final AtomicBoolean scheduled = new AtomicBoolean();
+   private ScheduledExecutorService scheduler;
+   private boolean closed;
+
+   @Inject
+   NodeStatusWatcher(ListNodesStrategy listNodes, PollPeriod period, Closer closer) {
+      this.listNodes = checkNotNull(listNodes, "listNodes");
+      this.period = checkNotNull(period, "period");
+      closer.addToClose(this);
+   }
+
+   /**
+    * Returns whether the node status predicates should wait through this
+    * watcher.
+    */
+   public boolean isEnabled() {
+      return enabled;
+   }
+
+   /**
+    * Watches a node until it reaches a status.
+    *
+    * @param goneIsDone
+    *           whether the node no longer being listed counts as reaching the
+    *           status, in which case the future returns null
+    * @return a future which returns the node once it has the intended status,
+    *         or fails with {@link IllegalStateException} once it has one of
+    *         the invalid ones. Cancel it to stop watching.
+    * @throws IllegalStateException
+    *            if the watcher is closed
+    */
+   public ListenableFuture<NodeMetadata> watch(String nodeId, Status intended, Set<Status> invalids,
+         boolean goneIsDone) {
+      return start(nodeId, intended, invalids, goneIsDone).result;
+   }
+
+   /**
+    * Returns a predicate which, like {@link AtomicNodeRunning} wrapped in a
+    * retry, waits up to {@code timeoutMillis} for the node to reach a status,
+    * and updates the reference with the last node seen. Applying it throws
+    * {@link IllegalStateException} once the watcher is closed.
+    */
+   public Predicate<AtomicReference<NodeMetadata>> retryUntil(final Status intended, final Set<Status> invalids,
+         final boolean goneIsDone, final long timeoutMillis) {
+      return new Predicate<AtomicReference<NodeMetadata>>() {
+         @Override
+         public boolean apply(AtomicReference<NodeMetadata> reference) {
+            NodeMetadata node = reference.get();
+            if (node == null)
+               return goneIsDone;
+            checkValid(node, invalids);
+            if (node.getStatus() == intended)
+               return true;
+            Watch watch = start(node.getId(), intended, invalids, goneIsDone);
+            boolean reached = false;
+            try {
+               reference.set(watch.result.get(timeoutMillis, TimeUnit.MILLISECONDS));
+               reached = true;
+               return true;
+            } catch (TimeoutException e) {
+               return false;
+            } catch (ExecutionException e) {
+               throw propagate(e.getCause());
+            } catch (InterruptedException e) {
+               Thread.currentThread().interrupt();
+               throw propagate(e);
+            } finally {
+               watch.result.cancel(false);
+               if (!reached && watch.last != null)
+                  reference.set(watch.last);
+            }
+         }
+
+         @Override
+         public String toString() {
+            return "retryUntil(" + intended + ")";
+         }
+      };
+   }
+
+   private Watch start(String nodeId, Status intended, Set<Status> invalids, boolean goneIsDone) {
+      final Watch watch = new Watch(checkNotNull(nodeId, "nodeId"), checkNotNull(intended, "intended"),
+            ImmutableSet.copyOf(invalids), goneIsDone);
+      watches.add(watch);
+      watch.result.addListener(new Runnable() {
+         @Override
+         public void run() {
+            watches.remove(watch);
+         }
+      }, directExecutor());
+      try {
+         scheduleIfIdle(period.pollInitialPeriod);
+      } catch (IllegalStateException e) {
+         watch.result.cancel(false);
+         throw e;
+      }
+      return watch;
+   }
+
+   private void scheduleIfIdle(long delayMillis) {
+      if (!watches.isEmpty() && scheduled.compareAndSet(false, true)) {
+         schedule(new Runnable() {
+            @Override
+            public void run() {
+               poll();
+            }
+         }, delayMillis);
+      }
+   }
+
+   private void poll() {
+      try {
+         // only the watches present before listing are updated, as a node missing from an older list is not gone
+         List<Watch> polling = ImmutableList.copyOf(watches);
+         Set<String> ids = Sets.newHashSet();
+         for (Watch watch : polling) {
+            ids.add(watch.id);
+         }
+         if (ids.isEmpty())
+            return;
+         Map<String, NodeMetadata> nodes = Maps.newHashMap();
+         for (NodeMetadata node : listNodes.listNodesByIds(ids)) {
+            nodes.put(node.getId(), node);
+         }
+         logger.trace("polled the status of %d nodes, %d listed", ids.size(), nodes.size());
+         for (Watch watch : polling) {
+            watch.update(nodes.get(watch.id));
+         }
+      } catch (RuntimeException e) {
+         logger.warn(e, "could not poll the status of nodes; retrying");
+      } finally {
+         scheduled.set(false);
+         scheduleIfIdle(period.pollMaxPeriod);
+      }
+   }
+
+   private synchronized void schedule(Runnable poll, long delayMillis) {
+      if (closed) {
+         scheduled.set(false);
+         throw new IllegalStateException("the node status watcher is closed");
+      }
+      if (scheduler == null) {
+         scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+               .setNameFormat("node status watcher").setDaemon(true).build());
+      }
+      scheduler.schedule(poll, delayMillis, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public synchronized void close() {
+      closed = true;
+      if (scheduler != null)
+         scheduler.shutdownNow();
+      for (Watch watch : watches) {
+         watch.result.cancel(false);
+      }
+   }
+
+   private static void checkValid(NodeMetadata node, Set<Status> invalids) {
+      if (invalids.contains(node.getStatus()))
+         throw new IllegalStateException("resource " + node.getId() + " in location " + node.getLocation()
+               + " is in invalid status " + formatStatus(node));
+   }
+
+   private static final class Watch {
+      private final String id;
+      private final Status intended;
+      private final Set<Status> invalids;
+      private final boolean goneIsDone;
+      private final SettableFuture<NodeMetadata> result = SettableFuture.create();
+      private volatile NodeMetadata last;
+
+      Watch(String id, Status intended, Set<Status> invalids, boolean goneIsDone) {
+         this.id = id;
+         this.intended = intended;
+         this.invalids = invalids;
+         this.goneIsDone = goneIsDone;
+      }
+
+      void update(@Nullable NodeMetadata node) {
+         if (node == null) {
+            if (goneIsDone)
+               result.set(null);
+            return;
+         }
+         last = node;
+         try {
+            checkValid(node, invalids);
+         } catch (IllegalStateException e) {
+            result.setException(e);
+            return;
+         }
+         if (node.getStatus() == intended)
+            result.set(node);
+      }
+   }
+}
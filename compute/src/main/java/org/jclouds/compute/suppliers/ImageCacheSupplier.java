@@ -16,10 +16,14 @@
  */
 package org.jclouds.compute.suppliers;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.annotation.Resource;
@@ -28,6 +32,7 @@ import javax.inject.Named;
 import org.jclouds.compute.domain.Image;
 import org.jclouds.compute.reference.ComputeServiceConstants;
 import org.jclouds.compute.strategy.GetImageStrategy;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.rest.suppliers.MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier;
@@ -40,7 +45,8 @@ import com.google.common.base.Supplier;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
-import com.google.common.collect.ImmutableSet;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.Maps;
 import com.google.inject.Provider;
 
@@ -67,13 +73,28 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * The image supplier that loads the images and caches them for the duration
     * of the session. Delegates to the {@link #liveImageSupplier}.
     */
-   private final Supplier<Set<? extends Image>> memoizedImageSupplier;
+   private final MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<Set<? extends Image>> memoizedImageSupplier;
+
+   /**
+    * Where the images are saved between sessions, or null.
+    */
+   private final ImageSnapshotFile snapshot;
+
+   private volatile boolean snapshotPending;
    
    /**
     * The actual image cache. It acts as a view over the memoized image supplier
     * and allows to add and remove images at runtime.
     */
    private final LoadingCache<String, Image> imageCache;
+
+   /**
+    * Counts the changes to the {@link #imageCache}, so that the index returned
+    * by {@link #get()} is only rebuilt after the cached images change.
+    */
+   private final AtomicLong version = new AtomicLong();
+
+   private volatile IndexSnapshot index;
    
    @Resource
    @Named(ComputeServiceConstants.COMPUTE_LOGGER)
@@ -81,11 +102,41 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
 
    public ImageCacheSupplier(Supplier<Set<? extends Image>> imageSupplier, long sessionIntervalSeconds,
          AtomicReference<AuthorizationException> authException, final Provider<GetImageStrategy> imageLoader) {
+      this(imageSupplier, sessionIntervalSeconds, authException, imageLoader, null, null);
+   }
+
+   /**
+    * @param refreshExecutor
+    *           if not null, the images are refreshed on this executor once
+    *           the session interval has passed, and the last images are
+    *           returned until the refresh completes.
+    * @param snapshot
+    *           if not null, the images are saved to it each time they load,
+    *           and the first call returns the saved images while they are
+    *           refreshed. Requires a refresh executor.
+    */
+   public ImageCacheSupplier(Supplier<Set<? extends Image>> imageSupplier, long sessionIntervalSeconds,
+         AtomicReference<AuthorizationException> authException, final Provider<GetImageStrategy> imageLoader,
+         @Nullable Executor refreshExecutor, @Nullable ImageSnapshotFile snapshot) {
+      checkArgument(snapshot == null || refreshExecutor != null, "an image snapshot requires a refresh executor");
       liveImageSupplier = imageSupplier;
-      memoizedImageSupplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.create(authException,
-            imageSupplier, sessionIntervalSeconds, TimeUnit.SECONDS, this);
-      imageCache = CacheBuilder.newBuilder().expireAfterWrite(sessionIntervalSeconds, TimeUnit.SECONDS)
-            .build(new CacheLoader<String, Image>() {
+      memoizedImageSupplier = refreshExecutor == null ? MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier
+            .create(authException, imageSupplier, sessionIntervalSeconds, TimeUnit.SECONDS, this)
+            : MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier.createRefreshingAhead(authException,
+                  imageSupplier, sessionIntervalSeconds, TimeUnit.SECONDS, this, refreshExecutor);
+      this.snapshot = snapshot;
+      this.snapshotPending = snapshot != null;
+      CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder();
+      if (refreshExecutor == null) {
+         // when refreshing ahead, images stay until a refresh replaces them, even if it is slow or fails
+         cacheBuilder.expireAfterWrite(sessionIntervalSeconds, TimeUnit.SECONDS);
+      }
+      imageCache = cacheBuilder.removalListener(new RemovalListener<String, Image>() {
+               @Override
+               public void onRemoval(RemovalNotification<String, Image> notification) {
+                  version.incrementAndGet();
+               }
+            }).build(new CacheLoader<String, Image>() {
                @Override
                public Image load(String key) throws Exception {
                   return imageLoader.get().getImage(key);
@@ -103,8 +154,19 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
       // values in the cache will be returned, as the cache properly handles
       // individual image additions and deletions (introduced, for example, by
       // the usage of the ImageExtension).
+      if (snapshotPending) {
+         primeFromSnapshot();
+      }
       memoizedImageSupplier.get();
-      return ImmutableSet.copyOf(imageCache.asMap().values());
+      // expire images now, so that the removal listener notices them
+      imageCache.cleanUp();
+      IndexSnapshot current = index;
+      long currentVersion = version.get();
+      if (current == null || current.version != currentVersion) {
+         current = new IndexSnapshot(currentVersion, ImageIndex.of(imageCache.asMap().values()));
+         index = current;
+      }
+      return current.images;
    }
 
    /**
@@ -119,7 +181,27 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
    public void valueLoaded(Optional<Set<? extends Image>> value) {
       if (value.isPresent()) {
          reset(value.get());
+         if (snapshot != null) {
+            snapshot.write(value.get());
+         }
+      }
+   }
+
+   /**
+    * Starts from the images saved by a previous session, if any, so that the
+    * first call does not wait for the images to load.
+    */
+   private synchronized void primeFromSnapshot() {
+      if (!snapshotPending) {
+         return;
       }
+      Optional<Set<Image>> saved = snapshot.read();
+      if (saved.isPresent()) {
+         logger.debug("starting from %d images saved in %s", saved.get().size(), snapshot);
+         reset(saved.get());
+         memoizedImageSupplier.prime(saved.get());
+      }
+      snapshotPending = false;
    }
    
    /**
@@ -130,13 +212,16 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     * is invoked forcing a fresh image lookup.
     */
    public void reset(Set<? extends Image> images) {
-      imageCache.invalidateAll();
-      imageCache.putAll(Maps.uniqueIndex(images, new Function<Image, String>() {
+      Map<String, ? extends Image> fresh = Maps.uniqueIndex(images, new Function<Image, String>() {
          @Override
          public String apply(Image input) {
             return input.getId();
          }
-      }));
+      });
+      // replace the images in place, so that concurrent readers never see an empty cache
+      imageCache.putAll(fresh);
+      imageCache.asMap().keySet().retainAll(fresh.keySet());
+      version.incrementAndGet();
    }
    
    /**
@@ -157,7 +242,12 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
     */
    public Optional<? extends Image> get(String id) {
       try {
-         return Optional.fromNullable(imageCache.getUnchecked(id));
+         boolean cached = imageCache.getIfPresent(id) != null;
+         Image image = imageCache.getUnchecked(id);
+         if (!cached) {
+            version.incrementAndGet();
+         }
+         return Optional.fromNullable(image);
       } catch (Exception ex) {
          logger.error(ex, "Unexpected error loading image %s", id);
          return Optional.absent();
@@ -180,6 +270,7 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
    public void registerImage(Image image) {
       checkNotNull(image, "image");
       imageCache.put(image.getId(), image);
+      version.incrementAndGet();
    }
 
    /**
@@ -194,4 +285,13 @@ public class ImageCacheSupplier implements Supplier<Set<? extends Image>>, Value
       imageCache.invalidate(checkNotNull(imageId, "imageId"));
    }
 
+   private static final class IndexSnapshot {
+      private final long version;
+      private final ImageIndex images;
+
+      IndexSnapshot(long version, ImageIndex images) {
+         this.version = version;
+         this.images = images;
+      }
+   }
 }
@@ -0,0 +1,190 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ForwardingSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.LinkedListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.primitives.Ints;
+
+/**
+ * An immutable set of images indexed by the attributes the
+ * {@link org.jclouds.compute.domain.TemplateBuilder} most often narrows on, so
+ * that matching a template does not test every predicate against every image.
+ * <p>
+ * The index only narrows: {@link #candidates} returns every image which may
+ * match, in the iteration order of the set, and callers still apply their
+ * full predicate to the result.
+ */
+@Beta
+public final class ImageIndex extends ForwardingSet<Image> {
+
+   private static final int[] NONE = new int[0];
+
+   private final ImmutableSet<Image> images;
+   private final ImmutableList<Image> ordered;
+   private final Map<OsFamily, int[]> byOsFamily;
+   private final int[][] byIs64Bit;
+   private final Map<Location, int[]> byLocation;
+   /** images without an operating system, which every os lookup must return */
+   private final int[] withoutOs;
+   /** images without a location, which are available in every location */
+   private final int[] withoutLocation;
+
+   public static ImageIndex of(Iterable<? extends Image> images) {
+      return new ImageIndex(ImmutableSet.<Image> copyOf(images));
+   }
+
+   private ImageIndex(ImmutableSet<Image> images) {
+      this.images = images;
+      this.ordered = images.asList();
+      ListMultimap<OsFamily, Integer> osFamilies = LinkedListMultimap.create();
+      ListMultimap<Boolean, Integer> is64Bit = LinkedListMultimap.create();
+      ListMultimap<Location, Integer> locations = LinkedListMultimap.create();
+      ImmutableList.Builder<Integer> noOs = ImmutableList.builder();
+      ImmutableList.Builder<Integer> noLocation = ImmutableList.builder();
+      for (int i = 0; i < ordered.size(); i++) {
+         Image image = ordered.get(i);
+         OperatingSystem os = image.getOperatingSystem();
+         if (os == null) {
+            noOs.add(i);
+         } else {
+            osFamilies.put(os.getFamily(), i);
+            is64Bit.put(os.is64Bit(), i);
+         }
+         if (image.getLocation() == null) {
+            noLocation.add(i);
+         } else {
+            locations.put(image.getLocation(), i);
+         }
+      }
+      this.byOsFamily = toArrays(osFamilies);
+      this.withoutOs = Ints.toArray(noOs.build());
+      this.byIs64Bit = new int[][] { merge(withoutOs, Ints.toArray(is64Bit.get(false))),
+            merge(withoutOs, Ints.toArray(is64Bit.get(true))) };
+      this.byLocation = toArrays(locations);
+      this.withoutLocation = Ints.toArray(noLocation.build());
+   }
+
+   @Override
+   protected Set<Image> delegate() {
+      return images;
+   }
+
+   /**
+    * Returns the images which may have the given attributes, narrowed by the
+    * most selective one. A null attribute matches every image.
+    *
+    * @param location
+    *           images in this location, its parent or its grandparent, or in
+    *           no location
+    */
+   public List<Image> candidates(@Nullable OsFamily osFamily, @Nullable Boolean is64Bit,
+         @Nullable Location location) {
+      int[] best = null;
+      if (osFamily != null) {
+         best = narrowest(best, merge(withoutOs, get(byOsFamily, osFamily)));
+      }
+      if (is64Bit != null) {
+         best = narrowest(best, byIs64Bit[is64Bit ? 1 : 0]);
+      }
+      if (location != null) {
+         int[] inLocation = merge(withoutLocation, get(byLocation, location));
+         Location parent = location.getParent();
+         if (parent != null) {
+            inLocation = merge(inLocation, get(byLocation, parent));
+            if (parent.getParent() != null) {
+               inLocation = merge(inLocation, get(byLocation, parent.getParent()));
+            }
+         }
+         best = narrowest(best, inLocation);
+      }
+      if (best == null) {
+         return ordered;
+      }
+      ImmutableList.Builder<Image> result = ImmutableList.builder();
+      for (int i : best) {
+         result.add(ordered.get(i));
+      }
+      return result.build();
+   }
+
+   private static <K> Map<K, int[]> toArrays(ListMultimap<K, Integer> positions) {
+      ImmutableMap.Builder<K, int[]> result = ImmutableMap.builder();
+      for (K key : positions.keySet()) {
+         if (key != null) {
+            result.put(key, Ints.toArray(positions.get(key)));
+         }
+      }
+      return result.build();
+   }
+
+   private static <K> int[] get(Map<K, int[]> index, K key) {
+      int[] positions = index.get(key);
+      return positions != null ? positions : NONE;
+   }
+
+   private static int[] narrowest(@Nullable int[] current, int[] candidate) {
+      return current == null || candidate.length < current.length ? candidate : current;
+   }
+
+   /** merges two ascending arrays of distinct positions, keeping the set order */
+   private static int[] merge(int[] a, int[] b) {
+      if (a.length == 0) {
+         return b;
+      }
+      if (b.length == 0) {
+         return a;
+      }
+      int[] result = new int[a.length + b.length];
+      int i = 0;
+      int j = 0;
+      int k = 0;
+      while (i < a.length && j < b.length) {
+         if (a[i] < b[j]) {
+            result[k++] = a[i++];
+         } else if (a[i] > b[j]) {
+            result[k++] = b[j++];
+         } else {
+            result[k++] = a[i++];
+            j++;
+         }
+      }
+      while (i < a.length) {
+         result[k++] = a[i++];
+      }
+      while (j < b.length) {
+         result[k++] = b[j++];
+      }
+      return k == result.length ? result : Arrays.copyOf(result, k);
+   }
+}
@@ -0,0 +1,249 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.reference.ComputeServiceConstants;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.javax.annotation.Nullable;
+import org.jclouds.json.Json;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+
+/**
+ * Saves images to a file, so that a new {@link ImageCacheSupplier} can start
+ * from the images of a previous session instead of listing them again.
+ * <p>
+ * The file records the provider, endpoint and identity the images were listed
+ * with, and when. A snapshot listed by another account or endpoint, or older
+ * than the maximum age, is ignored rather than served until the first refresh.
+ * <p>
+ * Passwords and private keys of the image default credentials are not saved:
+ * until the images are refreshed, their default credentials only hold the
+ * login user.
+ */
+@Beta
+public class ImageSnapshotFile {
+
+   private final File file;
+   private final Json json;
+   private final String provider;
+   private final URI endpoint;
+   private final String identity;
+   private final long maxAgeMillis;
+
+   @Resource
+   @Named(ComputeServiceConstants.COMPUTE_LOGGER)
+   protected Logger logger = Logger.NULL;
+
+   /**
+    * @param provider
+    *           the provider the images are listed from
+    * @param endpoint
+    *           the endpoint of the provider
+    * @param identity
+    *           the identity the images are listed with
+    * @param maxAgeSeconds
+    *           how long after they were saved images may be served from,
+    *           usually hours rather than the image cache period
+    */
+   public ImageSnapshotFile(File file, Json json, String provider, URI endpoint, @Nullable String identity,
+         long maxAgeSeconds) {
+      this.file = checkNotNull(file, "file");
+      this.json = checkNotNull(json, "json");
+      this.provider = checkNotNull(provider, "provider");
+      this.endpoint = checkNotNull(endpoint, "endpoint");
+      this.identity = identity;
+      this.maxAgeMillis = TimeUnit.SECONDS.toMillis(maxAgeSeconds);
+   }
+
+   /**
+    * Reads the saved images.
+    *
+    * @return the images, or absent when none were saved, the file cannot be
+    *         read, or the images were saved for another provider, endpoint or
+    *         identity or longer ago than the maximum age
+    */
+   public Optional<Set<Image>> read() {
+      if (!file.isFile())
+         return Optional.absent();
+      try {
+         Snapshot saved = json.fromJson(Files.toString(file, UTF_8), Snapshot.class);
+         if (!Objects.equal(saved.provider, provider) || !Objects.equal(saved.endpoint, endpoint)
+               || !Objects.equal(saved.identity, identity)) {
+            logger.debug("Ignoring image snapshot %s saved for another provider, endpoint or identity", file);
+            return Optional.absent();
+         }
+         long age = System.currentTimeMillis() - saved.savedAt;
+         if (age < 0 || age > maxAgeMillis) {
+            logger.debug("Ignoring image snapshot %s saved %d ms ago", file, age);
+            return Optional.absent();
+         }
+         ImmutableSet.Builder<Image> images = ImmutableSet.builder();
+         for (SavedImage image : saved.images) {
+            images.add(image.toImage());
+         }
+         return Optional.<Set<Image>> of(images.build());
+      } catch (Exception e) {
+         logger.warn(e, "Ignoring unreadable image snapshot %s", file);
+         return Optional.absent();
+      }
+   }
+
+   /**
+    * Replaces the saved images. Failures are logged, as the snapshot only
+    * speeds up the next start.
+    */
+   public void write(Set<? extends Image> images) {
+      ImmutableList.Builder<SavedImage> saved = ImmutableList.builder();
+      for (Image image : images) {
+         saved.add(new SavedImage(image));
+      }
+      // written aside and moved into place, so that a reader never sees a partial snapshot
+      File temp = new File(file.getPath() + ".tmp");
+      try {
+         Snapshot snapshot = new Snapshot(provider, endpoint, identity, System.currentTimeMillis(), saved.build());
+         Files.write(json.toJson(snapshot), temp, UTF_8);
+         java.nio.file.Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+               StandardCopyOption.ATOMIC_MOVE);
+      } catch (IOException e) {
+         logger.warn(e, "Could not save image snapshot %s", file);
+         temp.delete();
+      }
+   }
+
+   @Override
+   public String toString() {
+      return "ImageSnapshotFile(" + file + ")";
+   }
+
+   private static final class Snapshot {
+      private String provider;
+      private URI endpoint;
+      private String identity;
+      private long savedAt;
+      private List<SavedImage> images;
+
+      Snapshot(String provider, URI endpoint, String identity, long savedAt, List<SavedImage> images) {
+         this.provider = provider;
+         this.endpoint = endpoint;
+         this.identity = identity;
+         this.savedAt = savedAt;
+         this.images = images;
+      }
+   }
+
+   private static final class SavedImage {
+      private String id;
+      private String providerId;
+      private String name;
+      private SavedLocation location;
+      private URI uri;
+      private Map<String, String> userMetadata;
+      private Set<String> tags;
+      private OperatingSystem operatingSystem;
+      private Image.Status status;
+      private String backendStatus;
+      private String description;
+      private String version;
+      private String loginUser;
+      private boolean authenticateSudo;
+
+      SavedImage(Image image) {
+         this.id = image.getId();
+         this.providerId = image.getProviderId();
+         this.name = image.getName();
+         this.location = image.getLocation() != null ? new SavedLocation(image.getLocation()) : null;
+         this.uri = image.getUri();
+         this.userMetadata = image.getUserMetadata();
+         this.tags = image.getTags();
+         this.operatingSystem = image.getOperatingSystem();
+         this.status = image.getStatus();
+         this.backendStatus = image.getBackendStatus();
+         this.description = image.getDescription();
+         this.version = image.getVersion();
+         if (image.getDefaultCredentials() != null) {
+            this.loginUser = image.getDefaultCredentials().getUser();
+            this.authenticateSudo = image.getDefaultCredentials().shouldAuthenticateSudo();
+         }
+      }
+
+      Image toImage() {
+         ImageBuilder builder = new ImageBuilder().id(id).providerId(providerId).name(name).uri(uri)
+               .userMetadata(userMetadata != null ? userMetadata : ImmutableMap.<String, String> of())
+               .tags(tags != null ? tags : ImmutableSet.<String> of()).operatingSystem(operatingSystem)
+               .status(status).backendStatus(backendStatus).description(description).version(version);
+         if (location != null)
+            builder.location(location.toLocation());
+         if (loginUser != null)
+            builder.defaultCredentials(LoginCredentials.builder().user(loginUser).authenticateSudo(authenticateSudo)
+                  .build());
+         return builder.build();
+      }
+   }
+
+   private static final class SavedLocation {
+      private LocationScope scope;
+      private String id;
+      private String description;
+      private Set<String> iso3166Codes;
+      private SavedLocation parent;
+
+      SavedLocation(Location location) {
+         this.scope = location.getScope();
+         this.id = location.getId();
+         this.description = location.getDescription();
+         this.iso3166Codes = location.getIso3166Codes();
+         this.parent = location.getParent() != null ? new SavedLocation(location.getParent()) : null;
+      }
+
+      Location toLocation() {
+         LocationBuilder builder = new LocationBuilder().scope(scope).id(id).description(description)
+               .iso3166Codes(iso3166Codes != null ? iso3166Codes : ImmutableSet.<String> of());
+         if (parent != null)
+            builder.parent(parent.toLocation());
+         return builder.build();
+      }
+   }
+}
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.predicates;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.jclouds.compute.domain.ComputeMetadata;
+import org.jclouds.compute.domain.NodeMetadata;
+import org.jclouds.compute.domain.NodeMetadata.Status;
+import org.jclouds.compute.domain.NodeMetadataBuilder;
+import org.jclouds.compute.reference.ComputeServiceConstants.PollPeriod;
+import org.jclouds.compute.strategy.ListNodesStrategy;
+import org.jclouds.lifecycle.Closer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.ListenableFuture;
+
+@Test(groups = "unit", testName = "NodeStatusWatcherTest", singleThreaded = true)
+public class NodeStatusWatcherTest {
+
+   private final Map<String, NodeMetadata> nodes = new ConcurrentHashMap<String, NodeMetadata>();
+   private final List<Iterable<String>> calls = new CopyOnWriteArrayList<Iterable<String>>();
+   private Closer closer;
+   private NodeStatusWatcher watcher;
+
+   @BeforeMethod
+   void createWatcher() {
+      nodes.clear();
+      calls.clear();
+      PollPeriod period = new PollPeriod();
+      period.pollInitialPeriod = 10;
+      period.pollMaxPeriod = 10;
+      closer = new Closer();
+      watcher = new NodeStatusWatcher(new ListNodesStrategy() {
+         @Override
+         public Iterable<? extends ComputeMetadata> listNodes() {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public Iterable<? extends NodeMetadata> listDetailsOnNodesMatching(Predicate<? super NodeMetadata> filter) {
+            throw new UnsupportedOperationException();
+         }
+
+         @Override
+         public Iterable<? extends NodeMetadata> listNodesByIds(Iterable<String> ids) {
+            calls.add(ImmutableSet.copyOf(ids));
+            ImmutableList.Builder<NodeMetadata> result = ImmutableList.builder();
+            for (String id : ids) {
+               if (nodes.containsKey(id))
+                  result.add(nodes.get(id));
+            }
+            return result.build();
+         }
+      }, period, closer);
+   }
+
+   @AfterMethod
+   void close() throws IOException {
+      closer.close();
+   }
+
+   public void testPollsWatchedNodesTogether() throws Exception {
+      nodes.put("a", node("a", Status.PENDING));
+      nodes.put("b", node("b", Status.PENDING));
+      ListenableFuture<NodeMetadata> a = watcher.watch("a", Status.RUNNING, ImmutableSet.of(Status.ERROR), false);
+      ListenableFuture<NodeMetadata> b = watcher.watch("b", Status.RUNNING, ImmutableSet.of(Status.ERROR), false);
+      Thread.sleep(50);
+      assertFalse(a.isDone());
+      assertEquals(calls.get(calls.size() - 1), ImmutableSet.of("a", "b"));
+
+      nodes.put("a", node("a", Status.RUNNING));
+      nodes.put("b", node("b", Status.RUNNING));
+      assertEquals(a.get(1, TimeUnit.SECONDS).getStatus(), Status.RUNNING);
+      assertEquals(b.get(1, TimeUnit.SECONDS).getStatus(), Status.RUNNING);
+
+      // nothing is polled once no node is watched
+      Thread.sleep(50);
+      int count = calls.size();
+      Thread.sleep(50);
+      assertEquals(calls.size(), count);
+   }
+
+   public void testRetryUntilUpdatesTheReference() {
+      nodes.put("a", node("a", Status.PENDING));
+      AtomicReference<NodeMetadata> reference = new AtomicReference<NodeMetadata>(node("a", Status.PENDING));
+      Predicate<AtomicReference<NodeMetadata>> running = watcher.retryUntil(Status.RUNNING,
+            ImmutableSet.of(Status.ERROR), false, 50);
+      assertFalse(running.apply(reference));
+
+      nodes.put("a", node("a", Status.RUNNING));
+      assertTrue(running.apply(reference));
+      assertEquals(reference.get().getStatus(), Status.RUNNING);
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testRetryUntilFailsOnInvalidStatus() {
+      nodes.put("a", node("a", Status.ERROR));
+      AtomicReference<NodeMetadata> reference = new AtomicReference<NodeMetadata>(node("a", Status.PENDING));
+      try {
+         watcher.retryUntil(Status.RUNNING, ImmutableSet.of(Status.ERROR), false, 1000).apply(reference);
+      } finally {
+         assertEquals(reference.get().getStatus(), Status.ERROR);
+      }
+   }
+
+   public void testGoneIsDone() {
+      AtomicReference<NodeMetadata> reference = new AtomicReference<NodeMetadata>(node("a", Status.RUNNING));
+      assertTrue(watcher.retryUntil(Status.TERMINATED, ImmutableSet.<Status> of(), true, 1000).apply(reference));
+      assertNull(reference.get());
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = ".* is closed")
+   public void testRetryUntilFailsOnceClosed() throws IOException {
+      nodes.put("a", node("a", Status.PENDING));
+      Predicate<AtomicReference<NodeMetadata>> running = watcher.retryUntil(Status.RUNNING,
+            ImmutableSet.of(Status.ERROR), false, 1000);
+      closer.close();
+      running.apply(new AtomicReference<NodeMetadata>(node("a", Status.PENDING)));
+   }
+
+   private static NodeMetadata node(String id, Status status) {
+      return new NodeMetadataBuilder().id(id).status(status).build();
+   }
+}
@@ -20,9 +20,17 @@ import static com.google.common.collect.Iterables.any;
 import static org.jclouds.compute.predicates.ImagePredicates.idEquals;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
 import org.jclouds.compute.domain.Image;
@@ -32,6 +40,8 @@ import org.jclouds.compute.strategy.GetImageStrategy;
 import org.jclouds.domain.Location;
 import org.jclouds.domain.LocationBuilder;
 import org.jclouds.domain.LocationScope;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
 import org.jclouds.rest.AuthorizationException;
 import org.testng.annotations.Test;
 
@@ -40,6 +50,7 @@ import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.Atomics;
 import com.google.common.util.concurrent.Uninterruptibles;
+import com.google.inject.Guice;
 import com.google.inject.util.Providers;
 
 /**
@@ -147,4 +158,57 @@ public class ImageCacheSupplierTest {
       assertEquals(imageCache.get().size(), 1);
       assertFalse(any(imageCache.get(), idEquals("foo")));
    }
+
+   @Test
+   public void testIndexIsReusedUntilTheCacheChanges() {
+      ImageCacheSupplier imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(images), 60,
+            Atomics.<AuthorizationException> newReference(), Providers.of(getImageStrategy));
+      Set<? extends Image> first = imageCache.get();
+      assertSame(imageCache.get(), first);
+
+      imageCache.registerImage(ImageBuilder.fromImage(image).id("newimage").build());
+      Set<? extends Image> second = imageCache.get();
+      assertNotSame(second, first);
+      assertEquals(second.size(), 2);
+
+      imageCache.removeImage("newimage");
+      assertEquals(imageCache.get().size(), 1);
+   }
+
+   @Test
+   public void testStartsFromTheSnapshotAndRefreshesInTheBackground() throws IOException {
+      File file = File.createTempFile("images", ".json");
+      try {
+         Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+         Image saved = ImageBuilder.fromImage(image).id("savedimage").build();
+         snapshotFile(file, json).write(ImmutableSet.of(saved));
+         Queue<Runnable> refreshes = new ArrayDeque<Runnable>();
+
+         ImageCacheSupplier imageCache = new ImageCacheSupplier(Suppliers.<Set<? extends Image>> ofInstance(images),
+               60, Atomics.<AuthorizationException> newReference(), Providers.of(getImageStrategy),
+               queueing(refreshes), snapshotFile(file, json));
+
+         assertEquals(imageCache.get(), ImmutableSet.of(saved));
+         assertEquals(refreshes.size(), 1);
+
+         refreshes.poll().run();
+         assertEquals(imageCache.get(), images);
+         assertEquals(snapshotFile(file, json).read().get(), images);
+      } finally {
+         file.delete();
+      }
+   }
+
+   private static ImageSnapshotFile snapshotFile(File file, Json json) {
+      return new ImageSnapshotFile(file, json, "stub", URI.create("https://stub"), "identity", 60);
+   }
+
+   private static Executor queueing(final Queue<Runnable> queue) {
+      return new Executor() {
+         @Override
+         public void execute(Runnable command) {
+            queue.add(command);
+         }
+      };
+   }
 }
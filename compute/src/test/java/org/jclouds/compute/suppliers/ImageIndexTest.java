@@ -0,0 +1,78 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableList;
+
+@Test(groups = "unit", testName = "ImageIndexTest")
+public class ImageIndexTest {
+
+   private final Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("provider")
+         .description("provider").build();
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("region")
+         .description("region").parent(provider).build();
+   private final Location zone = new LocationBuilder().scope(LocationScope.ZONE).id("zone").description("zone")
+         .parent(region).build();
+   private final Location otherRegion = new LocationBuilder().scope(LocationScope.REGION).id("other")
+         .description("other").parent(provider).build();
+
+   private final Image ubuntuInZone = image("ubuntuInZone", OsFamily.UBUNTU, true, zone);
+   private final Image centosInOther = image("centosInOther", OsFamily.CENTOS, true, otherRegion);
+   private final Image ubuntu32InRegion = image("ubuntu32InRegion", OsFamily.UBUNTU, false, region);
+   private final Image centosAnywhere = image("centosAnywhere", OsFamily.CENTOS, false, null);
+
+   private final ImageIndex index = ImageIndex.of(ImmutableList.of(ubuntuInZone, centosInOther, ubuntu32InRegion,
+         centosAnywhere));
+
+   public void testWithoutAttributesReturnsEverything() {
+      assertEquals(index.candidates(null, null, null), ImmutableList.copyOf(index));
+   }
+
+   public void testNarrowsByOsFamily() {
+      assertEquals(index.candidates(OsFamily.UBUNTU, null, null), ImmutableList.of(ubuntuInZone, ubuntu32InRegion));
+      assertEquals(index.candidates(OsFamily.WINDOWS, null, null), ImmutableList.of());
+   }
+
+   public void testNarrowsByLocationAndItsParents() {
+      assertEquals(index.candidates(null, null, zone),
+            ImmutableList.of(ubuntuInZone, ubuntu32InRegion, centosAnywhere));
+      assertEquals(index.candidates(null, null, otherRegion), ImmutableList.of(centosInOther, centosAnywhere));
+   }
+
+   public void testUsesTheMostSelectiveAttribute() {
+      assertEquals(index.candidates(OsFamily.CENTOS, false, null), ImmutableList.of(centosInOther, centosAnywhere));
+      // candidates are a superset of the matches, which callers still filter
+      assertEquals(index.candidates(OsFamily.UBUNTU, true, zone), ImmutableList.of(ubuntuInZone, ubuntu32InRegion));
+   }
+
+   private static Image image(String id, OsFamily family, boolean is64Bit, Location location) {
+      OperatingSystem os = OperatingSystem.builder().family(family).description(id).is64Bit(is64Bit).build();
+      return new ImageBuilder().id(id).providerId(id).name(id).description(id).operatingSystem(os)
+            .status(Image.Status.AVAILABLE).location(location).build();
+   }
+}
@@ -0,0 +1,128 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.compute.suppliers;
+
+import static com.google.common.base.Charsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Set;
+
+import org.jclouds.compute.domain.Image;
+import org.jclouds.compute.domain.ImageBuilder;
+import org.jclouds.compute.domain.OperatingSystem;
+import org.jclouds.compute.domain.OsFamily;
+import org.jclouds.domain.Location;
+import org.jclouds.domain.LocationBuilder;
+import org.jclouds.domain.LocationScope;
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.json.Json;
+import org.jclouds.json.config.GsonModule;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.Files;
+import com.google.inject.Guice;
+
+@Test(groups = "unit", testName = "ImageSnapshotFileTest", singleThreaded = true)
+public class ImageSnapshotFileTest {
+
+   private static final URI ENDPOINT = URI.create("https://provider");
+
+   private final Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+
+   private final Location provider = new LocationBuilder().scope(LocationScope.PROVIDER).id("provider")
+         .description("provider").build();
+   private final Location region = new LocationBuilder().scope(LocationScope.REGION).id("region")
+         .description("region").iso3166Codes(ImmutableSet.of("US-VA")).parent(provider).build();
+
+   private final Image image = new ImageBuilder().id("region/ami-1").providerId("ami-1").name("ubuntu")
+         .description("ubuntu image").version("20240101").location(region).uri(URI.create("https://images/ami-1"))
+         .userMetadata(ImmutableMap.of("owner", "me")).tags(ImmutableSet.of("base"))
+         .operatingSystem(OperatingSystem.builder().family(OsFamily.UBUNTU).version("22.04").arch("x86_64")
+               .description("ubuntu").is64Bit(true).build())
+         .status(Image.Status.AVAILABLE).backendStatus("available")
+         .defaultCredentials(LoginCredentials.builder().user("ubuntu").password("secret").build()).build();
+
+   private File file;
+
+   @BeforeMethod
+   void createFile() throws IOException {
+      file = File.createTempFile("images", ".json");
+      file.delete();
+   }
+
+   @AfterMethod
+   void deleteFile() {
+      file.delete();
+   }
+
+   public void testMissingFileReadsNothing() {
+      assertFalse(snapshotFile().read().isPresent());
+   }
+
+   public void testUnreadableFileReadsNothing() throws IOException {
+      Files.write("not json", file, UTF_8);
+      assertFalse(snapshotFile().read().isPresent());
+   }
+
+   public void testSnapshotOfAnotherAccountReadsNothing() {
+      snapshotFile().write(ImmutableSet.of(image));
+
+      assertFalse(new ImageSnapshotFile(file, json, "other", ENDPOINT, "identity", 60).read().isPresent());
+      assertFalse(new ImageSnapshotFile(file, json, "provider", URI.create("https://other"), "identity", 60).read()
+            .isPresent());
+      assertFalse(new ImageSnapshotFile(file, json, "provider", ENDPOINT, "other", 60).read().isPresent());
+      assertTrue(snapshotFile().read().isPresent());
+   }
+
+   public void testStaleSnapshotReadsNothing() throws InterruptedException {
+      new ImageSnapshotFile(file, json, "provider", ENDPOINT, "identity", 0).write(ImmutableSet.of(image));
+      Thread.sleep(10);
+
+      assertFalse(new ImageSnapshotFile(file, json, "provider", ENDPOINT, "identity", 0).read().isPresent());
+      assertTrue(snapshotFile().read().isPresent());
+   }
+
+   public void testRoundTripWithoutSecrets() {
+      snapshotFile().write(ImmutableSet.of(image));
+      Set<Image> read = snapshotFile().read().get();
+
+      assertEquals(read, ImmutableSet.of(image));
+      Image saved = read.iterator().next();
+      assertEquals(saved.getLocation(), region);
+      assertEquals(saved.getLocation().getIso3166Codes(), ImmutableSet.of("US-VA"));
+      assertEquals(saved.getOperatingSystem(), image.getOperatingSystem());
+      assertEquals(saved.getUserMetadata(), image.getUserMetadata());
+      assertEquals(saved.getTags(), image.getTags());
+      assertEquals(saved.getVersion(), image.getVersion());
+      assertEquals(saved.getDefaultCredentials().getUser(), "ubuntu");
+      assertNull(saved.getDefaultCredentials().getOptionalPassword().orNull());
+   }
+
+   private ImageSnapshotFile snapshotFile() {
+      return new ImageSnapshotFile(file, json, "provider", ENDPOINT, "identity", 60);
+   }
+}
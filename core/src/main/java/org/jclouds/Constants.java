@@ -30,6 +30,14 @@ public final class Constants {
     */
    public static final String PROPERTY_USER_THREADS = "jclouds.user-threads";
 
+   /**
+    * Boolean property. default (false)
+    * <p/>
+    * Runs user requests and transformations on virtual threads, when the JVM supports them, instead of the pool
+    * limited by {@link #PROPERTY_USER_THREADS}. Each task gets its own virtual thread.
+    */
+   public static final String PROPERTY_USER_THREADS_VIRTUAL = "jclouds.user-threads.virtual";
+
    /**
     * Integer property. default (20)
     * <p/>
@@ -357,6 +365,14 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_PARALLEL_DELETES = "jclouds.max-parallel-deletes";
 
+   /**
+    * The maximum number of blobs removed by one request when clearing a
+    * container or directory. Values above 1 group the blobs into
+    * {@code BlobStore.removeBlobs} calls, for providers with a bulk delete
+    * operation. Defaults to 1.
+    */
+   public static final String PROPERTY_DELETE_BATCH_SIZE = "jclouds.delete-batch-size";
+
    /** Comma-separated list of methods considered idempotent for purposes of retries.  By default jclouds uses DELETE,GET,HEAD,OPTIONS,PUT. */
    public static final String PROPERTY_IDEMPOTENT_METHODS = "jclouds.idempotent-methods";
    
@@ -368,6 +384,66 @@ public final class Constants {
     */
    public static final String PROPERTY_MAX_RATE_LIMIT_WAIT = "jclouds.max-ratelimit-wait";
 
+   /**
+    * Integer property. Default (twice the number of processors).
+    * <p/>
+    * The number of idle XML readers kept for reuse by the response parsers. Zero disables pooling.
+    */
+   public static final String PROPERTY_XML_PARSER_POOL_SIZE = "jclouds.xml.parser-pool-size";
+
+   /**
+    * Boolean property. Default (false).
+    * <p/>
+    * Parses XML responses with the StAX implementation found on the classpath, for example Aalto or Woodstox,
+    * instead of SAX.
+    */
+   public static final String PROPERTY_XML_STAX = "jclouds.xml.stax";
+
+   /**
+    * Boolean property. Default (false).
+    * <p/>
+    * Paces the requests to each endpoint host at a rate learned from its throttling (429 and 503) responses, see
+    * {@link org.jclouds.http.internal.AdaptiveRateLimiter}.
+    */
+   public static final String PROPERTY_RATE_LIMIT_ADAPTIVE = "jclouds.rate-limit.adaptive";
+
+   /**
+    * Double property. Default (1).
+    * <p/>
+    * The lowest rate, in requests per second, which {@link #PROPERTY_RATE_LIMIT_ADAPTIVE} paces a host at.
+    */
+   public static final String PROPERTY_RATE_LIMIT_MIN_RATE = "jclouds.rate-limit.min-rate";
+
+   /**
+    * Double property. Default (1).
+    * <p/>
+    * Requests per second added to the rate of a host for each second it does not throttle.
+    */
+   public static final String PROPERTY_RATE_LIMIT_INCREASE = "jclouds.rate-limit.increase";
+
+   /**
+    * Double property. Default (0.5).
+    * <p/>
+    * Factor the rate of a host is multiplied by when it throttles.
+    */
+   public static final String PROPERTY_RATE_LIMIT_DECREASE = "jclouds.rate-limit.decrease";
+
+   /**
+    * Double property. Default (0.1).
+    * <p/>
+    * Up to this fraction of each retry delay is added at random, so that clients which were throttled together do
+    * not retry in lockstep.
+    */
+   public static final String PROPERTY_RETRY_JITTER = "jclouds.retries-jitter";
+
+   /**
+    * Integer property. Default (0).
+    * <p/>
+    * The number of pages which paged listings fetch on the user executor ahead of the page being iterated. Zero
+    * fetches each page only when the caller reaches it.
+    */
+   public static final String PROPERTY_PAGE_PREFETCH = "jclouds.page-prefetch";
+
    private Constants() {
       throw new AssertionError("intentionally unimplemented");
    }
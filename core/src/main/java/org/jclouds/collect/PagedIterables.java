@@ -16,16 +16,25 @@
  */
 package org.jclouds.collect;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
 
 import com.google.common.annotations.Beta;
 import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
+import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 
 /**
  * Utilities for using {@link PagedIterable}s.
@@ -74,6 +83,117 @@ public class PagedIterables {
       };
    }
 
+   /**
+    * Like {@link #advance}, but fetches up to {@code depth} pages ahead of the one being iterated on
+    * {@code executor}, so that the caller does not wait for each page after it is done with the previous one.
+    * 
+    * @param initial
+    *           the initial set current data
+    * @param markerToNext
+    *           produces the next set based on the marker
+    * @param executor
+    *           fetches the following pages
+    * @param depth
+    *           the number of pages fetched ahead of the caller
+    * 
+    * @return iterable current data which continues if the user iterates beyond
+    *         the first page
+    */
+   public static <T> PagedIterable<T> prefetch(final IterableWithMarker<T> initial,
+         final Function<Object, IterableWithMarker<T>> markerToNext, final ListeningExecutorService executor,
+         final int depth) {
+      checkNotNull(initial, "initial iterable");
+      checkNotNull(markerToNext, "marker to next iterable");
+      checkNotNull(executor, "executor");
+      checkArgument(depth > 0, "depth must be positive");
+      return new PagedIterable<T>() {
+         public Iterator<IterableWithMarker<T>> iterator() {
+            if (!initial.nextMarker().isPresent()) {
+               return ImmutableSet.of(initial).iterator();
+            }
+            return new PrefetchingIterator<T>(initial, markerToNext, executor, depth);
+         }
+      };
+   }
+
+   private static class PrefetchingIterator<T> extends AbstractIterator<IterableWithMarker<T>> {
+
+      private final Function<IterableWithMarker<T>, IterableWithMarker<T>> fetchNext;
+      private final ListeningExecutorService executor;
+      private final int depth;
+      // pages after the current one, each fetched once the one before it is; null past the last page
+      private final Deque<ListenableFuture<IterableWithMarker<T>>> ahead =
+            new ArrayDeque<ListenableFuture<IterableWithMarker<T>>>();
+      private ListenableFuture<IterableWithMarker<T>> last;
+      private boolean unread = true;
+
+      private PrefetchingIterator(IterableWithMarker<T> initial,
+            final Function<Object, IterableWithMarker<T>> markerToNext, ListeningExecutorService executor, int depth) {
+         this.fetchNext = new Function<IterableWithMarker<T>, IterableWithMarker<T>>() {
+            @Override
+            public IterableWithMarker<T> apply(IterableWithMarker<T> page) {
+               if (page == null || !page.nextMarker().isPresent()) {
+                  return null;
+               }
+               return markerToNext.apply(page.nextMarker().get());
+            }
+         };
+         this.executor = executor;
+         this.depth = depth;
+         this.last = Futures.immediateFuture(initial);
+      }
+
+      @Override
+      protected IterableWithMarker<T> computeNext() {
+         if (unread) {
+            unread = false;
+            IterableWithMarker<T> initial = Futures.getUnchecked(last);
+            fill();
+            return initial;
+         }
+         IterableWithMarker<T> next = ahead.isEmpty() ? null : get(ahead.poll());
+         if (next == null) {
+            return endOfData();
+         }
+         fill();
+         return next;
+      }
+
+      private void fill() {
+         while (ahead.size() < depth && !lastFetched()) {
+            last = Futures.transform(last, fetchNext, executor);
+            ahead.add(last);
+         }
+      }
+
+      private boolean lastFetched() {
+         if (!last.isDone()) {
+            return false;
+         }
+         try {
+            return Futures.getUnchecked(last) == null;
+         } catch (RuntimeException e) {
+            return true; // the error is thrown when the caller reaches the page
+         }
+      }
+
+      private IterableWithMarker<T> get(ListenableFuture<IterableWithMarker<T>> page) {
+         try {
+            return page.get();
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw Throwables.propagate(e);
+         } catch (ExecutionException e) {
+            for (ListenableFuture<IterableWithMarker<T>> following : ahead) {
+               following.cancel(true);
+            }
+            // rethrow what the markerToNext function threw, as advance would
+            Throwables.propagateIfPossible(e.getCause());
+            throw new UncheckedExecutionException(e.getCause());
+         }
+      }
+   }
+
    private static class AdvancingIterator<T> extends AbstractIterator<IterableWithMarker<T>> {
 
       private final Function<Object, IterableWithMarker<T>> markerToNext;
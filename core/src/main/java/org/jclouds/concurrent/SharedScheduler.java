@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.concurrent;
+
+import static java.util.concurrent.Executors.defaultThreadFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+
+import com.google.common.annotations.Beta;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * A scheduler for short timers, such as retry delays and time limits, shared by all contexts which do not bind one
+ * with {@link org.jclouds.concurrent.config.ScheduledExecutorServiceModule}. Its single daemon thread is only started
+ * by the first timer, and timers which do work should hand it off to an executor.
+ */
+@Beta
+public final class SharedScheduler {
+   private static final ScheduledExecutorService INSTANCE;
+
+   static {
+      ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+            .setNameFormat("jclouds shared scheduler %d").setDaemon(true).setThreadFactory(defaultThreadFactory())
+            .build());
+      // time limits are usually cancelled long before they expire
+      scheduler.setRemoveOnCancelPolicy(true);
+      INSTANCE = Executors.unconfigurableScheduledExecutorService(scheduler);
+   }
+
+   /**
+    * @return the shared scheduler, which must not be shut down
+    */
+   public static ScheduledExecutorService get() {
+      return INSTANCE;
+   }
+
+   /**
+    * Cannot instantiate.
+    */
+   private SharedScheduler() {
+   }
+}
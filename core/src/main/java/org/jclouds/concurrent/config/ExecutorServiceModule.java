@@ -18,6 +18,7 @@ package org.jclouds.concurrent.config;
 
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS_VIRTUAL;
 import static org.jclouds.concurrent.DynamicExecutors.newScalingThreadPool;
 
 import java.lang.reflect.Constructor;
@@ -42,6 +43,7 @@ import com.google.common.util.concurrent.SimpleTimeLimiter;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.common.util.concurrent.TimeLimiter;
 import com.google.inject.AbstractModule;
+import com.google.inject.Inject;
 import com.google.inject.Provides;
 
 /**
@@ -129,6 +131,38 @@ public class ExecutorServiceModule extends AbstractModule {
       }
    }
 
+   /**
+    * Creates virtual thread executors through reflection, as they only exist from Java 21 on.
+    */
+   static final class VirtualThreads {
+      @Resource
+      private Logger logger = Logger.NULL;
+
+      @Inject(optional = true)
+      @Named(PROPERTY_USER_THREADS_VIRTUAL)
+      private boolean enabled = false;
+
+      /**
+       * @return an executor starting a virtual thread per task, or null if disabled or unsupported by the JVM
+       */
+      ExecutorService newExecutorOrNull(String name) {
+         if (!enabled)
+            return null;
+         try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                  .invoke(null, factory);
+         } catch (ReflectiveOperationException e) {
+            logger.warn("%s is set, but this JVM does not support virtual threads; using platform threads",
+                  PROPERTY_USER_THREADS_VIRTUAL);
+            return null;
+         }
+      }
+   }
+
    final ListeningExecutorService userExecutorFromConstructor;
 
    public ExecutorServiceModule() {
@@ -176,9 +210,13 @@ public class ExecutorServiceModule extends AbstractModule {
    @Provides
    @Singleton
    @Named(PROPERTY_USER_THREADS)
-   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer) { // NO_UCD
+   final ListeningExecutorService provideListeningUserExecutorService(@Named(PROPERTY_USER_THREADS) int count, Closer closer,
+         VirtualThreads virtualThreads) { // NO_UCD
       if (userExecutorFromConstructor != null)
          return userExecutorFromConstructor;
+      ExecutorService virtual = virtualThreads.newExecutorOrNull("user virtual thread ");
+      if (virtual != null)
+         return shutdownOnClose(WithSubmissionTrace.wrap(listeningDecorator(virtual)), closer);
       return shutdownOnClose(WithSubmissionTrace.wrap(newThreadPoolNamed("user thread %d", count)), closer);
    }
 
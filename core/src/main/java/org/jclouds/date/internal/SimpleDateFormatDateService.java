@@ -24,48 +24,70 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
 import java.util.SimpleTimeZone;
+import java.util.TimeZone;
 
 import org.jclouds.date.DateService;
 
 /**
  * 
  * uses {@link SimpleDateFormat} internally.
+ * <p>
+ * The ISO8601 and RFC822 dates found in most responses are parsed and formatted directly, and anything else by a
+ * {@link SimpleDateFormat} of the current thread, so that threads never wait for each other.
  */
 public class SimpleDateFormatDateService implements DateService {
 
-   /*
-    * Use default Java Date/SimpleDateFormat classes for date manipulation, but be *very* careful to
-    * guard against the lack of thread safety.
-    */
-   // @GuardedBy("this")
-   private static final SimpleDateFormat iso8601SecondsSimpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ", Locale.US);
+   private static final TimeZone GMT = new SimpleTimeZone(0, "GMT");
 
-   // @GuardedBy("this")
-   private static final SimpleDateFormat iso8601SimpleDateFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ", Locale.US);
+   private static final ThreadFormat iso8601SecondsSimpleDateFormat = new ThreadFormat("yyyy-MM-dd'T'HH:mm:ssZ", GMT);
 
-   // @GuardedBy("this")
-   private static final SimpleDateFormat rfc822SimpleDateFormat = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+   private static final ThreadFormat iso8601SimpleDateFormat = new ThreadFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ", GMT);
+
+   private static final ThreadFormat rfc822SimpleDateFormat = new ThreadFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", GMT);
 
    // See http://stackoverflow.com/questions/10584647/simpledateformat-parse-is-one-hour-out-using-rfc-1123-gmt-in-summer
    // for why not using "zzz"
-   // @GuardedBy("this")
-   private static final SimpleDateFormat rfc1123SimpleDateFormat = new SimpleDateFormat("EEE, dd MMM yyyyy HH:mm:ss Z", Locale.US);
+   private static final ThreadFormat rfc1123SimpleDateFormat = new ThreadFormat("EEE, dd MMM yyyyy HH:mm:ss Z", null);
+
+   private static final ThreadFormat cSimpleDateFormat = new ThreadFormat("EEE MMM dd HH:mm:ss Z yyyy", GMT);
+
+   /**
+    * {@link SimpleDateFormat} is not thread-safe, so each thread formats with its own.
+    */
+   private static final class ThreadFormat extends ThreadLocal<SimpleDateFormat> {
+      private final String pattern;
+      private final TimeZone timeZone;
+
+      ThreadFormat(String pattern, TimeZone timeZone) {
+         this.pattern = pattern;
+         this.timeZone = timeZone;
+      }
 
-   // @GuardedBy("this")
-   private static final SimpleDateFormat cSimpleDateFormat = new SimpleDateFormat("EEE MMM dd HH:mm:ss Z yyyy", Locale.US);
+      @Override
+      protected SimpleDateFormat initialValue() {
+         SimpleDateFormat format = new SimpleDateFormat(pattern, Locale.US);
+         if (timeZone != null) {
+            format.setTimeZone(timeZone);
+         }
+         return format;
+      }
 
-   static {
-      iso8601SimpleDateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
-      iso8601SecondsSimpleDateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
-      rfc822SimpleDateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
-      cSimpleDateFormat.setTimeZone(new SimpleTimeZone(0, "GMT"));
+      String format(Date date) {
+         return get().format(date);
+      }
+
+      Date parse(String toParse) {
+         try {
+            return get().parse(toParse);
+         } catch (ParseException pe) {
+            throw new IllegalArgumentException("Error parsing data at " + pe.getErrorOffset(), pe);
+         }
+      }
    }
 
    @Override
    public final String cDateFormat(Date date) {
-      synchronized (cSimpleDateFormat) {
-         return cSimpleDateFormat.format(date);
-      }
+      return cSimpleDateFormat.format(date);
    }
 
    @Override
@@ -75,20 +97,23 @@ public class SimpleDateFormatDateService implements DateService {
 
    @Override
    public final Date cDateParse(String toParse) {
-      synchronized (cSimpleDateFormat) {
-         try {
-            return cSimpleDateFormat.parse(toParse);
-         } catch (ParseException pe) {
-            throw new IllegalArgumentException("Error parsing data at " + pe.getErrorOffset(), pe);
-         }
-      }
+      return cSimpleDateFormat.parse(toParse);
    }
 
    @Override
    public final String rfc822DateFormat(Date date) {
-      synchronized (rfc822SimpleDateFormat) {
+      long millis = date.getTime();
+      if (!inFastRange(millis)) {
          return rfc822SimpleDateFormat.format(date);
       }
+      long days = floorDiv(millis, MILLIS_PER_DAY);
+      int[] ymd = civilFromDays(days);
+      StringBuilder builder = new StringBuilder(29);
+      builder.append(DAYS[(int) floorMod(days + 4, 7)]).append(", ");
+      appendPadded(builder, ymd[2], 2).append(' ').append(MONTHS[ymd[1] - 1]).append(' ');
+      appendPadded(builder, ymd[0], 4).append(' ');
+      appendTime(builder, floorMod(millis, MILLIS_PER_DAY));
+      return builder.append(" GMT").toString();
    }
 
    @Override
@@ -98,13 +123,8 @@ public class SimpleDateFormatDateService implements DateService {
 
    @Override
    public final Date rfc822DateParse(String toParse) {
-      synchronized (rfc822SimpleDateFormat) {
-         try {
-            return rfc822SimpleDateFormat.parse(toParse);
-         } catch (ParseException pe) {
-            throw new IllegalArgumentException("Error parsing data at " + pe.getErrorOffset(), pe);
-         }
-      }
+      Date date = parseRfc822(toParse);
+      return date != null ? date : rfc822SimpleDateFormat.parse(toParse);
    }
 
    @Override
@@ -114,14 +134,16 @@ public class SimpleDateFormatDateService implements DateService {
 
    @Override
    public final String iso8601DateFormat(Date date) {
-      synchronized (iso8601SimpleDateFormat) {
-         String parsed = iso8601SimpleDateFormat.format(date);
-         String tz = findTZ(parsed);
-         if (tz.equals("+0000")) {
-            parsed = trimTZ(parsed) + "Z";
-         }
-         return parsed;
+      long millis = date.getTime();
+      if (inFastRange(millis)) {
+         return formatIso8601(millis, true);
       }
+      String parsed = iso8601SimpleDateFormat.format(date);
+      String tz = findTZ(parsed);
+      if (tz.equals("+0000")) {
+         parsed = trimTZ(parsed) + "Z";
+      }
+      return parsed;
    }
 
    @Override
@@ -131,6 +153,10 @@ public class SimpleDateFormatDateService implements DateService {
 
    @Override
    public final Date iso8601DateParse(String toParse) {
+      Date date = parseIso8601(toParse, true);
+      if (date != null) {
+         return date;
+      }
       if (toParse.length() < 10)
          throw new IllegalArgumentException("incorrect date format " + toParse);
       String tz = findTZ(toParse);
@@ -139,18 +165,16 @@ public class SimpleDateFormatDateService implements DateService {
       toParse += tz;
       if (toParse.charAt(10) == ' ')
          toParse = new StringBuilder(toParse).replace(10, 11, "T").toString();
-      synchronized (iso8601SimpleDateFormat) {
-         try {
-            return iso8601SimpleDateFormat.parse(toParse);
-         } catch (ParseException pe) {
-            throw new IllegalArgumentException("Error parsing data at " + pe.getErrorOffset(), pe);
-         }
-      }
+      return iso8601SimpleDateFormat.parse(toParse);
    }
 
    @Override
    public final Date iso8601SecondsDateParse(String toParse)
          throws IllegalArgumentException {
+      Date date = parseIso8601(toParse, false);
+      if (date != null) {
+         return date;
+      }
       if (toParse.length() < 10)
          throw new IllegalArgumentException("incorrect date format " + toParse);
       String tz = findTZ(toParse);
@@ -159,13 +183,7 @@ public class SimpleDateFormatDateService implements DateService {
       toParse += tz;
       if (toParse.charAt(10) == ' ')
          toParse = new StringBuilder(toParse).replace(10, 11, "T").toString();
-      synchronized (iso8601SecondsSimpleDateFormat) {
-         try {
-            return iso8601SecondsSimpleDateFormat.parse(toParse);
-         } catch (ParseException pe) {
-            throw new IllegalArgumentException("Error parsing data at " + pe.getErrorOffset(), pe);
-         }
-      }
+      return iso8601SecondsSimpleDateFormat.parse(toParse);
    }
 
    @Override
@@ -184,21 +202,21 @@ public class SimpleDateFormatDateService implements DateService {
 
    @Override
    public String iso8601SecondsDateFormat(Date date) {
-      synchronized (iso8601SecondsSimpleDateFormat) {
-         String parsed = iso8601SecondsSimpleDateFormat.format(date);
-         String tz = findTZ(parsed);
-         if (tz.equals("+0000")) {
-            parsed = trimTZ(parsed) + "Z";
-         }
-         return parsed;
+      long millis = date.getTime();
+      if (inFastRange(millis)) {
+         return formatIso8601(millis, false);
       }
+      String parsed = iso8601SecondsSimpleDateFormat.format(date);
+      String tz = findTZ(parsed);
+      if (tz.equals("+0000")) {
+         parsed = trimTZ(parsed) + "Z";
+      }
+      return parsed;
    }
 
    @Override
    public final String rfc1123DateFormat(Date date) {
-      synchronized (rfc1123SimpleDateFormat) {
-         return rfc1123SimpleDateFormat.format(date);
-      }
+      return rfc1123SimpleDateFormat.format(date);
    }
 
    @Override
@@ -208,12 +226,225 @@ public class SimpleDateFormatDateService implements DateService {
 
    @Override
    public final Date rfc1123DateParse(String toParse) throws IllegalArgumentException {
-      synchronized (rfc1123SimpleDateFormat) {
-         try {
-            return rfc1123SimpleDateFormat.parse(toParse);
-         } catch (ParseException pe) {
-            throw new IllegalArgumentException("Error parsing data at " + pe.getErrorOffset(), pe);
+      return rfc1123SimpleDateFormat.parse(toParse);
+   }
+
+   /*
+    * The direct parsers only accept the usual forms of dates within FAST_RANGE and return null for anything else,
+    * which then goes to SimpleDateFormat so that lenient parsing behaves as it always did.
+    */
+   private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+   // 1900-01-01 to 9999-12-31, which have four digit years and follow the Gregorian calendar
+   private static final long FAST_RANGE_START = -2208988800000L;
+   private static final long FAST_RANGE_END = 253402300800000L;
+   private static final String[] DAYS = { "Sun", "Mon", "Tue", "Wed", "Thu", "Fri", "Sat" };
+   private static final String[] MONTHS = { "Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+         "Nov", "Dec" };
+
+   private static boolean inFastRange(long millis) {
+      return millis >= FAST_RANGE_START && millis < FAST_RANGE_END;
+   }
+
+   private static String formatIso8601(long millis, boolean withMillis) {
+      long days = floorDiv(millis, MILLIS_PER_DAY);
+      long millisOfDay = floorMod(millis, MILLIS_PER_DAY);
+      int[] ymd = civilFromDays(days);
+      StringBuilder builder = new StringBuilder(24);
+      appendPadded(builder, ymd[0], 4).append('-');
+      appendPadded(builder, ymd[1], 2).append('-');
+      appendPadded(builder, ymd[2], 2).append('T');
+      appendTime(builder, millisOfDay);
+      if (withMillis) {
+         appendPadded(builder.append('.'), (int) (millisOfDay % 1000), 3);
+      }
+      return builder.append('Z').toString();
+   }
+
+   private static void appendTime(StringBuilder builder, long millisOfDay) {
+      int seconds = (int) (millisOfDay / 1000);
+      appendPadded(builder, seconds / 3600, 2).append(':');
+      appendPadded(builder, seconds / 60 % 60, 2).append(':');
+      appendPadded(builder, seconds % 60, 2);
+   }
+
+   private static StringBuilder appendPadded(StringBuilder builder, int value, int width) {
+      for (int limit = 10, i = 1; i < width; i++, limit *= 10) {
+         if (value < limit) {
+            builder.append('0');
+         }
+      }
+      return builder.append(value);
+   }
+
+   /**
+    * Parses {@code yyyy-MM-dd'T'HH:mm:ss}, optionally with a space for the {@code T}, followed by at least three
+    * fraction digits if {@code withMillis}, and by {@code Z}, {@code +hh}, {@code +hhmm}, {@code +hh:mm} or no time
+    * zone, which is GMT.
+    */
+   private static Date parseIso8601(String toParse, boolean withMillis) {
+      int length = toParse.length();
+      if (length < 19 || toParse.charAt(4) != '-' || toParse.charAt(7) != '-'
+            || (toParse.charAt(10) != 'T' && toParse.charAt(10) != ' ') || toParse.charAt(13) != ':'
+            || toParse.charAt(16) != ':') {
+         return null;
+      }
+      int year = digits(toParse, 0, 4);
+      int month = digits(toParse, 5, 2);
+      int day = digits(toParse, 8, 2);
+      int hour = digits(toParse, 11, 2);
+      int minute = digits(toParse, 14, 2);
+      int second = digits(toParse, 17, 2);
+      int millis = 0;
+      int position = 19;
+      if (withMillis) {
+         if (length < 23 || toParse.charAt(19) != '.') {
+            return null;
+         }
+         millis = digits(toParse, 20, 3);
+         // like trimToMillis, further digits are dropped
+         position = 23;
+         while (position < length && isDigit(toParse.charAt(position))) {
+            position++;
          }
       }
+      int offsetMinutes = offsetMinutes(toParse, position);
+      if (millis < 0 || offsetMinutes == Integer.MIN_VALUE) {
+         return null;
+      }
+      return toDate(year, month, day, hour, minute, second, millis, offsetMinutes);
+   }
+
+   /**
+    * Parses {@code EEE, dd MMM yyyy HH:mm:ss 'GMT'}.
+    */
+   private static Date parseRfc822(String toParse) {
+      if (toParse.length() != 29 || toParse.charAt(3) != ',' || toParse.charAt(4) != ' '
+            || toParse.charAt(7) != ' ' || toParse.charAt(11) != ' ' || toParse.charAt(16) != ' '
+            || toParse.charAt(19) != ':' || toParse.charAt(22) != ':' || !toParse.endsWith(" GMT")) {
+         return null;
+      }
+      int month = 0;
+      for (int i = 0; i < MONTHS.length; i++) {
+         if (toParse.regionMatches(8, MONTHS[i], 0, 3)) {
+            month = i + 1;
+            break;
+         }
+      }
+      Date date = toDate(digits(toParse, 12, 4), month, digits(toParse, 5, 2), digits(toParse, 17, 2),
+            digits(toParse, 20, 2), digits(toParse, 23, 2), 0, 0);
+      if (date == null
+            || !toParse.regionMatches(0, DAYS[(int) floorMod(floorDiv(date.getTime(), MILLIS_PER_DAY) + 4, 7)], 0, 3)) {
+         return null;
+      }
+      return date;
+   }
+
+   /**
+    * @return the offset of the time zone which ends the string at {@code position}, or {@code Integer.MIN_VALUE}
+    */
+   private static int offsetMinutes(String toParse, int position) {
+      int remaining = toParse.length() - position;
+      if (remaining == 0) {
+         return 0;
+      }
+      char sign = toParse.charAt(position);
+      if (sign == 'Z') {
+         return remaining == 1 ? 0 : Integer.MIN_VALUE;
+      }
+      if (sign != '+' && sign != '-') {
+         return Integer.MIN_VALUE;
+      }
+      int hours = digits(toParse, position + 1, 2);
+      int minutes;
+      if (remaining == 3) {
+         minutes = 0;
+      } else if (remaining == 5) {
+         minutes = digits(toParse, position + 3, 2);
+      } else if (remaining == 6 && toParse.charAt(position + 3) == ':') {
+         minutes = digits(toParse, position + 4, 2);
+      } else {
+         return Integer.MIN_VALUE;
+      }
+      if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+         return Integer.MIN_VALUE;
+      }
+      int offset = hours * 60 + minutes;
+      return sign == '-' ? -offset : offset;
+   }
+
+   private static Date toDate(int year, int month, int day, int hour, int minute, int second, int millis,
+         int offsetMinutes) {
+      if (year < 1900 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour < 0
+            || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+         return null;
+      }
+      long seconds = daysFromCivil(year, month, day) * 86400L + hour * 3600 + minute * 60 + second
+            - offsetMinutes * 60L;
+      return new Date(seconds * 1000 + millis);
+   }
+
+   /**
+    * @return the value of the decimal digits, or -1 if there are others
+    */
+   private static int digits(String toParse, int start, int count) {
+      if (start + count > toParse.length()) {
+         return -1;
+      }
+      int value = 0;
+      for (int i = start; i < start + count; i++) {
+         char c = toParse.charAt(i);
+         if (!isDigit(c)) {
+            return -1;
+         }
+         value = value * 10 + c - '0';
+      }
+      return value;
+   }
+
+   private static boolean isDigit(char c) {
+      return c >= '0' && c <= '9';
+   }
+
+   private static int daysInMonth(int year, int month) {
+      if (month == 2) {
+         return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : 28;
+      }
+      return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+   }
+
+   // civil calendar conversions from http://howardhinnant.github.io/date_algorithms.html
+
+   private static long daysFromCivil(int year, int month, int day) {
+      long y = month <= 2 ? year - 1 : year;
+      long era = floorDiv(y, 400);
+      long yearOfEra = y - era * 400;
+      long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+      long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+      return era * 146097 + dayOfEra - 719468;
+   }
+
+   /**
+    * @return the year, month and day
+    */
+   private static int[] civilFromDays(long days) {
+      days += 719468;
+      long era = floorDiv(days, 146097);
+      long dayOfEra = days - era * 146097;
+      long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+      long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+      long mp = (5 * dayOfYear + 2) / 153;
+      int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+      int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+      int year = (int) (yearOfEra + era * 400 + (month <= 2 ? 1 : 0));
+      return new int[] { year, month, day };
+   }
+
+   private static long floorDiv(long x, long y) {
+      long r = x / y;
+      return (x % y != 0 && (x ^ y) < 0) ? r - 1 : r;
+   }
+
+   private static long floorMod(long x, long y) {
+      return x - floorDiv(x, y) * y;
    }
 }
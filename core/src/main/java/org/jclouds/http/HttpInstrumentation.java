@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http;
+
+import org.jclouds.javax.annotation.Nullable;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Receives the timings of the http commands of a context, for example to record them as metrics. Bind one with
+ * {@link org.jclouds.http.config.HttpInstrumentationModule}. Nothing is timed unless one is bound.
+ * <p>
+ * Implementations are called on the threads sending requests, and must be cheap and thread-safe. The bytes sent and
+ * received are the content lengths of the request and response payloads.
+ */
+@Beta
+public interface HttpInstrumentation {
+
+   HttpInstrumentation NONE = new HttpInstrumentation() {
+      @Override
+      public void filtered(HttpRequest request, long nanos) {
+      }
+
+      @Override
+      public void responded(HttpRequest request, HttpResponse response, long nanos) {
+      }
+
+      @Override
+      public void failed(HttpRequest request, Throwable error, long nanos) {
+      }
+
+      @Override
+      public void retrying(HttpCommand command, @Nullable HttpResponse response) {
+      }
+
+      @Override
+      public void invoked(String commandName, long nanos, @Nullable Throwable error) {
+      }
+
+      @Override
+      public String toString() {
+         return "NONE";
+      }
+   };
+
+   /**
+    * Called once the {@link HttpRequestFilter filters} ran on an attempt, with the time they took. This includes
+    * signing and the payload hashing of signers.
+    */
+   void filtered(HttpRequest request, long nanos);
+
+   /**
+    * Called when the response to an attempt arrived, with the time from sending the filtered request to receiving the
+    * response headers.
+    */
+   void responded(HttpRequest request, HttpResponse response, long nanos);
+
+   /**
+    * Called when an attempt failed without a response, with the time from sending the filtered request.
+    */
+   void failed(HttpRequest request, Throwable error, long nanos);
+
+   /**
+    * Called when the command is about to be sent again, after the {@code response}, which is a redirect or an error,
+    * or after an I/O error when it is null.
+    */
+   void retrying(HttpCommand command, @Nullable HttpResponse response);
+
+   /**
+    * Called when a call to an api method completed, with its whole time including retries and parsing the response.
+    * 
+    * @param commandName
+    *           as returned by {@link org.jclouds.rest.config.InvocationConfig#getCommandName}
+    * @param error
+    *           null unless the call failed, even when a fallback then supplied its value
+    */
+   void invoked(String commandName, long nanos, @Nullable Throwable error);
+}
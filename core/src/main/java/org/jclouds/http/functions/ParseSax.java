@@ -53,7 +53,7 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    @Resource
    private Logger logger = Logger.NULL;
 
-   private final XMLReader parser;
+   private final XMLReaderPool parsers;
    private final HandlerWithResult<T> handler;
    private HttpRequest request;
 
@@ -61,11 +61,41 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
       <T> ParseSax<T> create(HandlerWithResult<T> handler);
    }
 
+   /**
+    * Lends out XMLReaders for the duration of a single parse.
+    */
+   public interface XMLReaderPool {
+      XMLReader borrow() throws SAXException;
+
+      /**
+       * @param reusable
+       *           false if the parse failed, leaving the reader in an unknown state
+       */
+      void release(XMLReader reader, boolean reusable);
+   }
+
    public ParseSax(XMLReader parser, HandlerWithResult<T> handler) {
-      this.parser = checkNotNull(parser, "parser");
+      this(singleParser(checkNotNull(parser, "parser")), handler);
+   }
+
+   public ParseSax(XMLReaderPool parsers, HandlerWithResult<T> handler) {
+      this.parsers = checkNotNull(parsers, "parsers");
       this.handler = checkNotNull(handler, "handler");
    }
 
+   private static XMLReaderPool singleParser(final XMLReader parser) {
+      return new XMLReaderPool() {
+         @Override
+         public XMLReader borrow() {
+            return parser;
+         }
+
+         @Override
+         public void release(XMLReader reader, boolean reusable) {
+         }
+      };
+   }
+
    public T apply(HttpResponse from) {
       try {
          checkNotNull(from, "http response");
@@ -135,9 +165,16 @@ public class ParseSax<T> implements Function<HttpResponse, T>, InvocationContext
    protected T doParse(InputSource from) throws IOException, SAXException {
       checkNotNull(from, "xml inputsource");
       from.setEncoding("UTF-8");
-      parser.setContentHandler(getHandler());
-      // This method should accept documents with a BOM (Byte-order mark)
-      parser.parse(from);
+      XMLReader parser = parsers.borrow();
+      boolean reusable = false;
+      try {
+         parser.setContentHandler(getHandler());
+         // This method should accept documents with a BOM (Byte-order mark)
+         parser.parse(from);
+         reusable = true;
+      } finally {
+         parsers.release(parser, reusable);
+      }
       return getHandler().getResult();
    }
 
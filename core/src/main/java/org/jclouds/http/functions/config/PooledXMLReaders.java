@@ -0,0 +1,114 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions.config;
+
+import static org.jclouds.Constants.PROPERTY_XML_PARSER_POOL_SIZE;
+import static org.jclouds.Constants.PROPERTY_XML_STAX;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import javax.xml.stream.XMLInputFactory;
+
+import org.jclouds.http.functions.ParseSax.XMLReaderPool;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.inject.Inject;
+
+/**
+ * Keeps a bounded number of idle XMLReaders, so that parsing a response does not construct a new parser. Readers are
+ * only reused after a successful parse, and their content handler is cleared so that they do not retain results.
+ */
+@Singleton
+final class PooledXMLReaders implements XMLReaderPool {
+   private static final DefaultHandler NO_HANDLER = new DefaultHandler();
+
+   private final SAXParserFactory factory;
+   private final Queue<XMLReader> idle = new ConcurrentLinkedQueue<XMLReader>();
+   private final AtomicInteger idleCount = new AtomicInteger();
+   private volatile XMLInputFactory staxFactory;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_XML_PARSER_POOL_SIZE)
+   @VisibleForTesting
+   int poolSize = 2 * Runtime.getRuntime().availableProcessors();
+
+   @Inject(optional = true)
+   @Named(PROPERTY_XML_STAX)
+   @VisibleForTesting
+   boolean stax = false;
+
+   @Inject
+   PooledXMLReaders(SAXParserFactory factory) {
+      this.factory = factory;
+   }
+
+   @Override
+   public XMLReader borrow() throws SAXException {
+      XMLReader reader = idle.poll();
+      if (reader != null) {
+         idleCount.decrementAndGet();
+         return reader;
+      }
+      if (stax) {
+         return new StaxXMLReader(staxFactory());
+      }
+      try {
+         return factory.newSAXParser().getXMLReader();
+      } catch (ParserConfigurationException pce) {
+         throw new SAXException(pce);
+      }
+   }
+
+   @Override
+   public void release(XMLReader reader, boolean reusable) {
+      reader.setContentHandler(NO_HANDLER);
+      if (!reusable) {
+         return;
+      }
+      if (idleCount.incrementAndGet() <= poolSize) {
+         idle.add(reader);
+      } else {
+         idleCount.decrementAndGet();
+      }
+   }
+
+   private XMLInputFactory staxFactory() {
+      XMLInputFactory result = staxFactory;
+      if (result == null) {
+         result = XMLInputFactory.newInstance();
+         result.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+         result.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+         result.setProperty(XMLInputFactory.IS_COALESCING, false);
+         staxFactory = result;
+      }
+      return result;
+   }
+
+   @VisibleForTesting
+   int idleCount() {
+      return idleCount.get();
+   }
+}
@@ -18,14 +18,11 @@ package org.jclouds.http.functions.config;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
-import javax.xml.parsers.SAXParser;
 import javax.xml.parsers.SAXParserFactory;
 
 import org.jclouds.http.functions.ParseSax;
 import org.jclouds.http.functions.ParseSax.HandlerWithResult;
-import org.xml.sax.XMLReader;
 
-import com.google.common.base.Throwables;
 import com.google.inject.AbstractModule;
 import com.google.inject.Injector;
 import com.google.inject.Provides;
@@ -37,32 +34,25 @@ import com.google.inject.Scopes;
 public class SaxParserModule extends AbstractModule {
 
    protected void configure() {
+      bind(ParseSax.XMLReaderPool.class).to(PooledXMLReaders.class).in(Scopes.SINGLETON);
       bind(ParseSax.Factory.class).to(Factory.class).in(Scopes.SINGLETON);
    }
 
    static class Factory implements ParseSax.Factory {
-      private final SAXParserFactory factory;
+      private final ParseSax.XMLReaderPool parsers;
       private final Injector i;
 
       @Inject
-      Factory(SAXParserFactory factory, Injector i) {
-         this.factory = factory;
+      Factory(ParseSax.XMLReaderPool parsers, Injector i) {
+         this.parsers = parsers;
          this.i = i;
       }
 
       public <T> ParseSax<T> create(HandlerWithResult<T> handler) {
-         SAXParser saxParser;
-         try {
-            saxParser = factory.newSAXParser();
-            XMLReader parser = saxParser.getXMLReader();
-            // TODO: switch to @AssistedInject
-            ParseSax<T> returnVal = new ParseSax<T>(parser, handler);
-            i.injectMembers(returnVal);
-            return returnVal;
-         } catch (Exception e) {
-            throw Throwables.propagate(e);
-         }
-
+         // TODO: switch to @AssistedInject
+         ParseSax<T> returnVal = new ParseSax<T>(parsers, handler);
+         i.injectMembers(returnVal);
+         return returnVal;
       }
    }
 
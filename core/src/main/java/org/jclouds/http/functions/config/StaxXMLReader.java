@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions.config;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.IOException;
+
+import javax.xml.stream.Location;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.xml.sax.ContentHandler;
+import org.xml.sax.DTDHandler;
+import org.xml.sax.EntityResolver;
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXNotRecognizedException;
+import org.xml.sax.SAXParseException;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Drives a SAX {@link ContentHandler} from a StAX {@link XMLStreamReader}, so that the existing
+ * {@link org.jclouds.http.functions.ParseSax.HandlerWithResult handlers} can run on a faster StAX implementation.
+ * Events are reported as by a SAX parser which is not namespace aware: only qualified names are set, and namespace
+ * declarations appear as {@code xmlns} attributes.
+ */
+final class StaxXMLReader implements XMLReader {
+   private final XMLInputFactory factory;
+   private final AttributesImpl attributes = new AttributesImpl();
+   private ContentHandler contentHandler = new DefaultHandler();
+   private EntityResolver entityResolver;
+   private DTDHandler dtdHandler;
+   private ErrorHandler errorHandler;
+
+   StaxXMLReader(XMLInputFactory factory) {
+      this.factory = checkNotNull(factory, "factory");
+   }
+
+   @Override
+   public void parse(InputSource input) throws IOException, SAXException {
+      XMLStreamReader reader;
+      try {
+         if (input.getCharacterStream() != null) {
+            reader = factory.createXMLStreamReader(input.getCharacterStream());
+         } else if (input.getByteStream() != null) {
+            reader = input.getEncoding() == null ? factory.createXMLStreamReader(input.getByteStream())
+                  : factory.createXMLStreamReader(input.getByteStream(), input.getEncoding());
+         } else {
+            throw new IOException("input source has neither a character nor a byte stream");
+         }
+      } catch (XMLStreamException xse) {
+         throw toSAXException(xse, input);
+      }
+      try {
+         contentHandler.startDocument();
+         while (reader.hasNext()) {
+            switch (reader.next()) {
+               case XMLStreamConstants.START_ELEMENT:
+                  setAttributes(reader);
+                  contentHandler.startElement("", "", qName(reader), attributes);
+                  break;
+               case XMLStreamConstants.END_ELEMENT:
+                  contentHandler.endElement("", "", qName(reader));
+                  break;
+               case XMLStreamConstants.CHARACTERS:
+               case XMLStreamConstants.CDATA:
+               case XMLStreamConstants.SPACE:
+                  contentHandler.characters(reader.getTextCharacters(), reader.getTextStart(),
+                        reader.getTextLength());
+                  break;
+               case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                  contentHandler.processingInstruction(reader.getPITarget(), reader.getPIData());
+                  break;
+               default:
+                  break;
+            }
+         }
+         contentHandler.endDocument();
+      } catch (XMLStreamException xse) {
+         throw toSAXException(xse, input);
+      } finally {
+         attributes.clear();
+         try {
+            reader.close();
+         } catch (XMLStreamException ignored) {
+         }
+      }
+   }
+
+   private void setAttributes(XMLStreamReader reader) {
+      attributes.clear();
+      for (int i = 0; i < reader.getNamespaceCount(); i++) {
+         String prefix = reader.getNamespacePrefix(i);
+         attributes.addAttribute("", "", prefix == null || prefix.isEmpty() ? "xmlns" : "xmlns:" + prefix, "CDATA",
+               reader.getNamespaceURI(i));
+      }
+      for (int i = 0; i < reader.getAttributeCount(); i++) {
+         attributes.addAttribute("", "", qName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+               "CDATA", reader.getAttributeValue(i));
+      }
+   }
+
+   private static String qName(XMLStreamReader reader) {
+      return qName(reader.getPrefix(), reader.getLocalName());
+   }
+
+   private static String qName(String prefix, String localName) {
+      return prefix == null || prefix.isEmpty() ? localName : prefix + ':' + localName;
+   }
+
+   private static SAXException toSAXException(XMLStreamException xse, InputSource input) {
+      Location location = xse.getLocation();
+      if (location == null) {
+         return new SAXException(xse.getMessage(), xse);
+      }
+      return new SAXParseException(xse.getMessage(), input.getPublicId(), input.getSystemId(),
+            location.getLineNumber(), location.getColumnNumber(), xse);
+   }
+
+   @Override
+   public void parse(String systemId) throws IOException, SAXException {
+      parse(new InputSource(systemId));
+   }
+
+   @Override
+   public boolean getFeature(String name) throws SAXNotRecognizedException {
+      throw new SAXNotRecognizedException(name);
+   }
+
+   @Override
+   public void setFeature(String name, boolean value) throws SAXNotRecognizedException {
+      throw new SAXNotRecognizedException(name);
+   }
+
+   @Override
+   public Object getProperty(String name) throws SAXNotRecognizedException {
+      throw new SAXNotRecognizedException(name);
+   }
+
+   @Override
+   public void setProperty(String name, Object value) throws SAXNotRecognizedException {
+      throw new SAXNotRecognizedException(name);
+   }
+
+   @Override
+   public void setEntityResolver(EntityResolver resolver) {
+      this.entityResolver = resolver;
+   }
+
+   @Override
+   public EntityResolver getEntityResolver() {
+      return entityResolver;
+   }
+
+   @Override
+   public void setDTDHandler(DTDHandler handler) {
+      this.dtdHandler = handler;
+   }
+
+   @Override
+   public DTDHandler getDTDHandler() {
+      return dtdHandler;
+   }
+
+   @Override
+   public void setContentHandler(ContentHandler handler) {
+      this.contentHandler = checkNotNull(handler, "handler");
+   }
+
+   @Override
+   public ContentHandler getContentHandler() {
+      return contentHandler;
+   }
+
+   @Override
+   public void setErrorHandler(ErrorHandler handler) {
+      this.errorHandler = handler;
+   }
+
+   @Override
+   public ErrorHandler getErrorHandler() {
+      return errorHandler;
+   }
+}
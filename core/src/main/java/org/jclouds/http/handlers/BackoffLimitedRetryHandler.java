@@ -19,7 +19,7 @@ package org.jclouds.http.handlers;
 import static java.lang.Math.max;
 
 import java.io.IOException;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
@@ -68,6 +68,9 @@ import com.google.inject.Inject;
  * </tr>
  * </table>
  * <p>
+ * Up to {@link Constants#PROPERTY_RETRY_JITTER} of the delay, 10% by default, is added at random so that commands
+ * which failed together do not retry together, also once the delay reaches its maximum.
+ * <p>
  * This implementation has two side-effects. It increments the command's failure count with
  * {@link TransformingHttpCommand#incrementFailureCount()}, because this failure count value is used
  * to determine how many times the command has already been tried. It also closes the response's
@@ -86,6 +89,10 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
    @Named(Constants.PROPERTY_RETRY_DELAY_START)
    private long delayStart = 50L;
 
+   @Inject(optional = true)
+   @Named(Constants.PROPERTY_RETRY_JITTER)
+   private double jitter = 0.1;
+
    @Resource
    protected Logger logger = Logger.NULL;
 
@@ -129,14 +136,15 @@ public class BackoffLimitedRetryHandler implements HttpRetryHandler, IOException
          return;
       }
       long delayMs = (long) (period * Math.pow(failureCount, pow));
+      delayMs = delayMs > maxPeriod ? maxPeriod : delayMs;
       // Add random delay to avoid thundering herd problem when multiple
       // simultaneous failed requests retry after sleeping for the same delay.
+      // This follows the cap, as otherwise every command which reached it would sleep exactly maxPeriod.
       // Throws an exception for a value of 0
-      delayMs += new Random().nextInt((int) (max(delayMs / 10, 1) ));
-      delayMs = delayMs > maxPeriod ? maxPeriod : delayMs;
+      delayMs += ThreadLocalRandom.current().nextLong(max((long) (delayMs * jitter), 1));
       logger.debug("Retry %d/%d: delaying for %d ms: %s", failureCount, max, delayMs, commandDescription);
       try {
-         Thread.sleep(delayMs);
+         RetryDelays.delay(delayMs);
       } catch (InterruptedException e) {
          Throwables.propagate(e);
       }
@@ -0,0 +1,80 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.handlers;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Lets retry handlers wait before a retry without blocking asynchronous executors. While an executor
+ * {@link #defer defers} delays on the current thread, {@link #delay} adds to the deferred delay, which the executor
+ * then waits on a timer, instead of sleeping.
+ */
+@Beta
+public final class RetryDelays {
+   private static final ThreadLocal<long[]> deferred = new ThreadLocal<long[]>();
+
+   private RetryDelays() {
+   }
+
+   /**
+    * Waits {@code millis} before the command is retried, or adds it to the delay deferred on the current thread.
+    */
+   public static void delay(long millis) throws InterruptedException {
+      long[] delay = deferred.get();
+      if (delay != null) {
+         delay[0] += millis;
+      } else {
+         Thread.sleep(millis);
+      }
+   }
+
+   /**
+    * Starts deferring delays on the current thread, until {@link #takeDeferred}.
+    */
+   public static void defer() {
+      deferred.set(new long[1]);
+   }
+
+   /**
+    * Stops deferring delays on the current thread, and returns the milliseconds to wait before the retry.
+    */
+   public static long takeDeferred() {
+      long[] delay = deferred.get();
+      deferred.remove();
+      return delay == null ? 0 : delay[0];
+   }
+
+   /**
+    * Stops deferring delays on the current thread for a nested blocking call, such as a retry handler which
+    * re-authenticates.
+    * 
+    * @return the state to {@link #resume}
+    */
+   public static long suspend() {
+      return deferred.get() == null ? -1 : takeDeferred();
+   }
+
+   /**
+    * Restores the state returned by {@link #suspend}.
+    */
+   public static void resume(long suspended) {
+      if (suspended >= 0) {
+         defer();
+         deferred.get()[0] = suspended;
+      }
+   }
+}
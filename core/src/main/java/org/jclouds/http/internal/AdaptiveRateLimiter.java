@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.jclouds.Constants.PROPERTY_MAX_RATE_LIMIT_WAIT;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_ADAPTIVE;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_DECREASE;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_INCREASE;
+import static org.jclouds.Constants.PROPERTY_RATE_LIMIT_MIN_RATE;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.inject.Inject;
+
+/**
+ * Paces the requests to each endpoint host of an api at a rate learned from its throttling responses, so that
+ * callers queue before sending instead of sleeping after being throttled.
+ * <p>
+ * A host is not limited until it first throttles. Each throttling response then cuts its rate by
+ * {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_DECREASE}, and each second without throttling raises it by
+ * {@link org.jclouds.Constants#PROPERTY_RATE_LIMIT_INCREASE} (AIMD). Requests are spaced by a token bucket holding up
+ * to a second of unused permits. A request which would wait longer than
+ * {@link org.jclouds.Constants#PROPERTY_MAX_RATE_LIMIT_WAIT} is shed.
+ */
+@Beta
+@Singleton
+public class AdaptiveRateLimiter {
+   // the rate changes at most this often, as responses to requests sent before a change say nothing about it
+   private static final long ADJUST_INTERVAL = SECONDS.toNanos(1);
+
+   @Resource
+   protected Logger logger = Logger.NULL;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_ADAPTIVE)
+   private boolean enabled = false;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_MIN_RATE)
+   private double minRate = 1;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_INCREASE)
+   private double increase = 1;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_RATE_LIMIT_DECREASE)
+   private double decrease = 0.5;
+
+   @Inject(optional = true)
+   @Named(PROPERTY_MAX_RATE_LIMIT_WAIT)
+   private long maxWait = 2 * 60 * 1000;
+
+   private final Ticker ticker;
+   private final LoadingCache<String, HostRate> hosts = CacheBuilder.newBuilder().expireAfterAccess(10, MINUTES)
+         .build(new CacheLoader<String, HostRate>() {
+            @Override
+            public HostRate load(String host) {
+               return new HostRate(ticker.read() - ADJUST_INTERVAL);
+            }
+         });
+
+   @Inject
+   AdaptiveRateLimiter() {
+      this(Ticker.systemTicker());
+   }
+
+   private AdaptiveRateLimiter(Ticker ticker) {
+      this.ticker = ticker;
+   }
+
+   @VisibleForTesting
+   static AdaptiveRateLimiter create(Ticker ticker, double minRate, double increase, double decrease, long maxWait) {
+      AdaptiveRateLimiter limiter = new AdaptiveRateLimiter(ticker);
+      limiter.enabled = true;
+      limiter.minRate = minRate;
+      limiter.increase = increase;
+      limiter.decrease = decrease;
+      limiter.maxWait = maxWait;
+      return limiter;
+   }
+
+   /**
+    * Takes a permit to send the request.
+    *
+    * @return the milliseconds to wait before sending, or -1 if the request should be shed
+    */
+   public long reserve(HttpRequest request) {
+      if (!enabled) {
+         return 0;
+      }
+      HostRate host = hosts.getUnchecked(key(request));
+      long now = ticker.read();
+      synchronized (host) {
+         host.count(now);
+         if (Double.isInfinite(host.rate)) {
+            return 0;
+         }
+         host.nextFree = Math.max(host.nextFree, now - SECONDS.toNanos(1));
+         long wait = Math.max(0, host.nextFree - now);
+         if (NANOSECONDS.toMillis(wait) > maxWait) {
+            return -1;
+         }
+         host.nextFree += interval(host.rate);
+         // round up, so that a request is never sent early
+         return NANOSECONDS.toMillis(wait + MILLISECONDS.toNanos(1) - 1);
+      }
+   }
+
+   /**
+    * Learns from the response to a request which was paced by {@link #reserve}.
+    */
+   public void onResponse(HttpRequest request, HttpResponse response) {
+      if (!enabled) {
+         return;
+      }
+      HostRate host = hosts.getIfPresent(key(request));
+      if (host == null) {
+         return;
+      }
+      long now = ticker.read();
+      synchronized (host) {
+         if (isThrottled(response)) {
+            if (now - host.lastDecrease < ADJUST_INTERVAL) {
+               return;
+            }
+            double current = Double.isInfinite(host.rate) ? host.observedRate() : host.rate;
+            host.rate = Math.max(minRate, current * decrease);
+            host.nextFree = now + interval(host.rate);
+            host.lastDecrease = host.lastIncrease = now;
+            logger.debug("Throttled by %s, limiting to %.1f requests per second", key(request), host.rate);
+         } else if (!Double.isInfinite(host.rate) && now - host.lastIncrease >= ADJUST_INTERVAL) {
+            host.rate += increase;
+            host.lastIncrease = now;
+         }
+      }
+   }
+
+   /**
+    * Returns whether the response asks to slow down. Providers can override this to recognize other responses.
+    */
+   protected boolean isThrottled(HttpResponse response) {
+      return response.getStatusCode() == 429 || response.getStatusCode() == 503;
+   }
+
+   @VisibleForTesting
+   double rate(String host) {
+      HostRate rate = hosts.getIfPresent(host);
+      if (rate == null) {
+         return Double.POSITIVE_INFINITY;
+      }
+      synchronized (rate) {
+         return rate.rate;
+      }
+   }
+
+   private static String key(HttpRequest request) {
+      return request.getEndpoint().getHost();
+   }
+
+   private static long interval(double rate) {
+      return (long) (SECONDS.toNanos(1) / rate);
+   }
+
+   private static final class HostRate {
+      /** requests per second, unlimited until the host first throttles */
+      double rate = Double.POSITIVE_INFINITY;
+      /** when the next permit is free */
+      long nextFree;
+      long lastDecrease;
+      long lastIncrease;
+      // requests sent in the current and the previous second, to start from the rate which was throttled
+      long windowStart;
+      int windowCount;
+      int lastWindowCount;
+
+      HostRate(long start) {
+         lastDecrease = lastIncrease = windowStart = start;
+      }
+
+      void count(long now) {
+         if (now - windowStart >= SECONDS.toNanos(1)) {
+            lastWindowCount = now - windowStart < SECONDS.toNanos(2) ? windowCount : 0;
+            windowStart = now;
+            windowCount = 0;
+         }
+         windowCount++;
+      }
+
+      double observedRate() {
+         return Math.max(lastWindowCount, windowCount);
+      }
+   }
+}
@@ -19,6 +19,8 @@ package org.jclouds.http.internal;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Throwables.propagate;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.http.HttpUtils.checkRequestHasContentLengthOrChunkedEncoding;
 import static org.jclouds.http.HttpUtils.releasePayload;
 import static org.jclouds.http.HttpUtils.wirePayloadIfEnabled;
@@ -27,13 +29,19 @@ import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 import java.io.IOException;
 import java.net.ProtocolException;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.annotation.Resource;
 import javax.inject.Named;
 
 import org.jclouds.Constants;
+import org.jclouds.concurrent.SharedScheduler;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpInstrumentation;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
@@ -42,13 +50,23 @@ import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryDelays;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.logging.Logger;
+import org.jclouds.rest.RateLimitExceededException;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import com.google.inject.Inject;
 
-public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService {
+public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandExecutorService,
+      AsyncHttpCommandExecutorService {
    protected final HttpUtils utils;
    protected final ContentMetadataCodec contentMetadataCodec;
 
@@ -66,6 +84,21 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    private final Set<String> idempotentMethods;
 
+   @Inject(optional = true)
+   @Named(PROPERTY_USER_THREADS)
+   protected ListeningExecutorService userExecutor = MoreExecutors.newDirectExecutorService();
+
+   // ScheduledExecutor is defined in an optional module
+   @Inject(optional = true)
+   @Named(PROPERTY_SCHEDULER_THREADS)
+   private ScheduledExecutorService scheduler = SharedScheduler.get();
+
+   @Inject(optional = true)
+   private AdaptiveRateLimiter rateLimiter = new AdaptiveRateLimiter();
+
+   @Inject(optional = true)
+   private HttpInstrumentation instrumentation = HttpInstrumentation.NONE;
+
    protected BaseHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
          DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
          DelegatingErrorHandler errorHandler, HttpWire wire,
@@ -81,26 +114,38 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    @Override
    public HttpResponse invoke(HttpCommand command) {
+      // a retry handler of an asynchronous command may call back in here, and this loop must sleep its own delays
+      long suspended = RetryDelays.suspend();
+      try {
+         return invokeBlocking(command);
+      } finally {
+         RetryDelays.resume(suspended);
+      }
+   }
+
+   private HttpResponse invokeBlocking(HttpCommand command) {
       HttpResponse response = null;
       for (;;) {
+         if (!pace(command)) {
+            break;
+         }
          HttpRequest request = command.getCurrentRequest();
          Q nativeRequest = null;
+         long sent = 0;
+         // each attempt is reported once, as either responded or failed
+         boolean responded = false;
          try {
-            for (HttpRequestFilter filter : request.getFilters()) {
-               request = filter.filter(request);
-            }
-            checkRequestHasContentLengthOrChunkedEncoding(request,
-                  "After filtering, the request has neither chunked encoding nor content length: " + request);
-            logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
-            wirePayloadIfEnabled(wire, request);
-            utils.logRequest(headerLog, request, ">>");
+            request = filterAndLog(request);
+            sent = timed() ? System.nanoTime() : 0;
             nativeRequest = convert(request);
             response = invoke(nativeRequest);
+            responded = true;
+            if (sent != 0) {
+               instrumentation.responded(request, response, System.nanoTime() - sent);
+            }
 
-            logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
-            utils.logResponse(headerLog, response, "<<");
-            if (response.getPayload() != null && wire.enabled())
-               wire.input(response);
+            logResponse(request, response);
+            rateLimiter.onResponse(request, response);
             nativeRequest = null; // response took ownership of streams
             int statusCode = response.getStatusCode();
             if (statusCode >= 300) {
@@ -112,6 +157,9 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
                break;
             }
          } catch (Exception e) {
+            if (sent != 0 && !responded) {
+               instrumentation.failed(request, e, System.nanoTime() - sent);
+            }
             IOException ioe = getFirstThrowableOfType(e, IOException.class);
             if (ioe != null && shouldContinue(command, ioe)) {
                continue;
@@ -129,11 +177,239 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
       return response;
    }
 
+   /**
+    * Waits for the {@link AdaptiveRateLimiter} to let the command through.
+    * 
+    * @return false if the command was shed or interrupted, with its exception set
+    */
+   private boolean pace(HttpCommand command) {
+      long wait = rateLimiter.reserve(command.getCurrentRequest());
+      if (wait < 0) {
+         command.setException(shed(command));
+         return false;
+      }
+      if (wait > 0) {
+         logger.debug("Rate limited: delaying for %d ms: %s", wait, command);
+         try {
+            Thread.sleep(wait);
+         } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            command.setException(e);
+            return false;
+         }
+      }
+      return true;
+   }
+
+   private static RateLimitExceededException shed(HttpCommand command) {
+      return new RateLimitExceededException("Shedding " + command.getCurrentRequest().getRequestLine()
+            + ", as it would wait for the rate limit longer than allowed");
+   }
+
+   /**
+    * Sends the command like {@link #invoke(HttpCommand)}, but without holding the calling thread. Retry delays are
+    * waited on the {@link org.jclouds.concurrent.config.ScheduledExecutorServiceModule scheduler} when one is bound,
+    * and on the {@link SharedScheduler} otherwise, and the retry then runs on a user thread.
+    */
+   @Override
+   public ListenableFuture<HttpResponse> submit(HttpCommand command) {
+      SettableFuture<HttpResponse> result = SettableFuture.create();
+      attempt(command, result);
+      return result;
+   }
+
+   private void attempt(final HttpCommand command, final SettableFuture<HttpResponse> result) {
+      if (result.isDone()) {
+         return; // cancelled while waiting to retry
+      }
+      long wait = rateLimiter.reserve(command.getCurrentRequest());
+      if (wait < 0) {
+         command.setException(shed(command));
+         result.setException(command.getException());
+      } else if (wait > 0) {
+         logger.debug("Rate limited: delaying for %d ms: %s", wait, command);
+         later(new Runnable() {
+            @Override
+            public void run() {
+               if (!result.isDone()) {
+                  send(command, result);
+               }
+            }
+         }, wait, result);
+      } else {
+         send(command, result);
+      }
+   }
+
+   private void send(final HttpCommand command, final SettableFuture<HttpResponse> result) {
+      final HttpRequest request;
+      final Q nativeRequest;
+      final ListenableFuture<HttpResponse> response;
+      try {
+         request = filterAndLog(command.getCurrentRequest());
+         nativeRequest = convert(request);
+      } catch (Exception e) {
+         failed(command, e, result);
+         return;
+      }
+      final long sent = timed() ? System.nanoTime() : 0;
+      try {
+         response = invokeAsync(nativeRequest);
+      } catch (Exception e) {
+         cleanup(nativeRequest);
+         if (sent != 0) {
+            instrumentation.failed(request, e, System.nanoTime() - sent);
+         }
+         failed(command, e, result);
+         return;
+      }
+      // cancelling the result cancels the call in flight
+      result.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (result.isCancelled()) {
+               response.cancel(true);
+            }
+         }
+      }, MoreExecutors.directExecutor());
+      Futures.addCallback(response, new FutureCallback<HttpResponse>() {
+         @Override
+         public void onSuccess(HttpResponse response) {
+            if (sent != 0) {
+               instrumentation.responded(request, response, System.nanoTime() - sent);
+            }
+            if (result.isDone()) {
+               // cancelled while the call was in flight, so nobody will read the response
+               releasePayload(response);
+               return;
+            }
+            try {
+               logResponse(request, response);
+               rateLimiter.onResponse(request, response);
+               long delay = response.getStatusCode() >= 300 ? retryDelay(command, response) : -1;
+               if (delay >= 0) {
+                  retry(command, result, delay);
+               } else if (command.getException() != null) {
+                  result.setException(command.getException());
+               } else if (!result.set(response)) {
+                  // cancelled meanwhile
+                  releasePayload(response);
+               }
+            } catch (Exception e) {
+               failed(command, e, result);
+            }
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            cleanup(nativeRequest);
+            if (sent != 0) {
+               instrumentation.failed(request, t, System.nanoTime() - sent);
+            }
+            failed(command, t, result);
+         }
+      }, userExecutor);
+   }
+
+   private void failed(HttpCommand command, Throwable t, SettableFuture<HttpResponse> result) {
+      IOException ioe = getFirstThrowableOfType(t, IOException.class);
+      long delay = ioe != null ? retryDelay(command, ioe) : -1;
+      if (delay >= 0) {
+         retry(command, result, delay);
+         return;
+      }
+      command.setException(new HttpResponseException(t.getMessage() + " connecting to "
+            + command.getCurrentRequest().getRequestLine(), command, null, t));
+      result.setException(command.getException());
+   }
+
+   /**
+    * @return the milliseconds to wait before retrying, or -1 not to retry
+    */
+   private long retryDelay(HttpCommand command, HttpResponse response) {
+      RetryDelays.defer();
+      try {
+         return shouldContinue(command, response) ? RetryDelays.takeDeferred() : -1;
+      } finally {
+         RetryDelays.takeDeferred();
+      }
+   }
+
+   private long retryDelay(HttpCommand command, IOException exception) {
+      RetryDelays.defer();
+      try {
+         return shouldContinue(command, exception) ? RetryDelays.takeDeferred() : -1;
+      } finally {
+         RetryDelays.takeDeferred();
+      }
+   }
+
+   private void retry(final HttpCommand command, final SettableFuture<HttpResponse> result, long delay) {
+      later(new Runnable() {
+         @Override
+         public void run() {
+            attempt(command, result);
+         }
+      }, delay, result);
+   }
+
+   private void later(final Runnable task, long delay, final SettableFuture<HttpResponse> result) {
+      try {
+         if (delay == 0) {
+            task.run();
+         } else {
+            // the timer thread only hands the task over to a user thread
+            scheduler.schedule(new Runnable() {
+               @Override
+               public void run() {
+                  try {
+                     userExecutor.execute(task);
+                  } catch (RuntimeException e) {
+                     // the executor was shut down
+                     result.setException(e);
+                  }
+               }
+            }, delay, TimeUnit.MILLISECONDS);
+         }
+      } catch (RuntimeException e) {
+         // the executor was shut down
+         result.setException(e);
+      }
+   }
+
+   private boolean timed() {
+      return instrumentation != HttpInstrumentation.NONE;
+   }
+
+   private HttpRequest filterAndLog(HttpRequest request) {
+      long start = timed() ? System.nanoTime() : 0;
+      for (HttpRequestFilter filter : request.getFilters()) {
+         request = filter.filter(request);
+      }
+      if (start != 0) {
+         instrumentation.filtered(request, System.nanoTime() - start);
+      }
+      checkRequestHasContentLengthOrChunkedEncoding(request,
+            "After filtering, the request has neither chunked encoding nor content length: " + request);
+      logger.debug("Sending request %s: %s", request.hashCode(), request.getRequestLine());
+      wirePayloadIfEnabled(wire, request);
+      utils.logRequest(headerLog, request, ">>");
+      return request;
+   }
+
+   private void logResponse(HttpRequest request, HttpResponse response) {
+      logger.debug("Receiving response %s: %s", request.hashCode(), response.getStatusLine());
+      utils.logResponse(headerLog, response, "<<");
+      if (response.getPayload() != null && wire.enabled())
+         wire.input(response);
+   }
+
    @VisibleForTesting
    boolean shouldContinue(HttpCommand command, HttpResponse response) {
       boolean shouldContinue = false;
       if (retryHandler.shouldRetryRequest(command, response)) {
          shouldContinue = true;
+         instrumentation.retrying(command, response);
       } else {
          errorHandler.handleError(command, response);
       }
@@ -152,9 +428,18 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
             && response.getMessage().equals("Server rejected operation")
             ) {
          logger.debug("Caught a protocol exception on a 100-continue PUT request. Attempting to retry.");
-         return isIdempotent(command) && retryHandler.shouldRetryRequest(command, HttpResponse.builder().statusCode(401).message("Unauthorized").build());
+         HttpResponse unauthorized = HttpResponse.builder().statusCode(401).message("Unauthorized").build();
+         if (isIdempotent(command) && retryHandler.shouldRetryRequest(command, unauthorized)) {
+            instrumentation.retrying(command, unauthorized);
+            return true;
+         }
+         return false;
       }
-      return isIdempotent(command) && ioRetryHandler.shouldRetryRequest(command, response);
+      if (isIdempotent(command) && ioRetryHandler.shouldRetryRequest(command, response)) {
+         instrumentation.retrying(command, null);
+         return true;
+      }
+      return false;
    }
 
    private boolean isIdempotent(HttpCommand command) {
@@ -171,6 +456,19 @@ public abstract class BaseHttpCommandExecutorService<Q> implements HttpCommandEx
 
    protected abstract HttpResponse invoke(Q nativeRequest) throws IOException, InterruptedException;
 
+   /**
+    * Sends the native request without blocking the caller. By default this runs {@link #invoke(Object)} on a user
+    * thread; drivers with a non-blocking client should override it.
+    */
+   protected ListenableFuture<HttpResponse> invokeAsync(final Q nativeRequest) {
+      return userExecutor.submit(new Callable<HttpResponse>() {
+         @Override
+         public HttpResponse call() throws Exception {
+            return invoke(nativeRequest);
+         }
+      });
+   }
+
    protected abstract void cleanup(Q nativeRequest);
 
 }
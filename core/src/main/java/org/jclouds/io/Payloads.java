@@ -24,6 +24,7 @@ import java.io.InputStream;
 import org.jclouds.io.payloads.ByteArrayPayload;
 import org.jclouds.io.payloads.ByteSourcePayload;
 import org.jclouds.io.payloads.FilePayload;
+import org.jclouds.io.payloads.HashingPayload;
 import org.jclouds.io.payloads.InputStreamPayload;
 import org.jclouds.io.payloads.StringPayload;
 import org.jclouds.io.payloads.UrlEncodedFormPayload;
@@ -74,6 +75,15 @@ public class Payloads {
       return new FilePayload(checkNotNull(data, "data"));
    }
 
+   /**
+    * Wraps {@code payload} so that consumers which know {@link HashingPayload} share one pass over its content to
+    * hash it. The AWS Signature Version 4 signer wraps the repeatable payloads it signs itself, so callers only need
+    * this to share the hashes with their own code.
+    */
+   public static HashingPayload newHashingPayload(Payload payload) {
+      return new HashingPayload(checkNotNull(payload, "payload"));
+   }
+
    public static UrlEncodedFormPayload newUrlEncodedFormPayload(Multimap<String, String> formParams) {
       return new UrlEncodedFormPayload(formParams);
    }
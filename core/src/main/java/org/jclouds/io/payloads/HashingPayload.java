@@ -0,0 +1,204 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+
+import org.jclouds.io.Payload;
+
+import com.google.common.annotations.Beta;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteStreams;
+
+/**
+ * A payload which computes the MD5, SHA-256 and CRC32C of its content, or a
+ * subset of them, in a single pass the first time its content is read to the
+ * end, so that request signing, Content-MD5 and integrity checks share one
+ * read of the content instead of reading it once each. The hashes are never
+ * copied into the content metadata, whose Content-MD5 remains what the caller
+ * expects the content to hash to.
+ * <p>
+ * The AWS Signature Version 4 authorization header signer wraps repeatable
+ * payloads it signs, so that their Content-MD5 comes from the pass hashing
+ * them for the signature, and the filesystem blobstore writes payloads
+ * through an MD5-only one. Callers may wrap payloads themselves, for example
+ * with {@link org.jclouds.io.Payloads#newHashingPayload}, to share the hashes
+ * with those consumers.
+ */
+@Beta
+public class HashingPayload extends DelegatingPayload {
+
+   private final ImmutableList<HashFunction> functions;
+   private volatile Map<HashFunction, HashCode> hashes;
+
+   public HashingPayload(Payload delegate) {
+      this(delegate, Hashing.md5(), Hashing.sha256(), Hashing.crc32c());
+   }
+
+   /**
+    * Computes only the given hashes, for consumers which do not need all of
+    * them.
+    */
+   public HashingPayload(Payload delegate, HashFunction... functions) {
+      super(delegate);
+      this.functions = ImmutableList.copyOf(functions);
+   }
+
+   /**
+    * Opens the content, hashing it as it is read until its hashes are known.
+    */
+   @Override
+   public InputStream openStream() throws IOException {
+      InputStream input = super.openStream();
+      return hashes != null ? input : new HashingStream(input);
+   }
+
+   /**
+    * Returns the content itself rather than a stream over it, so that
+    * consumers can still recognize files and byte sources.
+    */
+   @Override
+   public Object getRawContent() {
+      return getDelegate().getRawContent();
+   }
+
+   /** Returns whether the hashes are known without reading the content. */
+   public boolean isHashed() {
+      return hashes != null;
+   }
+
+   /**
+    * Returns the MD5 of the content, reading it unless it was read to the end
+    * already.
+    *
+    * @throws IllegalStateException
+    *            if the content is not known yet and cannot be read again
+    * @throws IllegalArgumentException
+    *            if this payload does not compute the MD5
+    */
+   public HashCode getMD5() throws IOException {
+      return getHash(Hashing.md5());
+   }
+
+   /** @see #getMD5() */
+   public HashCode getSHA256() throws IOException {
+      return getHash(Hashing.sha256());
+   }
+
+   /** @see #getMD5() */
+   public HashCode getCRC32C() throws IOException {
+      return getHash(Hashing.crc32c());
+   }
+
+   private HashCode getHash(HashFunction function) throws IOException {
+      checkArgument(functions.contains(function), "%s is not computed by this payload", function);
+      return hash().get(function);
+   }
+
+   private Map<HashFunction, HashCode> hash() throws IOException {
+      Map<HashFunction, HashCode> known = hashes;
+      if (known != null) {
+         return known;
+      }
+      checkState(isRepeatable(), "cannot hash a payload which is not repeatable before it is read");
+      InputStream input = openStream();
+      try {
+         ByteStreams.copy(input, ByteStreams.nullOutputStream());
+      } finally {
+         input.close();
+      }
+      return hashes;
+   }
+
+   /**
+    * Hashes the bytes read through it, and sets the hashes of the payload once
+    * it reaches the end. Skipping or resetting the stream stops hashing.
+    */
+   private final class HashingStream extends FilterInputStream {
+      private final Hasher[] hashers = new Hasher[functions.size()];
+      private boolean hashing = true;
+
+      HashingStream(InputStream input) {
+         super(input);
+         for (int i = 0; i < hashers.length; i++) {
+            hashers[i] = functions.get(i).newHasher();
+         }
+      }
+
+      @Override
+      public int read() throws IOException {
+         int b = in.read();
+         if (hashing) {
+            if (b < 0) {
+               finish();
+            } else {
+               for (Hasher hasher : hashers) {
+                  hasher.putByte((byte) b);
+               }
+            }
+         }
+         return b;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         int read = in.read(b, off, len);
+         if (hashing) {
+            if (read < 0) {
+               finish();
+            } else {
+               for (Hasher hasher : hashers) {
+                  hasher.putBytes(b, off, read);
+               }
+            }
+         }
+         return read;
+      }
+
+      @Override
+      public long skip(long n) throws IOException {
+         hashing = false;
+         return in.skip(n);
+      }
+
+      @Override
+      public synchronized void reset() throws IOException {
+         hashing = false;
+         in.reset();
+      }
+
+      private void finish() {
+         hashing = false;
+         ImmutableMap.Builder<HashFunction, HashCode> builder = ImmutableMap.builder();
+         for (int i = 0; i < hashers.length; i++) {
+            builder.put(functions.get(i), hashers[i].hash());
+         }
+         hashes = builder.build();
+      }
+   }
+}
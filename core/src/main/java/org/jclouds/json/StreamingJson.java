@@ -0,0 +1,46 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.json;
+
+import java.io.InputStream;
+import java.lang.reflect.Type;
+import java.util.Iterator;
+
+import com.google.common.annotations.Beta;
+
+/**
+ * Reads json incrementally, for responses too large to hold in memory at once. Kept apart from {@link Json} so that
+ * implementations of that interface need not support it.
+ */
+@Beta
+public interface StreamingJson {
+
+   /**
+    * Deserializes the elements of a json array one at a time, as the returned iterator advances, so that a large
+    * array need not be held in memory. The stream is closed once the array ends or cannot be read, and should be
+    * closed by the caller if it stops iterating before.
+    * 
+    * @param elementType
+    *           the type of each element
+    * @param path
+    *           the names of the fields which lead to the array through nested objects, such as {@code "servers"} in
+    *           {@code {"servers": [...]}}; none when the json is the array. The array is empty when a field is
+    *           missing or null.
+    */
+   <T> Iterator<T> fromJsonArray(InputStream json, Type elementType, String... path);
+
+}
@@ -36,6 +36,7 @@ import org.jclouds.domain.Credentials;
 import org.jclouds.domain.JsonBall;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.json.Json;
+import org.jclouds.json.StreamingJson;
 import org.jclouds.json.SerializedNames;
 import org.jclouds.json.internal.DeserializationConstructorAndReflectiveTypeAdapterFactory;
 import org.jclouds.json.internal.EnumTypeAdapterThatReturnsFromValue;
@@ -402,5 +403,6 @@ public class GsonModule extends AbstractModule {
    @Override
    protected void configure() {
       bind(Json.class).to(GsonWrapper.class);
+      bind(StreamingJson.class).to(GsonWrapper.class);
    }
 }
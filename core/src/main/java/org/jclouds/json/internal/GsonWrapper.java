@@ -16,20 +16,33 @@
  */
 package org.jclouds.json.internal;
 
+import static com.google.common.base.Charsets.UTF_8;
+
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.lang.reflect.Type;
+import java.util.Iterator;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.jclouds.json.Json;
+import org.jclouds.json.StreamingJson;
+import org.jclouds.util.Closeables2;
 
+import com.google.common.base.Throwables;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ForwardingObject;
+import com.google.common.collect.ImmutableSet;
 import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 
 @Singleton
-public class GsonWrapper extends ForwardingObject implements Json  {
+public class GsonWrapper extends ForwardingObject implements Json, StreamingJson {
 
    private final Gson gson;
 
@@ -52,12 +65,78 @@ public class GsonWrapper extends ForwardingObject implements Json  {
    @SuppressWarnings("unchecked")
    @Override
    public <T> T fromJson(InputStream json, Type type) {
-      return (T) gson.fromJson(new InputStreamReader(json), type);
+      return (T) gson.fromJson(new InputStreamReader(json, UTF_8), type);
    }
 
    @Override
    public <T> T fromJson(InputStream json, Class<T> classOfT) {
-      return gson.fromJson(new InputStreamReader(json), classOfT);
+      return gson.fromJson(new InputStreamReader(json, UTF_8), classOfT);
+   }
+
+   @Override
+   public <T> Iterator<T> fromJsonArray(InputStream json, Type elementType, String... path) {
+      final JsonReader reader = new JsonReader(new InputStreamReader(json, UTF_8));
+      // as Gson.fromJson reads
+      reader.setLenient(true);
+      try {
+         if (!findArray(reader, path)) {
+            reader.close();
+            return ImmutableSet.<T> of().iterator();
+         }
+         reader.beginArray();
+      } catch (IOException e) {
+         Closeables2.closeQuietly(reader);
+         throw Throwables.propagate(e);
+      } catch (RuntimeException e) {
+         Closeables2.closeQuietly(reader);
+         throw e;
+      }
+      @SuppressWarnings("unchecked")
+      final TypeAdapter<T> adapter = (TypeAdapter<T>) gson.getAdapter(TypeToken.get(elementType));
+      return new AbstractIterator<T>() {
+         @Override
+         protected T computeNext() {
+            try {
+               if (reader.hasNext()) {
+                  return adapter.read(reader);
+               }
+               reader.close();
+               return endOfData();
+            } catch (IOException e) {
+               Closeables2.closeQuietly(reader);
+               throw Throwables.propagate(e);
+            } catch (RuntimeException e) {
+               Closeables2.closeQuietly(reader);
+               throw e;
+            }
+         }
+      };
+   }
+
+   /**
+    * Advances the reader to the value at {@code path}.
+    * 
+    * @return false if a field of the path is missing or null
+    */
+   private static boolean findArray(JsonReader reader, String... path) throws IOException {
+      for (String name : path) {
+         if (reader.peek() == JsonToken.NULL) {
+            return false;
+         }
+         reader.beginObject();
+         boolean found = false;
+         while (!found && reader.hasNext()) {
+            if (reader.nextName().equals(name)) {
+               found = true;
+            } else {
+               reader.skipValue();
+            }
+         }
+         if (!found) {
+            return false;
+         }
+      }
+      return reader.peek() != JsonToken.NULL;
    }
 
    @Override
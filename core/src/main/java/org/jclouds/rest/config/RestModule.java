@@ -17,14 +17,22 @@
 package org.jclouds.rest.config;
 
 import static com.google.common.util.concurrent.Atomics.newReference;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 
 import java.net.Proxy;
 import java.net.URI;
 import java.util.Map;
+import java.util.concurrent.Callable;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.inject.Named;
+import javax.inject.Singleton;
+
 import org.jclouds.fallbacks.MapHttp4xxCodesToExceptions;
 import org.jclouds.functions.IdentityFunction;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
+import org.jclouds.http.HttpCommand;
+import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.functions.config.SaxParserModule;
@@ -40,7 +48,10 @@ import org.jclouds.rest.internal.TransformerForRequest;
 
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.AbstractModule;
+import com.google.inject.Provides;
 import com.google.inject.TypeLiteral;
 import com.google.inject.assistedinject.FactoryModuleBuilder;
 
@@ -73,4 +84,28 @@ public class RestModule extends AbstractModule {
       }).to(ProxyForURI.class);
       installLocations();
    }
+
+   /**
+    * Drivers which extend {@link org.jclouds.http.internal.BaseHttpCommandExecutorService} send asynchronously
+    * themselves; any other executor is run on a user thread.
+    */
+   @Provides
+   @Singleton
+   AsyncHttpCommandExecutorService provideAsyncHttpCommandExecutorService(final HttpCommandExecutorService http,
+         @Named(PROPERTY_USER_THREADS) final ListeningExecutorService userExecutor) {
+      if (http instanceof AsyncHttpCommandExecutorService) {
+         return AsyncHttpCommandExecutorService.class.cast(http);
+      }
+      return new AsyncHttpCommandExecutorService() {
+         @Override
+         public ListenableFuture<HttpResponse> submit(final HttpCommand command) {
+            return userExecutor.submit(new Callable<HttpResponse>() {
+               @Override
+               public HttpResponse call() {
+                  return http.invoke(command);
+               }
+            });
+         }
+      };
+   }
 }
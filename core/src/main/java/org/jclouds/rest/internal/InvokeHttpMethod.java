@@ -20,14 +20,24 @@ import static com.google.common.base.Objects.equal;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Throwables.propagate;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.http.HttpUtils.releasePayload;
 
 import java.util.concurrent.Callable;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.annotation.Resource;
 import javax.inject.Inject;
+import javax.inject.Named;
 
+import org.jclouds.concurrent.SharedScheduler;
+import org.jclouds.http.AsyncHttpCommandExecutorService;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
+import org.jclouds.http.HttpInstrumentation;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.logging.Logger;
@@ -40,7 +50,14 @@ import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Objects;
 import com.google.common.base.Optional;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.TimeLimiter;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 
 public class InvokeHttpMethod implements Function<Invocation, Object> {
 
@@ -49,17 +66,34 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
    private final Function<Invocation, HttpRequest> annotationProcessor;
    private final HttpCommandExecutorService http;
+   private final AsyncHttpCommandExecutorService asyncHttp;
    private final TimeLimiter timeLimiter;
    private final Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest;
    private final InvocationConfig config;
 
+   @com.google.inject.Inject(optional = true)
+   private HttpInstrumentation instrumentation = HttpInstrumentation.NONE;
+
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_USER_THREADS)
+   @VisibleForTesting
+   ListeningExecutorService userExecutor = MoreExecutors.newDirectExecutorService();
+
+   // ScheduledExecutor is defined in an optional module
+   @com.google.inject.Inject(optional = true)
+   @Named(PROPERTY_SCHEDULER_THREADS)
+   @VisibleForTesting
+   ScheduledExecutorService scheduler = SharedScheduler.get();
+
    @Inject
    @VisibleForTesting
    InvokeHttpMethod(Function<Invocation, HttpRequest> annotationProcessor,
-         HttpCommandExecutorService http, Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest,
-         TimeLimiter timeLimiter, InvocationConfig config) {
+         HttpCommandExecutorService http, AsyncHttpCommandExecutorService asyncHttp,
+         Function<HttpRequest, Function<HttpResponse, ?>> transformerForRequest, TimeLimiter timeLimiter,
+         InvocationConfig config) {
       this.annotationProcessor = annotationProcessor;
       this.http = http;
+      this.asyncHttp = asyncHttp;
       this.timeLimiter = timeLimiter;
       this.transformerForRequest = transformerForRequest;
       this.config = config;
@@ -67,6 +101,9 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
 
    @Override
    public Object apply(Invocation in) {
+      if (in.getInvokable().getReturnType().getRawType().equals(ListenableFuture.class)) {
+         return submit(in);
+      }
       Optional<Long> timeoutNanos = config.getTimeoutNanos(in);
       if (timeoutNanos.isPresent()) {
          return invokeWithTimeout(in, timeoutNanos.get());
@@ -87,9 +124,13 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
 
       logger.debug(">> invoking %s", commandName);
+      long start = start();
       try {
-         return transformer.apply(http.invoke(command));
+         Object result = transformer.apply(http.invoke(command));
+         invoked(commandName, start, null);
+         return result;
       } catch (Throwable t) {
+         invoked(commandName, start, t);
          try {
             return fallback.createOrPropagate(t);
          } catch (Exception e) {
@@ -98,6 +139,109 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   /**
+    * invokes the {@linkplain HttpCommand} associated with {@code invocation}
+    * without blocking, for methods which return a {@link ListenableFuture}.
+    * The future holds the parsed response, or the value of the
+    * {@link #getFallback(String, Invocation, HttpCommand) fallback} if the
+    * command failed.
+    */
+   public ListenableFuture<Object> submit(Invocation invocation) {
+      final String commandName = config.getCommandName(invocation);
+      HttpCommand command = toCommand(commandName, invocation);
+      final Function<HttpResponse, ?> transformer = getTransformer(commandName, command);
+      final org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
+
+      logger.debug(">> submitting %s", commandName);
+      final long start = start();
+      final SettableFuture<Object> result = SettableFuture.create();
+      final ListenableFuture<HttpResponse> response = asyncHttp.submit(command);
+      // cancelling the result cancels the command
+      result.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (result.isCancelled()) {
+               response.cancel(true);
+            }
+         }
+      }, MoreExecutors.directExecutor());
+      // completed once, by the response or by the time limit
+      final AtomicBoolean completed = new AtomicBoolean();
+      final FutureCallback<HttpResponse> callback = new FutureCallback<HttpResponse>() {
+         @Override
+         public void onSuccess(HttpResponse response) {
+            if (!completed.compareAndSet(false, true) || result.isCancelled()) {
+               // the time limit passed or the caller cancelled, so nobody will read the response
+               releasePayload(response);
+               return;
+            }
+            Object value;
+            try {
+               value = transformer.apply(response);
+            } catch (Throwable t) {
+               fail(t);
+               return;
+            }
+            invoked(commandName, start, null);
+            result.set(value);
+         }
+
+         @Override
+         public void onFailure(Throwable t) {
+            if (completed.compareAndSet(false, true)) {
+               fail(t);
+            }
+         }
+
+         private void fail(Throwable t) {
+            invoked(commandName, start, t);
+            try {
+               result.set(fallback.createOrPropagate(t));
+            } catch (Throwable e) {
+               result.setException(e);
+            }
+         }
+      };
+      Optional<Long> timeoutNanos = config.getTimeoutNanos(invocation);
+      if (timeoutNanos.isPresent()) {
+         limit(invocation, response, callback, timeoutNanos.get());
+      }
+      Futures.addCallback(response, callback, userExecutor);
+      return result;
+   }
+
+   /**
+    * fails {@code callback} with an {@link UncheckedTimeoutException}, as
+    * {@link #invokeWithTimeout(Invocation, long)} would, and cancels the
+    * response unless it completes within {@code limitNanos}.
+    */
+   private void limit(final Invocation invocation, final ListenableFuture<HttpResponse> response,
+         final FutureCallback<HttpResponse> callback, final long limitNanos) {
+      final Runnable timeout = new Runnable() {
+         @Override
+         public void run() {
+            if (!response.isDone()) {
+               callback.onFailure(new UncheckedTimeoutException("timed out after " + limitNanos + "ns invoking "
+                     + invocation));
+               response.cancel(true);
+            }
+         }
+      };
+      // the timer thread only hands the timeout, which runs the fallback, over to a user thread
+      final ScheduledFuture<?> timer = scheduler.schedule(new Runnable() {
+         @Override
+         public void run() {
+            userExecutor.execute(timeout);
+         }
+      }, limitNanos, NANOSECONDS);
+      response.addListener(new Runnable() {
+         @Override
+         public void run() {
+            timer.cancel(false);
+         }
+      }, MoreExecutors.directExecutor());
+   }
+
    /**
     * calls {@link #invoke(Invocation)}, timing out after the specified time
     * limit. If the target method call finished before the limit is reached, the
@@ -123,10 +267,14 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       org.jclouds.Fallback<?> fallback = getFallback(commandName, invocation, command);
 
       logger.debug(">> blocking on %s for %s", invocation, limitNanos);
+      long start = start();
       try {
-         return timeLimiter
+         Object result = timeLimiter
                .callWithTimeout(new InvokeAndTransform(commandName, command), limitNanos, NANOSECONDS, true);
+         invoked(commandName, start, null);
+         return result;
       } catch (Throwable t) {
+         invoked(commandName, start, t);
          try {
             return fallback.createOrPropagate(t);
          } catch (Exception e) {
@@ -135,6 +283,16 @@ public class InvokeHttpMethod implements Function<Invocation, Object> {
       }
    }
 
+   private long start() {
+      return instrumentation != HttpInstrumentation.NONE ? System.nanoTime() : 0;
+   }
+
+   private void invoked(String commandName, long start, Throwable error) {
+      if (start != 0) {
+         instrumentation.invoked(commandName, System.nanoTime() - start, error);
+      }
+   }
+
    private org.jclouds.Fallback<?> getFallback(String commandName, Invocation invocation, HttpCommand command) {
       HttpRequest request = command.getCurrentRequest();
       org.jclouds.Fallback<?> fallback = config.getFallback(invocation);
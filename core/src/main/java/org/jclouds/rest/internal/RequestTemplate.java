@@ -0,0 +1,213 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.rest.internal;
+
+import static org.jclouds.http.HttpUtils.tryFindHttpMethod;
+import static org.jclouds.reflect.Reflection2.getInvokableParameters;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.List;
+import java.util.Set;
+
+import javax.ws.rs.Encoded;
+import javax.ws.rs.FormParam;
+import javax.ws.rs.HeaderParam;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+
+import org.jclouds.http.HttpRequestFilter;
+import org.jclouds.http.options.HttpRequestOptions;
+import org.jclouds.rest.annotations.BinderParam;
+import org.jclouds.rest.annotations.Endpoint;
+import org.jclouds.rest.annotations.EndpointParam;
+import org.jclouds.rest.annotations.FormParams;
+import org.jclouds.rest.annotations.Headers;
+import org.jclouds.rest.annotations.MapBinder;
+import org.jclouds.rest.annotations.OverrideRequestFilters;
+import org.jclouds.rest.annotations.PartParam;
+import org.jclouds.rest.annotations.Payload;
+import org.jclouds.rest.annotations.PayloadParam;
+import org.jclouds.rest.annotations.PayloadParams;
+import org.jclouds.rest.annotations.QueryParams;
+import org.jclouds.rest.annotations.RequestFilters;
+import org.jclouds.rest.annotations.SkipEncoding;
+import org.jclouds.rest.annotations.VirtualHost;
+import org.jclouds.rest.annotations.WrapWith;
+import org.jclouds.rest.binders.BindMapToStringPayload;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Chars;
+import com.google.common.reflect.Invokable;
+import com.google.common.reflect.Parameter;
+
+/**
+ * What {@link RestAnnotationProcessor} reads from the annotations of a method and its owner type. This does not
+ * depend on the arguments, so it is worked out once per {@link Invokable} and building a request only fills in the
+ * argument values.
+ */
+final class RequestTemplate {
+
+   private static final LoadingCache<Invokable<?, ?>, RequestTemplate> templates = CacheBuilder.newBuilder().build(
+         new CacheLoader<Invokable<?, ?>, RequestTemplate>() {
+            @Override
+            public RequestTemplate load(Invokable<?, ?> invokable) {
+               return new RequestTemplate(invokable);
+            }
+         });
+
+   static RequestTemplate of(Invokable<?, ?> invokable) {
+      return templates.getUnchecked(invokable);
+   }
+
+   final Optional<String> httpMethod;
+   /** owner then method {@link Path} values */
+   final List<String> paths;
+   /** null unless {@link SkipEncoding} is present */
+   final List<Character> skipPathEncoding;
+   final boolean encodeFullPath;
+   final List<FormParams> formParams;
+   final List<QueryParams> queryParams;
+   final List<Headers> headers;
+   /** null unless {@link Produces} is present */
+   final List<String> produces;
+   final List<Class<? extends HttpRequestFilter>> filters;
+   final boolean virtualHost;
+   /** null unless {@link Endpoint} is present */
+   final Endpoint endpoint;
+   /** null unless {@link PayloadParams} is present */
+   final PayloadParams payloadParams;
+   /** null unless the method has {@link MapBinder} or {@link Payload} */
+   final Class<? extends org.jclouds.rest.MapBinder> mapBinder;
+   /** null unless the method has {@link WrapWith} */
+   final String wrapWith;
+
+   final int parameterCount;
+   final Set<Integer> optionIndexes;
+   final List<Parameter> pathParams;
+   final List<Parameter> formParamParams;
+   final List<Parameter> queryParamParams;
+   final List<Parameter> headerParams;
+   final List<Parameter> payloadParamParams;
+   final List<Parameter> partParams;
+   final List<Parameter> endpointParams;
+   final List<Parameter> binderOrWrapWithParams;
+
+   private RequestTemplate(Invokable<?, ?> invokable) {
+      Class<?> owner = invokable.getOwnerType().getRawType();
+      List<Parameter> parameters = getInvokableParameters(invokable);
+
+      httpMethod = tryFindHttpMethod(invokable);
+      paths = paths(owner, invokable);
+      SkipEncoding skipEncoding = methodOrOwner(owner, invokable, SkipEncoding.class);
+      skipPathEncoding = skipEncoding != null ? Chars.asList(skipEncoding.value()) : null;
+      encodeFullPath = withAnnotation(parameters, Encoded.class).isEmpty();
+      formParams = ownerThenMethod(owner, invokable, FormParams.class);
+      queryParams = ownerThenMethod(owner, invokable, QueryParams.class);
+      headers = ownerThenMethod(owner, invokable, Headers.class);
+      Produces contentType = methodOrOwner(owner, invokable, Produces.class);
+      produces = contentType != null ? ImmutableList.copyOf(contentType.value()) : null;
+      filters = filters(owner, invokable);
+      virtualHost = owner.isAnnotationPresent(VirtualHost.class) || invokable.isAnnotationPresent(VirtualHost.class);
+      endpoint = methodOrOwner(owner, invokable, Endpoint.class);
+      payloadParams = invokable.getAnnotation(PayloadParams.class);
+      if (invokable.isAnnotationPresent(MapBinder.class)) {
+         mapBinder = invokable.getAnnotation(MapBinder.class).value();
+      } else if (invokable.isAnnotationPresent(Payload.class)) {
+         mapBinder = BindMapToStringPayload.class;
+      } else {
+         mapBinder = null;
+      }
+      wrapWith = invokable.isAnnotationPresent(WrapWith.class) ? invokable.getAnnotation(WrapWith.class).value()
+            : null;
+
+      parameterCount = parameters.size();
+      optionIndexes = optionIndexes(parameters);
+      pathParams = withAnnotation(parameters, PathParam.class);
+      formParamParams = withAnnotation(parameters, FormParam.class);
+      queryParamParams = withAnnotation(parameters, QueryParam.class);
+      headerParams = withAnnotation(parameters, HeaderParam.class);
+      payloadParamParams = withAnnotation(parameters, PayloadParam.class);
+      partParams = withAnnotation(parameters, PartParam.class);
+      endpointParams = withAnnotation(parameters, EndpointParam.class);
+      binderOrWrapWithParams = ImmutableSet.<Parameter> builder()
+            .addAll(withAnnotation(parameters, BinderParam.class))
+            .addAll(withAnnotation(parameters, WrapWith.class)).build().asList();
+   }
+
+   private static <A extends Annotation> A methodOrOwner(AnnotatedElement owner, Invokable<?, ?> invokable,
+         Class<A> annotationType) {
+      A annotation = invokable.getAnnotation(annotationType);
+      return annotation != null ? annotation : owner.getAnnotation(annotationType);
+   }
+
+   private static <A extends Annotation> List<A> ownerThenMethod(AnnotatedElement owner, Invokable<?, ?> invokable,
+         Class<A> annotationType) {
+      ImmutableList.Builder<A> result = ImmutableList.builder();
+      if (owner.isAnnotationPresent(annotationType))
+         result.add(owner.getAnnotation(annotationType));
+      if (invokable.isAnnotationPresent(annotationType))
+         result.add(invokable.getAnnotation(annotationType));
+      return result.build();
+   }
+
+   private static List<String> paths(Class<?> owner, Invokable<?, ?> invokable) {
+      ImmutableList.Builder<String> result = ImmutableList.builder();
+      for (Path path : ownerThenMethod(owner, invokable, Path.class)) {
+         result.add(path.value());
+      }
+      return result.build();
+   }
+
+   private static List<Class<? extends HttpRequestFilter>> filters(Class<?> owner, Invokable<?, ?> invokable) {
+      ImmutableList.Builder<Class<? extends HttpRequestFilter>> result = ImmutableList.builder();
+      boolean overridden = invokable.isAnnotationPresent(RequestFilters.class)
+            && invokable.isAnnotationPresent(OverrideRequestFilters.class);
+      if (owner.isAnnotationPresent(RequestFilters.class) && !overridden)
+         result.add(owner.getAnnotation(RequestFilters.class).value());
+      if (invokable.isAnnotationPresent(RequestFilters.class))
+         result.add(invokable.getAnnotation(RequestFilters.class).value());
+      return result.build();
+   }
+
+   private static Set<Integer> optionIndexes(List<Parameter> parameters) {
+      ImmutableSet.Builder<Integer> result = ImmutableSet.builder();
+      for (Parameter param : parameters) {
+         Class<?> type = param.getType().getRawType();
+         if (HttpRequestOptions.class.isAssignableFrom(type) || HttpRequestOptions[].class.isAssignableFrom(type))
+            result.add(param.hashCode());
+      }
+      return result.build();
+   }
+
+   private static List<Parameter> withAnnotation(List<Parameter> parameters,
+         Class<? extends Annotation> annotationType) {
+      ImmutableList.Builder<Parameter> result = ImmutableList.builder();
+      for (Parameter param : parameters) {
+         if (param.isAnnotationPresent(annotationType))
+            result.add(param);
+      }
+      return result.build();
+   }
+}
@@ -21,21 +21,18 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Predicates.instanceOf;
-import static com.google.common.collect.Collections2.filter;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.get;
 import static com.google.common.collect.Iterables.transform;
 import static com.google.common.collect.Iterables.tryFind;
-import static com.google.common.collect.Lists.newArrayList;
+import static com.google.common.collect.Lists.newArrayListWithCapacity;
 import static com.google.common.collect.Lists.newLinkedList;
 import static com.google.common.collect.Multimaps.transformValues;
 import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.HttpHeaders.HOST;
 import static java.lang.String.format;
-import static java.util.Arrays.asList;
 import static org.jclouds.http.HttpUtils.filterOutContentHeaders;
-import static org.jclouds.http.HttpUtils.tryFindHttpMethod;
 import static org.jclouds.http.Uris.uriBuilder;
 import static org.jclouds.io.Payloads.newPayload;
 import static org.jclouds.reflect.Reflection2.getInvokableParameters;
@@ -59,9 +56,7 @@ import javax.inject.Named;
 import javax.ws.rs.Encoded;
 import javax.ws.rs.FormParam;
 import javax.ws.rs.HeaderParam;
-import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
-import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 
 import org.jclouds.Constants;
@@ -94,39 +89,27 @@ import org.jclouds.rest.annotations.Endpoint;
 import org.jclouds.rest.annotations.EndpointParam;
 import org.jclouds.rest.annotations.FormParams;
 import org.jclouds.rest.annotations.Headers;
-import org.jclouds.rest.annotations.MapBinder;
-import org.jclouds.rest.annotations.OverrideRequestFilters;
 import org.jclouds.rest.annotations.ParamParser;
 import org.jclouds.rest.annotations.PartParam;
 import org.jclouds.rest.annotations.PayloadParam;
 import org.jclouds.rest.annotations.PayloadParams;
 import org.jclouds.rest.annotations.QueryParams;
-import org.jclouds.rest.annotations.RequestFilters;
-import org.jclouds.rest.annotations.SkipEncoding;
-import org.jclouds.rest.annotations.VirtualHost;
 import org.jclouds.rest.annotations.WrapWith;
-import org.jclouds.rest.binders.BindMapToStringPayload;
 import org.jclouds.rest.binders.BindToJsonPayloadWrappedWith;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Function;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
-import com.google.common.base.Predicate;
 import com.google.common.base.Supplier;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSet.Builder;
 import com.google.common.collect.LinkedHashMultimap;
 import com.google.common.collect.LinkedListMultimap;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Multimap;
-import com.google.common.primitives.Chars;
 import com.google.common.reflect.Invokable;
 import com.google.common.reflect.Parameter;
 import com.google.inject.Inject;
@@ -191,6 +174,8 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
    public GeneratedHttpRequest apply(Invocation invocation) {
       checkNotNull(invocation, "invocation");
       inputParamValidator.validateMethodParametersOrThrow(invocation, getInvokableParameters(invocation.getInvokable()));
+      RequestTemplate template = RequestTemplate.of(invocation.getInvokable());
+      RequestTemplate callerTemplate = caller != null ? RequestTemplate.of(caller.getInvokable()) : null;
 
       Optional<URI> endpoint = Optional.absent();
       HttpRequest r = findOrNull(invocation.getArgs(), HttpRequest.class);
@@ -224,11 +209,11 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
          requestMethod = r.getMethod();
          requestBuilder.fromHttpRequest(r);
       } else {
-         requestMethod = tryFindHttpMethod(invocation.getInvokable()).get();
+         requestMethod = template.httpMethod.get();
          requestBuilder.method(requestMethod);
       }
 
-      requestBuilder.filters(getFiltersIfAnnotated(invocation));
+      requestBuilder.filters(getFiltersIfAnnotated(invocation, template));
       if (stripExpectHeader) {
          requestBuilder.filter(new StripExpectHeader());
       }
@@ -244,34 +229,36 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       // URI template in rfc6570 form
       UriBuilder uriBuilder = uriBuilder(endpoint.get().toString());
 
-      overridePathEncoding(uriBuilder, invocation);
+      if (template.skipPathEncoding != null) {
+         uriBuilder.skipPathEncoding(template.skipPathEncoding);
+      }
 
-      boolean encodeFullPath = !isEncodedUsed(invocation);
+      boolean encodeFullPath = template.encodeFullPath;
       if (caller != null)
-         tokenValues.putAll(addPathAndGetTokens(caller, uriBuilder, encodeFullPath));
-      tokenValues.putAll(addPathAndGetTokens(invocation, uriBuilder, encodeFullPath));
+         tokenValues.putAll(addPathAndGetTokens(caller, callerTemplate, uriBuilder, encodeFullPath));
+      tokenValues.putAll(addPathAndGetTokens(invocation, template, uriBuilder, encodeFullPath));
       Multimap<String, Object> formParams;
       if (caller != null) {
-         formParams = addFormParams(tokenValues, caller);
-         formParams.putAll(addFormParams(tokenValues, invocation));
+         formParams = addFormParams(tokenValues, caller, callerTemplate);
+         formParams.putAll(addFormParams(tokenValues, invocation, template));
       } else {
-         formParams = addFormParams(tokenValues, invocation);
+         formParams = addFormParams(tokenValues, invocation, template);
       }
 
-      Multimap<String, Object> queryParams = addQueryParams(tokenValues, invocation);
+      Multimap<String, Object> queryParams = addQueryParams(tokenValues, invocation, template);
 
       Multimap<String, String> headers;
       if (caller != null) {
-         headers = buildHeaders(tokenValues, caller);
-         headers.putAll(buildHeaders(tokenValues, invocation));
+         headers = buildHeaders(tokenValues, caller, callerTemplate);
+         headers.putAll(buildHeaders(tokenValues, invocation, template));
       } else {
-         headers = buildHeaders(tokenValues, invocation);
+         headers = buildHeaders(tokenValues, invocation, template);
       }
 
       if (r != null)
          headers.putAll(r.getHeaders());
 
-      if (shouldAddHostHeader(invocation)) {
+      if (template.virtualHost) {
          StringBuilder hostHeader = new StringBuilder(endpoint.get().getHost());
          if (endpoint.get().getPort() != -1)
             hostHeader.append(":").append(endpoint.get().getPort());
@@ -279,7 +266,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
 
       Payload payload = null;
-      for (HttpRequestOptions options : findOptionsIn(invocation)) {
+      for (HttpRequestOptions options : findOptionsIn(invocation, template)) {
          injector.injectMembers(options);  // TODO test case
          for (Entry<String, String> header : options.buildRequestHeaders().entries()) {
             headers.put(header.getKey(), replaceTokens(header.getValue(), tokenValues));
@@ -316,7 +303,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
                Payload.class);
       }
 
-      List<? extends Part> parts = getParts(invocation, ImmutableMultimap.<String, Object> builder()
+      List<? extends Part> parts = getParts(invocation, template, ImmutableMultimap.<String, Object> builder()
             .putAll(tokenValues).putAll(formParams).build());
 
       if (!parts.isEmpty()) {
@@ -336,22 +323,21 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
       GeneratedHttpRequest request = requestBuilder.build();
 
-      org.jclouds.rest.MapBinder mapBinder = getMapPayloadBinderOrNull(invocation);
+      org.jclouds.rest.MapBinder mapBinder = getMapPayloadBinderOrNull(invocation, template);
       if (mapBinder != null) {
          Map<String, Object> mapParams;
          if (caller != null) {
-            mapParams = buildPayloadParams(caller);
-            mapParams.putAll(buildPayloadParams(invocation));
+            mapParams = buildPayloadParams(caller, callerTemplate);
+            mapParams.putAll(buildPayloadParams(invocation, template));
          } else {
-            mapParams = buildPayloadParams(invocation);
+            mapParams = buildPayloadParams(invocation, template);
          }
-         if (invocation.getInvokable().isAnnotationPresent(PayloadParams.class)) {
-            PayloadParams params = invocation.getInvokable().getAnnotation(PayloadParams.class);
-            addMapPayload(mapParams, params, headers, tokenValues);
+         if (template.payloadParams != null) {
+            addMapPayload(mapParams, template.payloadParams, headers, tokenValues);
          }
          request = mapBinder.bindToRequest(request, mapParams);
       } else {
-         request = decorateRequest(request);
+         request = decorateRequest(request, template);
       }
 
       if (request.getPayload() != null) {
@@ -376,16 +362,6 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return ImmutableMap.copyOf(out);
    }
 
-   private void overridePathEncoding(UriBuilder uriBuilder, Invocation invocation) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(SkipEncoding.class)) {
-         uriBuilder.skipPathEncoding(Chars.asList(invocation.getInvokable().getOwnerType().getRawType()
-               .getAnnotation(SkipEncoding.class).value()));
-      }
-      if (invocation.getInvokable().isAnnotationPresent(SkipEncoding.class)) {
-         uriBuilder.skipPathEncoding(Chars.asList(invocation.getInvokable().getAnnotation(SkipEncoding.class).value()));
-      }
-   }
-
    // different than guava as accepts null
    private static enum NullableToStringFunction implements Function<Object, String> {
       INSTANCE;
@@ -411,46 +387,34 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return endpoint;
    }
 
-   private Multimap<String, Object> addPathAndGetTokens(Invocation invocation, UriBuilder uriBuilder,
-                                                        boolean encodeFullPath) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Path.class))
-         uriBuilder.appendPath(invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Path.class).value());
-      if (invocation.getInvokable().isAnnotationPresent(Path.class))
-         uriBuilder.appendPath(invocation.getInvokable().getAnnotation(Path.class).value());
-      return getPathParamKeyValues(invocation, encodeFullPath);
+   private Multimap<String, Object> addPathAndGetTokens(Invocation invocation, RequestTemplate template,
+                                                        UriBuilder uriBuilder, boolean encodeFullPath) {
+      for (String path : template.paths)
+         uriBuilder.appendPath(path);
+      return getPathParamKeyValues(invocation, template, encodeFullPath);
    }
 
-   private Multimap<String, Object> addFormParams(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, Object> addFormParams(Multimap<String, ?> tokenValues, Invocation invocation,
+         RequestTemplate template) {
       Multimap<String, Object> formMap = LinkedListMultimap.create();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(FormParams.class)) {
-         FormParams form = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(FormParams.class);
+      for (FormParams form : template.formParams) {
          addForm(formMap, form, tokenValues);
       }
 
-      if (invocation.getInvokable().isAnnotationPresent(FormParams.class)) {
-         FormParams form = invocation.getInvokable().getAnnotation(FormParams.class);
-         addForm(formMap, form, tokenValues);
-      }
-
-      for (Entry<String, Object> form : getFormParamKeyValues(invocation).entries()) {
+      for (Entry<String, Object> form : getFormParamKeyValues(invocation, template).entries()) {
          formMap.put(form.getKey(), replaceTokens(form.getValue().toString(), tokenValues));
       }
       return formMap;
    }
 
-   private Multimap<String, Object> addQueryParams(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, Object> addQueryParams(Multimap<String, ?> tokenValues, Invocation invocation,
+         RequestTemplate template) {
       Multimap<String, Object> queryMap = LinkedListMultimap.create();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(QueryParams.class)) {
-         QueryParams query = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(QueryParams.class);
-         addQuery(queryMap, query, tokenValues);
-      }
-
-      if (invocation.getInvokable().isAnnotationPresent(QueryParams.class)) {
-         QueryParams query = invocation.getInvokable().getAnnotation(QueryParams.class);
+      for (QueryParams query : template.queryParams) {
          addQuery(queryMap, query, tokenValues);
       }
 
-      for (Entry<String, Object> query : getQueryParamKeyValues(invocation, tokenValues).entries()) {
+      for (Entry<String, Object> query : getQueryParamKeyValues(invocation, template, tokenValues).entries()) {
          queryMap.put(query.getKey(), query.getValue());
       }
       return queryMap;
@@ -490,33 +454,19 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
    }
 
-   private List<HttpRequestFilter> getFiltersIfAnnotated(Invocation invocation) {
-      List<HttpRequestFilter> filters = newArrayList();
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(RequestFilters.class)) {
-         for (Class<? extends HttpRequestFilter> clazz : invocation.getInvokable().getOwnerType().getRawType()
-               .getAnnotation(RequestFilters.class).value()) {
-            HttpRequestFilter instance = injector.getInstance(clazz);
-            filters.add(instance);
-            logger.trace("adding filter %s from annotation on %s", instance, invocation.getInvokable().getOwnerType()
-                  .getRawType().getName());
-         }
-      }
-      if (invocation.getInvokable().isAnnotationPresent(RequestFilters.class)) {
-         if (invocation.getInvokable().isAnnotationPresent(OverrideRequestFilters.class))
-            filters.clear();
-         for (Class<? extends HttpRequestFilter> clazz : invocation.getInvokable().getAnnotation(RequestFilters.class)
-               .value()) {
-            HttpRequestFilter instance = injector.getInstance(clazz);
-            filters.add(instance);
-            logger.trace("adding filter %s from annotation on %s", instance, invocation.getInvokable().getName());
-         }
+   private List<HttpRequestFilter> getFiltersIfAnnotated(Invocation invocation, RequestTemplate template) {
+      List<HttpRequestFilter> filters = newArrayListWithCapacity(template.filters.size());
+      for (Class<? extends HttpRequestFilter> clazz : template.filters) {
+         HttpRequestFilter instance = injector.getInstance(clazz);
+         filters.add(instance);
+         logger.trace("adding filter %s from annotation on %s", instance, invocation.getInvokable());
       }
       return filters;
    }
 
    @VisibleForTesting
    static URI getEndpointInParametersOrNull(Invocation invocation, Injector injector) {
-      Collection<Parameter> endpointParams = parametersWithAnnotation(invocation.getInvokable(), EndpointParam.class);
+      Collection<Parameter> endpointParams = RequestTemplate.of(invocation.getInvokable()).endpointParams;
       if (endpointParams.isEmpty())
          return null;
       checkState(endpointParams.size() == 1, "invocation.getInvoked() %s has too many EndpointParam annotations",
@@ -535,27 +485,14 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
    }
 
-   private static Collection<Parameter> parametersWithAnnotation(Invokable<?, ?> invokable,
-         final Class<? extends Annotation> annotationType) {
-      return filter(getInvokableParameters(invokable), new Predicate<Parameter>() {
-         public boolean apply(Parameter in) {
-            return in.isAnnotationPresent(annotationType);
-         }
-      });
-   }
-
    private static final TypeLiteral<Supplier<URI>> uriSupplierLiteral = new TypeLiteral<Supplier<URI>>() {
    };
 
    protected Optional<URI> getEndpointFor(Invocation invocation) {
       URI endpoint = getEndpointInParametersOrNull(invocation, injector);
       if (endpoint == null) {
-         Endpoint annotation;
-         if (invocation.getInvokable().isAnnotationPresent(Endpoint.class)) {
-            annotation = invocation.getInvokable().getAnnotation(Endpoint.class);
-         } else if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Endpoint.class)) {
-            annotation = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Endpoint.class);
-         } else {
+         Endpoint annotation = RequestTemplate.of(invocation.getInvokable()).endpoint;
+         if (annotation == null) {
             logger.trace("no annotations on class or invocation.getInvoked(): %s", invocation.getInvokable());
             return Optional.absent();
          }
@@ -578,7 +515,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return baseURI.resolve(original);
    }
 
-   private org.jclouds.rest.MapBinder getMapPayloadBinderOrNull(Invocation invocation) {
+   private org.jclouds.rest.MapBinder getMapPayloadBinderOrNull(Invocation invocation, RequestTemplate template) {
       if (invocation.getArgs() != null) {
          for (Object arg : invocation.getArgs()) {
             if (arg instanceof Object[]) {
@@ -604,29 +541,19 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             }
          }
       }
-      if (invocation.getInvokable().isAnnotationPresent(MapBinder.class)) {
-         return injector.getInstance(invocation.getInvokable().getAnnotation(MapBinder.class).value());
-      } else if (invocation.getInvokable().isAnnotationPresent(org.jclouds.rest.annotations.Payload.class)) {
-         return injector.getInstance(BindMapToStringPayload.class);
-      } else if (invocation.getInvokable().isAnnotationPresent(WrapWith.class)) {
-         return injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(
-               invocation.getInvokable().getAnnotation(WrapWith.class).value());
+      if (template.mapBinder != null) {
+         return injector.getInstance(template.mapBinder);
+      } else if (template.wrapWith != null) {
+         return injector.getInstance(BindToJsonPayloadWrappedWith.Factory.class).create(template.wrapWith);
       }
       return null;
    }
 
-   private boolean shouldAddHostHeader(Invocation invocation) {
-      return invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(VirtualHost.class) || invocation
-            .getInvokable().isAnnotationPresent(VirtualHost.class);
-   }
-
-   private GeneratedHttpRequest decorateRequest(GeneratedHttpRequest request) throws NegativeArraySizeException {
+   private GeneratedHttpRequest decorateRequest(GeneratedHttpRequest request, RequestTemplate template)
+         throws NegativeArraySizeException {
       Invocation invocation = request.getInvocation();
       List<Object> args = request.getInvocation().getArgs();
-      Set<Parameter> binderOrWrapWith = ImmutableSet.copyOf(concat(
-            parametersWithAnnotation(invocation.getInvokable(), BinderParam.class),
-            parametersWithAnnotation(invocation.getInvokable(), WrapWith.class)));
-      OUTER: for (Parameter entry : binderOrWrapWith) {
+      OUTER: for (Parameter entry : template.binderOrWrapWithParams) {
          int position = entry.hashCode();
          boolean shouldBreak = false;
          Binder binder;
@@ -642,7 +569,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             if (!argType.isArray() && parameterType.isArray()) {// TODO: &&
                                                                 // invocation.getInvokable().isVarArgs())
                                                                 // {
-               int arrayLength = args.size() - getInvokableParameters(invocation.getInvokable()).size() + 1;
+               int arrayLength = args.size() - template.parameterCount + 1;
                if (arrayLength == 0)
                   break OUTER;
                arg = (Object[]) Array.newInstance(arg.getClass(), arrayLength);
@@ -664,7 +591,7 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
             if (shouldBreak)
                break OUTER;
          } else {
-            if (position + 1 == getInvokableParameters(invocation.getInvokable()).size() && entry.getType().isArray())// TODO:
+            if (position + 1 == template.parameterCount && entry.getType().isArray())// TODO:
                                                                                                               // &&
                                                                                                               // invocation.getInvokable().isVarArgs())
                continue OUTER;
@@ -678,24 +605,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return request;
    }
 
-   private static final LoadingCache<Invokable<?, ?>, Set<Integer>> invokableToIndexesOfOptions = CacheBuilder
-         .newBuilder().build(new CacheLoader<Invokable<?, ?>, Set<Integer>>() {
-            @Override
-            public Set<Integer> load(Invokable<?, ?> invokable) {
-               Builder<Integer> toReturn = ImmutableSet.builder();
-               for (Parameter param : getInvokableParameters(invokable)) {
-                  Class<?> type = param.getType().getRawType();
-                  if (HttpRequestOptions.class.isAssignableFrom(type)
-                        || HttpRequestOptions[].class.isAssignableFrom(type))
-                     toReturn.add(param.hashCode());
-               }
-               return toReturn.build();
-            }
-         });
-
-   private Set<HttpRequestOptions> findOptionsIn(Invocation invocation) {
+   private Set<HttpRequestOptions> findOptionsIn(Invocation invocation, RequestTemplate template) {
       ImmutableSet.Builder<HttpRequestOptions> result = ImmutableSet.builder();
-      for (int index : invokableToIndexesOfOptions.getUnchecked(invocation.getInvokable())) {
+      for (int index : template.optionIndexes) {
          if (invocation.getArgs().size() >= index + 1) {// accommodate
                                                         // varinvocation.getArgs()
             if (invocation.getArgs().get(index) instanceof Object[]) {
@@ -716,16 +628,21 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return result.build();
    }
 
-   private Multimap<String, String> buildHeaders(Multimap<String, ?> tokenValues, Invocation invocation) {
+   private Multimap<String, String> buildHeaders(Multimap<String, ?> tokenValues, Invocation invocation,
+         RequestTemplate template) {
       Multimap<String, String> headers = LinkedHashMultimap.create();
-      addHeaderIfAnnotationPresentOnMethod(headers, invocation, tokenValues);
-      for (Parameter headerParam : parametersWithAnnotation(invocation.getInvokable(), HeaderParam.class)) {
+      for (Headers header : template.headers) {
+         addHeader(headers, header, tokenValues);
+      }
+      for (Parameter headerParam : template.headerParams) {
          Annotation key = headerParam.getAnnotation(HeaderParam.class);
          String value = invocation.getArgs().get(headerParam.hashCode()).toString();
          value = replaceTokens(value, tokenValues);
          headers.put(((HeaderParam) key).value(), value);
       }
-      addProducesIfPresentOnTypeOrMethod(headers, invocation);
+      if (template.produces != null) {
+         headers.replaceValues(CONTENT_TYPE, template.produces);
+      }
       addConsumesIfPresentOnTypeOrMethod(headers, invocation);
       return headers;
    }
@@ -736,29 +653,6 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
          headers.replaceValues(ACCEPT, accept);
    }
 
-   private void addProducesIfPresentOnTypeOrMethod(Multimap<String, String> headers, Invocation invocation) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Produces.class)) {
-         Produces header = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Produces.class);
-         headers.replaceValues(CONTENT_TYPE, asList(header.value()));
-      }
-      if (invocation.getInvokable().isAnnotationPresent(Produces.class)) {
-         Produces header = invocation.getInvokable().getAnnotation(Produces.class);
-         headers.replaceValues(CONTENT_TYPE, asList(header.value()));
-      }
-   }
-
-   private void addHeaderIfAnnotationPresentOnMethod(Multimap<String, String> headers, Invocation invocation,
-         Multimap<String, ?> tokenValues) {
-      if (invocation.getInvokable().getOwnerType().getRawType().isAnnotationPresent(Headers.class)) {
-         Headers header = invocation.getInvokable().getOwnerType().getRawType().getAnnotation(Headers.class);
-         addHeader(headers, header, tokenValues);
-      }
-      if (invocation.getInvokable().isAnnotationPresent(Headers.class)) {
-         Headers header = invocation.getInvokable().getAnnotation(Headers.class);
-         addHeader(headers, header, tokenValues);
-      }
-   }
-
    private static void addHeader(Multimap<String, String> headers, Headers header, Multimap<String, ?> tokenValues) {
       for (int i = 0; i < header.keys().length; i++) {
          String value = header.values()[i];
@@ -767,9 +661,10 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       }
    }
 
-   private static List<Part> getParts(Invocation invocation, Multimap<String, ?> tokenValues) {
+   private static List<Part> getParts(Invocation invocation, RequestTemplate template,
+         Multimap<String, ?> tokenValues) {
       ImmutableList.Builder<Part> parts = ImmutableList.<Part> builder();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PartParam.class)) {
+      for (Parameter param : template.partParams) {
          PartParam partParam = param.getAnnotation(PartParam.class);
          PartOptions options = new PartOptions();
          if (!PartParam.NO_CONTENT_TYPE.equals(partParam.contentType()))
@@ -796,13 +691,10 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return request;
    }
 
-   private boolean isEncodedUsed(Invocation invocation) {
-      return !parametersWithAnnotation(invocation.getInvokable(), Encoded.class).isEmpty();
-   }
-
-   private Multimap<String, Object> getPathParamKeyValues(Invocation invocation, boolean encodeFullPath) {
+   private Multimap<String, Object> getPathParamKeyValues(Invocation invocation, RequestTemplate template,
+         boolean encodeFullPath) {
       Multimap<String, Object> pathParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PathParam.class)) {
+      for (Parameter param : template.pathParams) {
          PathParam pathParam = param.getAnnotation(PathParam.class);
          String paramKey = pathParam.value();
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
@@ -836,9 +728,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return true;
    }
 
-   private Multimap<String, Object> getFormParamKeyValues(Invocation invocation) {
+   private Multimap<String, Object> getFormParamKeyValues(Invocation invocation, RequestTemplate template) {
       Multimap<String, Object> formParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), FormParam.class)) {
+      for (Parameter param : template.formParamParams) {
          FormParam formParam = param.getAnnotation(FormParam.class);
          String paramKey = formParam.value();
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
@@ -849,9 +741,10 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return formParamValues;
    }
 
-   private Multimap<String, Object> getQueryParamKeyValues(Invocation invocation, Multimap<String, ?> tokenValues) {
+   private Multimap<String, Object> getQueryParamKeyValues(Invocation invocation, RequestTemplate template,
+         Multimap<String, ?> tokenValues) {
       Multimap<String, Object> queryParamValues = LinkedHashMultimap.create();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), QueryParam.class)) {
+      for (Parameter param : template.queryParamParams) {
          QueryParam queryParam = param.getAnnotation(QueryParam.class);
          String paramKey = urlEncode(queryParam.value(), '/', ',');
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
@@ -874,9 +767,9 @@ public class RestAnnotationProcessor implements Function<Invocation, HttpRequest
       return queryParamValues;
    }
 
-   private Map<String, Object> buildPayloadParams(Invocation invocation) {
+   private Map<String, Object> buildPayloadParams(Invocation invocation, RequestTemplate template) {
       Map<String, Object> payloadParamValues = Maps.newLinkedHashMap();
-      for (Parameter param : parametersWithAnnotation(invocation.getInvokable(), PayloadParam.class)) {
+      for (Parameter param : template.payloadParamParams) {
          PayloadParam payloadParam = param.getAnnotation(PayloadParam.class);
          String paramKey = payloadParam.value();
          Optional<?> paramValue = getParamValue(invocation, param.getAnnotation(ParamParser.class), param.hashCode(),
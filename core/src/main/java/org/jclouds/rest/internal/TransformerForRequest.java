@@ -62,6 +62,7 @@ import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.reflect.Invokable;
 import com.google.common.reflect.TypeToken;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.Injector;
 import com.google.inject.Key;
 import com.google.inject.TypeLiteral;
@@ -110,7 +111,7 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
       Invokable<?, ?> invoked = invocation.getInvokable();
       Set<String> acceptHeaders = getAcceptHeaders.apply(invocation);
       ResponseParser annotation = invoked.getAnnotation(ResponseParser.class);
-      Class<?> rawReturnType = invoked.getReturnType().getRawType();
+      Class<?> rawReturnType = responseType(invoked).getRawType();
       if (annotation == null) {
          if (rawReturnType.equals(void.class)) {
             return Key.get(ReleasePayloadAndReturn.class);
@@ -144,7 +145,7 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
                ? Optional.<Type>absent()
                : Optional.<Type>of(configuredClass);
       }
-      Type returnVal = configuredReturnVal.or(getReturnTypeFor(invoked.getReturnType()));
+      Type returnVal = configuredReturnVal.or(getReturnTypeFor(responseType(invoked)));
       Type parserType = newParameterizedType(ParseXMLWithJAXB.class, returnVal);
       return (Key<? extends Function<HttpResponse, ?>>) Key.get(parserType);
    }
@@ -153,18 +154,29 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
    private static Key<? extends Function<HttpResponse, ?>> getJsonParserKeyForMethod(Invokable<?, ?> invoked) {
       ParameterizedType parserType;
       if (invoked.isAnnotationPresent(Unwrap.class)) {
-         parserType = newParameterizedType(UnwrapOnlyJsonValue.class, getReturnTypeFor(invoked.getReturnType()));
+         parserType = newParameterizedType(UnwrapOnlyJsonValue.class, getReturnTypeFor(responseType(invoked)));
       } else if (invoked.isAnnotationPresent(Transform.class)) {
          // At this point, there's no user-configured response parser. Make a default one from Transform's input.
          TypeToken<? extends Function> fn = TypeToken.of(invoked.getAnnotation(Transform.class).value());
          Type fnInput = ((ParameterizedType) fn.getSupertype(Function.class).getType()).getActualTypeArguments()[0];
          parserType = newParameterizedType(ParseJson.class, fnInput);
       } else {
-         parserType = newParameterizedType(ParseJson.class, getReturnTypeFor(invoked.getReturnType()));
+         parserType = newParameterizedType(ParseJson.class, getReturnTypeFor(responseType(invoked)));
       }
       return (Key<? extends Function<HttpResponse, ?>>) Key.get(parserType);
    }
 
+   /**
+    * The type the response is parsed into, which is the value type for methods returning a {@link ListenableFuture}.
+    */
+   static TypeToken<?> responseType(Invokable<?, ?> invoked) {
+      TypeToken<?> returnType = invoked.getReturnType();
+      if (returnType.getRawType().equals(ListenableFuture.class)) {
+         return returnType.resolveType(ListenableFuture.class.getTypeParameters()[0]);
+      }
+      return returnType;
+   }
+
    static Type getReturnTypeFor(TypeToken<?> typeToken) {
       Type returnVal = typeToken.getType();
       if (typeToken.getRawType().getTypeParameters().length == 0) {
@@ -180,7 +192,7 @@ public class TransformerForRequest implements Function<HttpRequest, Function<Htt
       Invokable<?, ?> invoked = invocation.getInvokable();
       Function<HttpResponse, ?> transformer;
       if (invoked.isAnnotationPresent(SelectJson.class)) {
-         Type returnVal = getReturnTypeFor(invoked.getReturnType());
+         Type returnVal = getReturnTypeFor(responseType(invoked));
          if (invoked.isAnnotationPresent(OnlyElement.class))
             returnVal = newParameterizedType(Set.class, returnVal);
          transformer = new ParseFirstJsonValueNamed(injector.getInstance(GsonWrapper.class),
@@ -21,11 +21,14 @@ import static com.google.common.base.Throwables.propagate;
 import static org.jclouds.util.Throwables2.getFirstThrowableOfType;
 
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.rest.AuthorizationException;
 
+import com.google.common.annotations.Beta;
 import com.google.common.base.MoreObjects;
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
@@ -109,15 +112,18 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
       }
    }
 
+   private static final String KEY = "FOO";
+
    private final Supplier<T> delegate;
    private final long duration;
    private final TimeUnit unit;
+   private final boolean refreshAhead;
    private final LoadingCache<String, Optional<T>> cache;
 
    public static <T> MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> create(
          AtomicReference<AuthorizationException> authException, Supplier<T> delegate, long duration, TimeUnit unit) {
       return new MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T>(authException, delegate, duration,
-            unit, new ValueLoadedCallback.NoOpCallback<T>());
+            unit, new ValueLoadedCallback.NoOpCallback<T>(), null);
    }
    
    /**
@@ -127,16 +133,37 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
          AtomicReference<AuthorizationException> authException, Supplier<T> delegate, long duration, TimeUnit unit,
          ValueLoadedCallback<T> valueLoadedCallback) {
       return new MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T>(authException, delegate, duration,
-            unit, valueLoadedCallback);
+            unit, valueLoadedCallback, null);
+   }
+
+   /**
+    * Creates a memoized supplier which, once the duration has passed, keeps returning the last value while a single
+    * reload runs on the given executor. Only the first call blocks on the delegate, and a failed reload keeps the last
+    * value until the next call retries it.
+    */
+   @Beta
+   public static <T> MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> createRefreshingAhead(
+         AtomicReference<AuthorizationException> authException, Supplier<T> delegate, long duration, TimeUnit unit,
+         ValueLoadedCallback<T> valueLoadedCallback, Executor refreshExecutor) {
+      return new MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T>(authException, delegate, duration,
+            unit, valueLoadedCallback, checkNotNull(refreshExecutor, "refreshExecutor"));
    }
    
    MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier(AtomicReference<AuthorizationException> authException,
-         Supplier<T> delegate, long duration, TimeUnit unit, ValueLoadedCallback<T> valueLoadedCallback) {
+         Supplier<T> delegate, long duration, TimeUnit unit, ValueLoadedCallback<T> valueLoadedCallback,
+         @Nullable Executor refreshExecutor) {
       this.delegate = delegate;
       this.duration = duration;
       this.unit = unit;
-      this.cache = CacheBuilder.newBuilder().expireAfterWrite(duration, unit)
-            .build(new SetAndThrowAuthorizationExceptionSupplierBackedLoader<T>(delegate, authException, valueLoadedCallback));
+      this.refreshAhead = refreshExecutor != null;
+      CacheLoader<String, Optional<T>> loader = new SetAndThrowAuthorizationExceptionSupplierBackedLoader<T>(delegate,
+            authException, valueLoadedCallback);
+      if (refreshAhead) {
+         this.cache = CacheBuilder.newBuilder().refreshAfterWrite(duration, unit)
+               .build(CacheLoader.asyncReloading(loader, refreshExecutor));
+      } else {
+         this.cache = CacheBuilder.newBuilder().expireAfterWrite(duration, unit).build(loader);
+      }
    }
 
    @Override
@@ -147,7 +174,7 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
    @Override
    public T get() {
       try {
-         return cache.get("FOO").orNull();
+         return cache.get(KEY).orNull();
       } catch (UncheckedExecutionException e) {
          throw propagate(e.getCause());
       } catch (ExecutionException e) {
@@ -155,10 +182,22 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<T> ext
       }
    }
 
+   /**
+    * Serves the given value, for example one saved by a previous session, until the delegate is next loaded. When
+    * refreshing ahead, that load starts in the background right away.
+    */
+   @Beta
+   public void prime(T value) {
+      cache.put(KEY, Optional.fromNullable(value));
+      if (refreshAhead) {
+         cache.refresh(KEY);
+      }
+   }
+
    @Override
    public String toString() {
       return MoreObjects.toStringHelper(this).add("delegate", delegate).add("duration", duration).add("unit", unit)
-            .toString();
+            .add("refreshAhead", refreshAhead).toString();
    }
 
 }
@@ -19,12 +19,17 @@ package org.jclouds.collect;
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
 
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import org.easymock.EasyMock;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.MoreExecutors;
 
 /**
  * Tests behavior of {@code IterableWithMarkers}.
@@ -70,4 +75,46 @@ public class PagedIterablesTest {
       EasyMock.verify(markerToNext);
 
    }
+
+   @Test
+   public void testPrefetchFetchesAheadOfTheCaller() {
+      final AtomicInteger fetched = new AtomicInteger();
+      Function<Object, IterableWithMarker<String>> markerToNext = new Function<Object, IterableWithMarker<String>>() {
+         @Override
+         public IterableWithMarker<String> apply(Object marker) {
+            int page = fetched.incrementAndGet();
+            return IterableWithMarkers.from(ImmutableSet.of("page" + page), page < 4 ? "MARKER" + page : null);
+         }
+      };
+      IterableWithMarker<String> initial = IterableWithMarkers.from(ImmutableSet.of("page0"), "MARKER0");
+
+      PagedIterable<String> iterable = PagedIterables.prefetch(initial, markerToNext,
+            MoreExecutors.newDirectExecutorService(), 2);
+
+      Iterator<IterableWithMarker<String>> pages = iterable.iterator();
+      Assert.assertSame(pages.next(), initial);
+      Assert.assertEquals(fetched.get(), 2);
+      pages.next();
+      Assert.assertEquals(fetched.get(), 3);
+
+      fetched.set(0);
+      Assert.assertEquals(iterable.concat().toList(), ImmutableList.of("page0", "page1", "page2", "page3", "page4"));
+      Assert.assertEquals(fetched.get(), 4);
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testPrefetchPropagatesErrorWhenThePageIsReached() {
+      Function<Object, IterableWithMarker<String>> markerToNext = new Function<Object, IterableWithMarker<String>>() {
+         @Override
+         public IterableWithMarker<String> apply(Object marker) {
+            throw new IllegalStateException();
+         }
+      };
+      IterableWithMarker<String> initial = IterableWithMarkers.from(ImmutableSet.of("foo"), "MARKER1");
+
+      Iterator<IterableWithMarker<String>> pages = PagedIterables.prefetch(initial, markerToNext,
+            MoreExecutors.newDirectExecutorService(), 2).iterator();
+      Assert.assertSame(pages.next(), initial);
+      pages.next();
+   }
 }
@@ -24,12 +24,14 @@ import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.Constants.PROPERTY_USER_THREADS;
+import static org.jclouds.Constants.PROPERTY_USER_THREADS_VIRTUAL;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertTrue;
 
 import java.io.IOException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 
 import org.jclouds.lifecycle.Closer;
@@ -125,4 +127,37 @@ public class ExecutorServiceModuleTest {
          }
       };
    }
+
+   @Test
+   public void testVirtualThreadsFallBackToPlatformThreads() throws Exception {
+      ExecutorServiceModule module = new ExecutorServiceModule() {
+         @Override
+         protected void configure() {
+            bindConstant().annotatedWith(named(PROPERTY_USER_THREADS)).to(1);
+            bindConstant().annotatedWith(named(PROPERTY_USER_THREADS_VIRTUAL)).to(true);
+            super.configure();
+         }
+      };
+      Injector virtual = Guice.createInjector(module);
+      ListeningExecutorService user = virtual.getInstance(Key.get(ListeningExecutorService.class,
+            named(PROPERTY_USER_THREADS)));
+      try {
+         String threadName = user.submit(new Callable<String>() {
+            @Override
+            public String call() {
+               return Thread.currentThread().getName();
+            }
+         }).get();
+         boolean supported;
+         try {
+            Thread.class.getMethod("ofVirtual");
+            supported = true;
+         } catch (NoSuchMethodException e) {
+            supported = false;
+         }
+         assertTrue(threadName.startsWith(supported ? "user virtual thread " : "user thread "), threadName);
+      } finally {
+         virtual.getInstance(Closer.class).close();
+      }
+   }
 }
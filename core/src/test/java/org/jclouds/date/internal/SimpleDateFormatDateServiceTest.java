@@ -37,4 +37,29 @@ public class SimpleDateFormatDateServiceTest {
       Date date = new SimpleDateFormatDateService().iso8601DateParse("2009-02-03T05:26:32.612278");
       assertEquals("Tue Feb 03 05:26:32 GMT 2009", date.toString());
    }
+
+   public void testIso8601ParseOffsetsAndFractions() {
+      SimpleDateFormatDateService dateService = new SimpleDateFormatDateService();
+      assertEquals(dateService.iso8601DateParse("2011-11-07T11:19:13.38225Z").getTime(), 1320664753382L);
+      assertEquals(dateService.iso8601DateParse("2011-11-07T16:49:13.382+05:30").getTime(), 1320664753382L);
+      assertEquals(dateService.iso8601DateParse("2011-11-07T10:19:13.382-0100").getTime(), 1320664753382L);
+      assertEquals(dateService.iso8601SecondsDateParse("2011-11-07T11:19:13").getTime(), 1320664753000L);
+      assertEquals(dateService.iso8601SecondsDateParse("2012-02-29T00:00:00Z").getTime(), 1330473600000L);
+   }
+
+   public void testIso8601ParseLeniencyIsUnchanged() {
+      SimpleDateFormatDateService dateService = new SimpleDateFormatDateService();
+      // a single fraction digit is read as milliseconds, and out of range fields roll over
+      assertEquals(dateService.iso8601DateParse("2011-11-07T11:19:13.5Z").getTime(), 1320664753005L);
+      assertEquals(dateService.iso8601SecondsDateParse("2011-11-07T11:19:60Z").getTime(), 1320664800000L);
+      assertEquals(dateService.iso8601SecondsDateParse("2012-11-26T17:32:31UTC+0000").getTime(), 1353951151000L);
+   }
+
+   public void testFormatBeforeAndAfterTheDirectRange() {
+      SimpleDateFormatDateService dateService = new SimpleDateFormatDateService();
+      assertEquals(dateService.iso8601DateFormat(new Date(-2208988800001L)), "1899-12-31T23:59:59.999Z");
+      assertEquals(dateService.iso8601DateFormat(new Date(-2208988800000L)), "1900-01-01T00:00:00.000Z");
+      assertEquals(dateService.rfc822DateFormat(new Date(0)), "Thu, 01 Jan 1970 00:00:00 GMT");
+      assertEquals(dateService.iso8601SecondsDateFormat(new Date(253402300799999L)), "9999-12-31T23:59:59Z");
+   }
 }
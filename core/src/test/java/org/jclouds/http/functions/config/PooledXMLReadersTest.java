@@ -0,0 +1,129 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.functions.config;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+
+import org.jclouds.http.functions.ParseSax;
+import org.testng.annotations.Test;
+import org.xml.sax.Attributes;
+import org.xml.sax.XMLReader;
+
+import com.google.common.base.Charsets;
+import com.google.inject.Guice;
+
+@Test(groups = "unit", testName = "PooledXMLReadersTest")
+public class PooledXMLReadersTest {
+   private static final String XML = "\uFEFF<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+         + "<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">"
+         + "<Name>bucket</Name><Contents><Key>a &amp; b</Key><![CDATA[<raw>]]></Contents>"
+         + "<x:Owner xmlns:x=\"urn:x\" x:id=\"1\">owner</x:Owner></ListBucketResult>";
+
+   /** Records the callbacks which jclouds handlers rely on. */
+   static class RecordingHandler extends ParseSax.HandlerWithResult<String> {
+      private final StringBuilder events = new StringBuilder();
+
+      @Override
+      public void startElement(String uri, String localName, String qName, Attributes attributes) {
+         events.append('<').append(qName);
+         for (int i = 0; i < attributes.getLength(); i++) {
+            events.append(' ').append(attributes.getQName(i)).append('=').append(attributes.getValue(i));
+         }
+         events.append('>');
+      }
+
+      @Override
+      public void endElement(String uri, String localName, String qName) {
+         events.append("</").append(qName).append('>');
+      }
+
+      @Override
+      public void characters(char[] ch, int start, int length) {
+         events.append(ch, start, length);
+      }
+
+      @Override
+      public String getResult() {
+         return events.toString();
+      }
+   }
+
+   private static PooledXMLReaders newPool(boolean stax) {
+      PooledXMLReaders pool = Guice.createInjector(new SaxParserModule()).getInstance(PooledXMLReaders.class);
+      pool.stax = stax;
+      return pool;
+   }
+
+   private static String parse(ParseSax.XMLReaderPool pool) {
+      return new ParseSax<String>(pool, new RecordingHandler())
+            .parse(new ByteArrayInputStream(XML.getBytes(Charsets.UTF_8)));
+   }
+
+   public void testReusesReaderAfterSuccessfulParse() throws Exception {
+      PooledXMLReaders pool = newPool(false);
+      XMLReader reader = pool.borrow();
+      pool.release(reader, true);
+      assertEquals(pool.idleCount(), 1);
+      assertSame(pool.borrow(), reader);
+      assertEquals(pool.idleCount(), 0);
+   }
+
+   public void testDiscardsReaderAfterFailedParse() throws Exception {
+      PooledXMLReaders pool = newPool(false);
+      XMLReader reader = pool.borrow();
+      pool.release(reader, false);
+      assertEquals(pool.idleCount(), 0);
+      assertNotSame(pool.borrow(), reader);
+   }
+
+   public void testPoolIsBounded() throws Exception {
+      PooledXMLReaders pool = newPool(false);
+      pool.poolSize = 1;
+      XMLReader first = pool.borrow();
+      XMLReader second = pool.borrow();
+      pool.release(first, true);
+      pool.release(second, true);
+      assertEquals(pool.idleCount(), 1);
+   }
+
+   public void testFailedParseIsNotPooled() {
+      PooledXMLReaders pool = newPool(false);
+      try {
+         new ParseSax<String>(pool, new RecordingHandler()).parse("<unclosed>");
+         fail();
+      } catch (RuntimeException expected) {
+      }
+      assertEquals(pool.idleCount(), 0);
+   }
+
+   public void testStaxMatchesSax() {
+      PooledXMLReaders sax = newPool(false);
+      PooledXMLReaders stax = newPool(true);
+      String expected = parse(sax);
+      assertTrue(expected.contains("a & b"), expected);
+      assertEquals(parse(stax), expected);
+      // again with a pooled reader
+      assertEquals(stax.idleCount(), 1);
+      assertEquals(parse(stax), expected);
+   }
+}
@@ -0,0 +1,136 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.http.internal;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.testng.Assert.assertEquals;
+
+import org.jclouds.http.HttpRequest;
+import org.jclouds.http.HttpResponse;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+
+@Test(groups = "unit", testName = "AdaptiveRateLimiterTest", singleThreaded = true)
+public class AdaptiveRateLimiterTest {
+
+   private static final HttpRequest request = HttpRequest.builder().method("GET")
+         .endpoint("https://ec2.us-east-1.amazonaws.com/").build();
+   private static final HttpRequest otherHost = HttpRequest.builder().method("GET")
+         .endpoint("https://ec2.eu-west-1.amazonaws.com/").build();
+   private static final HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+   private static final HttpResponse throttled = HttpResponse.builder().statusCode(429).build();
+
+   private FakeTicker ticker;
+   private AdaptiveRateLimiter limiter;
+
+   @BeforeMethod
+   void createLimiter() {
+      ticker = new FakeTicker();
+      limiter = AdaptiveRateLimiter.create(ticker, 1, 1, 0.5, 5000);
+   }
+
+   public void testUnlimitedUntilThrottled() {
+      for (int i = 0; i < 100; i++) {
+         assertEquals(limiter.reserve(request), 0);
+         limiter.onResponse(request, ok);
+      }
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), Double.POSITIVE_INFINITY);
+   }
+
+   public void testThrottleHalvesObservedRate() {
+      for (int i = 0; i < 10; i++) {
+         limiter.reserve(request);
+      }
+      limiter.onResponse(request, throttled);
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), 5.0);
+      // requests are spaced at 200ms from the throttle on
+      assertEquals(limiter.reserve(request), 200);
+      assertEquals(limiter.reserve(request), 400);
+      ticker.advance(300);
+      assertEquals(limiter.reserve(request), 300);
+   }
+
+   public void testThrottlesWithinASecondCountOnce() {
+      for (int i = 0; i < 10; i++) {
+         limiter.reserve(request);
+      }
+      limiter.onResponse(request, throttled);
+      ticker.advance(500);
+      limiter.onResponse(request, throttled);
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), 5.0);
+      ticker.advance(500);
+      limiter.onResponse(request, throttled);
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), 2.5);
+   }
+
+   public void testIncreasesEverySecondWithoutThrottling() {
+      for (int i = 0; i < 10; i++) {
+         limiter.reserve(request);
+      }
+      limiter.onResponse(request, throttled);
+      limiter.onResponse(request, ok);
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), 5.0);
+      ticker.advance(1000);
+      limiter.onResponse(request, ok);
+      limiter.onResponse(request, ok);
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), 6.0);
+      ticker.advance(1000);
+      limiter.onResponse(request, ok);
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), 7.0);
+   }
+
+   public void testNeverBelowMinRate() {
+      limiter.reserve(request);
+      limiter.onResponse(request, throttled);
+      assertEquals(limiter.rate(request.getEndpoint().getHost()), 1.0);
+   }
+
+   public void testShedsBeyondMaxWait() {
+      limiter.reserve(request);
+      limiter.onResponse(request, throttled);
+      // one request per second and up to five seconds of waiting
+      for (int i = 1; i <= 5; i++) {
+         assertEquals(limiter.reserve(request), i * 1000);
+      }
+      assertEquals(limiter.reserve(request), -1);
+      ticker.advance(1000);
+      assertEquals(limiter.reserve(request), 5000);
+   }
+
+   public void testHostsAreLimitedSeparately() {
+      limiter.reserve(request);
+      limiter.onResponse(request, throttled);
+      assertEquals(limiter.reserve(otherHost), 0);
+      limiter.onResponse(otherHost, ok);
+      assertEquals(limiter.rate(otherHost.getEndpoint().getHost()), Double.POSITIVE_INFINITY);
+   }
+
+   private static final class FakeTicker extends Ticker {
+      private long nanos = 1234567890L;
+
+      @Override
+      public long read() {
+         return nanos;
+      }
+
+      void advance(long millis) {
+         nanos += MILLISECONDS.toNanos(millis);
+      }
+   }
+}
@@ -22,6 +22,7 @@ import static org.easymock.EasyMock.getCurrentArguments;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.jclouds.Constants.PROPERTY_IDEMPOTENT_METHODS;
+import static org.jclouds.Constants.PROPERTY_SCHEDULER_THREADS;
 import static org.jclouds.http.HttpUtils.closeClientButKeepContentStream;
 import static org.jclouds.http.HttpUtils.releasePayload;
 import static org.jclouds.io.Payloads.newInputStreamPayload;
@@ -32,6 +33,13 @@ import static org.testng.Assert.fail;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
 
 import javax.inject.Inject;
 import javax.inject.Named;
@@ -40,17 +48,24 @@ import org.easymock.EasyMock;
 import org.easymock.IAnswer;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpException;
+import org.jclouds.http.HttpInstrumentation;
 import org.jclouds.http.HttpRequest;
 import org.jclouds.http.HttpRequestFilter;
 import org.jclouds.http.HttpResponse;
 import org.jclouds.http.HttpUtils;
 import org.jclouds.http.IOExceptionRetryHandler;
+import org.jclouds.http.config.HttpInstrumentationModule;
 import org.jclouds.http.handlers.DelegatingErrorHandler;
 import org.jclouds.http.handlers.DelegatingRetryHandler;
+import org.jclouds.http.handlers.RetryDelays;
 import org.jclouds.io.ContentMetadataCodec;
 import org.jclouds.rest.internal.BaseHttpApiMetadata;
 import org.testng.annotations.Test;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ForwardingListenableFuture.SimpleForwardingListenableFuture;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
@@ -236,6 +251,205 @@ public class BaseHttpCommandExecutorServiceTest {
       verify(ioRetryHandler);
    }
 
+   public void testSubmitWaitsForRetryOnScheduler() throws Exception {
+      HttpCommand command = mockHttpCommand();
+      HttpResponse unavailable = HttpResponse.builder().statusCode(503).build();
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      final DelegatingRetryHandler retryHandler = EasyMock.createMock(DelegatingRetryHandler.class);
+      final DelegatingErrorHandler errorHandler = EasyMock.createMock(DelegatingErrorHandler.class);
+
+      expect(retryHandler.shouldRetryRequest(command, unavailable)).andAnswer(new IAnswer<Boolean>() {
+         @Override
+         public Boolean answer() throws Throwable {
+            RetryDelays.delay(100);
+            return true;
+         }
+      });
+      replay(retryHandler, errorHandler);
+
+      final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+      try {
+         Injector injector = Guice.createInjector(new AbstractModule() {
+            @Override
+            protected void configure() {
+               Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+               bind(DelegatingRetryHandler.class).toInstance(retryHandler);
+               bind(DelegatingErrorHandler.class).toInstance(errorHandler);
+               bind(ScheduledExecutorService.class).annotatedWith(Names.named(PROPERTY_SCHEDULER_THREADS))
+                     .toInstance(scheduler);
+            }
+         });
+         RespondingHttpCommandExecutorService service = injector
+               .getInstance(RespondingHttpCommandExecutorService.class);
+         service.responses.add(unavailable);
+         service.responses.add(ok);
+
+         ListenableFuture<HttpResponse> response = service.submit(command);
+         // the backoff is waited on the scheduler, not on the calling thread
+         assertFalse(response.isDone());
+         assertEquals(response.get(), ok);
+         assertTrue(service.responses.isEmpty());
+      } finally {
+         scheduler.shutdownNow();
+      }
+
+      verify(retryHandler, errorHandler);
+   }
+
+   public void testSubmitWaitsForRetryOnSharedSchedulerByDefault() throws Exception {
+      HttpCommand command = mockHttpCommand();
+      HttpResponse unavailable = HttpResponse.builder().statusCode(503).build();
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      final DelegatingRetryHandler retryHandler = EasyMock.createMock(DelegatingRetryHandler.class);
+      final DelegatingErrorHandler errorHandler = EasyMock.createMock(DelegatingErrorHandler.class);
+
+      expect(retryHandler.shouldRetryRequest(command, unavailable)).andAnswer(new IAnswer<Boolean>() {
+         @Override
+         public Boolean answer() throws Throwable {
+            RetryDelays.delay(100);
+            return true;
+         }
+      });
+      replay(retryHandler, errorHandler);
+
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            bind(DelegatingRetryHandler.class).toInstance(retryHandler);
+            bind(DelegatingErrorHandler.class).toInstance(errorHandler);
+         }
+      });
+      RespondingHttpCommandExecutorService service = injector.getInstance(RespondingHttpCommandExecutorService.class);
+      service.responses.add(unavailable);
+      service.responses.add(ok);
+
+      ListenableFuture<HttpResponse> response = service.submit(command);
+      // without a bound scheduler, the backoff is still not waited on the calling thread
+      assertFalse(response.isDone());
+      assertEquals(response.get(), ok);
+      assertTrue(service.responses.isEmpty());
+
+      verify(retryHandler, errorHandler);
+   }
+
+   public void testInstrumentationSeesEachAttempt() {
+      HttpCommand command = mockHttpCommand();
+      HttpResponse unavailable = HttpResponse.builder().statusCode(503).build();
+      HttpResponse ok = HttpResponse.builder().statusCode(200).build();
+
+      final DelegatingRetryHandler retryHandler = EasyMock.createMock(DelegatingRetryHandler.class);
+      final DelegatingErrorHandler errorHandler = EasyMock.createMock(DelegatingErrorHandler.class);
+      expect(retryHandler.shouldRetryRequest(command, unavailable)).andReturn(true);
+      replay(retryHandler, errorHandler);
+
+      RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+      RespondingHttpCommandExecutorService service = respondingHttpCommandExecutorService(retryHandler, errorHandler,
+            instrumentation);
+      service.responses.add(unavailable);
+      service.responses.add(ok);
+
+      assertEquals(service.invoke(command), ok);
+      assertEquals(instrumentation.events,
+            ImmutableList.of("filtered", "responded 503", "retrying 503", "filtered", "responded 200"));
+
+      verify(retryHandler, errorHandler);
+   }
+
+   public void testInstrumentationSeesOneOutcomeWhenTheErrorHandlerThrows() {
+      HttpCommand command = mockHttpCommand();
+      HttpResponse notFound = HttpResponse.builder().statusCode(404).build();
+
+      DelegatingRetryHandler retryHandler = EasyMock.createMock(DelegatingRetryHandler.class);
+      DelegatingErrorHandler errorHandler = EasyMock.createMock(DelegatingErrorHandler.class);
+      expect(retryHandler.shouldRetryRequest(command, notFound)).andReturn(false);
+      errorHandler.handleError(command, notFound);
+      expectLastCall().andThrow(new IllegalStateException("not found"));
+      replay(retryHandler, errorHandler);
+
+      RecordingInstrumentation instrumentation = new RecordingInstrumentation();
+      RespondingHttpCommandExecutorService service = respondingHttpCommandExecutorService(retryHandler, errorHandler,
+            instrumentation);
+      service.responses.add(notFound);
+
+      try {
+         service.invoke(command);
+         fail("the error handler should have failed the command");
+      } catch (RuntimeException expected) {
+      }
+      assertEquals(instrumentation.events, ImmutableList.of("filtered", "responded 404"));
+
+      verify(retryHandler, errorHandler);
+   }
+
+   public void testCancellingSubmitCancelsTheCallInFlightAndReleasesALateResponse() throws Exception {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+         }
+      });
+      PendingHttpCommandExecutorService service = injector.getInstance(PendingHttpCommandExecutorService.class);
+
+      ListenableFuture<HttpResponse> response = service.submit(mockHttpCommand());
+      assertFalse(response.isDone());
+      assertTrue(response.cancel(true));
+      assertTrue(service.cancelled);
+
+      // the native call did not stop in time, so its response is released instead of leaked
+      MockInputStream in = new MockInputStream(2);
+      service.inFlight.set(HttpResponse.builder().statusCode(200).payload(newInputStreamPayload(in)).build());
+      assertFalse(in.isOpen);
+   }
+
+   private static RespondingHttpCommandExecutorService respondingHttpCommandExecutorService(
+         final DelegatingRetryHandler retryHandler, final DelegatingErrorHandler errorHandler,
+         HttpInstrumentation instrumentation) {
+      Injector injector = Guice.createInjector(new AbstractModule() {
+         @Override
+         protected void configure() {
+            Names.bindProperties(binder(), BaseHttpApiMetadata.defaultProperties());
+            bind(DelegatingRetryHandler.class).toInstance(retryHandler);
+            bind(DelegatingErrorHandler.class).toInstance(errorHandler);
+         }
+      }, new HttpInstrumentationModule(instrumentation));
+      return injector.getInstance(RespondingHttpCommandExecutorService.class);
+   }
+
+   /**
+    * Records the events of each attempt in the order they are reported.
+    */
+   private static final class RecordingInstrumentation implements HttpInstrumentation {
+      private final List<String> events = Collections.synchronizedList(new ArrayList<String>());
+
+      @Override
+      public void filtered(HttpRequest request, long nanos) {
+         events.add("filtered");
+      }
+
+      @Override
+      public void responded(HttpRequest request, HttpResponse response, long nanos) {
+         events.add("responded " + response.getStatusCode());
+      }
+
+      @Override
+      public void failed(HttpRequest request, Throwable error, long nanos) {
+         events.add("failed");
+      }
+
+      @Override
+      public void retrying(HttpCommand command, HttpResponse response) {
+         events.add("retrying " + response.getStatusCode());
+      }
+
+      @Override
+      public void invoked(String commandName, long nanos, Throwable error) {
+         events.add("invoked");
+      }
+   }
+
    private HttpCommand mockHttpCommand() {
       return new HttpCommand(HttpRequest.builder().endpoint("http://localhost").method("mock").build());
    }
@@ -331,4 +545,48 @@ public class BaseHttpCommandExecutorServiceTest {
 
    }
 
+   private static class RespondingHttpCommandExecutorService extends MockHttpCommandExecutorService {
+      final Queue<HttpResponse> responses = new ConcurrentLinkedQueue<HttpResponse>();
+
+      @Inject
+      RespondingHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+            DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+            DelegatingErrorHandler errorHandler, HttpWire wire,
+            @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods) {
+         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      }
+
+      @Override
+      protected HttpResponse invoke(Object nativeRequest) throws IOException, InterruptedException {
+         return responses.remove();
+      }
+   }
+
+   /**
+    * Leaves the call in flight until the test completes it, recording cancellation without honouring it.
+    */
+   private static class PendingHttpCommandExecutorService extends MockHttpCommandExecutorService {
+      final SettableFuture<HttpResponse> inFlight = SettableFuture.create();
+      volatile boolean cancelled;
+
+      @Inject
+      PendingHttpCommandExecutorService(HttpUtils utils, ContentMetadataCodec contentMetadataCodec,
+            DelegatingRetryHandler retryHandler, IOExceptionRetryHandler ioRetryHandler,
+            DelegatingErrorHandler errorHandler, HttpWire wire,
+            @Named(PROPERTY_IDEMPOTENT_METHODS) String idempotentMethods) {
+         super(utils, contentMetadataCodec, retryHandler, ioRetryHandler, errorHandler, wire, idempotentMethods);
+      }
+
+      @Override
+      protected ListenableFuture<HttpResponse> invokeAsync(Object nativeRequest) {
+         return new SimpleForwardingListenableFuture<HttpResponse>(inFlight) {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+               cancelled = true;
+               return false;
+            }
+         };
+      }
+   }
+
 }
@@ -0,0 +1,107 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.io.payloads;
+
+import static org.jclouds.utils.TestUtils.randomByteSource;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.hash.Hashing;
+import com.google.common.io.ByteSource;
+import com.google.common.io.ByteStreams;
+
+@Test
+public class HashingPayloadTest {
+
+   public void testHashesOnceInASinglePass() throws IOException {
+      final ByteSource content = randomByteSource().slice(0, 100000);
+      final AtomicInteger opened = new AtomicInteger();
+      HashingPayload payload = new HashingPayload(new ByteSourcePayload(new ByteSource() {
+         @Override
+         public InputStream openStream() throws IOException {
+            opened.incrementAndGet();
+            return content.openStream();
+         }
+      }));
+
+      assertFalse(payload.isHashed());
+      assertEquals(payload.getSHA256(), content.hash(Hashing.sha256()));
+      assertEquals(payload.getMD5(), content.hash(Hashing.md5()));
+      assertEquals(payload.getCRC32C(), content.hash(Hashing.crc32c()));
+      assertEquals(opened.get(), 1);
+
+      // the content is still read in full afterwards
+      InputStream input = payload.openStream();
+      try {
+         assertEquals(ByteStreams.toByteArray(input), content.read());
+      } finally {
+         input.close();
+      }
+      assertEquals(opened.get(), 2);
+   }
+
+   public void testHashesWhileTheContentIsRead() throws IOException {
+      byte[] content = randomByteSource().slice(0, 1000).read();
+      HashingPayload payload = new HashingPayload(new InputStreamPayload(new ByteArrayInputStream(content)));
+      ByteStreams.copy(payload.openStream(), ByteStreams.nullOutputStream());
+
+      assertTrue(payload.isHashed());
+      assertEquals(payload.getMD5(), Hashing.md5().hashBytes(content));
+   }
+
+   public void testKeepsTheMD5OfTheContentMetadata() throws IOException {
+      HashingPayload payload = new HashingPayload(new StringPayload("content"));
+      payload.getContentMetadata().setContentMD5(Hashing.md5().hashBytes(new byte[1]));
+      payload.getSHA256();
+      assertEquals(payload.getContentMetadata().getContentMD5AsHashCode(), Hashing.md5().hashBytes(new byte[1]));
+   }
+
+   public void testDoesNotSetTheMD5OfTheContentMetadata() throws IOException {
+      HashingPayload payload = new HashingPayload(new StringPayload("content"));
+      payload.getMD5();
+      assertNull(payload.getContentMetadata().getContentMD5AsHashCode());
+   }
+
+   public void testHashesOnlyTheGivenFunctions() throws IOException {
+      byte[] content = randomByteSource().slice(0, 1000).read();
+      HashingPayload payload = new HashingPayload(new InputStreamPayload(new ByteArrayInputStream(content)),
+            Hashing.md5());
+      ByteStreams.copy(payload.openStream(), ByteStreams.nullOutputStream());
+
+      assertEquals(payload.getMD5(), Hashing.md5().hashBytes(content));
+      try {
+         payload.getSHA256();
+         fail("the SHA-256 is not computed");
+      } catch (IllegalArgumentException expected) {
+      }
+   }
+
+   @Test(expectedExceptions = IllegalStateException.class)
+   public void testDoesNotConsumeUnrepeatableContent() throws IOException {
+      new HashingPayload(new InputStreamPayload(new ByteArrayInputStream(new byte[1]))).getMD5();
+   }
+}
@@ -16,13 +16,19 @@
  */
 package org.jclouds.json;
 
+import static com.google.common.base.Charsets.UTF_8;
 import static com.google.common.io.BaseEncoding.base16;
 import static com.google.common.primitives.Bytes.asList;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
@@ -37,6 +43,7 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Lists;
 import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
 import com.google.gson.TypeAdapter;
@@ -52,6 +59,7 @@ import com.google.inject.TypeLiteral;
 @Test
 public class JsonTest {
    private Json json = Guice.createInjector(new GsonModule()).getInstance(Json.class);
+   private StreamingJson streamingJson = Guice.createInjector(new GsonModule()).getInstance(StreamingJson.class);
 
    private static class ObjectNoDefaultConstructor {
       private final String stringValue;
@@ -417,4 +425,55 @@ public class JsonTest {
          return nested;
       }
    }
+
+   public void testFromJsonArrayIsLazy() throws IOException {
+      ClosingStream stream = new ClosingStream("[{\"Id\":\"1\",\"Volumes\":null},{\"Id\":\"2\",\"Volumes\":null}]");
+      Iterator<SerializedNamesType> items = streamingJson.fromJsonArray(stream, SerializedNamesType.class);
+      assertEquals(items.next(), SerializedNamesType.create("1", null));
+      assertFalse(stream.closed);
+      assertEquals(items.next(), SerializedNamesType.create("2", null));
+      assertFalse(items.hasNext());
+      assertTrue(stream.closed);
+   }
+
+   public void testFromJsonArrayAtPath() {
+      String body = "{\"links\":[{\"rel\":\"next\"}],\"result\":{\"count\":2,\"servers\":[\"\u00e9t\u00e9\",\"b\"]}}";
+      Iterator<String> servers = streamingJson.fromJsonArray(new ClosingStream(body), String.class, "result", "servers");
+      assertEquals(Lists.newArrayList(servers), ImmutableList.of("\u00e9t\u00e9", "b"));
+   }
+
+   public void testFromJsonArrayMissingPathIsEmpty() {
+      ClosingStream stream = new ClosingStream("{\"result\":null}");
+      assertFalse(streamingJson.fromJsonArray(stream, String.class, "result", "servers").hasNext());
+      assertTrue(stream.closed);
+      assertFalse(streamingJson.fromJsonArray(new ClosingStream("{}"), String.class, "servers").hasNext());
+   }
+
+   public void testFromJsonStreamIsUtf8() {
+      assertEquals(json.fromJson(new ClosingStream("\"\u00e9t\u00e9\""), String.class), "\u00e9t\u00e9");
+   }
+
+   private static class ClosingStream extends InputStream {
+      private final InputStream delegate;
+      boolean closed;
+
+      ClosingStream(String json) {
+         delegate = new ByteArrayInputStream(json.getBytes(UTF_8));
+      }
+
+      @Override
+      public int read() throws IOException {
+         return delegate.read();
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+         return delegate.read(b, off, len);
+      }
+
+      @Override
+      public void close() {
+         closed = true;
+      }
+   }
 }
@@ -18,15 +18,24 @@ package org.jclouds.rest.internal;
 
 import static org.easymock.EasyMock.createMock;
 import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.isA;
 import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
+import static org.jclouds.io.Payloads.newInputStreamPayload;
 import static org.jclouds.reflect.Reflection2.method;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.inject.Named;
 
+import org.jclouds.http.AsyncHttpCommandExecutorService;
 import org.jclouds.http.HttpCommand;
 import org.jclouds.http.HttpCommandExecutorService;
 import org.jclouds.http.HttpRequest;
@@ -44,7 +53,13 @@ import com.google.common.base.Functions;
 import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ForwardingListenableFuture.SimpleForwardingListenableFuture;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.TimeLimiter;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
 
 @Test(groups = "unit", singleThreaded = true)
 public class InvokeHttpMethodTest {
@@ -52,9 +67,13 @@ public class InvokeHttpMethodTest {
    public interface ThingApi {
       @Named("ns:get")
       HttpResponse get();
+
+      @Named("ns:submit")
+      ListenableFuture<HttpResponse> submit();
    }
 
    private Invocation get;
+   private Invocation submit;
    private HttpRequest getRequest = HttpRequest.builder().method("GET").endpoint("http://get").build();
    private HttpCommand getCommand = new HttpCommand(getRequest);
    private Function<Invocation, HttpRequest> toRequest;
@@ -62,7 +81,8 @@ public class InvokeHttpMethodTest {
    @BeforeClass
    void setupInvocations() throws SecurityException, NoSuchMethodException {
       get = Invocation.create(method(ThingApi.class, "get"), ImmutableList.of());
-      toRequest = Functions.forMap(ImmutableMap.of(get, getRequest));
+      submit = Invocation.create(method(ThingApi.class, "submit"), ImmutableList.of());
+      toRequest = Functions.forMap(ImmutableMap.of(get, getRequest, submit, getRequest));
    }
 
    @SuppressWarnings("unchecked")
@@ -71,6 +91,7 @@ public class InvokeHttpMethodTest {
 
    private HttpResponse response = HttpResponse.builder().statusCode(200).payload("foo").build();
    private HttpCommandExecutorService http;
+   private AsyncHttpCommandExecutorService asyncHttp;
    private TimeLimiter timeLimiter;
    @SuppressWarnings("rawtypes")
    private org.jclouds.Fallback fallback;
@@ -82,31 +103,32 @@ public class InvokeHttpMethodTest {
    @BeforeMethod
    void createMocks() {
       http = createMock(HttpCommandExecutorService.class);
+      asyncHttp = createMock(AsyncHttpCommandExecutorService.class);
       timeLimiter = createMock(TimeLimiter.class);
       fallback = createMock(org.jclouds.Fallback.class);
       config = createMock(InvocationConfig.class);
-      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, transformerForRequest, timeLimiter, config);
+      invokeHttpMethod = new InvokeHttpMethod(toRequest, http, asyncHttp, transformerForRequest, timeLimiter, config);
       expect(config.getCommandName(get)).andReturn("ns:get");
       expect(config.getFallback(get)).andReturn(fallback);
    }
 
    @AfterMethod
    void verifyMocks() {
-      verify(http, timeLimiter, fallback, config);
+      verify(http, asyncHttp, timeLimiter, fallback, config);
    }
 
    public void testMethodWithTimeoutRunsTimeLimiter() throws Exception {
       expect(config.getTimeoutNanos(get)).andReturn(Optional.of(250000000L));
       InvokeAndTransform invoke = invokeHttpMethod.new InvokeAndTransform("ns:get", getCommand);
       expect(timeLimiter.callWithTimeout(invoke, 250000000, TimeUnit.NANOSECONDS, true)).andReturn(response);
-      replay(http, timeLimiter, fallback, config);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
       invokeHttpMethod.apply(get);
    }
 
    public void testMethodWithNoTimeoutCallGetDirectly() throws Exception {
       expect(config.getTimeoutNanos(get)).andReturn(Optional.<Long> absent());
       expect(http.invoke(new HttpCommand(getRequest))).andReturn(response);
-      replay(http, timeLimiter, fallback, config);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
       invokeHttpMethod.apply(get);
    }
 
@@ -117,7 +139,7 @@ public class InvokeHttpMethodTest {
       expect(config.getTimeoutNanos(get)).andReturn(Optional.<Long> absent());
       expect(http.invoke(new HttpCommand(getRequest))).andThrow(exception);
       expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
-      replay(http, timeLimiter, fallback, config);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
       assertEquals(invokeHttpMethod.apply(get), fallbackResponse);
    }
 
@@ -127,7 +149,97 @@ public class InvokeHttpMethodTest {
       InvokeAndTransform invoke = invokeHttpMethod.new InvokeAndTransform("ns:get", getCommand);
       expect(timeLimiter.callWithTimeout(invoke, 250000000, TimeUnit.NANOSECONDS, true)).andThrow(exception);
       expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
-      replay(http, timeLimiter, fallback, config);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
       assertEquals(invokeHttpMethod.apply(get), fallbackResponse);
    }
+
+   public void testFutureMethodSubmitsWithoutTimeLimiter() throws Exception {
+      reset(config);
+      expect(config.getCommandName(submit)).andReturn("ns:submit");
+      expect(config.getFallback(submit)).andReturn(fallback);
+      expect(config.getTimeoutNanos(submit)).andReturn(Optional.<Long> absent());
+      expect(asyncHttp.submit(new HttpCommand(getRequest))).andReturn(Futures.immediateFuture(response));
+      replay(http, asyncHttp, timeLimiter, fallback, config);
+      assertEquals(ListenableFuture.class.cast(invokeHttpMethod.apply(submit)).get(), response);
+   }
+
+   public void testFutureMethodRunsFallbackCreateOrPropagate() throws Exception {
+      IllegalStateException exception = new IllegalStateException();
+      reset(config);
+      expect(config.getCommandName(submit)).andReturn("ns:submit");
+      expect(config.getFallback(submit)).andReturn(fallback);
+      expect(config.getTimeoutNanos(submit)).andReturn(Optional.<Long> absent());
+      expect(asyncHttp.submit(new HttpCommand(getRequest))).andReturn(
+            Futures.<HttpResponse> immediateFailedFuture(exception));
+      expect(fallback.createOrPropagate(exception)).andReturn(fallbackResponse);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
+      assertEquals(ListenableFuture.class.cast(invokeHttpMethod.apply(submit)).get(), fallbackResponse);
+   }
+
+   public void testFutureMethodWithTimeoutRunsFallbackOnTimeout() throws Exception {
+      SettableFuture<HttpResponse> never = SettableFuture.create();
+      final CountDownLatch cancelled = new CountDownLatch(1);
+      never.addListener(new Runnable() {
+         @Override
+         public void run() {
+            cancelled.countDown();
+         }
+      }, MoreExecutors.directExecutor());
+      reset(config);
+      expect(config.getCommandName(submit)).andReturn("ns:submit");
+      expect(config.getFallback(submit)).andReturn(fallback);
+      expect(config.getTimeoutNanos(submit)).andReturn(Optional.of(TimeUnit.MILLISECONDS.toNanos(10)));
+      expect(asyncHttp.submit(new HttpCommand(getRequest))).andReturn(never);
+      expect(fallback.createOrPropagate(isA(UncheckedTimeoutException.class))).andReturn(fallbackResponse);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
+      assertEquals(ListenableFuture.class.cast(invokeHttpMethod.apply(submit)).get(), fallbackResponse);
+      // the timer cancels the command right after running the fallback
+      assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+      assertTrue(never.isCancelled());
+   }
+
+   public void testCancellingFutureMethodCancelsTheCommand() throws Exception {
+      SettableFuture<HttpResponse> never = SettableFuture.create();
+      reset(config);
+      expect(config.getCommandName(submit)).andReturn("ns:submit");
+      expect(config.getFallback(submit)).andReturn(fallback);
+      expect(config.getTimeoutNanos(submit)).andReturn(Optional.<Long> absent());
+      expect(asyncHttp.submit(new HttpCommand(getRequest))).andReturn(never);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
+      assertTrue(ListenableFuture.class.cast(invokeHttpMethod.apply(submit)).cancel(true));
+      assertTrue(never.isCancelled());
+   }
+
+   public void testFutureMethodReleasesAResponseArrivingAfterTheTimeout() throws Exception {
+      final SettableFuture<HttpResponse> late = SettableFuture.create();
+      final CountDownLatch cancelled = new CountDownLatch(1);
+      final AtomicBoolean closed = new AtomicBoolean();
+      reset(config);
+      expect(config.getCommandName(submit)).andReturn("ns:submit");
+      expect(config.getFallback(submit)).andReturn(fallback);
+      expect(config.getTimeoutNanos(submit)).andReturn(Optional.of(TimeUnit.MILLISECONDS.toNanos(10)));
+      // the command does not stop in time when cancelled
+      expect(asyncHttp.submit(new HttpCommand(getRequest))).andReturn(
+            new SimpleForwardingListenableFuture<HttpResponse>(late) {
+               @Override
+               public boolean cancel(boolean mayInterruptIfRunning) {
+                  cancelled.countDown();
+                  return false;
+               }
+            });
+      expect(fallback.createOrPropagate(isA(UncheckedTimeoutException.class))).andReturn(fallbackResponse);
+      replay(http, asyncHttp, timeLimiter, fallback, config);
+      assertEquals(ListenableFuture.class.cast(invokeHttpMethod.apply(submit)).get(), fallbackResponse);
+      // the timer cancels the command right after running the fallback
+      assertTrue(cancelled.await(1, TimeUnit.SECONDS));
+
+      late.set(HttpResponse.builder().statusCode(200).payload(newInputStreamPayload(new ByteArrayInputStream(
+            new byte[1]) {
+         @Override
+         public void close() throws IOException {
+            closed.set(true);
+         }
+      })).build());
+      assertTrue(closed.get());
+   }
 }
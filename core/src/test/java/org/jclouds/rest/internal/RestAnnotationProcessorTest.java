@@ -29,6 +29,7 @@ import static org.jclouds.reflect.Reflection2.method;
 import static org.jclouds.util.Strings2.urlEncode;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
@@ -1503,6 +1504,16 @@ public class RestAnnotationProcessorTest extends BaseRestApiTest {
       assertEquals(request.getFilters().get(0).getClass(), TestRequestFilter2.class);
    }
 
+   public void testRequestTemplateIsReusedAcrossInvocations() throws SecurityException, NoSuchMethodException {
+      Invokable<?, ?> method = method(TestRequestFilter.class, "getOverride");
+      assertSame(RequestTemplate.of(method), RequestTemplate.of(method(TestRequestFilter.class, "getOverride")));
+      for (int i = 0; i < 2; i++) {
+         GeneratedHttpRequest request = processor.apply(Invocation.create(method));
+         assertEquals(request.getFilters().size(), 1);
+         assertEquals(request.getFilters().get(0).getClass(), TestRequestFilter2.class);
+      }
+   }
+
    @Test
    public void testRequestFilterStripExpect() {
       // First, verify that by default, the StripExpectHeader filter is not applied
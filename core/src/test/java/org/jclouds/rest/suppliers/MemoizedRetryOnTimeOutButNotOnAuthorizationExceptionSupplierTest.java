@@ -20,7 +20,10 @@ import static com.google.common.base.Suppliers.ofInstance;
 import static com.google.common.util.concurrent.Atomics.newReference;
 import static org.testng.Assert.assertEquals;
 
+import java.util.ArrayDeque;
+import java.util.Queue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -32,6 +35,7 @@ import org.testng.annotations.Test;
 import com.google.common.base.Optional;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.util.concurrent.Atomics;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.google.common.util.concurrent.Uninterruptibles;
 
@@ -125,6 +129,53 @@ public class MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplierTest {
       assertEquals(handler.count.get(), 2);
    }
 
+   @Test
+   public void testRefreshAheadServesTheLastValueWhileReloading() {
+      final AtomicInteger loads = new AtomicInteger();
+      Queue<Runnable> reloads = new ArrayDeque<Runnable>();
+      MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<Integer> supplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier
+            .createRefreshingAhead(Atomics.<AuthorizationException> newReference(), new Supplier<Integer>() {
+               public Integer get() {
+                  return loads.incrementAndGet();
+               }
+            }, 1, TimeUnit.SECONDS, new ValueLoadedCallback.NoOpCallback<Integer>(), queueing(reloads));
+
+      assertEquals(supplier.get().intValue(), 1);
+      Uninterruptibles.sleepUninterruptibly(1100, TimeUnit.MILLISECONDS);
+
+      // the stale value is returned, and only one reload is scheduled
+      assertEquals(supplier.get().intValue(), 1);
+      assertEquals(supplier.get().intValue(), 1);
+      assertEquals(reloads.size(), 1);
+
+      reloads.poll().run();
+      assertEquals(supplier.get().intValue(), 2);
+   }
+
+   @Test
+   public void testPrimeServesTheValueAndReloadsInTheBackground() {
+      Queue<Runnable> reloads = new ArrayDeque<Runnable>();
+      MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier<String> supplier = MemoizedRetryOnTimeOutButNotOnAuthorizationExceptionSupplier
+            .createRefreshingAhead(Atomics.<AuthorizationException> newReference(), ofInstance("live"), 60,
+                  TimeUnit.SECONDS, new ValueLoadedCallback.NoOpCallback<String>(), queueing(reloads));
+
+      supplier.prime("saved");
+      assertEquals(supplier.get(), "saved");
+      assertEquals(reloads.size(), 1);
+
+      reloads.poll().run();
+      assertEquals(supplier.get(), "live");
+   }
+
+   private static Executor queueing(final Queue<Runnable> queue) {
+      return new Executor() {
+         @Override
+         public void execute(Runnable command) {
+            queue.add(command);
+         }
+      };
+   }
+
    static class ValueLoadedEventHandler implements ValueLoadedCallback<String>{
       AtomicInteger count = new AtomicInteger(0);
 
@@ -16,11 +16,19 @@
  */
 package org.jclouds.http.okhttp;
 
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_CONTEXT;
+import static org.jclouds.Constants.PROPERTY_MAX_CONNECTIONS_PER_HOST;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
 import org.jclouds.http.okhttp.OkHttpClientSupplier.NewOkHttpClient;
 
 import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
 import com.google.inject.ImplementedBy;
+import com.squareup.okhttp.Dispatcher;
 import com.squareup.okhttp.OkHttpClient;
 
 /**
@@ -28,16 +36,37 @@ import com.squareup.okhttp.OkHttpClient;
  * designate a custom SSL context or limit TLS ciphers.
  * <p>
  * Note that it should configured it in the Guice module designated as
- * <code>@ConfiguresHttpApi</code>.
+ * <code>@ConfiguresHttpApi</code>. Asynchronous requests queue in the
+ * {@link Dispatcher} of the client, whose limits are left to the supplier.
  */
 @Beta
 @ImplementedBy(NewOkHttpClient.class)
 public interface OkHttpClientSupplier extends Supplier<OkHttpClient> {
 
    static final class NewOkHttpClient implements OkHttpClientSupplier {
+      private final int maxConnections;
+      private final int maxConnectionsPerHost;
+
+      @Inject
+      @VisibleForTesting
+      NewOkHttpClient(@Named(PROPERTY_MAX_CONNECTIONS_PER_CONTEXT) int maxConnections,
+            @Named(PROPERTY_MAX_CONNECTIONS_PER_HOST) int maxConnectionsPerHost) {
+         this.maxConnections = maxConnections;
+         this.maxConnectionsPerHost = maxConnectionsPerHost;
+      }
+
       @Override
       public OkHttpClient get() {
-         return new OkHttpClient();
+         OkHttpClient client = new OkHttpClient();
+         // the dispatcher defaults to 64 requests and 5 per host; no limit per host beyond the limit of the context
+         Dispatcher dispatcher = new Dispatcher();
+         if (maxConnections > 0) {
+            dispatcher.setMaxRequests(maxConnections);
+         }
+         dispatcher.setMaxRequestsPerHost(maxConnectionsPerHost > 0 ? maxConnectionsPerHost
+               : dispatcher.getMaxRequests());
+         client.setDispatcher(dispatcher);
+         return client;
       }
    }
 }
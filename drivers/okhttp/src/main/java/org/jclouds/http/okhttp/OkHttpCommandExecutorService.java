@@ -50,7 +50,13 @@ import org.jclouds.io.Payload;
 import com.google.common.base.Function;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableMultimap.Builder;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.inject.Inject;
+import com.squareup.okhttp.Call;
+import com.squareup.okhttp.Callback;
 import com.squareup.okhttp.Headers;
 import com.squareup.okhttp.MediaType;
 import com.squareup.okhttp.OkHttpClient;
@@ -147,11 +153,55 @@ public final class OkHttpCommandExecutorService extends BaseHttpCommandExecutorS
 
    @Override
    protected HttpResponse invoke(Request nativeRequest) throws IOException, InterruptedException {
+      return toHttpResponse(newCall(nativeRequest).execute());
+   }
+
+   /**
+    * Enqueues the call on the OkHttp dispatcher, so that no user thread waits for the response. Note that OkHttp 2
+    * still runs each call on a dispatcher thread, whose number is limited by the {@code Dispatcher} of the client.
+    */
+   @Override
+   protected ListenableFuture<HttpResponse> invokeAsync(Request nativeRequest) {
+      final Call call;
+      try {
+         call = newCall(nativeRequest);
+      } catch (IOException e) {
+         return Futures.immediateFailedFuture(e);
+      }
+      final SettableFuture<HttpResponse> result = SettableFuture.create();
+      result.addListener(new Runnable() {
+         @Override
+         public void run() {
+            if (result.isCancelled()) {
+               call.cancel();
+            }
+         }
+      }, MoreExecutors.directExecutor());
+      call.enqueue(new Callback() {
+         @Override
+         public void onResponse(Response response) {
+            try {
+               result.set(toHttpResponse(response));
+            } catch (IOException e) {
+               result.setException(e);
+            }
+         }
+
+         @Override
+         public void onFailure(Request request, IOException e) {
+            result.setException(e);
+         }
+      });
+      return result;
+   }
+
+   private Call newCall(Request nativeRequest) throws IOException {
       OkHttpClient requestScopedClient = globalClient.clone();
       requestScopedClient.setProxy(proxyForURI.apply(nativeRequest.uri()));
+      return requestScopedClient.newCall(nativeRequest);
+   }
 
-      Response response = requestScopedClient.newCall(nativeRequest).execute();
-
+   private HttpResponse toHttpResponse(Response response) throws IOException {
       HttpResponse.Builder<?> builder = HttpResponse.builder();
       builder.statusCode(response.code());
       builder.message(response.message());
@@ -22,6 +22,7 @@ import static org.jclouds.Constants.PROPERTY_USER_THREADS;
 import static org.jclouds.util.Closeables2.closeQuietly;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertSame;
 
 import java.io.Closeable;
 import java.util.List;
@@ -42,9 +43,11 @@ import org.testng.annotations.Test;
 
 import com.google.common.base.Charsets;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import com.google.inject.AbstractModule;
 import com.google.inject.Module;
 import com.squareup.okhttp.ConnectionSpec;
+import com.squareup.okhttp.Dispatcher;
 import com.squareup.okhttp.OkHttpClient;
 import com.squareup.okhttp.TlsVersion;
 import com.squareup.okhttp.mockwebserver.MockResponse;
@@ -78,6 +81,12 @@ public class OkHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorSer
       @PATCH
       @Path("/objects/{id}")
       String patchNothing(@PathParam("id") String id);
+
+      @PATCH
+      @Path("/objects/{id}")
+      @Produces("text/plain")
+      ListenableFuture<String> patchAsync(@PathParam("id") String id,
+            @BinderParam(BindToStringPayload.class) String body);
    }
 
    @Test
@@ -124,6 +133,25 @@ public class OkHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorSer
       }
    }
 
+   @Test
+   public void testAsyncPatchIsRetriedOnFailure() throws Exception {
+      MockWebServer server = mockWebServer(new MockResponse().setResponseCode(500),
+            new MockResponse().setBody("fooPATCH"));
+      PatchApi api = api(PatchApi.class, server.getUrl("/").toString());
+      try {
+         String result = api.patchAsync("", "foo").get();
+         assertEquals(server.getRequestCount(), 2);
+         assertEquals(result, "fooPATCH");
+         RecordedRequest request = server.takeRequest();
+         assertEquals(new String(request.getBody(), Charsets.UTF_8), "foo");
+         request = server.takeRequest();
+         assertEquals(new String(request.getBody(), Charsets.UTF_8), "foo");
+      } finally {
+         closeQuietly(api);
+         server.shutdown();
+      }
+   }
+
    @Test
    public void testPatchRedirect() throws Exception {
       MockWebServer redirectTarget = mockWebServer(new MockResponse().setBody("fooPATCHREDIRECT"));
@@ -230,6 +258,56 @@ public class OkHttpCommandExecutorServiceTest extends BaseHttpCommandExecutorSer
       }
    }
 
+   @Test
+   public void testDispatcherIsLimitedByTheMaxConnections() {
+      OkHttpClient client = new OkHttpClientSupplier.NewOkHttpClient(50, 0).get();
+      assertEquals(client.getDispatcher().getMaxRequests(), 50);
+      // no limit per host beyond the limit of the context
+      assertEquals(client.getDispatcher().getMaxRequestsPerHost(), 50);
+
+      client = new OkHttpClientSupplier.NewOkHttpClient(50, 10).get();
+      assertEquals(client.getDispatcher().getMaxRequestsPerHost(), 10);
+   }
+
+   @Test
+   public void testDispatcherOfSuppliedClientIsNotChanged() throws Exception {
+      OkHttpClient client = new OkHttpClient();
+      Dispatcher dispatcher = client.getDispatcher();
+      int maxRequests = dispatcher.getMaxRequests();
+      int maxRequestsPerHost = dispatcher.getMaxRequestsPerHost();
+      MockWebServer server = mockWebServer(new MockResponse());
+      PatchApi api = api(PatchApi.class, server.getUrl("/").toString(), new OkHttpClientModule(client));
+      try {
+         api.patchNothing("");
+         assertSame(client.getDispatcher(), dispatcher);
+         assertEquals(dispatcher.getMaxRequests(), maxRequests);
+         assertEquals(dispatcher.getMaxRequestsPerHost(), maxRequestsPerHost);
+      } finally {
+         closeQuietly(api);
+         server.shutdown();
+      }
+   }
+
+   @ConfiguresHttpCommandExecutorService
+   private static final class OkHttpClientModule extends AbstractModule {
+      private final OkHttpClient client;
+
+      public OkHttpClientModule(OkHttpClient client) {
+         this.client = client;
+      }
+
+      @Override
+      protected void configure() {
+         install(new OkHttpCommandExecutorServiceModule());
+         bind(OkHttpClientSupplier.class).toInstance(new OkHttpClientSupplier() {
+            @Override
+            public OkHttpClient get() {
+               return client;
+            }
+         });
+      }
+   }
+
    @ConfiguresHttpCommandExecutorService
    private static final class ConnectionSpecModule extends AbstractModule {
       private final List<ConnectionSpec> connectionSpecs;
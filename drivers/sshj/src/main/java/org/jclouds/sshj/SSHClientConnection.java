@@ -32,8 +32,10 @@ import net.schmizz.sshj.userauth.keyprovider.OpenSSHKeyFile;
 import net.schmizz.sshj.userauth.method.AuthMethod;
 
 import org.jclouds.domain.LoginCredentials;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.sshj.SshjSshClient.Connection;
+import org.jclouds.util.Closeables2;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.MoreObjects;
@@ -61,6 +63,7 @@ public class SSHClientConnection implements Connection<SSHClient> {
       protected int connectTimeout;
       protected int sessionTimeout;
       protected Optional<Connector> agentConnector;
+      protected SSHClientPool pool;
 
       /**
        * @see SSHClientConnection#getHostAndPort()
@@ -102,23 +105,34 @@ public class SSHClientConnection implements Connection<SSHClient> {
          return this;
       }
 
+      /**
+       * @see SSHClientConnection#getPool()
+       */
+      public Builder pool(@Nullable SSHClientPool pool) {
+         this.pool = pool;
+         return this;
+      }
+
       public SSHClientConnection build() {
-         return new SSHClientConnection(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, agentConnector);
+         return new SSHClientConnection(hostAndPort, loginCredentials, connectTimeout, sessionTimeout, agentConnector,
+                  pool);
       }
 
       protected Builder fromSSHClientConnection(SSHClientConnection in) {
          return hostAndPort(in.getHostAndPort()).connectTimeout(in.getConnectTimeout()).loginCredentials(
-                  in.getLoginCredentials()).sessionTimeout(in.getSessionTimeout()).agentConnector(in.getAgentConnector());
+                  in.getLoginCredentials()).sessionTimeout(in.getSessionTimeout()).agentConnector(in.getAgentConnector())
+                  .pool(in.getPool());
       }
    }
 
    private SSHClientConnection(HostAndPort hostAndPort, LoginCredentials loginCredentials, int connectTimeout,
-            int sessionTimeout, Optional<Connector> agentConnector) {
+            int sessionTimeout, Optional<Connector> agentConnector, @Nullable SSHClientPool pool) {
       this.hostAndPort = checkNotNull(hostAndPort, "hostAndPort");
       this.loginCredentials = checkNotNull(loginCredentials, "loginCredentials for %", hostAndPort);
       this.connectTimeout = connectTimeout;
       this.sessionTimeout = sessionTimeout;
       this.agentConnector = checkNotNull(agentConnector, "agentConnector for %", hostAndPort);
+      this.pool = pool;
    }
    
    @Resource
@@ -129,13 +143,17 @@ public class SSHClientConnection implements Connection<SSHClient> {
    private final LoginCredentials loginCredentials;
    private final int connectTimeout;
    private final int sessionTimeout;
+   private final SSHClientPool pool;
 
    @VisibleForTesting
    transient SSHClient ssh;
 
    @Override
    public void clear() {
-      if (ssh != null && ssh.isConnected()) {
+      if (ssh != null && pool != null) {
+         pool.release(this, ssh);
+         ssh = null;
+      } else if (ssh != null && ssh.isConnected()) {
          try {
             ssh.disconnect();
          } catch (AssertionError e) {
@@ -149,14 +167,43 @@ public class SSHClientConnection implements Connection<SSHClient> {
 
    @Override
    public SSHClient create() throws Exception {
-      ssh = new net.schmizz.sshj.SSHClient();
-      ssh.addHostKeyVerifier(new PromiscuousVerifier());
+      if (pool != null) {
+         ssh = pool.acquire(this);
+         return ssh;
+      }
+      ssh = newSSHClient();
+      connectAndAuthenticate(ssh);
+      return ssh;
+   }
+
+   /**
+    * Opens a new transport for the {@link SSHClientPool}, which unlike
+    * {@link #create()} closes it again when it cannot be authenticated.
+    */
+   SSHClient connect() throws Exception {
+      SSHClient client = newSSHClient();
+      try {
+         connectAndAuthenticate(client);
+         return client;
+      } catch (Exception e) {
+         Closeables2.closeQuietly(client);
+         throw e;
+      }
+   }
+
+   private SSHClient newSSHClient() {
+      SSHClient client = new net.schmizz.sshj.SSHClient();
+      client.addHostKeyVerifier(new PromiscuousVerifier());
       if (connectTimeout != 0) {
-         ssh.setConnectTimeout(connectTimeout);
+         client.setConnectTimeout(connectTimeout);
       }
       if (sessionTimeout != 0) {
-         ssh.setTimeout(sessionTimeout);
+         client.setTimeout(sessionTimeout);
       }
+      return client;
+   }
+
+   private void connectAndAuthenticate(SSHClient ssh) throws Exception {
       ssh.connect(hostAndPort.getHostText(), hostAndPort.getPortOrDefault(22));
       if (loginCredentials.hasUnencryptedPrivateKey()) {
          OpenSSHKeyFile key = new OpenSSHKeyFile();
@@ -168,7 +215,6 @@ public class SSHClientConnection implements Connection<SSHClient> {
          AgentProxy proxy = new AgentProxy(agentConnector.get());
          ssh.auth(loginCredentials.getUser(), getAuthMethods(proxy));
       }
-      return ssh;
    }
 
    /**
@@ -210,6 +256,16 @@ public class SSHClientConnection implements Connection<SSHClient> {
       return agentConnector;
    }
 
+   /**
+    *
+    * @return the pool sharing transports between connections, or {@code null}
+    *         if every connection opens its own
+    */
+   @Nullable
+   public SSHClientPool getPool() {
+      return pool;
+   }
+
    /**
     * 
     * @return the current ssh or {@code null} if not connected
@@ -0,0 +1,334 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sshj;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.Resource;
+import javax.inject.Named;
+
+import net.schmizz.sshj.SSHClient;
+
+import org.jclouds.domain.LoginCredentials;
+import org.jclouds.logging.Logger;
+
+import com.google.common.annotations.Beta;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.MoreObjects;
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.net.HostAndPort;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+
+/**
+ * Shares authenticated {@link SSHClient} transports between the
+ * {@link SSHClientConnection}s to the same host and port, with the same login
+ * and session timeout, so that reconnecting, such as when polling the status
+ * of an init script, opens a new channel instead of paying for a TCP
+ * connection, key exchange and authentication again. Exec sessions and SFTP
+ * subsystems are channels multiplexed over the shared transport.
+ * <p>
+ * Each borrowed transport carries at most the maximum number of channels, as
+ * servers refuse channels beyond their own limit, such as the default of 10
+ * {@code MaxSessions} in OpenSSH. Borrowing from a host whose transports are
+ * all full opens another transport to it.
+ * <p>
+ * Transports are kept alive with keep-alive requests while borrowed or idle,
+ * and closed once idle for longer than the idle timeout, or when the pool is
+ * closed.
+ */
+@Beta
+public class SSHClientPool implements Closeable {
+
+   @Resource
+   @Named("jclouds.ssh")
+   protected Logger logger = Logger.NULL;
+
+   private final long idleTimeoutMillis;
+   private final int keepAliveSeconds;
+   private final int maxChannels;
+   private final Ticker ticker;
+   private final ConcurrentMap<Key, Pooled> pool = Maps.newConcurrentMap();
+   private ScheduledExecutorService evictor;
+   private boolean closed;
+
+   /**
+    * @param idleTimeoutMillis
+    *           how long an unused transport stays open
+    * @param keepAliveSeconds
+    *           how often to send keep-alive requests over open transports, or
+    *           {@code 0} to send none
+    */
+   public SSHClientPool(long idleTimeoutMillis, int keepAliveSeconds) {
+      this(idleTimeoutMillis, keepAliveSeconds, 10);
+   }
+
+   /**
+    * @param idleTimeoutMillis
+    *           how long an unused transport stays open
+    * @param keepAliveSeconds
+    *           how often to send keep-alive requests over open transports, or
+    *           {@code 0} to send none
+    * @param maxChannels
+    *           how many connections may borrow the same transport at once
+    */
+   public SSHClientPool(long idleTimeoutMillis, int keepAliveSeconds, int maxChannels) {
+      this(idleTimeoutMillis, keepAliveSeconds, maxChannels, Ticker.systemTicker());
+   }
+
+   @VisibleForTesting
+   SSHClientPool(long idleTimeoutMillis, int keepAliveSeconds, int maxChannels, Ticker ticker) {
+      checkArgument(idleTimeoutMillis > 0, "idleTimeoutMillis must be positive");
+      checkArgument(keepAliveSeconds >= 0, "keepAliveSeconds must not be negative");
+      checkArgument(maxChannels > 0, "maxChannels must be positive");
+      this.idleTimeoutMillis = idleTimeoutMillis;
+      this.keepAliveSeconds = keepAliveSeconds;
+      this.maxChannels = maxChannels;
+      this.ticker = checkNotNull(ticker, "ticker");
+   }
+
+   /**
+    * Borrows an open transport of the connection's host, login and session
+    * timeout with fewer than the maximum channels, or opens one with
+    * {@link SSHClientConnection#connect}. Borrowed transports must be
+    * {@link #release released}.
+    */
+   SSHClient acquire(SSHClientConnection connection) throws Exception {
+      Key key = new Key(connection);
+      while (true) {
+         Pooled pooled = pool.get(key);
+         if (pooled == null) {
+            Pooled created = new Pooled();
+            pooled = MoreObjects.firstNonNull(pool.putIfAbsent(key, created), created);
+         }
+         // connecting under the lock of the key lets concurrent callers share the new transport
+         synchronized (pooled) {
+            if (pooled.evicted)
+               continue;
+            Transport available = null;
+            for (Iterator<Transport> it = pooled.transports.iterator(); it.hasNext();) {
+               Transport transport = it.next();
+               if (!isOpen(transport.ssh)) {
+                  it.remove();
+                  disconnect(transport.ssh);
+               } else if (available == null && transport.leases < maxChannels) {
+                  available = transport;
+               }
+            }
+            if (available == null) {
+               SSHClient ssh = connection.connect();
+               if (keepAliveSeconds > 0)
+                  ssh.getConnection().getKeepAlive().setKeepAliveInterval(keepAliveSeconds);
+               available = new Transport(ssh);
+               pooled.transports.add(available);
+               logger.debug("<< pooled %s transport %d to %s", key.loginUser(), pooled.transports.size(),
+                     key.hostAndPort);
+            }
+            available.leases++;
+            scheduleEviction();
+            return available.ssh;
+         }
+      }
+   }
+
+   /**
+    * Returns a borrowed transport to the pool, closing it when it is no longer
+    * open.
+    */
+   void release(SSHClientConnection connection, SSHClient ssh) {
+      Pooled pooled = pool.get(new Key(connection));
+      if (pooled != null) {
+         synchronized (pooled) {
+            Transport transport = pooled.find(ssh);
+            if (transport != null) {
+               transport.leases = Math.max(0, transport.leases - 1);
+               if (transport.leases == 0)
+                  transport.idleSince = ticker.read();
+               if (isOpen(ssh))
+                  return;
+               pooled.transports.remove(transport);
+            }
+         }
+      }
+      // either no longer open, or replaced after failing
+      disconnect(ssh);
+   }
+
+   /**
+    * Closes the transports which have been idle for longer than the idle
+    * timeout.
+    */
+   @VisibleForTesting
+   void evictIdle() {
+      long now = ticker.read();
+      for (Map.Entry<Key, Pooled> entry : pool.entrySet()) {
+         Pooled pooled = entry.getValue();
+         synchronized (pooled) {
+            for (Iterator<Transport> it = pooled.transports.iterator(); it.hasNext();) {
+               Transport transport = it.next();
+               if (transport.leases > 0
+                     || now - transport.idleSince < TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis))
+                  continue;
+               it.remove();
+               logger.debug("<< closing idle %s transport to %s", entry.getKey().loginUser(),
+                     entry.getKey().hostAndPort);
+               disconnect(transport.ssh);
+            }
+            if (pooled.transports.isEmpty()) {
+               pooled.evicted = true;
+               pool.remove(entry.getKey(), pooled);
+            }
+         }
+      }
+   }
+
+   @VisibleForTesting
+   int size() {
+      return pool.size();
+   }
+
+   private synchronized void scheduleEviction() {
+      if (evictor != null || closed)
+         return;
+      evictor = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("ssh transport evictor").setDaemon(true).build());
+      long period = Math.max(1000, idleTimeoutMillis / 2);
+      evictor.scheduleWithFixedDelay(new Runnable() {
+         @Override
+         public void run() {
+            try {
+               evictIdle();
+            } catch (RuntimeException e) {
+               logger.warn(e, "<< error closing idle ssh transports");
+            }
+         }
+      }, period, period, TimeUnit.MILLISECONDS);
+   }
+
+   @Override
+   public void close() {
+      synchronized (this) {
+         closed = true;
+         if (evictor != null)
+            evictor.shutdownNow();
+      }
+      for (Map.Entry<Key, Pooled> entry : pool.entrySet()) {
+         Pooled pooled = entry.getValue();
+         synchronized (pooled) {
+            pooled.evicted = true;
+            pool.remove(entry.getKey(), pooled);
+            for (Transport transport : pooled.transports)
+               disconnect(transport.ssh);
+            pooled.transports.clear();
+         }
+      }
+   }
+
+   private static boolean isOpen(SSHClient ssh) {
+      return ssh.isConnected() && ssh.isAuthenticated();
+   }
+
+   private void disconnect(SSHClient ssh) {
+      try {
+         if (ssh.isConnected())
+            ssh.disconnect();
+      } catch (AssertionError e) {
+         // already disconnected
+      } catch (IOException e) {
+         logger.debug("<< exception disconnecting pooled transport: %s", e.getMessage());
+      }
+   }
+
+   private static final class Pooled {
+      private final List<Transport> transports = Lists.newArrayList();
+      private boolean evicted;
+
+      Transport find(SSHClient ssh) {
+         for (Transport transport : transports) {
+            if (transport.ssh == ssh)
+               return transport;
+         }
+         return null;
+      }
+   }
+
+   private static final class Transport {
+      private final SSHClient ssh;
+      private int leases;
+      private long idleSince;
+
+      Transport(SSHClient ssh) {
+         this.ssh = ssh;
+      }
+   }
+
+   /**
+    * Identifies a transport by everything it authenticated with, since
+    * {@link LoginCredentials#equals} only compares the user and one secret.
+    */
+   private static final class Key {
+      private final HostAndPort hostAndPort;
+      private final String user;
+      private final Optional<String> password;
+      private final Optional<String> privateKey;
+      private final int sessionTimeout;
+
+      Key(SSHClientConnection connection) {
+         LoginCredentials loginCredentials = connection.getLoginCredentials();
+         this.hostAndPort = connection.getHostAndPort();
+         this.user = loginCredentials.getUser();
+         this.password = loginCredentials.getOptionalPassword();
+         this.privateKey = loginCredentials.getOptionalPrivateKey();
+         this.sessionTimeout = connection.getSessionTimeout();
+      }
+
+      String loginUser() {
+         return user;
+      }
+
+      @Override
+      public boolean equals(Object o) {
+         if (this == o)
+            return true;
+         if (!(o instanceof Key))
+            return false;
+         Key that = (Key) o;
+         return hostAndPort.equals(that.hostAndPort) && Objects.equal(user, that.user)
+               && password.equals(that.password) && privateKey.equals(that.privateKey)
+               && sessionTimeout == that.sessionTimeout;
+      }
+
+      @Override
+      public int hashCode() {
+         return Objects.hashCode(hostAndPort, user, password, privateKey, sessionTimeout);
+      }
+   }
+}
@@ -61,6 +61,7 @@ import org.jclouds.domain.LoginCredentials;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
 import org.jclouds.io.Payload;
 import org.jclouds.io.Payloads;
+import org.jclouds.javax.annotation.Nullable;
 import org.jclouds.logging.Logger;
 import org.jclouds.rest.AuthorizationException;
 import org.jclouds.ssh.SshClient;
@@ -143,6 +144,17 @@ public class SshjSshClient implements SshClient {
 
    public SshjSshClient(BackoffLimitedRetryHandler backoffLimitedRetryHandler, HostAndPort socket,
             LoginCredentials loginCredentials, int timeout, Optional<Connector> agentConnector) {
+      this(backoffLimitedRetryHandler, socket, loginCredentials, timeout, agentConnector, null);
+   }
+
+   /**
+    * @param pool
+    *           shares the transports of clients to the same host and login, or
+    *           {@code null} for this client to open its own
+    */
+   public SshjSshClient(BackoffLimitedRetryHandler backoffLimitedRetryHandler, HostAndPort socket,
+            LoginCredentials loginCredentials, int timeout, Optional<Connector> agentConnector,
+            @Nullable SSHClientPool pool) {
       this.user = checkNotNull(loginCredentials, "loginCredentials").getUser();
       this.host = checkNotNull(socket, "socket").getHostText();
       checkArgument(socket.getPort() > 0, "ssh port must be greater then zero" + socket.getPort());
@@ -163,7 +175,8 @@ public class SshjSshClient implements SshClient {
                   host, socket.getPort());
       }
       sshClientConnection = SSHClientConnection.builder().hostAndPort(HostAndPort.fromParts(host, socket.getPort()))
-               .loginCredentials(loginCredentials).connectTimeout(timeout).sessionTimeout(timeout).agentConnector(agentConnector).build();
+               .loginCredentials(loginCredentials).connectTimeout(timeout).sessionTimeout(timeout).agentConnector(agentConnector)
+               .pool(pool).build();
    }
 
    @Override
@@ -413,7 +426,9 @@ public class SshjSshClient implements SshClient {
    @Override
    public boolean isConnected() {
       try {
-         return sshClientConnection.getSSHClient().isConnected();
+         // a connection released to the pool is not connected until it borrows a transport again
+         SSHClient client = sshClientConnection.getSSHClient();
+         return client != null && client.isConnected();
       } catch (Exception e) {
          throw Throwables.propagate(e);
       }
@@ -490,21 +505,22 @@ public class SshjSshClient implements SshClient {
       return new Connection<Session>() {
 
          private Session session = null;
-         private SSHClient sshClientConnection;
+         private SSHClientConnection sshClientConnection;
 
          @Override
          public void clear() throws TransportException, ConnectionException {
             if (session != null)
                session.close();
+            // returns a pooled transport to the pool rather than closing it
             if (sshClientConnection != null)
-               Closeables2.closeQuietly(sshClientConnection);
+               sshClientConnection.clear();
          }
 
          @Override
          public Session create() throws Exception {
-            this.sshClientConnection = acquire(SSHClientConnection.builder().fromSSHClientConnection(
-                     SshjSshClient.this.sshClientConnection).sessionTimeout(0).build());
-            session = sshClientConnection.startSession();
+            this.sshClientConnection = SSHClientConnection.builder().fromSSHClientConnection(
+                     SshjSshClient.this.sshClientConnection).sessionTimeout(0).build();
+            session = acquire(sshClientConnection).startSession();
             return session;
          }
 
@@ -16,13 +16,17 @@
  */
 package org.jclouds.sshj.config;
 
+import java.io.Closeable;
+
 import javax.inject.Named;
 
 import org.jclouds.Constants;
 import org.jclouds.domain.LoginCredentials;
 import org.jclouds.http.handlers.BackoffLimitedRetryHandler;
+import org.jclouds.lifecycle.Closer;
 import org.jclouds.ssh.SshClient;
 import org.jclouds.ssh.config.ConfiguresSshClient;
+import org.jclouds.sshj.SSHClientPool;
 import org.jclouds.sshj.SshjSshClient;
 
 import com.google.common.base.Optional;
@@ -42,11 +46,37 @@ public class SshjSshClientModule extends AbstractModule {
       bind(SshClient.Factory.class).to(Factory.class).in(Scopes.SINGLETON);
    }
 
-   private static class Factory implements SshClient.Factory {
+   private static class Factory implements SshClient.Factory, Closeable {
       @Named(Constants.PROPERTY_CONNECTION_TIMEOUT)
       @Inject(optional = true)
       int timeout = 60000;
 
+      /**
+       * Whether clients to the same host and login share their authenticated
+       * transports through an {@link SSHClientPool}.
+       */
+      @Named("jclouds.ssh.pool")
+      @Inject(optional = true)
+      boolean pooled = false;
+
+      @Named("jclouds.ssh.pool.idle-timeout")
+      @Inject(optional = true)
+      long idleTimeout = 60000;
+
+      @Named("jclouds.ssh.pool.keep-alive-interval")
+      @Inject(optional = true)
+      int keepAliveInterval = 30;
+
+      /**
+       * How many channels, such as exec sessions and SFTP subsystems, share a
+       * pooled transport before another transport to the host is opened.
+       */
+      @Named("jclouds.ssh.pool.max-channels")
+      @Inject(optional = true)
+      int maxChannels = 10;
+
+      private SSHClientPool pool;
+
       Optional<Connector> agentConnector = getAgentConnector();
 
       Optional<Connector> getAgentConnector() {
@@ -67,18 +97,34 @@ public class SshjSshClientModule extends AbstractModule {
       private final Injector injector;
 
       @Inject
-      public Factory(BackoffLimitedRetryHandler backoffLimitedRetryHandler, Injector injector) {
+      public Factory(BackoffLimitedRetryHandler backoffLimitedRetryHandler, Injector injector, Closer closer) {
          this.backoffLimitedRetryHandler = backoffLimitedRetryHandler;
          this.injector = injector;
+         closer.addToClose(this);
       }
 
       @Override
       public SshClient create(HostAndPort socket, LoginCredentials credentials) {
-         SshClient client = new SshjSshClient(backoffLimitedRetryHandler, socket, credentials, timeout, getAgentConnector());
+         SshClient client = new SshjSshClient(backoffLimitedRetryHandler, socket, credentials, timeout, getAgentConnector(),
+               pooled ? pool() : null);
          injector.injectMembers(client);  // add logger
          return client;
       }
 
+      private synchronized SSHClientPool pool() {
+         if (pool == null) {
+            pool = new SSHClientPool(idleTimeout, keepAliveInterval, maxChannels);
+            injector.injectMembers(pool);  // add logger
+         }
+         return pool;
+      }
+
+      @Override
+      public synchronized void close() {
+         if (pool != null)
+            pool.close();
+      }
+
       @Override
       public boolean isAgentAvailable() {
          return agentConnector.isPresent();
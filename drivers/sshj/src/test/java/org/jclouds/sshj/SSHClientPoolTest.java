@@ -0,0 +1,146 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.jclouds.sshj;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.schmizz.sshj.SSHClient;
+
+import org.jclouds.domain.LoginCredentials;
+import org.testng.annotations.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.net.HostAndPort;
+
+@Test(groups = "unit", testName = "SSHClientPoolTest")
+public class SSHClientPoolTest {
+
+   private final AtomicLong nanos = new AtomicLong();
+   private final Ticker ticker = new Ticker() {
+      @Override
+      public long read() {
+         return nanos.get();
+      }
+   };
+
+   public void testConnectionsShareTheOpenTransport() throws Exception {
+      SSHClient ssh = createMock(SSHClient.class);
+      expect(ssh.isConnected()).andReturn(true).anyTimes();
+      expect(ssh.isAuthenticated()).andReturn(true).anyTimes();
+      SSHClientConnection connection = connection("host", ssh);
+      replay(ssh, connection);
+
+      SSHClientPool pool = new SSHClientPool(1000, 0, 10, ticker);
+      assertSame(pool.acquire(connection), ssh);
+      assertSame(pool.acquire(connection), ssh);
+      pool.release(connection, ssh);
+      pool.release(connection, ssh);
+      assertSame(pool.acquire(connection), ssh);
+      assertEquals(pool.size(), 1);
+      verify(ssh, connection);
+   }
+
+   public void testClosesTransportsIdleForLongerThanTheTimeout() throws Exception {
+      SSHClient ssh = createMock(SSHClient.class);
+      expect(ssh.isConnected()).andReturn(true).anyTimes();
+      expect(ssh.isAuthenticated()).andReturn(true).anyTimes();
+      ssh.disconnect();
+      expectLastCall();
+      SSHClientConnection connection = connection("host", ssh);
+      replay(ssh, connection);
+
+      SSHClientPool pool = new SSHClientPool(1000, 0, 10, ticker);
+      pool.acquire(connection);
+      nanos.addAndGet(TimeUnit.SECONDS.toNanos(5));
+      // borrowed transports are never idle
+      pool.evictIdle();
+      assertEquals(pool.size(), 1);
+
+      pool.release(connection, ssh);
+      nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(999));
+      pool.evictIdle();
+      assertEquals(pool.size(), 1);
+
+      nanos.addAndGet(TimeUnit.MILLISECONDS.toNanos(1));
+      pool.evictIdle();
+      assertEquals(pool.size(), 0);
+      verify(ssh, connection);
+   }
+
+   public void testReplacesATransportWhichIsNoLongerOpen() throws Exception {
+      SSHClient dead = createMock(SSHClient.class);
+      expect(dead.isConnected()).andReturn(false).anyTimes();
+      SSHClient fresh = createMock(SSHClient.class);
+      expect(fresh.isConnected()).andReturn(true).anyTimes();
+      expect(fresh.isAuthenticated()).andReturn(true).anyTimes();
+      SSHClientConnection connection = connection("host", dead, fresh);
+      replay(dead, fresh, connection);
+
+      SSHClientPool pool = new SSHClientPool(1000, 0, 10, ticker);
+      assertSame(pool.acquire(connection), dead);
+      assertSame(pool.acquire(connection), fresh);
+      // releasing the replaced transport leaves the new one pooled
+      pool.release(connection, dead);
+      assertSame(pool.acquire(connection), fresh);
+      verify(dead, fresh, connection);
+   }
+
+   public void testOpensAnotherTransportWhenTheTransportsAreFull() throws Exception {
+      SSHClient first = createMock(SSHClient.class);
+      expect(first.isConnected()).andReturn(true).anyTimes();
+      expect(first.isAuthenticated()).andReturn(true).anyTimes();
+      SSHClient second = createMock(SSHClient.class);
+      expect(second.isConnected()).andReturn(true).anyTimes();
+      expect(second.isAuthenticated()).andReturn(true).anyTimes();
+      SSHClientConnection connection = connection("host", first, second);
+      replay(first, second, connection);
+
+      SSHClientPool pool = new SSHClientPool(1000, 0, 2, ticker);
+      assertSame(pool.acquire(connection), first);
+      assertSame(pool.acquire(connection), first);
+      assertSame(pool.acquire(connection), second);
+      assertSame(pool.acquire(connection), second);
+      // a channel released on either transport is borrowed again before connecting
+      pool.release(connection, second);
+      assertSame(pool.acquire(connection), second);
+      pool.release(connection, first);
+      assertSame(pool.acquire(connection), first);
+      assertEquals(pool.size(), 1);
+      verify(first, second, connection);
+   }
+
+   private static SSHClientConnection connection(String host, SSHClient... transports) throws Exception {
+      SSHClientConnection connection = createMock(SSHClientConnection.class);
+      expect(connection.getHostAndPort()).andReturn(HostAndPort.fromParts(host, 22)).anyTimes();
+      expect(connection.getLoginCredentials()).andReturn(LoginCredentials.builder().user("user").password("pw")
+            .build()).anyTimes();
+      expect(connection.getSessionTimeout()).andReturn(0).anyTimes();
+      for (SSHClient transport : transports) {
+         expect(connection.connect()).andReturn(transport);
+      }
+      return connection;
+   }
+}
@@ -23,6 +23,8 @@ import static org.easymock.EasyMock.expectLastCall;
 import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.verify;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -55,12 +57,14 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HostAndPort;
 import com.google.inject.AbstractModule;
 import com.google.inject.Guice;
 import com.google.inject.Injector;
 import com.google.inject.Module;
+import com.jcraft.jsch.agentproxy.Connector;
 
 
 @Test
@@ -180,6 +184,30 @@ public class SshjSshClientTest {
       verify(ssh);
    }
 
+   public void testReconnectsThroughThePoolAfterDisconnecting() throws Exception {
+      SshjSshClient ssh1 = createClient();
+      SSHClientPool pool = createMock(SSHClientPool.class);
+      SSHClient ssh = createMock(SSHClient.class);
+      expect(ssh.isConnected()).andReturn(true).anyTimes();
+      SSHClientConnection connection = SSHClientConnection.builder().hostAndPort(HostAndPort.fromParts("localhost", 22))
+            .loginCredentials(LoginCredentials.builder().user("username").password("password").build())
+            .agentConnector(Optional.<Connector> absent()).pool(pool).build();
+      expect(pool.acquire(connection)).andReturn(ssh).times(2);
+      pool.release(connection, ssh);
+      expectLastCall();
+      replay(pool, ssh);
+      ssh1.sshClientConnection = connection;
+
+      ssh1.connect();
+      assertTrue(ssh1.isConnected());
+      // the released transport belongs to the pool again
+      ssh1.disconnect();
+      assertFalse(ssh1.isConnected());
+      ssh1.connect();
+      assertTrue(ssh1.isConnected());
+      verify(pool, ssh);
+   }
+
    public void testRetryNotOnToStringCustomMismatch() {
       Exception nex = new ExceptionWithStrangeToString();
       Properties props = new Properties();
@@ -18,9 +18,11 @@ package org.jclouds.aws.s3.filters;
 
 import static org.jclouds.http.utils.Queries.queryParser;
 import static org.jclouds.s3.filters.AwsSignatureV4Constants.AMZ_SIGNATURE_PARAM;
+import static org.jclouds.s3.reference.S3Constants.PROPERTY_S3_PAYLOAD_SIGNING;
 import static org.jclouds.s3.reference.S3Constants.TEMPORARY_SIGNATURE_PARAM;
 
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.inject.Singleton;
 
 import com.google.common.collect.Multimap;
@@ -40,8 +42,9 @@ public class AWSRequestAuthorizeSignatureV4 extends RequestAuthorizeSignatureV4
    @Inject
    public AWSRequestAuthorizeSignatureV4(Aws4SignerForAuthorizationHeader signerForAuthorizationHeader,
          Aws4SignerForChunkedUpload signerForChunkedUpload,
-         Aws4SignerForQueryString signerForQueryString) {
-      super(signerForAuthorizationHeader, signerForChunkedUpload, signerForQueryString);
+         Aws4SignerForQueryString signerForQueryString,
+         @Named(PROPERTY_S3_PAYLOAD_SIGNING) String payloadSigning) {
+      super(signerForAuthorizationHeader, signerForChunkedUpload, signerForQueryString, payloadSigning);
    }
 
    @Override
@@ -67,6 +67,7 @@ import org.jclouds.blobstore.options.CreateContainerOptions;
 import org.jclouds.blobstore.options.GetOptions;
 import org.jclouds.blobstore.options.ListContainerOptions;
 import org.jclouds.blobstore.options.PutOptions;
+import org.jclouds.blobstore.strategy.internal.ParallelRangeDownloader;
 import org.jclouds.blobstore.util.BlobUtils;
 import org.jclouds.collect.Memoized;
 import org.jclouds.domain.Location;
@@ -415,6 +416,13 @@ public final class B2BlobStore extends BaseBlobStore {
       return 10 * 1000;
    }
 
+   /** B2 does not support conditional get, so ranges cannot be pinned to the ETag. */
+   @Override
+   protected ParallelRangeDownloader rangeDownloader() {
+      return new ParallelRangeDownloader(this, ParallelRangeDownloader.DEFAULT_PART_SIZE,
+            ParallelRangeDownloader.DEFAULT_PREFETCH_PARTS, ParallelRangeDownloader.DEFAULT_RETRY_COUNT_LIMIT, false);
+   }
+
    private Bucket getBucket(String container) {
       Bucket bucket;
       try {